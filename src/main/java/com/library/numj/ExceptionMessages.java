@@ -1,6 +1,8 @@
 package com.library.numj;
 
 import com.library.numj.enums.DType;
+import com.library.numj.enums.MapMode;
+import com.library.numj.storage.Storage;
 
 import java.util.Arrays;
 import java.util.List;
@@ -79,7 +81,7 @@ public final class ExceptionMessages {
 	 * @param shape The provided shape of the array.
 	 * @return A formatted message indicating the shape mismatch.
 	 */
-	public static String shapeMismatchException(int size, int... shape) {
+	public static String shapeMismatchException(long size, int... shape) {
 		return "ShapeMismatchException: The provided shape: " + Arrays.toString(shape) +
 				" is not matching with the provided size: " + size;
 	}
@@ -116,5 +118,597 @@ public final class ExceptionMessages {
 		return "Invalid Shape Exception: Shape could not be empty "+Arrays.toString(shape);
 	}
 
+	/**
+	 * Generates an exception message for a slice with a zero step.
+	 *
+	 * @return A formatted exception message.
+	 */
+	public static String zeroSliceStepException() {
+		return "IllegalArgumentException: Slice step cannot be zero";
+	}
+
+	/**
+	 * Generates an exception message when more indices or slices than dimensions are provided.
+	 *
+	 * @param count The number of indices provided.
+	 * @param ndim  The number of dimensions of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String tooManyIndicesException(int count, int ndim) {
+		return "IllegalArgumentException: Too many indices for array: array is " + ndim
+				+ "-dimensional, but " + count + " were indexed";
+	}
+
+	/**
+	 * Generates an exception message for an axis that does not exist in the array.
+	 *
+	 * @param axis The requested axis.
+	 * @param ndim The number of dimensions of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String invalidAxisException(int axis, int ndim) {
+		return "IllegalArgumentException: Axis " + axis + " is out of bounds for array of dimension " + ndim;
+	}
+
+	/**
+	 * Generates an exception message for an axes permutation that does not match the array.
+	 *
+	 * @param axes The requested permutation.
+	 * @param ndim The number of dimensions of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String invalidAxesException(int[] axes, int ndim) {
+		return "IllegalArgumentException: Axes " + Arrays.toString(axes)
+				+ " are not a permutation of the " + ndim + " dimensions of the array";
+	}
+
+	/**
+	 * Generates an exception message when a result cannot be stored in the data type of an output array.
+	 *
+	 * @param from The data type of the result.
+	 * @param to   The data type of the output array.
+	 * @return A formatted exception message.
+	 */
+	public static String castingException(DType from, DType to) {
+		return "IllegalArgumentException: Cannot cast result of type " + from + " to output of type " + to
+				+ " with casting rule 'same_kind'";
+	}
+
+	/**
+	 * Generates an exception message when an array is too large to be described by a single dimension.
+	 *
+	 * @param size The number of elements of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String dimensionTooLargeException(long size) {
+		return "ShapeException: Cannot lay out " + size + " elements along one dimension, the length of a dimension is limited to "
+				+ Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Generates an exception message for an axis listed more than once in a reduction.
+	 *
+	 * @param axis The repeated axis.
+	 * @return A formatted exception message.
+	 */
+	public static String duplicateAxisException(int axis) {
+		return "IllegalArgumentException: Axis " + axis + " is repeated in the reduction axes";
+	}
+
+	/**
+	 * Generates an exception message for a reduction without identity applied to no element.
+	 *
+	 * @param reduction The name of the reduction.
+	 * @return A formatted exception message.
+	 */
+	public static String emptyReductionException(String reduction) {
+		return "IllegalArgumentException: Zero-size array to reduction operation " + reduction + " which has no identity";
+	}
+
+	/**
+	 * Generates an exception message when a reduction has more results than a Java array can hold.
+	 *
+	 * @param count The number of results.
+	 * @return A formatted exception message.
+	 */
+	public static String reductionTooLargeException(long count) {
+		return "UnsupportedOperationException: Cannot reduce into " + count + " results, the number of results is limited to "
+				+ Storage.MAX_ARRAY_LENGTH;
+	}
+
+	/**
+	 * Generates an exception message when an output array does not have the shape of the result written into it.
+	 *
+	 * @param expected The shape of the result.
+	 * @param actual   The shape of the output array.
+	 * @return A formatted exception message.
+	 */
+	public static String outputShapeException(int[] expected, int[] actual) {
+		return "ShapeMismatchException: Output array of shape " + Arrays.toString(actual)
+				+ " does not match the result shape " + Arrays.toString(expected);
+	}
+
+	/**
+	 * Generates an exception message for operands of a matrix product whose shapes do not fit together.
+	 *
+	 * @param shape1 The shape of the left operand.
+	 * @param shape2 The shape of the right operand.
+	 * @return A formatted exception message.
+	 */
+	public static String matmulShapeException(int[] shape1, int[] shape2) {
+		return "ShapeException: Operands of shapes " + Arrays.toString(shape1) + " and " + Arrays.toString(shape2)
+				+ " do not match in their core dimension for a matrix product";
+	}
+
+	/**
+	 * Generates an exception message for a linear algebra operation applied to an array with too few dimensions.
+	 *
+	 * @param shape The shape of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String matrixDimensionException(int[] shape) {
+		return "ShapeException: Array of shape " + Arrays.toString(shape)
+				+ " has too few dimensions, at least two dimensions are required";
+	}
+
+	/**
+	 * Generates an exception message for a linear algebra operation that requires square matrices.
+	 *
+	 * @param shape The shape of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String squareMatrixException(int[] shape) {
+		return "ShapeException: Last 2 dimensions of the array of shape " + Arrays.toString(shape) + " must be square";
+	}
+
+	/**
+	 * Generates an exception message for a system whose matrix is singular.
+	 *
+	 * @return A formatted exception message.
+	 */
+	public static String singularMatrixException() {
+		return "LinAlgException: Singular matrix";
+	}
+
+	/**
+	 * Generates an exception message for a Cholesky decomposition of a matrix that is not positive definite.
+	 *
+	 * @return A formatted exception message.
+	 */
+	public static String notPositiveDefiniteException() {
+		return "LinAlgException: Matrix is not positive definite";
+	}
+
+	/**
+	 * Generates an exception message for a least squares problem whose matrix does not have full rank.
+	 *
+	 * @return A formatted exception message.
+	 */
+	public static String rankDeficientException() {
+		return "LinAlgException: Matrix does not have full rank";
+	}
+
+	/**
+	 * Generates an exception message for an iterative decomposition that did not converge.
+	 *
+	 * @param what The name of the result that was not found.
+	 * @return A formatted exception message.
+	 */
+	public static String convergenceException(String what) {
+		return "LinAlgException: " + what + " did not converge";
+	}
+
+	/**
+	 * Generates an exception message for a truncated decomposition asked for an unavailable number of terms.
+	 *
+	 * @param k     The number of terms asked for.
+	 * @param limit The largest number of terms available.
+	 * @return A formatted exception message.
+	 */
+	public static String truncationException(int k, int limit) {
+		return "IllegalArgumentException: Cannot compute " + k + " singular triplets, the number of triplets must be between 1 and "
+				+ limit;
+	}
+
+	/**
+	 * Generates an exception message for an array with too many dimensions to be stored as a sparse matrix.
+	 *
+	 * @param shape The shape of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String sparseDimensionException(int[] shape) {
+		return "ShapeException: Array of shape " + Arrays.toString(shape)
+				+ " cannot be stored as a sparse matrix, one or two dimensions are required";
+	}
+
+	/**
+	 * Generates an exception message for element-wise operands whose shapes cannot be broadcast together.
+	 *
+	 * @param shape1 The shape of the left operand.
+	 * @param shape2 The shape of the right operand.
+	 * @return A formatted exception message.
+	 */
+	public static String elementwiseShapeException(int[] shape1, int[] shape2) {
+		return "ShapeException: Operands of shapes " + Arrays.toString(shape1) + " and " + Arrays.toString(shape2)
+				+ " cannot be broadcast together";
+	}
+
+	/**
+	 * Generates an exception message for index arrays that do not describe a valid sparse matrix.
+	 *
+	 * @param reason What is wrong with the index arrays.
+	 * @return A formatted exception message.
+	 */
+	public static String sparseStructureException(String reason) {
+		return "IllegalArgumentException: Invalid sparse matrix structure, " + reason;
+	}
+
+	/**
+	 * Generates an exception message for a sparse matrix with more stored elements than its arrays can hold.
+	 *
+	 * @param count The number of stored elements.
+	 * @return A formatted exception message.
+	 */
+	public static String nonZeroCountException(long count) {
+		return "IllegalArgumentException: Cannot store " + count + " elements in a sparse matrix, the number of stored elements is limited to "
+				+ Storage.MAX_ARRAY_LENGTH;
+	}
+
+	/**
+	 * Generates an exception message for a file that does not follow the NumPy .npy format.
+	 *
+	 * @param reason What is wrong with the file.
+	 * @return A formatted exception message.
+	 */
+	public static String npyFormatException(String reason) {
+		return "IOException: Not a valid .npy file, " + reason;
+	}
+
+	/**
+	 * Generates an exception message for a .npy file holding elements of a type NumJ cannot represent.
+	 *
+	 * @param descr The NumPy type description of the elements.
+	 * @return A formatted exception message.
+	 */
+	public static String npyTypeException(String descr) {
+		return "UnsupportedDataTypeException: Cannot load .npy elements of type " + descr;
+	}
+
+	/**
+	 * Generates an exception message for a file too short to hold the region to map.
+	 *
+	 * @param required  The number of bytes the region needs past the offset.
+	 * @param available The number of bytes the file has past the offset.
+	 * @return A formatted exception message.
+	 */
+	public static String mappedSizeException(long required, long available) {
+		return "IOException: Cannot map " + required + " bytes, the file only has " + available + " bytes past the offset";
+	}
+
+	/**
+	 * Generates an exception message for a mapping mode that cannot be used to open a file.
+	 *
+	 * @param mode   The mapping mode.
+	 * @param reason Why the mode cannot be used.
+	 * @return A formatted exception message.
+	 */
+	public static String mapModeException(MapMode mode, String reason) {
+		return "IllegalArgumentException: Cannot map the file in mode " + mode + ", " + reason;
+	}
+
+	/**
+	 * Generates an exception message for a text field that is not a number of the requested type.
+	 *
+	 * @param field    The text of the field.
+	 * @param position The position of the line holding the field in the file, in bytes.
+	 * @return A formatted exception message.
+	 */
+	public static String textParseException(String field, long position) {
+		return "IOException: Could not parse '" + field + "' in the line at byte " + position;
+	}
+
+	/**
+	 * Generates an exception message for a line of text holding a different number of fields than the first one.
+	 *
+	 * @param expected The number of fields of the first line.
+	 * @param actual   The number of fields of the line.
+	 * @param position The position of the line in the file, in bytes.
+	 * @return A formatted exception message.
+	 */
+	public static String textFieldCountException(int expected, int actual, long position) {
+		return "IOException: Expected " + expected + " fields but found " + actual + " in the line at byte " + position;
+	}
+
+	/**
+	 * Generates an exception message for a selected column that the text does not have.
+	 *
+	 * @param column The selected column.
+	 * @param count  The number of columns of the text.
+	 * @return A formatted exception message.
+	 */
+	public static String columnIndexException(int column, int count) {
+		return "IllegalArgumentException: Column " + column + " is out of bounds for text with " + count + " columns";
+	}
+
+	/**
+	 * Generates an exception message for an array that cannot be written as lines of text.
+	 *
+	 * @param shape The shape of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String textDimensionException(int[] shape) {
+		return "ShapeException: Array of shape " + Arrays.toString(shape) + " cannot be written as text, it must be 1-D or 2-D";
+	}
+
+	/**
+	 * Generates an exception message for a directory that is not a valid chunked array store.
+	 *
+	 * @param reason What is wrong with the store.
+	 * @return A formatted exception message.
+	 */
+	public static String chunkStoreException(String reason) {
+		return "IOException: Not a valid chunked array store, " + reason;
+	}
+
+	/**
+	 * Generates an exception message for a region that does not lie inside an array.
+	 *
+	 * @param start The first index of the region along every dimension.
+	 * @param stop  The index after the last one of the region along every dimension.
+	 * @param shape The shape of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String regionException(int[] start, int[] stop, int[] shape) {
+		return "IllegalArgumentException: Region from " + Arrays.toString(start) + " to " + Arrays.toString(stop)
+				+ " is out of bounds for array of shape " + Arrays.toString(shape);
+	}
+
+	/**
+	 * Generates an exception message for a chunk shape that cannot split an array.
+	 *
+	 * @param chunks The shape of a chunk.
+	 * @param shape  The shape of the array.
+	 * @return A formatted exception message.
+	 */
+	public static String chunkShapeException(int[] chunks, int[] shape) {
+		return "IllegalArgumentException: Chunks of shape " + Arrays.toString(chunks) + " cannot split an array of shape "
+				+ Arrays.toString(shape) + ", they need one positive dimension per dimension of the array and at most "
+				+ Storage.MAX_ARRAY_LENGTH + " bytes";
+	}
+
+	/**
+	 * Generates an exception message for an LZ4 block whose sequences end before they are complete.
+	 *
+	 * @return A formatted exception message.
+	 */
+	public static String lz4TruncatedException() {
+		return "IOException: Truncated LZ4 block";
+	}
+
+	/**
+	 * Generates an exception message for an LZ4 sequence whose literals extend past the end of the block.
+	 *
+	 * @return A formatted exception message.
+	 */
+	public static String lz4LiteralsException() {
+		return "IOException: LZ4 literals run past the end of the block";
+	}
+
+	/**
+	 * Generates an exception message for an LZ4 match copying from before the start of the output.
+	 *
+	 * @param offset The offset of the match.
+	 * @return A formatted exception message.
+	 */
+	public static String lz4OffsetException(int offset) {
+		return "IOException: LZ4 match offset " + offset + " points before the start of the output";
+	}
+
+	/**
+	 * Generates an exception message for an LZ4 match writing past the end of the output.
+	 *
+	 * @return A formatted exception message.
+	 */
+	public static String lz4MatchException() {
+		return "IOException: LZ4 match runs past the end of the output";
+	}
+
+	/**
+	 * Generates an exception message for an LZ4 block that does not decompress to the expected size.
+	 *
+	 * @param actual   The number of bytes the block decompresses to.
+	 * @param expected The number of bytes expected.
+	 * @return A formatted exception message.
+	 */
+	public static String lz4SizeException(int actual, int expected) {
+		return "IOException: LZ4 block decompresses to " + actual + " bytes instead of " + expected;
+	}
+
+	/**
+	 * Generates an exception message for a file or stream that is not valid Arrow IPC data.
+	 *
+	 * @param reason What is wrong with the data.
+	 * @return The exception message.
+	 */
+	public static String arrowFormatException(String reason) {
+		return "IOException: Not a valid Arrow IPC file or stream, " + reason;
+	}
+
+	/**
+	 * Generates an exception message for an Arrow column that cannot be viewed as an array.
+	 *
+	 * @param column The name of the column.
+	 * @param type   The Arrow type of the column.
+	 * @return The exception message.
+	 */
+	public static String arrowTypeException(String column, String type) {
+		return "UnsupportedDataTypeException: Arrow column '" + column + "' of type " + type
+				+ " cannot be viewed as an array, only signed integer, floating-point and temporal columns can";
+	}
 
+	/**
+	 * Generates an exception message for an Arrow column holding null values.
+	 *
+	 * @param column    The name of the column.
+	 * @param nullCount The number of null values.
+	 * @return The exception message.
+	 */
+	public static String arrowNullException(String column, long nullCount) {
+		return "UnsupportedDataTypeException: Arrow column '" + column + "' holds " + nullCount
+				+ " null values, which arrays cannot represent";
+	}
+
+	/**
+	 * Generates an exception message for a column name that is not in an Arrow table.
+	 *
+	 * @param column The name of the column.
+	 * @param names  The names of the columns of the table.
+	 * @return The exception message.
+	 */
+	public static String arrowColumnException(String column, List<String> names) {
+		return "IllegalArgumentException: No Arrow column named '" + column + "', the columns are " + names;
+	}
+
+	/**
+	 * Generates an exception message for arrays that cannot be the columns of an Arrow record batch.
+	 *
+	 * @param column The name of the column.
+	 * @param shape  The shape of the array.
+	 * @param rows   The number of rows of the record batch.
+	 * @return The exception message.
+	 */
+	public static String arrowShapeException(String column, int[] shape, long rows) {
+		return "IllegalArgumentException: Column '" + column + "' of shape " + Arrays.toString(shape)
+				+ " cannot be written to a record batch of " + rows + " rows, columns must be one-dimensional arrays of equal length";
+	}
+
+	/**
+	 * Generates an exception message for a matrix that cannot be written as an Arrow record batch.
+	 *
+	 * @param shape The shape of the array.
+	 * @param names The number of column names given.
+	 * @return The exception message.
+	 */
+	public static String arrowMatrixException(int[] shape, int names) {
+		return "IllegalArgumentException: An array of shape " + Arrays.toString(shape) + " cannot be written as an Arrow record batch with "
+				+ names + " column names, it needs two dimensions and one name per column";
+	}
+
+	/**
+	 * Generates an exception message for a required argument of the parallel execution setup that is null.
+	 *
+	 * @param argument The description of the argument, such as "Executor".
+	 * @return The exception message.
+	 */
+	public static String nullArgumentException(String argument) {
+		return "IllegalArgumentException: " + argument + " cannot be null";
+	}
+
+	/**
+	 * Generates an exception message for a parallelism that is not positive.
+	 *
+	 * @param parallelism The requested parallelism.
+	 * @return The exception message.
+	 */
+	public static String parallelismException(int parallelism) {
+		return "IllegalArgumentException: Parallelism must be positive: " + parallelism;
+	}
+
+	/**
+	 * Generates an exception message for a runtime without virtual threads.
+	 *
+	 * @param javaVersion The version of the running Java runtime.
+	 * @return The exception message.
+	 */
+	public static String virtualThreadsException(String javaVersion) {
+		return "UnsupportedOperationException: Virtual threads are not available on Java " + javaVersion;
+	}
+
+	/**
+	 * Generates an exception message for work submitted to, or installed from, a closed execution context.
+	 *
+	 * @return The exception message.
+	 */
+	public static String contextClosedException() {
+		return "IllegalStateException: Execution context is closed";
+	}
+
+	/**
+	 * Generates an exception message for a thread interrupted while waiting for the chunks of a parallel task.
+	 *
+	 * @return The exception message.
+	 */
+	public static String parallelInterruptedException() {
+		return "IllegalStateException: Interrupted while waiting for parallel work";
+	}
+
+	/**
+	 * Generates an exception message for a negative parallel threshold.
+	 *
+	 * @param threshold The requested threshold.
+	 * @return The exception message.
+	 */
+	public static String thresholdException(int threshold) {
+		return "IllegalArgumentException: Parallel threshold cannot be negative: " + threshold;
+	}
+
+	/**
+	 * Generates an exception message for a chunk size that is not positive.
+	 *
+	 * @param chunkSize The requested chunk size.
+	 * @return The exception message.
+	 */
+	public static String chunkSizeException(int chunkSize) {
+		return "IllegalArgumentException: Chunk size must be positive: " + chunkSize;
+	}
+
+	/**
+	 * Generates an exception message for an off-heap storage accessed after it was closed.
+	 *
+	 * @return The exception message.
+	 */
+	public static String offHeapClosedException() {
+		return "IllegalStateException: Off-heap storage has been closed";
+	}
+
+	/**
+	 * Generates an exception message for a buffer whose size is not a whole number of elements.
+	 *
+	 * @param bytes The number of bytes remaining in the buffer.
+	 * @param dType The data type of the elements.
+	 * @return The exception message.
+	 */
+	public static String bufferElementsException(int bytes, DType dType) {
+		return "IllegalArgumentException: A buffer of " + bytes + " bytes does not hold whole " + dType + " elements";
+	}
+
+	/**
+	 * Generates an exception message for asking an off-heap storage for its backing array.
+	 *
+	 * @return The exception message.
+	 */
+	public static String offHeapArrayException() {
+		return "UnsupportedOperationException: Off-heap storage has no backing array";
+	}
+
+	/**
+	 * Generates an exception message for asking a chunked storage for its backing array.
+	 *
+	 * @return The exception message.
+	 */
+	public static String chunkedArrayException() {
+		return "UnsupportedOperationException: Chunked storage has no single backing array";
+	}
+
+	/**
+	 * Generates an exception message for an iteration range outside of the iterated elements.
+	 *
+	 * @param start The position of the first element of the range.
+	 * @param end   The position after the last element of the range.
+	 * @param size  The number of iterated elements.
+	 * @return The exception message.
+	 */
+	public static String iterationRangeException(long start, long end, long size) {
+		return "IllegalArgumentException: Invalid iteration range [" + start + ", " + end + ") for " + size + " elements";
+	}
 }
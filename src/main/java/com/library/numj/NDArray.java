@@ -1,12 +1,17 @@
 package com.library.numj;
 
 import com.library.numj.enums.DType;
+import com.library.numj.enums.OperationType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.StorageType;
 import com.library.numj.exceptions.ShapeException;
+import com.library.numj.operations.ArithmaticOperations;
+import com.library.numj.operations.Expression;
+import com.library.numj.storage.Storage;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EmptyStackException;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
@@ -14,13 +19,26 @@ import java.util.stream.IntStream;
 /**
  * Represents an N-dimensional array in the NumJ library.
  * Provides methods for array manipulation such as reshaping, flattening, and transposing.
+ * <p>
+ * The elements live in a single flat {@link Storage} of primitives; the N-dimensional
+ * layout is described by a shape, per-dimension element strides and an offset into that storage.
+ * Every dimension is an {@code int}, while the element count, strides and offset are {@code long}s,
+ * so an array may hold more than {@code 2^31} elements.
  *
  * @param <T> The type of elements stored in the array.
  */
 @SuppressWarnings("unchecked")
-public final class NDArray<T> {
-	/** The underlying array data. */
-	private T array;
+public final class NDArray<T> implements AutoCloseable {
+	/** Shared, stateless element-wise operations used by the in-place methods. */
+	private static final ArithmaticOperations OPERATIONS = new ArithmaticOperations();
+	/** The flat element buffer holding the array data. */
+	private Storage storage;
+	/** Position of the first element of this array inside the storage. */
+	private long offset = 0;
+	/** Number of storage elements to skip to advance by one along each dimension. */
+	private long[] elementStrides = new long[0];
+	/** Java element type used when the data is materialized through {@link #getArray()}. */
+	private Class<?> elementClass;
 	/** The number of dimensions of the array. */
 	private int ndim;
 	/** The shape of the array, represented as a list of integers. */
@@ -31,14 +49,19 @@ public final class NDArray<T> {
 	private long itemSize = 0;
 	/** The total number of bytes of array elements*/
 	private long nBytes = 0;
-	private int index = 0;
 	/** Utility class instance for helper methods. */
 	Utils utils;
 	/** Data Type of current array */
 	DType dType = DType.INT8;
 	int elementSize = 1;
+	/** Whether a floating point value was met while scanning the input data. */
+	private boolean floatingPoint = false;
+	/** Whether a non numeric value was met while scanning the input data. */
+	private boolean objectValues = false;
+
 	/**
 	 * Constructs an NDArray from the given data array.
+	 * The nested input is copied once into a flat primitive storage.
 	 *
 	 * @param data The array data to initialize the NDArray with.
 	 * @throws ShapeException If the array has an inhomogeneous shape.
@@ -46,83 +69,206 @@ public final class NDArray<T> {
 	NDArray(T data) throws ShapeException {
 		utils = new Utils();
 
-
-		if(utils.isValue(data))
-		{
-			this.array = data;
+		if (!data.getClass().isArray()) {
+			this.dType = utils.resolveType(data);
+			this.elementClass = data.getClass();
+			this.storage = Storage.allocate(dType, 1);
+			this.storage.set(0, data);
 			this.size = 1;
 			return;
 		}
+		Class<?> leafClass = utils.getComponentType(data);
+		if (utils.isNumericClass(leafClass)) {
+			elementSize = utils.getElementSize(leafClass);
+			floatingPoint = utils.isFloatingPointClass(leafClass);
+			dType = dType.fromSize(elementSize, floatingPoint);
+		}
 		calculateDimensions(data, 0);
 		calculateSize();
-		int[] arrayShape = shape.stream().mapToInt(Integer::intValue).toArray();
-		this.array = (T) Array.newInstance(dType.is(), arrayShape);
-		this.array = createDeepCopy(data);
+		this.elementClass = leafClass;
+		this.storage = Storage.allocate(dType, size);
+		this.elementStrides = contiguousStrides(shapeArray());
+		if (size > 0) {
+			copyRecursive(data, 0, 0);
+		}
+		this.nBytes = this.size * utils.getElementSize(dType.is());
 	}
+
 	/**
 	 * Constructs an NDArray with the given data, shape, and number of dimensions.
+	 * A one-dimensional primitive array of the matching type and size is adopted as the storage without copying,
+	 * any other array is copied element by element in row-major order, and a single value fills the whole array.
 	 *
 	 * @param data  The data to be stored in the NDArray.
 	 * @param shape The shape of the NDArray as an array of integers.
 	 * @param ndim  The number of dimensions of the NDArray.
 	 */
 	NDArray(T data, int[] shape, int ndim, DType dType) {
-		this.array = data;
 		this.dType = dType;
 		utils = new Utils();
-		Arrays.stream(shape).sequential().forEach(value -> {
-			this.shape.add(value);
-			this.size *= value;
-			if(this.size == 0)
-			{
-				this.size = value;
+		setShape(shape);
+		this.ndim = ndim;
+		this.elementClass = dType.is();
+		this.elementStrides = contiguousStrides(shape);
+
+		if (data != null && data.getClass().isArray()) {
+			Storage wrapped = data.getClass().getComponentType().isPrimitive() ? Storage.wrap(data) : null;
+			if (wrapped != null && wrapped.dType() == dType && wrapped.length() == size) {
+				this.storage = wrapped;
+			} else {
+				this.storage = Storage.allocate(dType, size);
+				copyFlat(data, 0);
 			}
-			else{
-				this.size *= value;
+		} else {
+			this.storage = Storage.allocate(dType, size);
+			if (data != null) {
+				for (long i = 0; i < size; i++) {
+					storage.set(i, data);
+				}
 			}
-		});
+		}
 		this.itemSize = this.size + ndim;
-		this.ndim = ndim;
-		this.nBytes = this.itemSize * utils.getElementSize(dType.is());
+		this.nBytes = this.size * utils.getElementSize(dType.is());
+	}
 
+	/**
+	 * Constructs a C-contiguous NDArray over an existing storage.
+	 *
+	 * @param storage The storage holding the elements in row-major order.
+	 * @param shape   The shape of the NDArray.
+	 */
+	NDArray(Storage storage, int[] shape) {
+		this(storage, shape, contiguousStrides(shape), 0, storage.dType().is());
 	}
 
 	/**
-	 * Creates a deep copy of the given array, including nested arrays, using recursion.
+	 * Constructs a contiguous NDArray over an existing storage laid out in the given order.
 	 *
-	 * @param array The array to be copied.
-	 * @return A deep copy of the array.
+	 * @param storage The storage holding the elements.
+	 * @param shape   The shape of the NDArray.
+	 * @param order   Whether the storage holds the elements in row-major (C) or column-major (F) order.
 	 */
-	@SuppressWarnings("unchecked")
-	private T createDeepCopy(T array) {
-		if (!array.getClass().isArray()) {
-			return array;
+	NDArray(Storage storage, int[] shape, Order order) {
+		this(storage, shape, contiguousStrides(shape, order), 0, storage.dType().is());
+	}
+
+	/**
+	 * Constructs an NDArray describing the given layout over an existing storage.
+	 *
+	 * @param storage        The storage holding the elements.
+	 * @param shape          The shape of the NDArray.
+	 * @param elementStrides The element strides of each dimension.
+	 * @param offset         The storage position of the first element.
+	 * @param elementClass   The Java element type used by {@link #getArray()}.
+	 */
+	NDArray(Storage storage, int[] shape, long[] elementStrides, long offset, Class<?> elementClass) {
+		this.utils = new Utils();
+		this.storage = storage;
+		this.dType = storage.dType();
+		this.elementStrides = elementStrides;
+		this.offset = offset;
+		this.elementClass = elementClass;
+		setShape(shape);
+		this.ndim = shape.length;
+		this.itemSize = this.size + ndim;
+		this.nBytes = this.size * utils.getElementSize(dType.is());
+	}
+
+	/**
+	 * Records the shape and the resulting element count.
+	 *
+	 * @param shape The shape of the array.
+	 */
+	private void setShape(int[] shape) {
+		long size = 1;
+		for (int value : shape) {
+			this.shape.add(value);
+			size *= value;
 		}
+		this.size = size;
+	}
 
-		int length = Array.getLength(array);
-		T newArray = (T) Array.newInstance(array.getClass().getComponentType(), length);
+	/**
+	 * Computes row-major element strides for the given shape.
+	 *
+	 * @param shape The shape of the array.
+	 * @return The element strides of each dimension.
+	 */
+	static long[] contiguousStrides(int[] shape) {
+		return contiguousStrides(shape, Order.C);
+	}
 
-		// Parallel stream to copy array elements concurrently
-		IntStream.range(0, length).parallel().forEach(i -> {
-			T element = (T) Array.get(array, i);
+	/**
+	 * Computes contiguous element strides for the given shape and memory order.
+	 * In C order the last dimension varies fastest, in F order the first one does.
+	 *
+	 * @param shape The shape of the array.
+	 * @param order The memory order.
+	 * @return The element strides of each dimension.
+	 */
+	static long[] contiguousStrides(int[] shape, Order order) {
+		long[] strides = new long[shape.length];
+		long stride = 1;
+		if (order == Order.F) {
+			for (int i = 0; i < shape.length; i++) {
+				strides[i] = stride;
+				stride *= shape[i];
+			}
+			return strides;
+		}
+		for (int i = shape.length - 1; i >= 0; i--) {
+			strides[i] = stride;
+			stride *= shape[i];
+		}
+		return strides;
+	}
+
+	/**
+	 * Recursively copies the nested input data into the storage in row-major order.
+	 *
+	 * @param source   The current sub-array being copied.
+	 * @param level    The dimension the sub-array belongs to.
+	 * @param position The storage position of the first element of the sub-array.
+	 * @return The storage position following the copied elements.
+	 */
+	private long copyRecursive(Object source, int level, long position) {
+		int length = Array.getLength(source);
+		if (level < ndim - 1) {
+			for (int i = 0; i < length; i++) {
+				position = copyRecursive(Array.get(source, i), level + 1, position);
+			}
+			return position;
+		}
+		if (storage.hasArray() && source.getClass().getComponentType() == storage.array().getClass().getComponentType()) {
+			System.arraycopy(source, 0, storage.array(), (int) position, length);
+		} else {
+			for (int i = 0; i < length; i++) {
+				storage.set(position + i, Array.get(source, i));
+			}
+		}
+		return position + length;
+	}
+
+	/**
+	 * Copies arbitrarily nested data into the storage in row-major order, ignoring its nesting.
+	 *
+	 * @param source   The current sub-array being copied.
+	 * @param position The storage position to copy to.
+	 * @return The storage position following the copied elements.
+	 */
+	private long copyFlat(Object source, long position) {
+		int length = Array.getLength(source);
+		for (int i = 0; i < length && position < size; i++) {
+			Object element = Array.get(source, i);
 			if (element != null && element.getClass().isArray()) {
-				Array.set(newArray, i, createDeepCopy(element));
+				position = copyFlat(element, position);
 			} else {
-				if(!(element instanceof  String))
-				{
-					Class<?> tempClass = array.getClass().getComponentType();
-					this.dType = dType.fromSize(utils.getElementSize(tempClass == null ? Object.class : tempClass), utils.isFloatingPoint(element));
-				}
-				else{
-					this.dType = DType.OBJECT;
-				}
-				Array.set(newArray, i, element);
+				storage.set(position++, element);
 			}
-		});
-		return newArray;
+		}
+		return position;
 	}
 
-
 	/**
 	 * Calculates the total size and item size of the array based on its shape.
 	 */
@@ -136,7 +282,7 @@ public final class NDArray<T> {
 	}
 
 	/**
-	 * Recursively calculates the dimensions of the array.
+	 * Recursively calculates the dimensions of the array and the data type of its elements.
 	 *
 	 * @param arr   The array to calculate dimensions for.
 	 * @param level The current level of recursion (dimension depth).
@@ -147,43 +293,6 @@ public final class NDArray<T> {
 		if (!arr.getClass().isArray()) {
 			return ndim;
 		}
-		if(utils.isPrimitive(arr))
-		{
-			for(int i = 0; i<Array.getLength(arr);i++)
-			{
-				T value = (T)Array.get(arr, i);
-				if(value == null)
-				{
-					elementSize = 16;
-					this.dType = DType.OBJECT;
-				}
-				else{
-					elementSize = Math.max(elementSize, utils.getElementSize(value.getClass()));
-					this.dType = dType.fromSize(elementSize, (value instanceof Double || value instanceof Float));
-				}
-
-			}
-//			Class<?> classType = Array.get(arr, 0).getClass();
-//			if(utils.isValue(classType))
-//			{
-//				Arrays.stream((T[])arr).parallel().forEach(value->{
-//					if(value instanceof Number || value instanceof String)
-//					{
-//						elementSize = Math.max(elementSize, utils.getElementSize(value.getClass()));
-//						this.dType = dType.fromSize(elementSize, (value instanceof Double || value instanceof Float));
-//					}
-//				});
-//			}
-//			else{
-//				for(int i = 0; i<Array.getLength(arr);i++)
-//				{
-//					T value = (T)Array.get(arr, i);
-//					elementSize = Math.max(elementSize, utils.getElementSize(value.getClass()));
-//					this.dType = dType.fromSize(elementSize, (value instanceof Double || value instanceof Float));
-//				}
-//			}
-
-		}
 		int length = Array.getLength(arr);
 
 		synchronized (this) {  // Synchronize access to shared state (shape, ndim)
@@ -196,6 +305,9 @@ public final class NDArray<T> {
 				ndim++;
 			}
 		}
+		if (arr.getClass().getComponentType().isPrimitive()) {
+			return ndim;  // The element type of primitive leaves is known from the array class
+		}
 
 		// Check the first element's class type
 		Class<?> previousClass = (length > 0 && Array.get(arr, 0) != null)
@@ -204,7 +316,6 @@ public final class NDArray<T> {
 
 		AtomicInteger previousDim = new AtomicInteger();
 
-		// Parallel stream to process the array
 		IntStream.range(0, length).sequential().forEach(i -> {
 			T element = (T) Array.get(arr, i);
 			try{
@@ -225,25 +336,117 @@ public final class NDArray<T> {
 					if (previousClass != null && previousClass.isArray()) {
 						throw new ShapeException(ExceptionMessages.getShapeException(ndim, shape));
 					}
+					recordElementType(element);
 				}
 			}catch (ShapeException e)
 			{
 				throw new RuntimeException(e);
 			}
-			
+
 		});
 
 		return ndim;
 	}
 
+	/**
+	 * Widens the data type of the array so that it can hold the given element.
+	 *
+	 * @param value The element met while scanning the input data.
+	 */
+	private void recordElementType(Object value) {
+		if (!(value instanceof Number) || !utils.isNumericClass(value.getClass())) {
+			objectValues = true;
+		} else {
+			elementSize = Math.max(elementSize, utils.getElementSize(value.getClass()));
+			floatingPoint |= utils.isFloatingPoint(value);
+		}
+		this.dType = objectValues ? DType.OBJECT : dType.fromSize(elementSize, floatingPoint);
+	}
+
 
 	/**
-	 * Returns the underlying array data.
+	 * Returns the array data as a nested Java array.
+	 * The data is materialized from the flat storage on every call, using the element type
+	 * of the original input ({@code int[][]}, {@code Integer[][]}, ...) or the boxed type of the
+	 * {@link DType} for arrays created by NumJ.
 	 *
 	 * @return The array data.
 	 */
 	public T getArray() {
-		return this.array;
+		if (ndim == 0) {
+			return (T) storage.get(offset);
+		}
+		int[] dims = shapeArray();
+		Object result = Array.newInstance(elementClass, dims);
+		if (size > 0) {
+			materializeRecursive(result, 0, offset);
+		}
+		return (T) result;
+	}
+
+	/**
+	 * Recursively fills a nested Java array from the storage.
+	 *
+	 * @param target   The nested array to fill.
+	 * @param level    The dimension the target belongs to.
+	 * @param position The storage position of the first element of the target.
+	 */
+	private void materializeRecursive(Object target, int level, long position) {
+		int length = Array.getLength(target);
+		long stride = elementStrides[level];
+		if (level < ndim - 1) {
+			for (int i = 0; i < length; i++) {
+				materializeRecursive(Array.get(target, i), level + 1, position + i * stride);
+			}
+			return;
+		}
+		if (stride == 1 && storage.hasArray() && target.getClass().getComponentType() == storage.array().getClass().getComponentType()) {
+			System.arraycopy(storage.array(), (int) position, target, 0, length);
+		} else {
+			for (int i = 0; i < length; i++) {
+				Array.set(target, i, storage.get(position + i * stride));
+			}
+		}
+	}
+
+	/**
+	 * Returns the flat storage backing this array.
+	 *
+	 * @return The storage.
+	 */
+	public Storage storage() {
+		return this.storage;
+	}
+
+	/**
+	 * Returns the storage position of the first element of this array.
+	 *
+	 * @return The offset into the storage.
+	 */
+	public long offset() {
+		return this.offset;
+	}
+
+	/**
+	 * Returns the number of storage elements to skip to advance by one along each dimension.
+	 *
+	 * @return The element strides of each dimension.
+	 */
+	public long[] elementStrides() {
+		return elementStrides.clone();
+	}
+
+	/**
+	 * Returns the shape of the array as a primitive array.
+	 *
+	 * @return The size in each dimension.
+	 */
+	public int[] shapeArray() {
+		int[] dims = new int[shape.size()];
+		for (int i = 0; i < dims.length; i++) {
+			dims[i] = shape.get(i);
+		}
+		return dims;
 	}
 
 	/**
@@ -268,61 +471,63 @@ public final class NDArray<T> {
 	 * Prints the array in a multi-dimensional format.
 	 */
 	public void printArray() {
-		printRecurssive(array, 1, false);
+		printArray(false);
 	}
 	public void printArray(boolean isFullArray) {
-		printRecurssive(array, 1, isFullArray);
+		if (ndim == 0) {
+			System.out.println(storage.get(offset));
+			return;
+		}
+		printRecurssive(0, offset, isFullArray);
 	}
 
-	private void printRecurssive(T array, int depth, boolean isFull) {
-		String indent = getIndent(depth);
-		if(utils.isPrimitive(array))
+	private void printRecurssive(int level, long position, boolean isFull) {
+		String indent = getIndent(level + 1);
+		int length = shape.get(level);
+		long stride = elementStrides[level];
+		if (level == ndim - 1)
 		{
 			System.out.print(indent + "[");
-			int length = Array.getLength(array);
 			if(length > 40 && !isFull) {
 				for(int i = 0;i<10;i++)
 				{
 					if(9 == i ){
-						System.out.print(Array.get(array, i));
+						System.out.print(storage.get(position + i * stride));
 					}
 					else{
-						System.out.print(Array.get(array, i)+", ");
+						System.out.print(storage.get(position + i * stride)+", ");
 					}
 				}
 				System.out.print("........");
 				for(int i = length-11;i<length;i++)
 				{
 					if(length-1 == i ){
-						System.out.print(Array.get(array, i));
+						System.out.print(storage.get(position + i * stride));
 					}
 					else{
-						System.out.print(Array.get(array, i)+", ");
+						System.out.print(storage.get(position + i * stride)+", ");
 					}
 				}
 			}else {
 				for(int i = 0;i<length;i++)
 				{
 					if(length-1 == i ){
-						System.out.print(Array.get(array, i));
+						System.out.print(storage.get(position + i * stride));
 					}
 					else{
-						System.out.print(Array.get(array, i)+", ");
+						System.out.print(storage.get(position + i * stride)+", ");
 					}
 				}
 			}
 
 			System.out.println("],");
-		} else if (utils.isValue(array)) {
-			System.out.println(array);
 		} else{
 			System.out.println(indent + "[");
-			for(int i = 0;i<Array.getLength(array);i++)
+			for(int i = 0;i<length;i++)
 			{
-				printRecurssive((T) Array.get(array, i), depth+1, isFull);
+				printRecurssive(level + 1, position + i * stride, isFull);
 			}
-			int l = Array.getLength(array);
-			if(depth == l-1) {
+			if(level + 1 == length-1) {
 				System.out.println(indent + "],");
 			}else{
 				System.out.println(indent + "]");
@@ -358,49 +563,95 @@ public final class NDArray<T> {
 	}
 
 	/**
-	 * Recursively flattens the array into a one-dimensional list.
+	 * Copies the elements of this array in row-major order into a new contiguous storage
+	 * held in the same kind of memory as this array.
 	 *
-	 * @param currentArray The current sub-array being processed.
-	 * @param flatArray     The list to accumulate the flattened elements.
+	 * @return A new storage holding the elements of this array.
 	 */
-	private synchronized  <R> void flattenRecursive(T currentArray, R flatArray, int level) {
+	private Storage ravelCopy() {
+		return ravelCopy(storage.storageType());
+	}
 
-		final int finalLevel = level+1;
-		if(utils.isPrimitive(currentArray))
-		{
-			for(int i = 0;i<Array.getLength(currentArray);i++)
-			{
-				Array.set(flatArray, index++, Array.get(currentArray, i));
-			}
-		}else if(utils.isValue(currentArray))
-		{
-			Array.set(flatArray, index++, currentArray);
+	/**
+	 * Copies the elements of this array in row-major order into a new contiguous storage.
+	 *
+	 * @param storageType Where the copied elements are held.
+	 * @return A new storage holding the elements of this array.
+	 */
+	private Storage ravelCopy(StorageType storageType) {
+		Storage copy = Storage.allocate(dType, size, storageType);
+		if (size == 0) {
+			return copy;
+		}
+		if (ndim == 0) {
+			copy.set(0, storage.get(offset));
+			return copy;
+		}
+		if (isContiguous()) {
+			storage.copyTo(offset, copy, 0, size);
+			return copy;
 		}
-		else{
-			Arrays.stream(((T[])currentArray)).sequential()
-					.forEach(element -> flattenRecursive(element, flatArray, finalLevel));
+		int[] dims = shapeArray();
+		int[] indices = new int[ndim];
+		long position = offset;
+		for (long i = 0; i < size; i++) {
+			copy.set(i, storage.get(position));
+			for (int axis = ndim - 1; axis >= 0; axis--) {
+				if (++indices[axis] < dims[axis]) {
+					position += elementStrides[axis];
+					break;
+				}
+				position -= (dims[axis] - 1) * elementStrides[axis];
+				indices[axis] = 0;
+			}
 		}
+		return copy;
 	}
 
 	/**
 	 * Flattens the array into a one-dimensional NDArray.
+	 * The result is always a new contiguous copy, independent of this array.
 	 *
 	 * @return A new NDArray that is a flattened version of the original array.
-	 * @throws ShapeException If an error occurs during flattening.
+	 * @throws ShapeException If the array has more elements than a single dimension can hold.
 	 */
 	public <R> NDArray<R> flatten() throws ShapeException {
-		R flatArray = (R) Array.newInstance(dType.is(), (int)this.size);
-		Arrays.fill((R[])flatArray, dType.getDefaultValue());
-		flattenRecursive(this.array, flatArray, 0);
-		this.index = 0;
-		return new NDArray<>(flatArray);
+		int length = flatLength();
+		return new NDArray<>(ravelCopy(), new int[]{length}, new long[]{1}, 0, elementClass);
+	}
+
+	/**
+	 * Returns the array as one dimension, sharing the storage when the data is contiguous
+	 * and copying it otherwise.
+	 *
+	 * @return A one-dimensional view or copy of the array.
+	 * @throws ShapeException If the array has more elements than a single dimension can hold.
+	 */
+	public <R> NDArray<R> ravel() throws ShapeException {
+		return reshape(flatLength());
+	}
+
+	/**
+	 * Returns the length of the array laid out along a single dimension.
+	 * Arrays may hold more than {@code 2^31} elements in total, but each dimension is an {@code int}.
+	 *
+	 * @return The number of elements of the array.
+	 * @throws ShapeException If the number of elements does not fit in one dimension.
+	 */
+	private int flatLength() throws ShapeException {
+		if (size > Integer.MAX_VALUE) {
+			throw new ShapeException(ExceptionMessages.dimensionTooLargeException(size));
+		}
+		return (int) size;
 	}
 
 	/**
 	 * Reshapes the array to the specified new shape.
+	 * Contiguous arrays are reshaped in O(ndim) by returning a view sharing the same storage;
+	 * other layouts are copied into a new contiguous storage first.
 	 *
 	 * @param newShape The desired shape dimensions.
-	 * @return A new NDArray with the specified shape.
+	 * @return An NDArray with the specified shape.
 	 * @throws ShapeException If the total size does not match the original array.
 	 */
 	public <R> NDArray<R> reshape(int... newShape) throws ShapeException {
@@ -408,41 +659,322 @@ public final class NDArray<T> {
 				.asLongStream()
 				.reduce(1, (a, b) -> a * b);
 
+		if (this.size != newSize) {
+			throw new ShapeException(ExceptionMessages.shapeMismatchedException(size, Arrays.toString(newShape)));
+		}
+		int[] dims = newShape.clone();
+		if (isContiguous()) {
+			return new NDArray<>(storage, dims, contiguousStrides(dims), offset, elementClass);
+		}
+		return new NDArray<>(ravelCopy(), dims, contiguousStrides(dims), 0, elementClass);
+	}
 
+	/**
+	 * Returns a view of the array with its dimensions reversed.
+	 *
+	 * @return A transposed view sharing the storage of this array.
+	 */
+	public <R> NDArray<R> transpose() {
+		int[] axes = new int[ndim];
+		for (int i = 0; i < ndim; i++) {
+			axes[i] = ndim - 1 - i;
+		}
+		return transpose(axes);
+	}
 
+	/**
+	 * Returns a view of the array with its dimensions permuted.
+	 * Only the shape and strides are rearranged, the storage is shared.
+	 *
+	 * @param axes The new order of the dimensions, a permutation of {@code 0..ndim-1}.
+	 * @return A permuted view sharing the storage of this array.
+	 * @throws IllegalArgumentException If axes is not a permutation of the dimensions.
+	 */
+	public <R> NDArray<R> transpose(int... axes) {
+		if (axes.length != ndim) {
+			throw new IllegalArgumentException(ExceptionMessages.invalidAxesException(axes, ndim));
+		}
+		boolean[] seen = new boolean[ndim];
+		int[] dims = new int[ndim];
+		long[] strides = new long[ndim];
+		for (int i = 0; i < ndim; i++) {
+			int axis = normalizeAxis(axes[i]);
+			if (seen[axis]) {
+				throw new IllegalArgumentException(ExceptionMessages.invalidAxesException(axes, ndim));
+			}
+			seen[axis] = true;
+			dims[i] = shape.get(axis);
+			strides[i] = elementStrides[axis];
+		}
+		return new NDArray<>(storage, dims, strides, offset, elementClass);
+	}
 
-		if (this.size != newSize) {
-			throw new ShapeException(ExceptionMessages.shapeMismatchedException(size, Arrays.toString(newShape)));
+	/**
+	 * Returns a view of the array with two dimensions interchanged.
+	 *
+	 * @param axis1 The first dimension.
+	 * @param axis2 The second dimension.
+	 * @return A view sharing the storage of this array.
+	 * @throws IllegalArgumentException If an axis is out of bounds.
+	 */
+	public <R> NDArray<R> swapAxes(int axis1, int axis2) {
+		int[] axes = new int[ndim];
+		for (int i = 0; i < ndim; i++) {
+			axes[i] = i;
 		}
-		Class<?> arrayOutType = this.array.getClass().getComponentType();
-		while (arrayOutType.isArray()) {
-			arrayOutType = arrayOutType.getComponentType();
+		axes[normalizeAxis(axis1)] = normalizeAxis(axis2);
+		axes[normalizeAxis(axis2)] = normalizeAxis(axis1);
+		return transpose(axes);
+	}
+
+	/**
+	 * Returns a view selecting a {@code start:stop:step} range along the leading dimensions.
+	 * Dimensions without a slice are kept whole. The view shares the storage of this array.
+	 *
+	 * @param slices The selection for each leading dimension.
+	 * @return A view of the selected elements.
+	 * @throws IllegalArgumentException If more slices than dimensions are given.
+	 */
+	public <R> NDArray<R> slice(Slice... slices) {
+		if (slices.length > ndim) {
+			throw new IllegalArgumentException(ExceptionMessages.tooManyIndicesException(slices.length, ndim));
 		}
-		R flatList = (R) Array.newInstance(arrayOutType, (int) newSize);
-		flattenRecursive(this.array, flatList, 0);
-		R newArray = (R) Array.newInstance(arrayOutType, newShape);
-		this.index = 0;
-		buildArrayFromFlatList(flatList, newArray);
+		int[] dims = shapeArray();
+		long[] strides = elementStrides.clone();
+		long position = offset;
+		for (int i = 0; i < slices.length; i++) {
+			int length = dims[i];
+			int count = slices[i].count(length);
+			if (count > 0) {
+				position += slices[i].first(length) * elementStrides[i];
+			}
+			dims[i] = count;
+			strides[i] = elementStrides[i] * slices[i].step();
+		}
+		return new NDArray<>(storage, dims, strides, position, elementClass);
+	}
 
-		return new NDArray<>(newArray);
+	/**
+	 * Returns a contiguous copy of the array that does not share storage with it.
+	 *
+	 * @return A new row-major NDArray holding the same elements.
+	 */
+	public <R> NDArray<R> copy() {
+		return new NDArray<>(ravelCopy(), shapeArray(), contiguousStrides(shapeArray()), 0, elementClass);
+	}
 
+	/**
+	 * Returns a contiguous copy of the array held in the given kind of memory,
+	 * for instance to move an array off the heap or back onto it.
+	 *
+	 * @param storageType Where the copied elements are held.
+	 * @return A new row-major NDArray holding the same elements.
+	 * @throws com.library.numj.exceptions.UnsupportedDataTypeException If OBJECT elements are requested off-heap.
+	 */
+	public <R> NDArray<R> copy(StorageType storageType) {
+		return new NDArray<>(ravelCopy(storageType), shapeArray(), contiguousStrides(shapeArray()), 0, elementClass);
 	}
 
+	/**
+	 * Returns a contiguous copy of the array laid out in the given memory order.
+	 *
+	 * @param order Whether the copy is row-major (C) or column-major (F).
+	 * @return A new NDArray holding the same elements.
+	 */
+	public <R> NDArray<R> copy(Order order) {
+		// The column-major layout of an array is the row-major layout of its transpose
+		Storage copy = order == Order.F ? transpose().ravelCopy() : ravelCopy();
+		return new NDArray<>(copy, shapeArray(), contiguousStrides(shapeArray(), order), 0, elementClass);
+	}
 
 	/**
-	 * Builds a multi-dimensional array from a flat list based on the given shape.
+	 * Returns the kind of memory holding the elements of the array.
 	 *
-	 * @param flatList The flat list of array elements.
-	 * @param newArray The desired new array to fill the values.
+	 * @return The storage type.
 	 */
-	private <R> void buildArrayFromFlatList(R flatList, R newArray) {
-		if (Array.get(newArray, 0) != null && Array.get(newArray, 0).getClass().isArray()) {
-			IntStream.range(0, Array.getLength(newArray))
-					.forEach(i -> buildArrayFromFlatList(flatList, Array.get(newArray, i)));
-		} else {
-			IntStream.range(0, Array.getLength(newArray))
-					.forEach(i -> Array.set(newArray, i, Array.get(flatList, index++)));
+	public StorageType storageType() {
+		return storage.storageType();
+	}
+
+	/**
+	 * Releases the memory of the array right away when it is held off-heap; heap arrays are left to the
+	 * garbage collector. Views share the storage of the array they were created from, so closing any of
+	 * them releases the elements of all of them. No operation on the array or its views may be running when
+	 * it is closed.
+	 */
+	@Override
+	public void close() {
+		storage.close();
+	}
+
+	/**
+	 * Writes the modified elements of a memory-mapped array back to its file right away, instead of when the
+	 * operating system evicts the pages or the array is closed. Arrays that are not mapped read-write are left as they are.
+	 */
+	public void flush() {
+		storage.flush();
+	}
+
+	/**
+	 * Checks whether the elements of the array are laid out in row-major order without gaps.
+	 * Same as {@link #isCContiguous()}.
+	 *
+	 * @return True if the array is C-contiguous.
+	 */
+	public boolean isContiguous() {
+		return isCContiguous();
+	}
+
+	/**
+	 * Checks whether the elements of the array are laid out in row-major (C) order without gaps,
+	 * the last dimension varying fastest.
+	 *
+	 * @return True if the array is C-contiguous.
+	 */
+	public boolean isCContiguous() {
+		long expected = 1;
+		for (int i = ndim - 1; i >= 0; i--) {
+			int dim = shape.get(i);
+			if (dim != 1 && elementStrides[i] != expected) {
+				return false;
+			}
+			expected *= dim;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the elements of the array are laid out in column-major (F) order without gaps,
+	 * the first dimension varying fastest. One-dimensional contiguous arrays are both C and F contiguous.
+	 *
+	 * @return True if the array is F-contiguous.
+	 */
+	public boolean isFContiguous() {
+		long expected = 1;
+		for (int i = 0; i < ndim; i++) {
+			int dim = shape.get(i);
+			if (dim != 1 && elementStrides[i] != expected) {
+				return false;
+			}
+			expected *= dim;
 		}
+		return true;
+	}
+
+	/**
+	 * Returns the memory order of the array: F when it is column-major contiguous but not row-major
+	 * contiguous, C otherwise. New arrays derived from this one use it to keep the same layout.
+	 *
+	 * @return The memory order of the array.
+	 */
+	public Order order() {
+		return isFContiguous() && !isCContiguous() ? Order.F : Order.C;
+	}
+
+	/**
+	 * Checks whether this array and another one may read or write the same storage elements.
+	 * The check compares the storage ranges spanned by both arrays, so interleaved views of one
+	 * storage are conservatively reported as sharing memory.
+	 *
+	 * @param other The other array.
+	 * @return True if both arrays view overlapping ranges of the same storage.
+	 */
+	public boolean mayShareMemory(NDArray<?> other) {
+		if (storage != other.storage || size == 0 || other.size == 0) {
+			return false;
+		}
+		long[] extent = extent();
+		long[] otherExtent = other.extent();
+		return extent[0] <= otherExtent[1] && otherExtent[0] <= extent[1];
+	}
+
+	/**
+	 * Computes the lowest and highest storage positions reached by the array.
+	 *
+	 * @return The first and last storage positions, both inclusive.
+	 */
+	private long[] extent() {
+		long low = offset;
+		long high = offset;
+		for (int i = 0; i < ndim; i++) {
+			long reach = elementStrides[i] * (shape.get(i) - 1);
+			if (reach < 0) low += reach;
+			else high += reach;
+		}
+		return new long[]{low, high};
+	}
+
+	/**
+	 * Adds another array to this one in place, broadcasting it to the shape of this array.
+	 *
+	 * @param other The array to add.
+	 * @return This array.
+	 * @throws ShapeException If other cannot be broadcast to the shape of this array.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of this array.
+	 */
+	public NDArray<T> addi(NDArray<T> other) throws ShapeException {
+		return OPERATIONS.operateInto(this, this, other, OperationType.ADDITION);
+	}
+
+	/**
+	 * Subtracts another array from this one in place, broadcasting it to the shape of this array.
+	 *
+	 * @param other The array to subtract.
+	 * @return This array.
+	 * @throws ShapeException If other cannot be broadcast to the shape of this array.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of this array.
+	 */
+	public NDArray<T> subi(NDArray<T> other) throws ShapeException {
+		return OPERATIONS.operateInto(this, this, other, OperationType.SUBTRACTION);
+	}
+
+	/**
+	 * Multiplies this array by another one in place, broadcasting it to the shape of this array.
+	 *
+	 * @param other The array to multiply by.
+	 * @return This array.
+	 * @throws ShapeException If other cannot be broadcast to the shape of this array.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of this array.
+	 */
+	public NDArray<T> muli(NDArray<T> other) throws ShapeException {
+		return OPERATIONS.operateInto(this, this, other, OperationType.MULTIPLICATION);
+	}
+
+	/**
+	 * Divides this array by another one in place, broadcasting it to the shape of this array.
+	 *
+	 * @param other The array to divide by.
+	 * @return This array.
+	 * @throws ShapeException If other cannot be broadcast to the shape of this array.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of this array.
+	 */
+	public NDArray<T> divi(NDArray<T> other) throws ShapeException {
+		return OPERATIONS.operateInto(this, this, other, OperationType.DIVISION);
+	}
+
+	/**
+	 * Starts a lazily evaluated expression reading this array.
+	 * Operations on the returned expression build a graph that is fused into a single pass when evaluated.
+	 *
+	 * @return A leaf expression over this array.
+	 */
+	public Expression lazy() {
+		return Expression.of(this);
+	}
+
+	/**
+	 * Converts a possibly negative axis into a dimension index.
+	 *
+	 * @param axis The axis, negative values counting from the last dimension.
+	 * @return The dimension index.
+	 * @throws IllegalArgumentException If the axis is out of bounds.
+	 */
+	int normalizeAxis(int axis) {
+		int normalized = axis < 0 ? axis + ndim : axis;
+		if (normalized < 0 || normalized >= ndim) {
+			throw new IllegalArgumentException(ExceptionMessages.invalidAxisException(axis, ndim));
+		}
+		return normalized;
 	}
 
 
@@ -463,17 +995,15 @@ public final class NDArray<T> {
 	}
 
 	/**
-	 * Calculates the strides of the array based on its current shape.
+	 * Calculates the strides of the array in bytes based on its memory layout.
 	 *
 	 * @return An array of strides corresponding to each dimension.
 	 */
-	public int[] strides() {
-		int[] strides = new int[shape.size()];
-		int stride = utils.getElementSize(dType.is());//shape.get(0).getClass()
-
-		for (int i = shape.size() - 1; i >= 0; i--) {
-			strides[i] = stride;
-			stride *= shape.get(i);
+	public long[] strides() {
+		long[] strides = new long[ndim];
+		int elementBytes = utils.getElementSize(dType.is());
+		for (int i = 0; i < ndim; i++) {
+			strides[i] = elementStrides[i] * elementBytes;
 		}
 		return strides;
 	}
@@ -1,16 +1,39 @@
 package com.library.numj;
 
 import com.library.numj.enums.DType;
+import com.library.numj.enums.MapMode;
 import com.library.numj.enums.OperationType;
+import com.library.numj.enums.NormType;
 import com.library.numj.enums.Order;
+import com.library.numj.enums.QRMode;
+import com.library.numj.enums.ReductionType;
+import com.library.numj.enums.SparseFormat;
+import com.library.numj.enums.StorageType;
 import com.library.numj.exceptions.ShapeException;
 import com.library.numj.exceptions.ShapeMismatchException;
+import com.library.numj.io.ArrowFormat;
+import com.library.numj.io.ArrowTable;
+import com.library.numj.io.MemoryMap;
+import com.library.numj.io.NpyFormat;
+import com.library.numj.io.TextFormat;
+import com.library.numj.linalg.LinearAlgebra;
 import com.library.numj.operations.ArithmaticOperations;
 import com.library.numj.operations.ArrayCreation;
 import com.library.numj.operations.ArrayModification;
+import com.library.numj.operations.Blas;
+import com.library.numj.operations.MatrixMultiplication;
+import com.library.numj.operations.Reductions;
+import com.library.numj.operations.Scans;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.sparse.SparseArray;
+import com.library.numj.sparse.SparseOperations;
+import com.library.numj.storage.Storage;
 
-import java.lang.reflect.Array;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static com.library.numj.ExceptionMessages.shapeMismatchException;
 
@@ -25,6 +48,18 @@ public class NumJ {
 	ArithmaticOperations arithmaticOperations;
 	ArrayModification arrayModification;
 	ArrayCreation arrayCreation;
+	/** Instance of Reductions for reducing NDArrays along their axes. */
+	Reductions reductions;
+	/** Instance of Scans for cumulative operations along an axis. */
+	Scans scans;
+	/** Instance of MatrixMultiplication for matrix products. */
+	MatrixMultiplication matrixMultiplication;
+	/** Instance of Blas for vector and matrix-vector kernels. */
+	Blas blas;
+	/** Instance of LinearAlgebra for solvers and decompositions. */
+	LinearAlgebra linearAlgebra;
+	/** Instance of SparseOperations for arithmetic on sparse matrices. */
+	SparseOperations sparseOperations;
 
 	/**
 	 * Default constructor initializes the arithmetic operations.
@@ -33,6 +68,12 @@ public class NumJ {
 		arithmaticOperations = new ArithmaticOperations();
 		arrayModification = new ArrayModification();
 		arrayCreation = new ArrayCreation();
+		reductions = new Reductions();
+		scans = new Scans();
+		matrixMultiplication = new MatrixMultiplication();
+		blas = new Blas();
+		linearAlgebra = new LinearAlgebra();
+		sparseOperations = new SparseOperations();
 	}
 
 	/**
@@ -45,11 +86,59 @@ public class NumJ {
 	public <T, R>NDArray<R> array(T data) throws ShapeException{
 		return (NDArray<R>) new NDArray<>(data);
 	}
+
+	/**
+	 * Creates an NDArray from the given data array, held in the given kind of memory.
+	 *
+	 * @param data        The data to be stored in the NDArray.
+	 * @param storageType Whether the elements are held on the Java heap or in native memory.
+	 * @return An NDArray containing the provided data.
+	 * @throws ShapeException If the data cannot be converted into an NDArray due to shape issues.
+	 */
+	public <T, R> NDArray<R> array(T data, StorageType storageType) throws ShapeException {
+		NDArray<R> array = (NDArray<R>) new NDArray<>(data);
+		return storageType == StorageType.HEAP ? array : array.copy(storageType);
+	}
 	public <T, R> NDArray<R> array(T data, int[] shape, int ndim, DType dType)
 	{
 		return (NDArray<R>) new NDArray<>(data, shape, ndim, dType);
 	}
 
+	/**
+	 * Creates a row-major NDArray backed directly by the given storage, without copying it.
+	 *
+	 * @param storage The storage holding the elements in row-major order.
+	 * @param shape   The shape of the NDArray.
+	 * @return An NDArray viewing the storage with the given shape.
+	 * @throws ShapeMismatchException If the shape does not describe the storage length.
+	 */
+	public <R> NDArray<R> array(Storage storage, int[] shape)
+	{
+		long size = 1;
+		for (int dim : shape) size *= dim;
+		if (size != storage.length())
+			throw new ShapeMismatchException(shapeMismatchException(storage.length(), shape));
+		return new NDArray<>(storage, shape.clone());
+	}
+
+	/**
+	 * Creates a contiguous NDArray viewing an existing storage laid out in the given memory order.
+	 *
+	 * @param storage The storage holding the elements.
+	 * @param shape   The shape of the NDArray.
+	 * @param order   Whether the storage holds the elements in row-major (C) or column-major (F) order.
+	 * @return An NDArray viewing the storage with the given shape.
+	 * @throws ShapeMismatchException If the shape does not describe the storage length.
+	 */
+	public <R> NDArray<R> array(Storage storage, int[] shape, Order order)
+	{
+		long size = 1;
+		for (int dim : shape) size *= dim;
+		if (size != storage.length())
+			throw new ShapeMismatchException(shapeMismatchException(storage.length(), shape));
+		return new NDArray<>(storage, shape.clone(), order);
+	}
+
 
 	/**
 	 * Creates an NDArray filled with zeros of the given shape, using the default data type (INT32) and C order.
@@ -82,7 +171,20 @@ public class NumJ {
 	 * @return An NDArray filled with zeros.
 	 */
 	public <T> NDArray<T> zeros(int[] shape, DType dType, Order order) {
-		return arrayCreation.zeros(shape, dType);
+		return arrayCreation.zeros(shape, dType, order, StorageType.HEAP);
+	}
+
+	/**
+	 * Creates an NDArray filled with zeros of the given shape and data type, held in the given kind of memory.
+	 * Off-heap arrays should be released with {@link NDArray#close()} once they are no longer needed.
+	 *
+	 * @param shape       The shape of the NDArray.
+	 * @param dType       The data type of the elements in the NDArray.
+	 * @param storageType Whether the elements are held on the Java heap or in native memory.
+	 * @return An NDArray filled with zeros.
+	 */
+	public <T> NDArray<T> zeros(int[] shape, DType dType, StorageType storageType) {
+		return arrayCreation.zeros(shape, dType, Order.C, storageType);
 	}
 
 	/**
@@ -115,7 +217,150 @@ public class NumJ {
 	 * @return An NDArray filled with ones.
 	 */
 	public <T> NDArray<T> ones(int[] shape, DType dType, Order order) {
-		return arrayCreation.ones(shape, dType);
+		return arrayCreation.ones(shape, dType, order, StorageType.HEAP);
+	}
+
+	/**
+	 * Creates an NDArray filled with ones of the given shape and data type, held in the given kind of memory.
+	 * Off-heap arrays should be released with {@link NDArray#close()} once they are no longer needed.
+	 *
+	 * @param shape       The shape of the NDArray.
+	 * @param dType       The data type of the elements in the NDArray.
+	 * @param storageType Whether the elements are held on the Java heap or in native memory.
+	 * @return An NDArray filled with ones.
+	 */
+	public <T> NDArray<T> ones(int[] shape, DType dType, StorageType storageType) {
+		return arrayCreation.ones(shape, dType, Order.C, storageType);
+	}
+
+	/**
+	 * Creates an NDArray of the given shape with every element set to the given value.
+	 * The data type is the one of the value: INT32 for an {@code Integer}, FLOAT64 for a {@code Double},
+	 * OBJECT for a {@code String} and so on.
+	 *
+	 * @param shape The shape of the NDArray.
+	 * @param value The value of every element.
+	 * @return An NDArray filled with the value.
+	 */
+	public <T> NDArray<T> full(int[] shape, Object value) {
+		return full(shape, value, new Utils().resolveType(value));
+	}
+
+	/**
+	 * Creates an NDArray of the given shape and data type with every element set to the given value.
+	 *
+	 * @param shape The shape of the NDArray.
+	 * @param value The value of every element, converted to the data type.
+	 * @param dType The data type of the elements in the NDArray.
+	 * @return An NDArray filled with the value.
+	 * @throws com.library.numj.exceptions.UnsupportedDataTypeException If the value cannot be stored in the data type.
+	 */
+	public <T> NDArray<T> full(int[] shape, Object value, DType dType) {
+		return arrayCreation.full(shape, value, dType, Order.C, StorageType.HEAP);
+	}
+
+	/**
+	 * Creates an NDArray of the given shape and data type with every element set to the given value,
+	 * laid out in the given memory order.
+	 *
+	 * @param shape The shape of the NDArray.
+	 * @param value The value of every element, converted to the data type.
+	 * @param dType The data type of the elements in the NDArray.
+	 * @param order The memory layout order, either C (row-major) or F (column-major).
+	 * @return An NDArray filled with the value.
+	 * @throws com.library.numj.exceptions.UnsupportedDataTypeException If the value cannot be stored in the data type.
+	 */
+	public <T> NDArray<T> full(int[] shape, Object value, DType dType, Order order) {
+		return arrayCreation.full(shape, value, dType, order, StorageType.HEAP);
+	}
+
+	/**
+	 * Creates an NDArray of the given shape and data type with every element set to the given value,
+	 * held in the given kind of memory.
+	 *
+	 * @param shape       The shape of the NDArray.
+	 * @param value       The value of every element, converted to the data type.
+	 * @param dType       The data type of the elements in the NDArray.
+	 * @param storageType Whether the elements are held on the Java heap or in native memory.
+	 * @return An NDArray filled with the value.
+	 * @throws com.library.numj.exceptions.UnsupportedDataTypeException If the value cannot be stored in the data type.
+	 */
+	public <T> NDArray<T> full(int[] shape, Object value, DType dType, StorageType storageType) {
+		return arrayCreation.full(shape, value, dType, Order.C, storageType);
+	}
+
+	/**
+	 * Creates an NDArray filled with zeros with the shape, data type, memory order and kind of memory of another array.
+	 *
+	 * @param array The array whose layout is copied.
+	 * @return An NDArray filled with zeros.
+	 */
+	public <T, R> NDArray<R> zerosLike(NDArray<T> array) {
+		return zerosLike(array, array.type());
+	}
+
+	/**
+	 * Creates an NDArray filled with zeros with the shape, memory order and kind of memory of another array.
+	 *
+	 * @param array The array whose shape is copied.
+	 * @param dType The data type of the elements in the new NDArray.
+	 * @return An NDArray filled with zeros.
+	 */
+	public <T, R> NDArray<R> zerosLike(NDArray<T> array, DType dType) {
+		return arrayCreation.zeros(array.shapeArray(), dType, array.order(), storageTypeLike(array, dType));
+	}
+
+	/**
+	 * Creates an NDArray filled with ones with the shape, data type, memory order and kind of memory of another array.
+	 *
+	 * @param array The array whose layout is copied.
+	 * @return An NDArray filled with ones.
+	 */
+	public <T, R> NDArray<R> onesLike(NDArray<T> array) {
+		return onesLike(array, array.type());
+	}
+
+	/**
+	 * Creates an NDArray filled with ones with the shape, memory order and kind of memory of another array.
+	 *
+	 * @param array The array whose shape is copied.
+	 * @param dType The data type of the elements in the new NDArray.
+	 * @return An NDArray filled with ones.
+	 */
+	public <T, R> NDArray<R> onesLike(NDArray<T> array, DType dType) {
+		return arrayCreation.ones(array.shapeArray(), dType, array.order(), storageTypeLike(array, dType));
+	}
+
+	/**
+	 * Creates an NDArray with every element set to the given value, with the shape, data type,
+	 * memory order and kind of memory of another array.
+	 *
+	 * @param array The array whose layout is copied.
+	 * @param value The value of every element, converted to the data type of the array.
+	 * @return An NDArray filled with the value.
+	 */
+	public <T, R> NDArray<R> fullLike(NDArray<T> array, Object value) {
+		return fullLike(array, value, array.type());
+	}
+
+	/**
+	 * Creates an NDArray with every element set to the given value, with the shape, memory order
+	 * and kind of memory of another array.
+	 *
+	 * @param array The array whose shape is copied.
+	 * @param value The value of every element, converted to the data type.
+	 * @param dType The data type of the elements in the new NDArray.
+	 * @return An NDArray filled with the value.
+	 */
+	public <T, R> NDArray<R> fullLike(NDArray<T> array, Object value, DType dType) {
+		return arrayCreation.full(array.shapeArray(), value, dType, array.order(), storageTypeLike(array, dType));
+	}
+
+	/**
+	 * Picks the kind of memory of an array created like another one; OBJECT elements always stay on the heap.
+	 */
+	private StorageType storageTypeLike(NDArray<?> array, DType dType) {
+		return dType == DType.OBJECT ? StorageType.HEAP : array.storageType();
 	}
 
 
@@ -264,11 +509,14 @@ public class NumJ {
 			throw new ShapeMismatchException(shapeMismatchException(size, shape));
 
 
-		final Class<?> dataType = dType.is();
-		T arr = (T) Array.newInstance(dataType, size);
-		Arrays.parallelSetAll((T[]) arr, i -> i == 0 ? i + start : start + (step == 0 ? i : step*i));
-		return shape.length == 1 ? new NDArray<>(arr)
-				: new NDArray<>(arr).reshape(shape);
+		Storage storage = Storage.allocate(dType, size);
+		ExecutionEngine.forEachChunk(size, (from, to) -> {
+			for (int i = (int) from; i < to; i++)
+				storage.setLong(i, start + (long) (step == 0 ? i : step * i));
+		});
+		NDArray<T> arr = new NDArray<>(storage, new int[]{size});
+		return shape.length == 1 ? arr
+				: arr.reshape(shape);
 	}
 
 	/**
@@ -366,12 +614,130 @@ public class NumJ {
 		return arithmaticOperations.operate(arr1, OperationType.INVERT);
 	}
 
+	/**
+	 * Adds two NDArrays element-wise, writing the result into an existing array.
+	 * The operands are broadcast to the shape of out; out may be one of the operands.
+	 *
+	 * @param out  The NDArray receiving the result.
+	 * @param arr1 The first NDArray.
+	 * @param arr2 The second NDArray.
+	 * @return The out array holding the result of element-wise addition.
+	 * @throws ShapeException If arr1 or arr2 cannot be broadcast to the shape of out.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of out.
+	 */
+	public <T> NDArray<T> addInto(NDArray<T> out, NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return arithmaticOperations.operateInto(out, arr1, arr2, OperationType.ADDITION);
+	}
+
+	/**
+	 * Subtracts the second NDArray from the first NDArray element-wise, writing the result into an existing array.
+	 * The operands are broadcast to the shape of out; out may be one of the operands.
+	 *
+	 * @param out  The NDArray receiving the result.
+	 * @param arr1 The first NDArray.
+	 * @param arr2 The second NDArray.
+	 * @return The out array holding the result of element-wise subtraction.
+	 * @throws ShapeException If arr1 or arr2 cannot be broadcast to the shape of out.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of out.
+	 */
+	public <T> NDArray<T> subtractInto(NDArray<T> out, NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return arithmaticOperations.operateInto(out, arr1, arr2, OperationType.SUBTRACTION);
+	}
+
+	/**
+	 * Multiplies two NDArrays element-wise, writing the result into an existing array.
+	 * The operands are broadcast to the shape of out; out may be one of the operands.
+	 *
+	 * @param out  The NDArray receiving the result.
+	 * @param arr1 The first NDArray.
+	 * @param arr2 The second NDArray.
+	 * @return The out array holding the result of element-wise multiplication.
+	 * @throws ShapeException If arr1 or arr2 cannot be broadcast to the shape of out.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of out.
+	 */
+	public <T> NDArray<T> multiplyInto(NDArray<T> out, NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return arithmaticOperations.operateInto(out, arr1, arr2, OperationType.MULTIPLICATION);
+	}
+
+	/**
+	 * Divides the first NDArray by the second NDArray element-wise, writing the result into an existing array.
+	 * The operands are broadcast to the shape of out; out may be one of the operands.
+	 *
+	 * @param out  The NDArray receiving the result.
+	 * @param arr1 The first NDArray.
+	 * @param arr2 The second NDArray.
+	 * @return The out array holding the result of element-wise division.
+	 * @throws ShapeException If arr1 or arr2 cannot be broadcast to the shape of out.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of out.
+	 */
+	public <T> NDArray<T> divideInto(NDArray<T> out, NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return arithmaticOperations.operateInto(out, arr1, arr2, OperationType.DIVISION);
+	}
+
+	/**
+	 * Performs Bitwise-And operation on first NDArray and second NDArray, writing the result into an existing array.
+	 * The operands are broadcast to the shape of out; out may be one of the operands.
+	 *
+	 * @param out  The NDArray receiving the result.
+	 * @param arr1 The first NDArray.
+	 * @param arr2 The second NDArray.
+	 * @return The out array holding the result of element-wise Bitwise-And.
+	 * @throws ShapeException If arr1 or arr2 cannot be broadcast to the shape of out.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of out.
+	 */
+	public <T> NDArray<T> bitwiseAndInto(NDArray<T> out, NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return arithmaticOperations.operateInto(out, arr1, arr2, OperationType.BITWISE_AND);
+	}
+
+	/**
+	 * Performs Bitwise-Or operation on first NDArray and second NDArray, writing the result into an existing array.
+	 * The operands are broadcast to the shape of out; out may be one of the operands.
+	 *
+	 * @param out  The NDArray receiving the result.
+	 * @param arr1 The first NDArray.
+	 * @param arr2 The second NDArray.
+	 * @return The out array holding the result of element-wise Bitwise-Or.
+	 * @throws ShapeException If arr1 or arr2 cannot be broadcast to the shape of out.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of out.
+	 */
+	public <T> NDArray<T> bitwiseOrInto(NDArray<T> out, NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return arithmaticOperations.operateInto(out, arr1, arr2, OperationType.BITWISE_OR);
+	}
+
+	/**
+	 * Performs Bitwise-Xor operation on first NDArray and second NDArray, writing the result into an existing array.
+	 * The operands are broadcast to the shape of out; out may be one of the operands.
+	 *
+	 * @param out  The NDArray receiving the result.
+	 * @param arr1 The first NDArray.
+	 * @param arr2 The second NDArray.
+	 * @return The out array holding the result of element-wise Bitwise-Xor.
+	 * @throws ShapeException If arr1 or arr2 cannot be broadcast to the shape of out.
+	 * @throws IllegalArgumentException If the result type cannot be stored in the data type of out.
+	 */
+	public <T> NDArray<T> bitwiseXorInto(NDArray<T> out, NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return arithmaticOperations.operateInto(out, arr1, arr2, OperationType.BITWISE_XOR);
+	}
+
+	/**
+	 * Performs Inversion operation (NOT) on NDArray, writing the result into an existing array.
+	 *
+	 * @param out  The NDArray receiving the result.
+	 * @param arr1 The NDArray to invert.
+	 * @return The out array holding the result of element-wise Inversion (Not).
+	 * @throws ShapeException If arr1 cannot be broadcast to the shape of out.
+	 * @throws IllegalArgumentException If the data type of arr1 cannot be stored in the data type of out.
+	 */
+	public <T> NDArray<T> invertInto(NDArray<T> out, NDArray<T> arr1) throws ShapeException {
+		return arithmaticOperations.operateInto(out, arr1, OperationType.INVERT);
+	}
+
 	/**
 	 * Transposes the given NDArray.
 	 *
 	 * @param array The NDArray to be transposed.
 	 * @param <R>   The type of elements in the transposed NDArray.
-	 * @return A new NDArray that is the transposed version of the input array.
+	 * @return A view of the input array with its dimensions reversed.
 	 * @throws ShapeException If there is an issue during the transposition.
 	 */
 	public <T, R> NDArray<R> transpose(NDArray<T> array) throws ShapeException {
@@ -379,16 +745,1020 @@ public class NumJ {
 	}
 
 	/**
-	 * Creates an empty NDArray with the specified shape.
+	 * Permutes the dimensions of the given NDArray.
 	 *
-	 * @param shape The shape of the NDArray.
-	 * @param <R>   The type of elements in the new NDArray.
-	 * @return A new NDArray of the specified shape, filled with null values.
-	 * @throws ShapeException If there is an issue creating the empty NDArray.
+	 * @param array The NDArray to be transposed.
+	 * @param axes  The new order of the dimensions.
+	 * @param <R>   The type of elements in the transposed NDArray.
+	 * @return A view of the input array with its dimensions permuted.
+	 * @throws IllegalArgumentException If axes is not a permutation of the dimensions.
 	 */
-	public <R> NDArray<R> empty(int[] shape) throws ShapeException {
-		R array = (R) Array.newInstance(int.class, shape);
-		return new NDArray<>(array, shape, shape.length, DType.INT32);
+	public <T, R> NDArray<R> transpose(NDArray<T> array, int... axes) {
+		return arrayModification.transpose(array, axes);
+	}
+
+	/**
+	 * Interchanges two dimensions of the given NDArray.
+	 *
+	 * @param array The NDArray to modify.
+	 * @param axis1 The first dimension.
+	 * @param axis2 The second dimension.
+	 * @param <R>   The type of elements in the resulting NDArray.
+	 * @return A view of the input array with the two dimensions swapped.
+	 * @throws IllegalArgumentException If an axis is out of bounds.
+	 */
+	public <T, R> NDArray<R> swapAxes(NDArray<T> array, int axis1, int axis2) {
+		return arrayModification.swapAxes(array, axis1, axis2);
+	}
+
+	/**
+	 * Returns a C-contiguous array holding the elements of the given NDArray.
+	 * The input is returned as is when it is already contiguous, otherwise it is copied once.
+	 *
+	 * @param array The NDArray to make contiguous.
+	 * @param <R>   The type of elements in the resulting NDArray.
+	 * @return A contiguous NDArray.
+	 */
+	public <T, R> NDArray<R> ascontiguousarray(NDArray<T> array) {
+		return arrayModification.ascontiguousarray(array);
+	}
+
+	/**
+	 * Returns the array itself when it is already column-major contiguous, otherwise a column-major copy of it,
+	 * for instance before handing it to a routine expecting Fortran-ordered data.
+	 *
+	 * @param array The array to check.
+	 * @return An F-contiguous array holding the same elements.
+	 */
+	public <T, R> NDArray<R> asfortranarray(NDArray<T> array) {
+		return arrayModification.asfortranarray(array);
+	}
+
+	/**
+	 * Sums the elements of the given NDArray.
+	 * Integer arrays are summed in INT64; floating point sums are compensated to limit rounding errors.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param <R>   The type of the result elements.
+	 * @return A zero-dimensional NDArray holding the sum.
+	 */
+	public <T, R> NDArray<R> sum(NDArray<T> array) {
+		return reductions.reduce(array, ReductionType.SUM, null, false);
+	}
+
+	/**
+	 * Sums the elements of the given NDArray along the given axes, dropping them from the result.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param axes  The axes to reduce, negative values counting from the last one.
+	 * @param <R>   The type of the result elements.
+	 * @return A new NDArray holding the sum of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated.
+	 */
+	public <T, R> NDArray<R> sum(NDArray<T> array, int... axes) {
+		return reductions.reduce(array, ReductionType.SUM, axes, false);
+	}
+
+	/**
+	 * Sums the elements of the given NDArray along the given axes.
+	 *
+	 * @param array    The NDArray to reduce.
+	 * @param axes     The axes to reduce, negative values counting from the last one; null reduces every axis.
+	 * @param keepdims Whether the reduced axes are kept with length one, so that the result broadcasts against the input.
+	 * @param <R>      The type of the result elements.
+	 * @return A new NDArray holding the sum of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated.
+	 */
+	public <T, R> NDArray<R> sum(NDArray<T> array, int[] axes, boolean keepdims) {
+		return reductions.reduce(array, ReductionType.SUM, axes, keepdims);
+	}
+
+	/**
+	 * Multiplies the elements of the given NDArray.
+	 * Integer arrays are multiplied in INT64.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param <R>   The type of the result elements.
+	 * @return A zero-dimensional NDArray holding the product.
+	 */
+	public <T, R> NDArray<R> prod(NDArray<T> array) {
+		return reductions.reduce(array, ReductionType.PROD, null, false);
+	}
+
+	/**
+	 * Multiplies the elements of the given NDArray along the given axes, dropping them from the result.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param axes  The axes to reduce, negative values counting from the last one.
+	 * @param <R>   The type of the result elements.
+	 * @return A new NDArray holding the product of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated.
+	 */
+	public <T, R> NDArray<R> prod(NDArray<T> array, int... axes) {
+		return reductions.reduce(array, ReductionType.PROD, axes, false);
+	}
+
+	/**
+	 * Multiplies the elements of the given NDArray along the given axes.
+	 *
+	 * @param array    The NDArray to reduce.
+	 * @param axes     The axes to reduce, negative values counting from the last one; null reduces every axis.
+	 * @param keepdims Whether the reduced axes are kept with length one, so that the result broadcasts against the input.
+	 * @param <R>      The type of the result elements.
+	 * @return A new NDArray holding the product of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated.
+	 */
+	public <T, R> NDArray<R> prod(NDArray<T> array, int[] axes, boolean keepdims) {
+		return reductions.reduce(array, ReductionType.PROD, axes, keepdims);
+	}
+
+	/**
+	 * Finds the smallest element of the given NDArray.
+	 * NaN elements propagate to the result.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param <R>   The type of the result elements.
+	 * @return A zero-dimensional NDArray holding the minimum.
+	 * @throws IllegalArgumentException If the array has no element.
+	 */
+	public <T, R> NDArray<R> min(NDArray<T> array) {
+		return reductions.reduce(array, ReductionType.MIN, null, false);
+	}
+
+	/**
+	 * Finds the smallest element of the given NDArray along the given axes, dropping them from the result.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param axes  The axes to reduce, negative values counting from the last one.
+	 * @param <R>   The type of the result elements.
+	 * @return A new NDArray holding the minimum of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated, or if a reduced axis has length zero.
+	 */
+	public <T, R> NDArray<R> min(NDArray<T> array, int... axes) {
+		return reductions.reduce(array, ReductionType.MIN, axes, false);
+	}
+
+	/**
+	 * Finds the smallest element of the given NDArray along the given axes.
+	 *
+	 * @param array    The NDArray to reduce.
+	 * @param axes     The axes to reduce, negative values counting from the last one; null reduces every axis.
+	 * @param keepdims Whether the reduced axes are kept with length one, so that the result broadcasts against the input.
+	 * @param <R>      The type of the result elements.
+	 * @return A new NDArray holding the minimum of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated, or if a reduced axis has length zero.
+	 */
+	public <T, R> NDArray<R> min(NDArray<T> array, int[] axes, boolean keepdims) {
+		return reductions.reduce(array, ReductionType.MIN, axes, keepdims);
+	}
+
+	/**
+	 * Finds the largest element of the given NDArray.
+	 * NaN elements propagate to the result.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param <R>   The type of the result elements.
+	 * @return A zero-dimensional NDArray holding the maximum.
+	 * @throws IllegalArgumentException If the array has no element.
+	 */
+	public <T, R> NDArray<R> max(NDArray<T> array) {
+		return reductions.reduce(array, ReductionType.MAX, null, false);
+	}
+
+	/**
+	 * Finds the largest element of the given NDArray along the given axes, dropping them from the result.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param axes  The axes to reduce, negative values counting from the last one.
+	 * @param <R>   The type of the result elements.
+	 * @return A new NDArray holding the maximum of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated, or if a reduced axis has length zero.
+	 */
+	public <T, R> NDArray<R> max(NDArray<T> array, int... axes) {
+		return reductions.reduce(array, ReductionType.MAX, axes, false);
+	}
+
+	/**
+	 * Finds the largest element of the given NDArray along the given axes.
+	 *
+	 * @param array    The NDArray to reduce.
+	 * @param axes     The axes to reduce, negative values counting from the last one; null reduces every axis.
+	 * @param keepdims Whether the reduced axes are kept with length one, so that the result broadcasts against the input.
+	 * @param <R>      The type of the result elements.
+	 * @return A new NDArray holding the maximum of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated, or if a reduced axis has length zero.
+	 */
+	public <T, R> NDArray<R> max(NDArray<T> array, int[] axes, boolean keepdims) {
+		return reductions.reduce(array, ReductionType.MAX, axes, keepdims);
+	}
+
+	/**
+	 * Computes the arithmetic mean of the elements of the given NDArray.
+	 * Integer arrays are averaged in FLOAT64.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param <R>   The type of the result elements.
+	 * @return A zero-dimensional NDArray holding the mean.
+	 */
+	public <T, R> NDArray<R> mean(NDArray<T> array) {
+		return reductions.reduce(array, ReductionType.MEAN, null, false);
+	}
+
+	/**
+	 * Computes the arithmetic mean of the elements of the given NDArray along the given axes, dropping them from the result.
+	 *
+	 * @param array The NDArray to reduce.
+	 * @param axes  The axes to reduce, negative values counting from the last one.
+	 * @param <R>   The type of the result elements.
+	 * @return A new NDArray holding the mean of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated.
+	 */
+	public <T, R> NDArray<R> mean(NDArray<T> array, int... axes) {
+		return reductions.reduce(array, ReductionType.MEAN, axes, false);
+	}
+
+	/**
+	 * Computes the arithmetic mean of the elements of the given NDArray along the given axes.
+	 *
+	 * @param array    The NDArray to reduce.
+	 * @param axes     The axes to reduce, negative values counting from the last one; null reduces every axis.
+	 * @param keepdims Whether the reduced axes are kept with length one, so that the result broadcasts against the input.
+	 * @param <R>      The type of the result elements.
+	 * @return A new NDArray holding the mean of every reduced slice.
+	 * @throws IllegalArgumentException If an axis is out of bounds or repeated.
+	 */
+	public <T, R> NDArray<R> mean(NDArray<T> array, int[] axes, boolean keepdims) {
+		return reductions.reduce(array, ReductionType.MEAN, axes, keepdims);
+	}
+
+	/**
+	 * Computes the cumulative sum of the elements of the given NDArray, taken in row-major order.
+	 * Integer arrays are accumulated in INT64.
+	 *
+	 * @param array The NDArray to scan.
+	 * @param <R>   The type of the result elements.
+	 * @return A new one-dimensional NDArray holding the running sums.
+	 * @throws ShapeException If the array has more elements than a single dimension can hold.
+	 */
+	public <T, R> NDArray<R> cumsum(NDArray<T> array) throws ShapeException {
+		return scans.scan(array.ravel(), ReductionType.SUM, 0);
+	}
+
+	/**
+	 * Computes the cumulative sum of the given NDArray along an axis.
+	 * Integer arrays are accumulated in INT64; long one-dimensional arrays are scanned in parallel.
+	 *
+	 * @param array The NDArray to scan.
+	 * @param axis  The axis to scan along, negative values counting from the last one.
+	 * @param <R>   The type of the result elements.
+	 * @return A new NDArray of the shape of the input holding the running sums.
+	 * @throws IllegalArgumentException If the axis is out of bounds.
+	 */
+	public <T, R> NDArray<R> cumsum(NDArray<T> array, int axis) {
+		return scans.scan(array, ReductionType.SUM, axis);
+	}
+
+	/**
+	 * Computes the cumulative sum of the given NDArray along an axis into an existing array, which may be the input itself.
+	 *
+	 * @param out   The array receiving the running sums; it must have the shape of the input.
+	 * @param array The NDArray to scan.
+	 * @param axis  The axis to scan along, negative values counting from the last one.
+	 * @return The output array.
+	 * @throws IllegalArgumentException If the axis is out of bounds or the results cannot be cast to the output type.
+	 * @throws ShapeMismatchException   If the output does not have the shape of the input.
+	 */
+	public <T, R> NDArray<R> cumsumInto(NDArray<R> out, NDArray<T> array, int axis) {
+		return scans.scanInto(out, array, ReductionType.SUM, axis);
+	}
+
+	/**
+	 * Computes the cumulative product of the elements of the given NDArray, taken in row-major order.
+	 * Integer arrays are accumulated in INT64.
+	 *
+	 * @param array The NDArray to scan.
+	 * @param <R>   The type of the result elements.
+	 * @return A new one-dimensional NDArray holding the running products.
+	 * @throws ShapeException If the array has more elements than a single dimension can hold.
+	 */
+	public <T, R> NDArray<R> cumprod(NDArray<T> array) throws ShapeException {
+		return scans.scan(array.ravel(), ReductionType.PROD, 0);
+	}
+
+	/**
+	 * Computes the cumulative product of the given NDArray along an axis.
+	 * Integer arrays are accumulated in INT64; long one-dimensional arrays are scanned in parallel.
+	 *
+	 * @param array The NDArray to scan.
+	 * @param axis  The axis to scan along, negative values counting from the last one.
+	 * @param <R>   The type of the result elements.
+	 * @return A new NDArray of the shape of the input holding the running products.
+	 * @throws IllegalArgumentException If the axis is out of bounds.
+	 */
+	public <T, R> NDArray<R> cumprod(NDArray<T> array, int axis) {
+		return scans.scan(array, ReductionType.PROD, axis);
+	}
+
+	/**
+	 * Computes the cumulative product of the given NDArray along an axis into an existing array, which may be the input itself.
+	 *
+	 * @param out   The array receiving the running products; it must have the shape of the input.
+	 * @param array The NDArray to scan.
+	 * @param axis  The axis to scan along, negative values counting from the last one.
+	 * @return The output array.
+	 * @throws IllegalArgumentException If the axis is out of bounds or the results cannot be cast to the output type.
+	 * @throws ShapeMismatchException   If the output does not have the shape of the input.
+	 */
+	public <T, R> NDArray<R> cumprodInto(NDArray<R> out, NDArray<T> array, int axis) {
+		return scans.scanInto(out, array, ReductionType.PROD, axis);
+	}
+
+	/**
+	 * Computes the matrix product of two NDArrays with a blocked, multi-threaded kernel.
+	 * Arrays with more than two dimensions are stacks of matrices whose leading dimensions are broadcast
+	 * together; one-dimensional operands are treated as a row (left) or a column (right).
+	 *
+	 * @param arr1 The left operand.
+	 * @param arr2 The right operand.
+	 * @param <R>  The type of the result elements.
+	 * @return A new NDArray holding the product.
+	 * @throws ShapeException If the shapes do not fit together for a matrix product.
+	 */
+	public <T, R> NDArray<R> matmul(NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return matrixMultiplication.matmul(arr1, arr2);
+	}
+
+	/**
+	 * Computes the dot product of two NDArrays: the inner product of vectors, the matrix product of
+	 * matrices, and for more dimensions the sum over the last axis of arr1 and the second to last axis of arr2.
+	 *
+	 * @param arr1 The left operand.
+	 * @param arr2 The right operand.
+	 * @param <R>  The type of the result elements.
+	 * @return A new NDArray holding the product.
+	 * @throws ShapeException If the summed dimensions differ.
+	 */
+	public <T, R> NDArray<R> dot(NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return matrixMultiplication.dot(arr1, arr2);
+	}
+
+	/**
+	 * Computes the matrix-vector product {@code y = alpha a x + beta y} in place.
+	 *
+	 * @param alpha The factor of the product.
+	 * @param a     The matrix, of shape (m, n).
+	 * @param x     The vector, of length n.
+	 * @param beta  The factor of the previous content of y; when zero, y is overwritten.
+	 * @param y     The vector receiving the result, of length m.
+	 * @return The vector y.
+	 * @throws ShapeException If the matrix does not fit the length of x.
+	 */
+	public <T, R> NDArray<R> gemv(double alpha, NDArray<T> a, NDArray<T> x, double beta, NDArray<R> y) throws ShapeException {
+		return blas.gemv(alpha, a, x, beta, y);
+	}
+
+	/**
+	 * Adds alpha times x to y in place.
+	 *
+	 * @param alpha The factor of x.
+	 * @param x     The array added.
+	 * @param y     The array updated, of the shape of x.
+	 * @return The array y.
+	 */
+	public <T> NDArray<T> axpy(double alpha, NDArray<?> x, NDArray<T> y) {
+		return blas.axpy(alpha, x, y);
+	}
+
+	/**
+	 * Multiplies an NDArray by a factor in place.
+	 *
+	 * @param alpha The factor.
+	 * @param x     The array scaled.
+	 * @return The array x.
+	 */
+	public <T> NDArray<T> scal(double alpha, NDArray<T> x) {
+		return blas.scal(alpha, x);
+	}
+
+	/**
+	 * Computes the Euclidean norm of the elements of an NDArray.
+	 *
+	 * @param x The array.
+	 * @return The square root of the sum of the squares of the elements.
+	 */
+	public double nrm2(NDArray<?> x) {
+		return blas.nrm2(x);
+	}
+
+	/**
+	 * Computes the outer product of two NDArrays, flattened to vectors first.
+	 *
+	 * @param arr1 The array giving the rows.
+	 * @param arr2 The array giving the columns.
+	 * @param <R>  The type of the result elements.
+	 * @return A new matrix holding every product {@code arr1[i] arr2[j]}.
+	 * @throws ShapeException If an array cannot be flattened.
+	 */
+	public <T, R> NDArray<R> outer(NDArray<T> arr1, NDArray<T> arr2) throws ShapeException {
+		return blas.outer(arr1, arr2);
+	}
+
+	/**
+	 * Solves the linear systems {@code a x = b} for square matrices a, stacked in leading dimensions.
+	 *
+	 * @param a The matrices of the systems, of shape (..., n, n).
+	 * @param b The right hand sides, a vector of length n or matrices of shape (..., n, k).
+	 * @param <R> The type of the result elements.
+	 * @return A new NDArray holding the solutions.
+	 * @throws ShapeException If the shapes of the operands do not fit together.
+	 */
+	public <T, R> NDArray<R> solve(NDArray<T> a, NDArray<T> b) throws ShapeException {
+		return linearAlgebra.solve(a, b);
+	}
+
+	/**
+	 * Computes the inverses of square matrices, stacked in leading dimensions.
+	 *
+	 * @param a The matrices, of shape (..., n, n).
+	 * @param <R> The type of the result elements.
+	 * @return A new NDArray holding the inverses.
+	 * @throws ShapeException If the matrices are not square.
+	 */
+	public <T, R> NDArray<R> inv(NDArray<T> a) throws ShapeException {
+		return linearAlgebra.inv(a);
+	}
+
+	/**
+	 * Computes the determinants of square matrices, stacked in leading dimensions.
+	 *
+	 * @param a The matrices, of shape (..., n, n).
+	 * @param <R> The type of the result elements.
+	 * @return A new NDArray of the leading dimensions of a holding the determinants.
+	 * @throws ShapeException If the matrices are not square.
+	 */
+	public <T, R> NDArray<R> det(NDArray<T> a) throws ShapeException {
+		return linearAlgebra.det(a);
+	}
+
+	/**
+	 * Computes the least squares solution of {@code a x = b} for a matrix of full rank.
+	 *
+	 * @param a The matrix, of shape (m, n).
+	 * @param b The right hand sides, a vector of length m or a matrix of shape (m, k).
+	 * @param <R> The type of the result elements.
+	 * @return A new NDArray holding the solution.
+	 * @throws ShapeException If the shapes of the operands do not fit together.
+	 */
+	public <T, R> NDArray<R> lstsq(NDArray<T> a, NDArray<T> b) throws ShapeException {
+		return linearAlgebra.lstsq(a, b);
+	}
+
+	/**
+	 * Computes the lower triangular Cholesky factors of symmetric positive definite matrices.
+	 *
+	 * @param a The matrices, of shape (..., n, n).
+	 * @param <R> The type of the result elements.
+	 * @return A new NDArray holding the factors.
+	 * @throws ShapeException If the matrices are not square.
+	 */
+	public <T, R> NDArray<R> cholesky(NDArray<T> a) throws ShapeException {
+		return linearAlgebra.cholesky(a);
+	}
+
+	/**
+	 * Computes the reduced QR decompositions of matrices, stacked in leading dimensions.
+	 *
+	 * @param a The matrices, of shape (..., m, n).
+	 * @param <R> The type of the result elements.
+	 * @return Two new NDArrays, Q and R.
+	 * @throws ShapeException If the array has fewer than two dimensions.
+	 */
+	public <T, R> NDArray<R>[] qr(NDArray<T> a) throws ShapeException {
+		return linearAlgebra.qr(a, QRMode.REDUCED);
+	}
+
+	/**
+	 * Computes the QR decompositions of matrices, stacked in leading dimensions.
+	 *
+	 * @param a    The matrices, of shape (..., m, n).
+	 * @param mode The shapes of the factors.
+	 * @param <R>  The type of the result elements.
+	 * @return Two new NDArrays, Q and R.
+	 * @throws ShapeException If the array has fewer than two dimensions.
+	 */
+	public <T, R> NDArray<R>[] qr(NDArray<T> a, QRMode mode) throws ShapeException {
+		return linearAlgebra.qr(a, mode);
+	}
+
+	/**
+	 * Computes the eigenvalues and eigenvectors of symmetric matrices, stacked in leading dimensions.
+	 *
+	 * @param a   The matrices, of shape (..., n, n), of which only the lower triangles are read.
+	 * @param <R> The type of the result elements.
+	 * @return Two new NDArrays, the eigenvalues in ascending order and the eigenvectors as columns.
+	 * @throws ShapeException If the matrices are not square.
+	 */
+	public <T, R> NDArray<R>[] eigh(NDArray<T> a) throws ShapeException {
+		return linearAlgebra.eigh(a);
+	}
+
+	/**
+	 * Computes the eigenvalues and eigenvectors of general square matrices, stacked in leading dimensions.
+	 *
+	 * @param a   The matrices, of shape (..., n, n).
+	 * @param <R> The type of the result elements.
+	 * @return Three new NDArrays, the real and imaginary parts of the eigenvalues and the eigenvectors in the
+	 * layout of LAPACK.
+	 * @throws ShapeException If the matrices are not square.
+	 * @see LinearAlgebra#eig(NDArray)
+	 */
+	public <T, R> NDArray<R>[] eig(NDArray<T> a) throws ShapeException {
+		return linearAlgebra.eig(a);
+	}
+
+	/**
+	 * Computes the singular value decompositions of matrices, stacked in leading dimensions, with square U
+	 * and V^T.
+	 *
+	 * @param a   The matrices, of shape (..., m, n).
+	 * @param <R> The type of the result elements.
+	 * @return Three new NDArrays, U, the singular values in descending order and V^T.
+	 * @throws ShapeException If the array has fewer than two dimensions.
+	 */
+	public <T, R> NDArray<R>[] svd(NDArray<T> a) throws ShapeException {
+		return linearAlgebra.svd(a, true);
+	}
+
+	/**
+	 * Computes the singular value decompositions of matrices, stacked in leading dimensions.
+	 *
+	 * @param a            The matrices, of shape (..., m, n).
+	 * @param fullMatrices Whether U and V^T are square, otherwise reduced to min(m, n) columns and rows.
+	 * @param <R>          The type of the result elements.
+	 * @return Three new NDArrays, U, the singular values in descending order and V^T.
+	 * @throws ShapeException If the array has fewer than two dimensions.
+	 */
+	public <T, R> NDArray<R>[] svd(NDArray<T> a, boolean fullMatrices) throws ShapeException {
+		return linearAlgebra.svd(a, fullMatrices);
+	}
+
+	/**
+	 * Computes the singular values of matrices, stacked in leading dimensions.
+	 *
+	 * @param a   The matrices, of shape (..., m, n).
+	 * @param <R> The type of the result elements.
+	 * @return A new NDArray holding the singular values in descending order.
+	 * @throws ShapeException If the array has fewer than two dimensions.
+	 */
+	public <T, R> NDArray<R> svdvals(NDArray<T> a) throws ShapeException {
+		return linearAlgebra.svdvals(a);
+	}
+
+	/**
+	 * Computes the leading k singular triplets of a matrix by randomized range finding, with 10 oversamples,
+	 * 4 power iterations and a fixed seed.
+	 *
+	 * @param a   The matrix, of shape (m, n).
+	 * @param k   The number of triplets.
+	 * @param <R> The type of the result elements.
+	 * @return Three new NDArrays, U of shape (m, k), the k singular values and V^T of shape (k, n).
+	 * @throws ShapeException If the array is not a matrix.
+	 */
+	public <T, R> NDArray<R>[] randomizedSvd(NDArray<T> a, int k) throws ShapeException {
+		return linearAlgebra.randomizedSvd(a, k, 10, 4, 0);
+	}
+
+	/**
+	 * Computes the leading k singular triplets of a matrix by randomized range finding.
+	 *
+	 * @param a           The matrix, of shape (m, n).
+	 * @param k           The number of triplets.
+	 * @param oversamples The number of additional columns of the test matrix.
+	 * @param iterations  The number of power iterations.
+	 * @param seed        The seed of the test matrix.
+	 * @param <R>         The type of the result elements.
+	 * @return Three new NDArrays, U of shape (m, k), the k singular values and V^T of shape (k, n).
+	 * @throws ShapeException If the array is not a matrix.
+	 */
+	public <T, R> NDArray<R>[] randomizedSvd(NDArray<T> a, int k, int oversamples, int iterations, long seed) throws ShapeException {
+		return linearAlgebra.randomizedSvd(a, k, oversamples, iterations, seed);
+	}
+
+	/**
+	 * Computes the Euclidean norm of all the elements of an NDArray, the Frobenius norm of a matrix.
+	 *
+	 * @param a The array.
+	 * @return The norm.
+	 */
+	public double norm(NDArray<?> a) {
+		return linearAlgebra.norm(a);
+	}
+
+	/**
+	 * Computes a matrix norm of matrices, stacked in leading dimensions.
+	 *
+	 * @param a    The matrices, of shape (..., m, n).
+	 * @param norm The norm.
+	 * @param <R>  The type of the result elements.
+	 * @return A new NDArray of the leading dimensions of a holding the norms.
+	 * @throws ShapeException If the array has fewer than two dimensions.
+	 */
+	public <T, R> NDArray<R> norm(NDArray<T> a, NormType norm) throws ShapeException {
+		return linearAlgebra.norm(a, norm);
+	}
+
+	/**
+	 * Creates a CSR sparse matrix holding the non-zero elements of a dense array.
+	 *
+	 * @param array The dense array, of one or two dimensions.
+	 * @return A new sparse matrix of the data type of the array.
+	 * @throws ShapeException If the array has more than two dimensions.
+	 */
+	public SparseArray sparse(NDArray<?> array) throws ShapeException {
+		return SparseArray.fromDense(array, SparseFormat.CSR);
+	}
+
+	/**
+	 * Creates a sparse matrix holding the non-zero elements of a dense array.
+	 *
+	 * @param array  The dense array, of one or two dimensions.
+	 * @param format The layout of the sparse matrix.
+	 * @return A new sparse matrix of the data type of the array.
+	 * @throws ShapeException If the array has more than two dimensions.
+	 */
+	public SparseArray sparse(NDArray<?> array, SparseFormat format) throws ShapeException {
+		return SparseArray.fromDense(array, format);
+	}
+
+	/**
+	 * Adds two sparse matrices element-wise.
+	 *
+	 * @param a The first matrix.
+	 * @param b The second matrix, of the shape of a.
+	 * @return A new sparse matrix.
+	 * @throws ShapeException If the matrices have different shapes.
+	 */
+	public SparseArray add(SparseArray a, SparseArray b) throws ShapeException {
+		return sparseOperations.add(a, b);
+	}
+
+	/**
+	 * Subtracts a sparse matrix from another element-wise.
+	 *
+	 * @param a The first matrix.
+	 * @param b The matrix subtracted, of the shape of a.
+	 * @return A new sparse matrix.
+	 * @throws ShapeException If the matrices have different shapes.
+	 */
+	public SparseArray subtract(SparseArray a, SparseArray b) throws ShapeException {
+		return sparseOperations.subtract(a, b);
+	}
+
+	/**
+	 * Multiplies two sparse matrices element-wise.
+	 *
+	 * @param a The first matrix.
+	 * @param b The second matrix, of the shape of a.
+	 * @return A new sparse matrix.
+	 * @throws ShapeException If the matrices have different shapes.
+	 */
+	public SparseArray multiply(SparseArray a, SparseArray b) throws ShapeException {
+		return sparseOperations.multiply(a, b);
+	}
+
+	/**
+	 * Multiplies a sparse matrix element-wise by a dense array broadcast to its shape.
+	 *
+	 * @param a The sparse matrix.
+	 * @param b The dense array.
+	 * @return A new sparse matrix.
+	 * @throws ShapeException If the array cannot be broadcast to the shape of the matrix.
+	 */
+	public SparseArray multiply(SparseArray a, NDArray<?> b) throws ShapeException {
+		return sparseOperations.multiply(a, b);
+	}
+
+	/**
+	 * Multiplies every element of a sparse matrix by a scalar.
+	 *
+	 * @param a     The sparse matrix.
+	 * @param value The factor.
+	 * @return A new sparse matrix.
+	 */
+	public SparseArray multiply(SparseArray a, double value) {
+		return sparseOperations.multiply(a, value);
+	}
+
+	/**
+	 * Computes the product of a sparse matrix with a dense vector or matrix.
+	 *
+	 * @param a   The sparse matrix, of shape (m, n).
+	 * @param b   The dense vector of length n or matrix of shape (n, k).
+	 * @param <R> The type of the result elements.
+	 * @return A new NDArray, a vector of length m or a matrix of shape (m, k).
+	 * @throws ShapeException If the operands do not fit together.
+	 */
+	public <R> NDArray<R> matmul(SparseArray a, NDArray<?> b) throws ShapeException {
+		return sparseOperations.matmul(a, b);
+	}
+
+	/**
+	 * Computes the product of a dense vector or matrix with a sparse matrix.
+	 *
+	 * @param a   The dense vector of length n or matrix of shape (m, n).
+	 * @param b   The sparse matrix, of shape (n, k).
+	 * @param <R> The type of the result elements.
+	 * @return A new NDArray, a vector of length k or a matrix of shape (m, k).
+	 * @throws ShapeException If the operands do not fit together.
+	 */
+	public <R> NDArray<R> matmul(NDArray<?> a, SparseArray b) throws ShapeException {
+		return sparseOperations.matmul(a, b);
+	}
+
+	/**
+	 * Saves an array to a file in the NumPy .npy format.
+	 *
+	 * @param path  The path of the file, replaced if it exists.
+	 * @param array The array.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void save(String path, NDArray<?> array) throws IOException {
+		NpyFormat.save(Paths.get(path), array);
+	}
+
+	/**
+	 * Loads an array from a file in the NumPy .npy format into heap memory.
+	 *
+	 * @param path The path of the file.
+	 * @param <R>  The type of the elements of the array.
+	 * @return A new NDArray holding the elements of the file.
+	 * @throws IOException If the file cannot be read or is not a .npy file.
+	 */
+	public <R> NDArray<R> load(String path) throws IOException {
+		return NpyFormat.load(Paths.get(path), false);
+	}
+
+	/**
+	 * Loads an array from a file in the NumPy .npy format, mapping the file read-only instead of reading it
+	 * when asked to, in which case the array is created without copying its elements.
+	 *
+	 * @param path      The path of the file.
+	 * @param memoryMap Whether the elements are mapped instead of read.
+	 * @param <R>       The type of the elements of the array.
+	 * @return A new NDArray holding the elements of the file.
+	 * @throws IOException If the file cannot be read or is not a .npy file.
+	 */
+	public <R> NDArray<R> load(String path, boolean memoryMap) throws IOException {
+		return NpyFormat.load(Paths.get(path), memoryMap);
+	}
+
+	/**
+	 * Maps the elements of an existing file in the NumPy .npy format as an array, without reading them.
+	 *
+	 * @param path The path of the file.
+	 * @param mode How writes to the array are handled; {@link MapMode#WRITE} is refused.
+	 * @param <R>  The type of the elements of the array.
+	 * @return A new NDArray over the mapped elements of the file.
+	 * @throws IOException If the file cannot be read or is not a .npy file.
+	 */
+	public <R> NDArray<R> load(String path, MapMode mode) throws IOException {
+		return NpyFormat.load(Paths.get(path), mode);
+	}
+
+	/**
+	 * Maps a raw binary file holding row-major elements in native byte order as an array, like NumPy's
+	 * {@code memmap}. Files larger than 2 GiB are mapped in several segments.
+	 *
+	 * @param path  The path of the file.
+	 * @param dtype The data type of the elements.
+	 * @param shape The shape of the array, or null to map the whole file as a one-dimensional array.
+	 * @param mode  How the file is opened and how writes are handled.
+	 * @param <R>   The type of the elements of the array.
+	 * @return A new NDArray over the mapped file, to be closed once no longer needed.
+	 * @throws IOException If the file cannot be opened or mapped, or is too short for the shape.
+	 */
+	public <R> NDArray<R> memmap(String path, DType dtype, int[] shape, MapMode mode) throws IOException {
+		return MemoryMap.open(Paths.get(path), dtype, shape, mode, 0, Order.C);
+	}
+
+	/**
+	 * Maps a region of a raw binary file holding elements in native byte order as an array, like NumPy's
+	 * {@code memmap}.
+	 *
+	 * @param path   The path of the file.
+	 * @param dtype  The data type of the elements.
+	 * @param shape  The shape of the array, or null to map the rest of the file as a one-dimensional array.
+	 * @param mode   How the file is opened and how writes are handled.
+	 * @param offset The position of the first element in the file, in bytes.
+	 * @param order  The memory order of the elements in the file.
+	 * @param <R>    The type of the elements of the array.
+	 * @return A new NDArray over the mapped file, to be closed once no longer needed.
+	 * @throws IOException If the file cannot be opened or mapped, or is too short for the shape.
+	 */
+	public <R> NDArray<R> memmap(String path, DType dtype, int[] shape, MapMode mode, long offset, Order order)
+			throws IOException {
+		return MemoryMap.open(Paths.get(path), dtype, shape, mode, offset, order);
+	}
+
+	/**
+	 * Saves arrays to an uncompressed archive in the NumPy .npz format, naming them arr_0, arr_1 and so on.
+	 *
+	 * @param path   The path of the file, replaced if it exists.
+	 * @param arrays The arrays.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void savez(String path, NDArray<?>... arrays) throws IOException {
+		Map<String, NDArray<?>> named = new LinkedHashMap<>();
+		for (int i = 0; i < arrays.length; i++) {
+			named.put("arr_" + i, arrays[i]);
+		}
+		NpyFormat.savez(Paths.get(path), named, false);
+	}
+
+	/**
+	 * Saves named arrays to an uncompressed archive in the NumPy .npz format.
+	 *
+	 * @param path   The path of the file, replaced if it exists.
+	 * @param arrays The arrays by name.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void savez(String path, Map<String, ? extends NDArray<?>> arrays) throws IOException {
+		NpyFormat.savez(Paths.get(path), arrays, false);
+	}
+
+	/**
+	 * Saves named arrays to a deflated archive in the NumPy .npz format.
+	 *
+	 * @param path   The path of the file, replaced if it exists.
+	 * @param arrays The arrays by name.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void savezCompressed(String path, Map<String, ? extends NDArray<?>> arrays) throws IOException {
+		NpyFormat.savez(Paths.get(path), arrays, true);
+	}
+
+	/**
+	 * Loads every array of an archive in the NumPy .npz format into heap memory.
+	 *
+	 * @param path The path of the file.
+	 * @return The arrays by name, in the order of the archive.
+	 * @throws IOException If the file cannot be read or holds an entry that is not a .npy file.
+	 */
+	public Map<String, NDArray<?>> loadz(String path) throws IOException {
+		return NpyFormat.loadz(Paths.get(path));
+	}
+
+	/**
+	 * Reads a two-dimensional array from text holding numbers separated by whitespace, one row per line.
+	 * Blank lines and lines starting with # are skipped.
+	 *
+	 * @param path  The path of the file.
+	 * @param dtype The data type of the elements.
+	 * @param <R>   The type of the elements of the array.
+	 * @return A new NDArray of shape (rows, columns).
+	 * @throws IOException If the file cannot be read, a field is not a number or the lines differ in length.
+	 */
+	public <R> NDArray<R> loadtxt(String path, DType dtype) throws IOException {
+		return TextFormat.loadtxt(Paths.get(path), dtype, TextFormat.WHITESPACE, 0, null, -1);
+	}
+
+	/**
+	 * Reads a two-dimensional array from delimited text, one row per line, parsing the file in parallel.
+	 *
+	 * @param path      The path of the file.
+	 * @param dtype     The data type of the elements.
+	 * @param delimiter The character separating fields, a space standing for any run of spaces and tabs.
+	 * @param skipRows  The number of lines skipped at the start of the file.
+	 * @param usecols   The fields read as columns, negative ones counting from the last field, or null for all.
+	 * @param maxRows   The largest number of rows read, or a negative number to read every row.
+	 * @param <R>       The type of the elements of the array.
+	 * @return A new NDArray of shape (rows, columns).
+	 * @throws IOException If the file cannot be read, a field is not a number or the lines differ in length.
+	 */
+	public <R> NDArray<R> loadtxt(String path, DType dtype, char delimiter, int skipRows, int[] usecols, long maxRows)
+			throws IOException {
+		return TextFormat.loadtxt(Paths.get(path), dtype, delimiter, skipRows, usecols, maxRows);
+	}
+
+	/**
+	 * Reads a two-dimensional array from delimited text, filling missing or malformed fields with NaN,
+	 * or 0 for integer types.
+	 *
+	 * @param path      The path of the file.
+	 * @param dtype     The data type of the elements.
+	 * @param delimiter The character separating fields, a space standing for any run of spaces and tabs.
+	 * @param <R>       The type of the elements of the array.
+	 * @return A new NDArray of shape (rows, columns).
+	 * @throws IOException If the file cannot be read or a line has more fields than the first one.
+	 */
+	public <R> NDArray<R> genfromtxt(String path, DType dtype, char delimiter) throws IOException {
+		return TextFormat.genfromtxt(Paths.get(path), dtype, delimiter, 0, null, -1, Double.NaN);
+	}
+
+	/**
+	 * Reads a two-dimensional array from delimited text, filling missing or malformed fields with a given value.
+	 *
+	 * @param path         The path of the file.
+	 * @param dtype        The data type of the elements.
+	 * @param delimiter    The character separating fields, a space standing for any run of spaces and tabs.
+	 * @param skipRows     The number of lines skipped at the start of the file.
+	 * @param usecols      The fields read as columns, negative ones counting from the last field, or null for all.
+	 * @param maxRows      The largest number of rows read, or a negative number to read every row.
+	 * @param fillingValue The value of missing fields, truncated for integer types.
+	 * @param <R>          The type of the elements of the array.
+	 * @return A new NDArray of shape (rows, columns).
+	 * @throws IOException If the file cannot be read or a line has more fields than the first one.
+	 */
+	public <R> NDArray<R> genfromtxt(String path, DType dtype, char delimiter, int skipRows, int[] usecols, long maxRows,
+									 double fillingValue) throws IOException {
+		return TextFormat.genfromtxt(Paths.get(path), dtype, delimiter, skipRows, usecols, maxRows, fillingValue);
+	}
+
+	/**
+	 * Writes a one- or two-dimensional array as text, the elements of a row separated by spaces.
+	 *
+	 * @param path  The path of the file, created or overwritten.
+	 * @param array The array to write.
+	 * @throws IOException    If the file cannot be written.
+	 * @throws ShapeException If the array is neither one- nor two-dimensional.
+	 */
+	public void savetxt(String path, NDArray<?> array) throws IOException, ShapeException {
+		TextFormat.savetxt(Paths.get(path), array, ' ');
+	}
+
+	/**
+	 * Writes a one- or two-dimensional array as delimited text, one row per line.
+	 *
+	 * @param path      The path of the file, created or overwritten.
+	 * @param array     The array to write.
+	 * @param delimiter The character written between the elements of a row.
+	 * @throws IOException    If the file cannot be written.
+	 * @throws ShapeException If the array is neither one- nor two-dimensional.
+	 */
+	public void savetxt(String path, NDArray<?> array, char delimiter) throws IOException, ShapeException {
+		TextFormat.savetxt(Paths.get(path), array, delimiter);
+	}
+
+	/**
+	 * Opens an Apache Arrow IPC file, whose fixed-width numeric columns are then mapped as arrays without being
+	 * copied.
+	 *
+	 * @param path The path of the file.
+	 * @return The table of the file, to be closed once its arrays are no longer needed.
+	 * @throws IOException If the file cannot be read or is not valid Arrow IPC data.
+	 */
+	public ArrowTable readArrow(String path) throws IOException {
+		return ArrowFormat.read(Paths.get(path));
+	}
+
+	/**
+	 * Writes one-dimensional arrays of equal length as the columns of an Apache Arrow IPC file.
+	 *
+	 * @param path    The path of the file, replaced if it exists.
+	 * @param columns The arrays by column name.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void writeArrow(String path, Map<String, ? extends NDArray<?>> columns) throws IOException {
+		ArrowFormat.write(Paths.get(path), columns);
+	}
+
+	/**
+	 * Writes the columns of a two-dimensional array as the columns of an Apache Arrow IPC file.
+	 *
+	 * @param path   The path of the file, replaced if it exists.
+	 * @param matrix The array.
+	 * @param names  The name of each column, or none to name them f0, f1 and so on.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void writeArrow(String path, NDArray<?> matrix, String... names) throws IOException {
+		ArrowFormat.write(Paths.get(path), matrix, names);
+	}
+
+	/**
+	 * Creates an empty NDArray with the specified shape.
+	 *
+	 * @param shape The shape of the NDArray.
+	 * @param <R>   The type of elements in the new NDArray.
+	 * @return A new NDArray of the specified shape, filled with null values.
+	 * @throws ShapeException If there is an issue creating the empty NDArray.
+	 */
+	public <R> NDArray<R> empty(int[] shape) throws ShapeException {
+		return new NDArray<>(null, shape, shape.length, DType.INT32);
+	}
+
+	/**
+	 * Creates an NDArray of the given shape and data type without setting its elements, held in the given kind of
+	 * memory. Object arrays hold nulls; the elements of other arrays are unspecified and must be set before use.
+	 * Off-heap arrays should be released with {@link NDArray#close()} once they are no longer needed.
+	 *
+	 * @param shape       The shape of the NDArray.
+	 * @param dType       The data type of the elements in the NDArray.
+	 * @param storageType Whether the elements are held on the Java heap or in native memory.
+	 * @param <R>         The type of elements in the new NDArray.
+	 * @return A new NDArray of the specified shape.
+	 */
+	public <R> NDArray<R> empty(int[] shape, DType dType, StorageType storageType) {
+		return arrayCreation.empty(shape, dType, storageType);
 	}
 
 	/**
@@ -0,0 +1,140 @@
+package com.library.numj;
+
+/**
+ * Describes a basic {@code start:stop:step} selection along one dimension of an {@link NDArray},
+ * following the same rules as Python slices: negative positions count from the end,
+ * out of range bounds are clipped and a negative step walks the dimension backwards.
+ */
+public final class Slice {
+	/** First position of the selection, or null for the beginning of the dimension. */
+	private final Integer start;
+	/** Position where the selection stops (exclusive), or null for the end of the dimension. */
+	private final Integer stop;
+	/** Distance between two selected positions. */
+	private final int step;
+
+	private Slice(Integer start, Integer stop, int step) {
+		if (step == 0)
+			throw new IllegalArgumentException(ExceptionMessages.zeroSliceStepException());
+		this.start = start;
+		this.stop = stop;
+		this.step = step;
+	}
+
+	/**
+	 * Selects the whole dimension ({@code :}).
+	 *
+	 * @return A slice selecting every position.
+	 */
+	public static Slice all() {
+		return new Slice(null, null, 1);
+	}
+
+	/**
+	 * Selects the positions from start up to the end of the dimension ({@code start:}).
+	 *
+	 * @param start The first position (inclusive).
+	 * @return The slice.
+	 */
+	public static Slice from(int start) {
+		return new Slice(start, null, 1);
+	}
+
+	/**
+	 * Selects the positions from the beginning of the dimension up to stop ({@code :stop}).
+	 *
+	 * @param stop The last position (exclusive).
+	 * @return The slice.
+	 */
+	public static Slice to(int stop) {
+		return new Slice(null, stop, 1);
+	}
+
+	/**
+	 * Selects the positions from start up to stop ({@code start:stop}).
+	 *
+	 * @param start The first position (inclusive).
+	 * @param stop  The last position (exclusive).
+	 * @return The slice.
+	 */
+	public static Slice of(int start, int stop) {
+		return new Slice(start, stop, 1);
+	}
+
+	/**
+	 * Selects every step-th position from start up to stop ({@code start:stop:step}).
+	 *
+	 * @param start The first position (inclusive).
+	 * @param stop  The last position (exclusive).
+	 * @param step  The distance between selected positions, negative to walk backwards.
+	 * @return The slice.
+	 * @throws IllegalArgumentException If step is zero.
+	 */
+	public static Slice of(int start, int stop, int step) {
+		return new Slice(start, stop, step);
+	}
+
+	/**
+	 * Selects every step-th position of the whole dimension ({@code ::step}).
+	 *
+	 * @param step The distance between selected positions, negative to walk backwards.
+	 * @return The slice.
+	 * @throws IllegalArgumentException If step is zero.
+	 */
+	public static Slice step(int step) {
+		return new Slice(null, null, step);
+	}
+
+	/**
+	 * Returns the distance between two selected positions.
+	 *
+	 * @return The step of the slice.
+	 */
+	public int step() {
+		return step;
+	}
+
+	/**
+	 * Resolves the first selected position for a dimension of the given length.
+	 *
+	 * @param length The length of the dimension.
+	 * @return The first selected position.
+	 */
+	int first(int length) {
+		if (start == null) {
+			return step > 0 ? 0 : length - 1;
+		}
+		int value = start < 0 ? start + length : start;
+		return step > 0 ? clip(value, 0, length) : clip(value, -1, length - 1);
+	}
+
+	/**
+	 * Resolves the number of positions selected in a dimension of the given length.
+	 *
+	 * @param length The length of the dimension.
+	 * @return The number of selected positions.
+	 */
+	int count(int length) {
+		int first = first(length);
+		int last;
+		if (stop == null) {
+			last = step > 0 ? length : -1;
+		} else {
+			int value = stop < 0 ? stop + length : stop;
+			last = step > 0 ? clip(value, 0, length) : clip(value, -1, length - 1);
+		}
+		if (step > 0) {
+			return last > first ? (last - first + step - 1) / step : 0;
+		}
+		return first > last ? (first - last - step - 1) / -step : 0;
+	}
+
+	private static int clip(int value, int min, int max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	@Override
+	public String toString() {
+		return (start == null ? "" : start) + ":" + (stop == null ? "" : stop) + ":" + step;
+	}
+}
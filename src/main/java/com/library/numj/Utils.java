@@ -1,5 +1,6 @@
 package com.library.numj;
 
+import com.library.numj.enums.DType;
 import com.library.numj.exceptions.ShapeException;
 
 import java.lang.reflect.Array;
@@ -97,15 +98,15 @@ public final class Utils {
     /**
      * Converts a flat index into multi-dimensional indices based on the given shape.
      *
-     * @param flatIndex the flat index.
+     * @param flatIndex the flat index, which may exceed the range of an {@code int}.
      * @param shape the shape of the array.
      * @return an array of indices corresponding to each dimension.
      */
-    public int[] getMultiDimIndices(int flatIndex, int[] shape) {
+    public int[] getMultiDimIndices(long flatIndex, int[] shape) {
         int ndim = shape.length;
         int[] indices = new int[ndim];
         for (int i = ndim - 1; i >= 0; i--) {
-            indices[i] = flatIndex % shape[i];
+            indices[i] = (int) (flatIndex % shape[i]);
             flatIndex /= shape[i];
         }
         return indices;
@@ -115,16 +116,32 @@ public final class Utils {
      * Converts multi-dimensional indices to a flat index using the given strides.
      *
      * @param indices the indices in each dimension.
-     * @param strides the strides for each dimension.
+     * @param strides the element strides for each dimension.
      * @return the flat index.
      */
-    public int getFlatIndex(int[] indices, int[] strides) {
-        int flatIndex = 0;
+    public long getFlatIndex(int[] indices, long[] strides) {
+        long flatIndex = 0;
         for (int i = 0; i < indices.length; i++) {
             flatIndex += indices[i] * strides[i];
         }
         return flatIndex;
     }
+
+    /**
+     * Computes the number of elements of an array with the given shape.
+     * The product is a {@code long}, so shapes of more than {@code 2^31} elements do not overflow.
+     *
+     * @param shape the shape of the array.
+     * @return the total element count.
+     * @throws ArithmeticException if the element count does not fit in a {@code long}.
+     */
+    public long getSize(int[] shape) {
+        long size = 1;
+        for (int dim : shape) {
+            size = Math.multiplyExact(size, dim);
+        }
+        return size;
+    }
     public <T> Class<?> getComponentType(T array)
     {
         Class<?> componenetType = array.getClass().getComponentType();
@@ -151,4 +168,37 @@ public final class Utils {
         return (value instanceof Number || value instanceof String);
     }
     public boolean isFloatingPoint(Object value){return (value instanceof Float || value instanceof Double);}
+
+    /**
+     * Checks whether the given class is a primitive or boxed numeric type with a known size.
+     *
+     * @param clazz the class to check.
+     * @return true if values of the class can be stored in a numeric {@link DType}.
+     */
+    public boolean isNumericClass(Class<?> clazz) {
+        return classSizeMap.containsKey(clazz) && clazz != String.class && clazz != Object.class;
+    }
+
+    /**
+     * Checks whether the given class is a primitive or boxed floating point type.
+     *
+     * @param clazz the class to check.
+     * @return true for {@code float}, {@code double} and their wrappers.
+     */
+    public boolean isFloatingPointClass(Class<?> clazz) {
+        return clazz == Float.class || clazz == Double.class || clazz == float.class || clazz == double.class;
+    }
+
+    /**
+     * Resolves the data type able to hold a single value.
+     *
+     * @param value the value to inspect.
+     * @return the numeric {@link DType} of the value, or {@link DType#OBJECT} for anything else.
+     */
+    public DType resolveType(Object value) {
+        if (value instanceof Number && isNumericClass(value.getClass())) {
+            return DType.INT8.fromSize(getElementSize(value.getClass()), isFloatingPoint(value));
+        }
+        return DType.OBJECT;
+    }
 }
@@ -0,0 +1,13 @@
+package com.library.numj.enums;
+
+/**
+ * Enumeration of the codecs compressing the chunks of a chunked array store.
+ */
+public enum Compression {
+    /** Chunks are stored as raw bytes. */
+    NONE,
+    /** Chunks are compressed with Deflate in the zlib format, smaller but slower than LZ4. */
+    DEFLATE,
+    /** Chunks are compressed in the LZ4 block format, fast enough to keep up with disk reads. */
+    LZ4,
+}
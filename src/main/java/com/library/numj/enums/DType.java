@@ -29,6 +29,11 @@ public enum DType {
 	static Map<DType, Class<?>> typeToClassMap = new HashMap<>();
 	static Map<Integer, DType> sizeToTypeNumericMap = new HashMap<>();
 	static Map<Integer, DType> sizeToTypeFloatingPointMap = new HashMap<>();
+	/**
+	 * NumPy-style promotion matrix: the type of a binary operation result, indexed by the
+	 * ordinals of the two operand types. Mixing FLOAT32 with 32 or 64-bit integers widens to FLOAT64.
+	 */
+	static DType[][] promotionMatrix;
 	static {
 		typeToClassMap.put(FLOAT32, Float.class);
 		typeToClassMap.put(FLOAT64, Double.class);
@@ -47,6 +52,49 @@ public enum DType {
 		sizeToTypeFloatingPointMap.put(8, FLOAT64);
 		sizeToTypeFloatingPointMap.put(16, OBJECT);
 
+		promotionMatrix = new DType[][]{
+				/*            FLOAT32  FLOAT64  INT8     INT16    INT32    INT64    OBJECT */
+				/* FLOAT32 */ {FLOAT32, FLOAT64, FLOAT32, FLOAT32, FLOAT64, FLOAT64, OBJECT},
+				/* FLOAT64 */ {FLOAT64, FLOAT64, FLOAT64, FLOAT64, FLOAT64, FLOAT64, OBJECT},
+				/* INT8    */ {FLOAT32, FLOAT64, INT8,    INT16,   INT32,   INT64,   OBJECT},
+				/* INT16   */ {FLOAT32, FLOAT64, INT16,   INT16,   INT32,   INT64,   OBJECT},
+				/* INT32   */ {FLOAT64, FLOAT64, INT32,   INT32,   INT32,   INT64,   OBJECT},
+				/* INT64   */ {FLOAT64, FLOAT64, INT64,   INT64,   INT64,   INT64,   OBJECT},
+				/* OBJECT  */ {OBJECT,  OBJECT,  OBJECT,  OBJECT,  OBJECT,  OBJECT,  OBJECT}
+		};
+	}
+
+	/**
+	 * Returns the smallest data type both this type and the other type can be safely cast to.
+	 *
+	 * @param other The data type of the other operand.
+	 * @return The promoted data type.
+	 */
+	public DType promote(DType other) {
+		return promotionMatrix[this.ordinal()][other.ordinal()];
+	}
+
+	/**
+	 * Checks whether this data type holds floating point values.
+	 *
+	 * @return True for FLOAT32 and FLOAT64.
+	 */
+	public boolean isFloatingPoint() {
+		return this == FLOAT32 || this == FLOAT64;
+	}
+
+	/**
+	 * Checks whether values of this type may be written into an array of the target type under the
+	 * same-kind casting rule: any type may become OBJECT, integers may become floating point, and
+	 * narrowing within the same kind is allowed, but floating point values never become integers.
+	 *
+	 * @param target The data type of the destination.
+	 * @return True if the cast is allowed.
+	 */
+	public boolean canCastTo(DType target) {
+		if (target == OBJECT || target == this) return true;
+		if (this == OBJECT) return false;
+		return target.isFloatingPoint() || !this.isFloatingPoint();
 	}
 	@SuppressWarnings("unchecked")
 	public <T> T getDefaultValue() {
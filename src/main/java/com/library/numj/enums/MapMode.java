@@ -0,0 +1,15 @@
+package com.library.numj.enums;
+
+/**
+ * Enumeration of the ways a memory-mapped array may access its file, after NumPy's {@code memmap} modes.
+ */
+public enum MapMode {
+    /** Open an existing file for reading only, NumPy's {@code "r"}; writing an element throws. */
+    READ_ONLY,
+    /** Open an existing file for reading and writing, NumPy's {@code "r+"}; writes reach the file. */
+    READ_WRITE,
+    /** Create or overwrite the file, zero-filled, for reading and writing, NumPy's {@code "w+"}. */
+    WRITE,
+    /** Open an existing file copy-on-write, NumPy's {@code "c"}; writes stay in memory and never reach the file. */
+    COPY_ON_WRITE,
+}
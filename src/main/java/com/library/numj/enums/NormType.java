@@ -0,0 +1,13 @@
+package com.library.numj.enums;
+
+/**
+ * Enumeration of the matrix norms computed in NumJ.
+ */
+public enum NormType {
+    /** Square root of the sum of the squares of the elements. */
+    FROBENIUS,
+    /** Largest singular value, the norm induced by the Euclidean vector norm. */
+    SPECTRAL,
+    /** Sum of the singular values. */
+    NUCLEAR,
+}
@@ -0,0 +1,11 @@
+package com.library.numj.enums;
+
+/**
+ * Enumeration of the shapes of the factors returned by a QR decomposition of an (m, n) matrix.
+ */
+public enum QRMode {
+    /** Q of shape (m, k) and R of shape (k, n), with k = min(m, n). */
+    REDUCED,
+    /** Q of shape (m, m) and R of shape (m, n). */
+    COMPLETE,
+}
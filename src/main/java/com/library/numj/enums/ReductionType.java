@@ -0,0 +1,17 @@
+package com.library.numj.enums;
+
+/**
+ * Enumeration of the reductions over array axes used in NumJ.
+ */
+public enum ReductionType {
+    /** Sum of the elements. */
+    SUM,
+    /** Product of the elements. */
+    PROD,
+    /** Smallest element. */
+    MIN,
+    /** Largest element. */
+    MAX,
+    /** Arithmetic mean of the elements. */
+    MEAN,
+}
@@ -0,0 +1,13 @@
+package com.library.numj.enums;
+
+/**
+ * Enumeration of the layouts of a {@link com.library.numj.sparse.SparseArray}.
+ */
+public enum SparseFormat {
+    /** Compressed sparse rows: the column indices and values of every row, one row after the other. */
+    CSR,
+    /** Compressed sparse columns: the row indices and values of every column, one column after the other. */
+    CSC,
+    /** Coordinates: the row index, column index and value of every element, in any order. */
+    COO,
+}
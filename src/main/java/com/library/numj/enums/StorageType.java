@@ -0,0 +1,11 @@
+package com.library.numj.enums;
+
+/**
+ * Enumeration of the memory an array's elements can live in.
+ */
+public enum StorageType {
+    /** Elements are held in a primitive Java array on the garbage collected heap. */
+    HEAP,
+    /** Elements are held in native memory outside the heap and released explicitly with {@code close()}. */
+    OFF_HEAP
+}
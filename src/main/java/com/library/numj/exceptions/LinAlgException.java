@@ -0,0 +1,7 @@
+package com.library.numj.exceptions;
+
+public class LinAlgException extends RuntimeException {
+    public LinAlgException(String message) {
+        super(message);
+    }
+}
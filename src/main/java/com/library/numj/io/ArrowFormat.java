@@ -0,0 +1,730 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+import com.library.numj.storage.Storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.library.numj.ExceptionMessages.arrowFormatException;
+import static com.library.numj.ExceptionMessages.arrowMatrixException;
+import static com.library.numj.ExceptionMessages.arrowShapeException;
+import static com.library.numj.ExceptionMessages.illegalDataType;
+
+/**
+ * Reads and writes arrays as the columns of Apache Arrow IPC files and streams, the format Arrow libraries hand
+ * tables to each other in.
+ * <p>
+ * A stream is a schema message followed by record batch messages and an end-of-stream marker. Each message is a
+ * continuation marker, the length of its FlatBuffers metadata, the metadata padded to 8 bytes and a body holding
+ * the buffers of the columns, every buffer starting at a multiple of 8 bytes. A file is a stream between two
+ * {@code ARROW1} magic strings, followed by a footer locating the record batches.
+ * <p>
+ * Each column of a record batch holding fixed-width numbers stores them as a contiguous little-endian data
+ * buffer, which is read as a one-dimensional array without copying it: files are mapped, and the buffers of a
+ * stream are read once into memory and wrapped, see {@link ArrowTable}. Written arrays become the columns of a
+ * single record batch, converted to bytes by blocks through typed views of a byte buffer instead of element by
+ * element. Signed integers, floating-point numbers, dates, times, timestamps and durations are read; columns of
+ * other types are listed but cannot be viewed as arrays, and compressed record batches and big-endian data are
+ * refused.
+ */
+public final class ArrowFormat {
+    /** The magic string around the stream of a file. */
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    /** The marker preceding the metadata length of every message since Arrow 0.15. */
+    private static final int CONTINUATION = -1;
+    private static final short VERSION_V4 = 3;
+    private static final short VERSION_V5 = 4;
+    /** The alignment of the buffers of a body, in bytes. */
+    private static final int ALIGNMENT = 8;
+    /** Size of the buffer converting elements to bytes. */
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private static final byte SCHEMA = 1;
+    private static final byte DICTIONARY_BATCH = 2;
+    private static final byte RECORD_BATCH = 3;
+
+    private static final byte TYPE_NULL = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_BINARY = 4;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_DATE = 8;
+    private static final byte TYPE_TIME = 9;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final byte TYPE_STRUCT = 13;
+    private static final byte TYPE_UNION = 14;
+    private static final byte TYPE_FIXED_SIZE_LIST = 16;
+    private static final byte TYPE_DURATION = 18;
+    private static final byte TYPE_LARGE_BINARY = 19;
+    private static final byte TYPE_LARGE_UTF8 = 20;
+    private static final byte TYPE_RUN_END_ENCODED = 22;
+    private static final byte TYPE_BINARY_VIEW = 23;
+    private static final byte TYPE_UTF8_VIEW = 24;
+    private static final byte TYPE_LIST_VIEW = 25;
+    private static final byte TYPE_LARGE_LIST_VIEW = 26;
+    /** The names of the types, by type id minus one. */
+    private static final String[] TYPE_NAMES = {"null", "int", "floating_point", "binary", "utf8", "bool", "decimal",
+            "date", "time", "timestamp", "interval", "list", "struct", "union", "fixed_size_binary", "fixed_size_list",
+            "map", "duration", "large_binary", "large_utf8", "large_list", "run_end_encoded", "binary_view",
+            "utf8_view", "list_view", "large_list_view"};
+
+    private ArrowFormat() {
+    }
+
+    /**
+     * Writes arrays to an Arrow IPC file as the columns of one record batch, replacing any existing file.
+     *
+     * @param path    The file.
+     * @param columns The one-dimensional arrays of equal length by column name, in the iteration order of the map.
+     * @throws IOException                  If the file cannot be written.
+     * @throws IllegalArgumentException     If an array is not one-dimensional or the lengths differ.
+     * @throws UnsupportedDataTypeException If an array holds {@link DType#OBJECT} elements.
+     */
+    public static void write(Path path, Map<String, ? extends NDArray<?>> columns) throws IOException {
+        write(path, columns(columns));
+    }
+
+    /**
+     * Writes the columns of a matrix to an Arrow IPC file as one record batch, replacing any existing file.
+     *
+     * @param path   The file.
+     * @param matrix The two-dimensional array.
+     * @param names  The name of each column, or none to name them f0, f1 and so on.
+     * @throws IOException                  If the file cannot be written.
+     * @throws IllegalArgumentException     If the array is not two-dimensional or the names do not match the columns.
+     * @throws UnsupportedDataTypeException If the array holds {@link DType#OBJECT} elements.
+     */
+    public static void write(Path path, NDArray<?> matrix, String... names) throws IOException {
+        write(path, columns(matrix, names));
+    }
+
+    /**
+     * Writes arrays to a channel as an Arrow IPC stream of one record batch.
+     *
+     * @param channel The channel, left open.
+     * @param columns The one-dimensional arrays of equal length by column name, in the iteration order of the map.
+     * @throws IOException                  If the channel cannot be written.
+     * @throws IllegalArgumentException     If an array is not one-dimensional or the lengths differ.
+     * @throws UnsupportedDataTypeException If an array holds {@link DType#OBJECT} elements.
+     */
+    public static void writeStream(WritableByteChannel channel, Map<String, ? extends NDArray<?>> columns) throws IOException {
+        writeMessages(new Output(channel), columns(columns));
+    }
+
+    /**
+     * Writes the columns of a matrix to a channel as an Arrow IPC stream of one record batch.
+     *
+     * @param channel The channel, left open.
+     * @param matrix  The two-dimensional array.
+     * @param names   The name of each column, or none to name them f0, f1 and so on.
+     * @throws IOException                  If the channel cannot be written.
+     * @throws IllegalArgumentException     If the array is not two-dimensional or the names do not match the columns.
+     * @throws UnsupportedDataTypeException If the array holds {@link DType#OBJECT} elements.
+     */
+    public static void writeStream(WritableByteChannel channel, NDArray<?> matrix, String... names) throws IOException {
+        writeMessages(new Output(channel), columns(matrix, names));
+    }
+
+    /**
+     * Opens an Arrow IPC file, or a file holding an Arrow IPC stream, mapping its columns as they are accessed.
+     *
+     * @param path The file.
+     * @return The table of the file, to be closed once its arrays are no longer needed.
+     * @throws IOException If the file cannot be read or is not valid Arrow IPC data.
+     */
+    public static ArrowTable read(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long position = 0;
+            long end = size;
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            if (size >= MAGIC.length) {
+                readFully(channel, magic, 0);
+            }
+            if (Arrays.equals(magic.array(), MAGIC)) {
+                // A file: the stream starts after the padded magic string and ends before the footer
+                ByteBuffer trailer = ByteBuffer.allocate(4 + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN);
+                if (size < ALIGNMENT + trailer.capacity()) {
+                    throw new EOFException(arrowFormatException("the file ends before its footer"));
+                }
+                readFully(channel, trailer, size - trailer.capacity());
+                if (!Arrays.equals(Arrays.copyOfRange(trailer.array(), 4, trailer.capacity()), MAGIC)) {
+                    throw new IOException(arrowFormatException("the file does not end with the magic string"));
+                }
+                end = size - trailer.capacity() - trailer.getInt(0);
+                if (end < ALIGNMENT || end > size) {
+                    throw new IOException(arrowFormatException("the footer length is out of bounds"));
+                }
+                position = ALIGNMENT;
+            }
+            Decoder decoder = new Decoder();
+            ByteBuffer prefix = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (end - position >= 4) {
+                ((Buffer) prefix).clear();
+                readFully(channel, prefix, position);
+                int length = prefix.getInt(0);
+                position += 4;
+                if (length == CONTINUATION) {
+                    ((Buffer) prefix).clear();
+                    readFully(channel, prefix, position);
+                    length = prefix.getInt(0);
+                    position += 4;
+                }
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || length > end - position) {
+                    throw new IOException(arrowFormatException("a message runs past the end of the file"));
+                }
+                ByteBuffer metadata = ByteBuffer.allocate(length);
+                readFully(channel, metadata, position);
+                ((Buffer) metadata).flip();
+                Message message = decoder.parse(metadata);
+                position += length;
+                if (message.bodyLength > end - position) {
+                    throw new IOException(arrowFormatException("a message body runs past the end of the file"));
+                }
+                decoder.accept(message, position, null);
+                position += message.bodyLength;
+            }
+            return decoder.table(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads an Arrow IPC stream up to its end-of-stream marker or the end of the channel, holding the bodies of
+     * its record batches in native memory that its columns view.
+     *
+     * @param channel The channel, left open.
+     * @return The table of the stream.
+     * @throws IOException If the channel cannot be read or does not hold valid Arrow IPC data.
+     */
+    public static ArrowTable readStream(ReadableByteChannel channel) throws IOException {
+        Decoder decoder = new Decoder();
+        ByteBuffer prefix = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        while (true) {
+            ((Buffer) prefix).clear();
+            if (!readFully(channel, prefix, true)) {
+                break;
+            }
+            int length = prefix.getInt(0);
+            if (length == CONTINUATION) {
+                ((Buffer) prefix).clear();
+                readFully(channel, prefix, false);
+                length = prefix.getInt(0);
+            }
+            if (length == 0) {
+                break;
+            }
+            if (length < 0) {
+                throw new IOException(arrowFormatException("a message has a negative length"));
+            }
+            ByteBuffer metadata = ByteBuffer.allocate(length);
+            readFully(channel, metadata, false);
+            ((Buffer) metadata).flip();
+            Message message = decoder.parse(metadata);
+            if (message.type != RECORD_BATCH) {
+                skip(channel, message.bodyLength);
+                decoder.accept(message, 0, null);
+                continue;
+            }
+            if (message.bodyLength > Integer.MAX_VALUE) {
+                throw new IOException(arrowFormatException("a record batch body of " + message.bodyLength
+                        + " bytes is too large to hold in a buffer, read it from a file instead"));
+            }
+            ByteBuffer body = ByteBuffer.allocateDirect((int) message.bodyLength).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, body, false);
+            ((Buffer) body).flip();
+            decoder.accept(message, 0, body);
+        }
+        return decoder.table(null);
+    }
+
+    /**
+     * A column to write, a contiguous run of elements of a storage.
+     */
+    private static final class Column {
+        final String name;
+        final Storage storage;
+        final long start;
+        final long rows;
+
+        Column(String name, Storage storage, long start, long rows) {
+            this.name = name;
+            this.storage = storage;
+            this.start = start;
+            this.rows = rows;
+        }
+    }
+
+    private static Column[] columns(Map<String, ? extends NDArray<?>> arrays) {
+        Column[] columns = new Column[arrays.size()];
+        long rows = -1;
+        int i = 0;
+        for (Map.Entry<String, ? extends NDArray<?>> entry : arrays.entrySet()) {
+            NDArray<?> array = entry.getValue();
+            if (array.type() == DType.OBJECT) {
+                throw new UnsupportedDataTypeException(illegalDataType(array.type()));
+            }
+            if (array.ndim() != 1 || rows >= 0 && array.size() != rows) {
+                throw new IllegalArgumentException(arrowShapeException(entry.getKey(), array.shapeArray(),
+                        rows >= 0 ? rows : array.size()));
+            }
+            rows = array.size();
+            // Strided views are gathered by a bulk copy, contiguous ones are written as they are
+            NDArray<?> source = array.elementStrides()[0] == 1 ? array : array.copy();
+            columns[i++] = new Column(entry.getKey(), source.storage(), source.offset(), rows);
+        }
+        return columns;
+    }
+
+    private static Column[] columns(NDArray<?> matrix, String[] names) {
+        int[] shape = matrix.shapeArray();
+        if (shape.length != 2 || names.length != 0 && names.length != shape[1]) {
+            throw new IllegalArgumentException(arrowMatrixException(shape, names.length));
+        }
+        if (matrix.type() == DType.OBJECT) {
+            throw new UnsupportedDataTypeException(illegalDataType(matrix.type()));
+        }
+        // Columns of a column-major matrix are contiguous, other layouts are copied into one
+        NDArray<?> source = matrix.elementStrides()[0] == 1 ? matrix : matrix.copy(Order.F);
+        Column[] columns = new Column[shape[1]];
+        for (int j = 0; j < shape[1]; j++) {
+            columns[j] = new Column(names.length == 0 ? "f" + j : names[j], source.storage(),
+                    source.offset() + j * source.elementStrides()[1], shape[0]);
+        }
+        return columns;
+    }
+
+    private static void write(Path path, Column[] columns) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.write(ByteBuffer.wrap(Arrays.copyOf(MAGIC, ALIGNMENT)));
+            long[] block = writeMessages(out, columns);
+            ByteBuffer blocks = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+            blocks.putLong(0, block[0]).putInt(8, (int) block[1]).putLong(16, block[2]);
+            ByteBuffer footer = new FlatBuffers.Builder()
+                    .addShort(0, VERSION_V5)
+                    .addTable(1, schema(columns))
+                    .addStructs(2, ByteBuffer.allocate(0), 0)
+                    .addStructs(3, blocks, 1)
+                    .finish();
+            int length = footer.remaining();
+            out.write(footer);
+            ByteBuffer trailer = ByteBuffer.allocate(4 + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt(length).put(MAGIC);
+            ((Buffer) trailer).flip();
+            out.write(trailer);
+        }
+    }
+
+    /**
+     * Writes the schema, the record batch and the end-of-stream marker.
+     *
+     * @return The position of the record batch message, the length of its metadata and the length of its body.
+     */
+    private static long[] writeMessages(Output out, Column[] columns) throws IOException {
+        out.writeMessage(message(SCHEMA, schema(columns), 0));
+        long rows = columns.length == 0 ? 0 : columns[0].rows;
+        ByteBuffer nodes = ByteBuffer.allocate(16 * columns.length).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer buffers = ByteBuffer.allocate(32 * columns.length).order(ByteOrder.LITTLE_ENDIAN);
+        long bodyLength = 0;
+        for (Column column : columns) {
+            long bytes = rows * NpyFormat.elementSize(column.storage.dType());
+            nodes.putLong(rows).putLong(0);
+            // No validity buffer: a column without nulls may leave it empty
+            buffers.putLong(bodyLength).putLong(0).putLong(bodyLength).putLong(bytes);
+            bodyLength += align(bytes);
+        }
+        ((Buffer) nodes).flip();
+        ((Buffer) buffers).flip();
+        FlatBuffers.Builder batch = new FlatBuffers.Builder()
+                .addLong(0, rows)
+                .addStructs(1, nodes, columns.length)
+                .addStructs(2, buffers, 2 * columns.length);
+        long position = out.position;
+        int metadataLength = out.writeMessage(message(RECORD_BATCH, batch, bodyLength));
+
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (Column column : columns) {
+            int size = NpyFormat.elementSize(column.storage.dType());
+            for (long done = 0; done < rows; ) {
+                int count = (int) Math.min(BLOCK_SIZE / size, rows - done);
+                ((Buffer) block).clear();
+                NpyFormat.put(block, column.storage, column.start + done, count);
+                ((Buffer) block).flip();
+                out.write(block);
+                done += count;
+            }
+            long bytes = rows * size;
+            out.write(ByteBuffer.allocate((int) (align(bytes) - bytes)));
+        }
+        ByteBuffer end = ByteBuffer.allocate(ALIGNMENT).order(ByteOrder.LITTLE_ENDIAN);
+        end.putInt(0, CONTINUATION);
+        out.write(end);
+        return new long[]{position, metadataLength, bodyLength};
+    }
+
+    private static ByteBuffer message(byte type, FlatBuffers.Builder header, long bodyLength) {
+        return new FlatBuffers.Builder()
+                .addShort(0, VERSION_V5)
+                .addByte(1, type)
+                .addTable(2, header)
+                .addLong(3, bodyLength)
+                .finish();
+    }
+
+    private static FlatBuffers.Builder schema(Column[] columns) {
+        List<FlatBuffers.Builder> fields = new ArrayList<>();
+        for (Column column : columns) {
+            DType type = column.storage.dType();
+            FlatBuffers.Builder field = new FlatBuffers.Builder().addString(0, column.name).addByte(1, (byte) 0);
+            if (type.isFloatingPoint()) {
+                short precision = (short) (type == DType.FLOAT32 ? 1 : 2);
+                field.addByte(2, TYPE_FLOATING_POINT).addTable(3, new FlatBuffers.Builder().addShort(0, precision));
+            } else {
+                int bitWidth = 8 * NpyFormat.elementSize(type);
+                field.addByte(2, TYPE_INT).addTable(3, new FlatBuffers.Builder().addInt(0, bitWidth).addByte(1, (byte) 1));
+            }
+            // Readers expect the children of every field, even of primitive ones
+            fields.add(field.addTables(5, Collections.<FlatBuffers.Builder>emptyList()));
+        }
+        return new FlatBuffers.Builder().addShort(0, (short) 0).addTables(1, fields);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * A message header with the length of the body that follows it.
+     */
+    private static final class Message {
+        final byte type;
+        final FlatBuffers.Table header;
+        final long bodyLength;
+
+        Message(byte type, FlatBuffers.Table header, long bodyLength) {
+            this.type = type;
+            this.header = header;
+            this.bodyLength = bodyLength;
+        }
+    }
+
+    /**
+     * Collects the schema and the record batches of a stream.
+     */
+    private static final class Decoder {
+        private short version;
+        private List<String> names;
+        private DType[] types;
+        private String[] arrowTypes;
+        /** The number of field nodes and of buffers each column takes in a record batch, children included. */
+        private int[] nodeCounts;
+        private int[] bufferCounts;
+        private final List<ArrowTable.Batch> batches = new ArrayList<>();
+
+        Message parse(ByteBuffer metadata) throws IOException {
+            try {
+                FlatBuffers.Table message = FlatBuffers.Table.root(metadata);
+                short version = message.getShort(0, (short) 0);
+                if (version < VERSION_V4) {
+                    throw new IOException(arrowFormatException("metadata version V" + (version + 1) + " is older than V4"));
+                }
+                FlatBuffers.Table header = message.getTable(2);
+                long bodyLength = message.getLong(3, 0);
+                if (header == null || bodyLength < 0) {
+                    throw new IOException(arrowFormatException("a message has no header"));
+                }
+                if (names == null) {
+                    this.version = version;
+                }
+                return new Message(message.getByte(1, (byte) 0), header, bodyLength);
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException(arrowFormatException("the metadata of a message is corrupt"), e);
+            }
+        }
+
+        /**
+         * Takes a message in.
+         *
+         * @param bodyPosition The position of the body in the file, for files.
+         * @param body         The body, for streams.
+         */
+        void accept(Message message, long bodyPosition, ByteBuffer body) throws IOException {
+            try {
+                switch (message.type) {
+                    case SCHEMA:
+                        if (names != null) {
+                            throw new IOException(arrowFormatException("a second schema follows the first"));
+                        }
+                        schema(message.header);
+                        break;
+                    case RECORD_BATCH:
+                        if (names == null) {
+                            throw new IOException(arrowFormatException("a record batch precedes the schema"));
+                        }
+                        batch(message.header, message.bodyLength, bodyPosition, body);
+                        break;
+                    case DICTIONARY_BATCH:
+                        // The values of dictionary-encoded columns, which are not viewed as arrays
+                        break;
+                    default:
+                        throw new IOException(arrowFormatException("message type " + message.type + " is not supported"));
+                }
+            } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+                throw new IOException(arrowFormatException("the metadata of a message is corrupt"), e);
+            }
+        }
+
+        ArrowTable table(FileChannel channel) throws IOException {
+            if (names == null) {
+                throw new IOException(arrowFormatException("there is no schema"));
+            }
+            return new ArrowTable(names, types, arrowTypes, batches, channel);
+        }
+
+        private void schema(FlatBuffers.Table schema) throws IOException {
+            if (schema.getShort(0, (short) 0) != 0) {
+                throw new IOException(arrowFormatException("big-endian data is not supported"));
+            }
+            int count = schema.vectorLength(1);
+            List<String> names = new ArrayList<>();
+            types = new DType[count];
+            arrowTypes = new String[count];
+            nodeCounts = new int[count];
+            bufferCounts = new int[count];
+            for (int i = 0; i < count; i++) {
+                FlatBuffers.Table field = schema.vectorTable(1, i);
+                String name = field.getString(0);
+                names.add(name == null ? "" : name);
+                byte typeId = field.getByte(2, (byte) 0);
+                FlatBuffers.Table type = field.getTable(3);
+                boolean dictionary = field.has(4);
+                types[i] = dictionary ? null : dType(typeId, type);
+                arrowTypes[i] = dictionary ? "dictionary<" + typeName(typeId, type) + ">" : typeName(typeId, type);
+                int[] counts = new int[2];
+                layout(field, counts);
+                nodeCounts[i] = counts[0];
+                bufferCounts[i] = counts[1];
+            }
+            this.names = names;
+        }
+
+        private void batch(FlatBuffers.Table batch, long bodyLength, long bodyPosition, ByteBuffer body) throws IOException {
+            if (batch.has(3)) {
+                throw new IOException(arrowFormatException("compressed record batches are not supported"));
+            }
+            long rows = batch.getLong(0, 0);
+            int nodes = batch.vectorLength(1);
+            int buffers = batch.vectorLength(2);
+            long[] offsets = new long[types.length];
+            long[] nullCounts = new long[types.length];
+            int node = 0;
+            int buffer = 0;
+            for (int c = 0; c < types.length; c++) {
+                if (node + nodeCounts[c] > nodes || buffer + bufferCounts[c] > buffers) {
+                    throw new IOException(arrowFormatException("a record batch has fewer buffers than its schema needs"));
+                }
+                if (types[c] != null) {
+                    long length = batch.vectorLong(1, node, 16, 0);
+                    nullCounts[c] = batch.vectorLong(1, node, 16, 8);
+                    long offset = batch.vectorLong(2, buffer + 1, 16, 0);
+                    long bytes = batch.vectorLong(2, buffer + 1, 16, 8);
+                    if (rows < 0 || length != rows || offset < 0 || bytes < rows * NpyFormat.elementSize(types[c])
+                            || bytes > bodyLength - offset) {
+                        throw new IOException(arrowFormatException("the data of column '" + names.get(c)
+                                + "' does not fit the body of its record batch"));
+                    }
+                    offsets[c] = offset;
+                }
+                node += nodeCounts[c];
+                buffer += bufferCounts[c];
+            }
+            batches.add(new ArrowTable.Batch(rows, offsets, nullCounts, bodyPosition, body));
+        }
+
+        /**
+         * Counts the field nodes and buffers of a field and its children.
+         */
+        private void layout(FlatBuffers.Table field, int[] counts) throws IOException {
+            counts[0]++;
+            if (field.has(4)) {
+                // Dictionary-encoded: integer indices, the values coming in dictionary batches
+                counts[1] += 2;
+                return;
+            }
+            counts[1] += bufferCount(field.getByte(2, (byte) 0), field.getTable(3));
+            for (int i = 0; i < field.vectorLength(5); i++) {
+                layout(field.vectorTable(5, i), counts);
+            }
+        }
+
+        private int bufferCount(byte typeId, FlatBuffers.Table type) throws IOException {
+            switch (typeId) {
+                case TYPE_NULL:
+                case TYPE_RUN_END_ENCODED:
+                    return 0;
+                case TYPE_STRUCT:
+                case TYPE_FIXED_SIZE_LIST:
+                    return 1;
+                case TYPE_UNION:
+                    // Type ids, offsets for dense unions, and a validity buffer before V5
+                    boolean dense = type != null && type.getShort(0, (short) 0) == 1;
+                    return (dense ? 2 : 1) + (version < VERSION_V5 ? 1 : 0);
+                case TYPE_BINARY:
+                case TYPE_UTF8:
+                case TYPE_LARGE_BINARY:
+                case TYPE_LARGE_UTF8:
+                case TYPE_LIST_VIEW:
+                case TYPE_LARGE_LIST_VIEW:
+                    return 3;
+                case TYPE_BINARY_VIEW:
+                case TYPE_UTF8_VIEW:
+                    throw new IOException(arrowFormatException("view columns with variadic buffers are not supported"));
+                default:
+                    if (typeId < TYPE_NULL || typeId > TYPE_NAMES.length) {
+                        throw new IOException(arrowFormatException("type id " + typeId + " is unknown"));
+                    }
+                    return 2;
+            }
+        }
+    }
+
+    /**
+     * Returns the type of the arrays viewing a column, or null if it cannot be viewed as an array.
+     */
+    private static DType dType(byte typeId, FlatBuffers.Table type) {
+        if (type == null) {
+            return null;
+        }
+        switch (typeId) {
+            case TYPE_INT:
+                if (type.getByte(1, (byte) 0) == 0) {
+                    return null;
+                }
+                switch (type.getInt(0, 0)) {
+                    case 8: return DType.INT8;
+                    case 16: return DType.INT16;
+                    case 32: return DType.INT32;
+                    case 64: return DType.INT64;
+                    default: return null;
+                }
+            case TYPE_FLOATING_POINT:
+                short precision = type.getShort(0, (short) 0);
+                return precision == 1 ? DType.FLOAT32 : precision == 2 ? DType.FLOAT64 : null;
+            case TYPE_DATE:
+                // Days since the epoch in 32 bits, or milliseconds in 64
+                return type.getShort(0, (short) 1) == 0 ? DType.INT32 : DType.INT64;
+            case TYPE_TIME:
+                return type.getInt(1, 32) == 32 ? DType.INT32 : DType.INT64;
+            case TYPE_TIMESTAMP:
+            case TYPE_DURATION:
+                return DType.INT64;
+            default:
+                return null;
+        }
+    }
+
+    private static String typeName(byte typeId, FlatBuffers.Table type) {
+        if (typeId == TYPE_INT && type != null) {
+            return (type.getByte(1, (byte) 0) != 0 ? "int" : "uint") + type.getInt(0, 0);
+        }
+        if (typeId == TYPE_FLOATING_POINT && type != null) {
+            return "float" + (16 << type.getShort(0, (short) 0));
+        }
+        return typeId >= TYPE_NULL && typeId <= TYPE_NAMES.length ? TYPE_NAMES[typeId - 1] : "type " + typeId;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException(arrowFormatException("the file ends in the middle of a message"));
+            }
+        }
+    }
+
+    /**
+     * Fills a buffer from a channel.
+     *
+     * @param endAllowed Whether the channel may end before the first byte.
+     * @return False if the channel ended before the first byte.
+     */
+    private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer, boolean endAllowed) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (endAllowed && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException(arrowFormatException("the stream ends in the middle of a message"));
+            }
+        }
+        return true;
+    }
+
+    private static void skip(ReadableByteChannel channel, long bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BLOCK_SIZE, bytes));
+        for (long done = 0; done < bytes; done += buffer.capacity()) {
+            ((Buffer) buffer).clear();
+            ((Buffer) buffer).limit((int) Math.min(buffer.capacity(), bytes - done));
+            readFully(channel, buffer, false);
+        }
+    }
+
+    /**
+     * A channel counting the bytes written to it.
+     */
+    private static final class Output {
+        private final WritableByteChannel channel;
+        long position;
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(ByteBuffer buffer) throws IOException {
+            position += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        /**
+         * Writes a message prefix and metadata padded to 8 bytes.
+         *
+         * @return The length of the prefix and metadata.
+         */
+        int writeMessage(ByteBuffer metadata) throws IOException {
+            ByteBuffer prefix = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            prefix.putInt(CONTINUATION).putInt(metadata.remaining());
+            ((Buffer) prefix).flip();
+            int length = prefix.remaining() + metadata.remaining();
+            write(prefix);
+            write(metadata);
+            return length;
+        }
+    }
+}
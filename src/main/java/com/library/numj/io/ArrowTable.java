@@ -0,0 +1,299 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+import com.library.numj.storage.OffHeapStorage;
+import com.library.numj.storage.Storage;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.library.numj.ExceptionMessages.arrowColumnException;
+import static com.library.numj.ExceptionMessages.arrowNullException;
+import static com.library.numj.ExceptionMessages.arrowTypeException;
+
+/**
+ * The columns of an Arrow IPC file or stream read by {@link ArrowFormat}, viewed as arrays.
+ * <p>
+ * The data buffer of a fixed-width column of a record batch is viewed as a one-dimensional array without being
+ * copied: mapped from the file for files, wrapped in memory for streams, the buffers being little-endian and
+ * laid out as the elements of a contiguous array. Columns spanning several record batches are concatenated into
+ * a new array. Columns next to each other in a record batch, of the same type and without padding in between,
+ * are stacked into a column-major matrix over their buffers, again without copies; other columns are copied.
+ * <p>
+ * Arrays viewing the data stay valid until the table is closed, which unmaps them.
+ */
+public final class ArrowTable implements AutoCloseable {
+    /** Number of elements converted at a time when stacking columns of different types. */
+    private static final int BLOCK_SIZE = 1 << 13;
+
+    private final List<String> names;
+    /** The type of the arrays of each column, null for columns that cannot be viewed as arrays. */
+    private final DType[] types;
+    /** The Arrow type of each column. */
+    private final String[] arrowTypes;
+    private final List<Batch> batches;
+    /** The file the batches are mapped from, null for streams. */
+    private final FileChannel channel;
+    private final List<Storage> storages = new ArrayList<>();
+
+    ArrowTable(List<String> names, DType[] types, String[] arrowTypes, List<Batch> batches, FileChannel channel) {
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.types = types;
+        this.arrowTypes = arrowTypes;
+        this.batches = batches;
+        this.channel = channel;
+    }
+
+    /**
+     * A record batch, giving where the data buffer of each column lies in its body.
+     */
+    static final class Batch {
+        final long rows;
+        final long[] offsets;
+        final long[] nullCounts;
+        /** The position of the body in the file, for files. */
+        final long bodyPosition;
+        /** The body, for streams. */
+        final ByteBuffer body;
+
+        Batch(long rows, long[] offsets, long[] nullCounts, long bodyPosition, ByteBuffer body) {
+            this.rows = rows;
+            this.offsets = offsets;
+            this.nullCounts = nullCounts;
+            this.bodyPosition = bodyPosition;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Returns the names of the columns, in the order of the schema.
+     */
+    public List<String> columnNames() {
+        return names;
+    }
+
+    /**
+     * Returns the data type of the arrays of a column.
+     *
+     * @param name The name of the column.
+     * @return The data type, or null if the column cannot be viewed as an array.
+     * @throws IllegalArgumentException If there is no such column.
+     */
+    public DType type(String name) {
+        return types[index(name)];
+    }
+
+    /**
+     * Returns the number of rows of all record batches.
+     */
+    public long rowCount() {
+        long rows = 0;
+        for (Batch batch : batches) rows += batch.rows;
+        return rows;
+    }
+
+    /**
+     * Returns the number of record batches.
+     */
+    public int batchCount() {
+        return batches.size();
+    }
+
+    /**
+     * Returns a column as a one-dimensional array, a view of its data when the table has a single record batch
+     * and a concatenated copy otherwise.
+     *
+     * @param name The name of the column.
+     * @param <R>  The type of the elements of the array.
+     * @return The column.
+     * @throws IOException                  If the column cannot be mapped from the file.
+     * @throws IllegalArgumentException     If there is no such column.
+     * @throws UnsupportedDataTypeException If the column is not of a fixed-width numeric type or holds nulls.
+     * @throws ArithmeticException          If the column has more than {@link Integer#MAX_VALUE} rows.
+     */
+    public <R> NDArray<R> column(String name) throws IOException {
+        if (batches.size() == 1) {
+            return column(name, 0);
+        }
+        int column = supported(index(name));
+        Storage storage = Storage.allocate(types[column], rowCount());
+        long position = 0;
+        for (Batch batch : batches) {
+            Storage part = storage(batch, column);
+            part.copyTo(0, storage, position, batch.rows);
+            part.close();
+            position += batch.rows;
+        }
+        return new NumJ().array(storage, new int[]{Math.toIntExact(rowCount())});
+    }
+
+    /**
+     * Returns a column of a record batch as a one-dimensional array viewing its data.
+     *
+     * @param name  The name of the column.
+     * @param batch The index of the record batch.
+     * @param <R>   The type of the elements of the array.
+     * @return The column of the batch.
+     * @throws IOException                  If the column cannot be mapped from the file.
+     * @throws IllegalArgumentException     If there is no such column.
+     * @throws IndexOutOfBoundsException    If there is no such record batch.
+     * @throws UnsupportedDataTypeException If the column is not of a fixed-width numeric type or holds nulls.
+     * @throws ArithmeticException          If the batch has more than {@link Integer#MAX_VALUE} rows.
+     */
+    public <R> NDArray<R> column(String name, int batch) throws IOException {
+        int column = supported(index(name));
+        Batch source = batches.get(batch);
+        int rows = Math.toIntExact(source.rows);
+        return new NumJ().array(track(storage(source, column)), new int[]{rows});
+    }
+
+    /**
+     * Stacks columns into a column-major matrix with one column per name, of their promoted type. The matrix
+     * views the data when the table has a single record batch and the columns are of the same type and stored
+     * one after the other without padding, which Arrow writers do for columns whose size is a multiple of 8
+     * bytes; it is a copy otherwise.
+     *
+     * @param names The names of the columns.
+     * @param <R>   The type of the elements of the matrix.
+     * @return The matrix of shape (rows, columns).
+     * @throws IOException                  If the columns cannot be mapped from the file.
+     * @throws IllegalArgumentException     If no name is given or a column does not exist.
+     * @throws UnsupportedDataTypeException If a column is not of a fixed-width numeric type or holds nulls.
+     * @throws ArithmeticException          If the matrix has more than {@link Integer#MAX_VALUE} rows.
+     */
+    public <R> NDArray<R> stack(String... names) throws IOException {
+        if (names.length == 0) {
+            throw new IllegalArgumentException(arrowColumnException("", this.names));
+        }
+        int[] columns = new int[names.length];
+        DType type = null;
+        boolean sameType = true;
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = supported(index(names[i]));
+            DType columnType = types[columns[i]];
+            sameType &= type == null || type == columnType;
+            type = type == null ? columnType : type.promote(columnType);
+        }
+        int rows = Math.toIntExact(rowCount());
+        int[] shape = {rows, names.length};
+        if (batches.size() == 1 && sameType && adjacent(batches.get(0), columns, type)) {
+            Storage storage = storage(batches.get(0), batches.get(0).offsets[columns[0]], type, (long) rows * names.length);
+            return new NumJ().array(track(storage), shape, Order.F);
+        }
+        Storage storage = Storage.allocate(type, (long) rows * names.length);
+        for (int i = 0; i < columns.length; i++) {
+            long position = (long) i * rows;
+            for (Batch batch : batches) {
+                Storage part = storage(batch, columns[i]);
+                transfer(part, storage, position, batch.rows);
+                part.close();
+                position += batch.rows;
+            }
+        }
+        return new NumJ().array(storage, shape, Order.F);
+    }
+
+    /**
+     * Unmaps the arrays viewing the data of the table and closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (storages) {
+            for (Storage storage : storages) storage.close();
+            storages.clear();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private int index(String name) {
+        int index = names.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException(arrowColumnException(name, names));
+        }
+        return index;
+    }
+
+    private int supported(int column) {
+        if (types[column] == null) {
+            throw new UnsupportedDataTypeException(arrowTypeException(names.get(column), arrowTypes[column]));
+        }
+        for (Batch batch : batches) {
+            if (batch.nullCounts[column] != 0) {
+                throw new UnsupportedDataTypeException(arrowNullException(names.get(column), batch.nullCounts[column]));
+            }
+        }
+        return column;
+    }
+
+    private static boolean adjacent(Batch batch, int[] columns, DType type) {
+        long bytes = batch.rows * NpyFormat.elementSize(type);
+        for (int i = 1; i < columns.length; i++) {
+            if (batch.offsets[columns[i]] != batch.offsets[columns[0]] + i * bytes) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Storage storage(Batch batch, int column) throws IOException {
+        return storage(batch, batch.offsets[column], types[column], batch.rows);
+    }
+
+    /**
+     * Views elements of the body of a batch as a storage.
+     */
+    private Storage storage(Batch batch, long offset, DType type, long length) throws IOException {
+        if (batch.body == null) {
+            return OffHeapStorage.map(channel, batch.bodyPosition + offset, type, length, ByteOrder.LITTLE_ENDIAN,
+                    FileChannel.MapMode.READ_ONLY);
+        }
+        ByteBuffer bytes = batch.body.duplicate();
+        ((Buffer) bytes).limit((int) (offset + length * NpyFormat.elementSize(type)));
+        ((Buffer) bytes).position((int) offset);
+        return OffHeapStorage.wrap(bytes.slice().order(ByteOrder.LITTLE_ENDIAN), type);
+    }
+
+    private Storage track(Storage storage) {
+        synchronized (storages) {
+            storages.add(storage);
+        }
+        return storage;
+    }
+
+    /**
+     * Copies elements into a storage, converting them by blocks when the types differ.
+     */
+    private static void transfer(Storage source, Storage target, long targetFrom, long length) {
+        if (source.dType() == target.dType()) {
+            source.copyTo(0, target, targetFrom, length);
+            return;
+        }
+        boolean floating = target.dType().isFloatingPoint();
+        double[] doubles = floating ? new double[(int) Math.min(BLOCK_SIZE, length)] : null;
+        long[] longs = floating ? null : new long[(int) Math.min(BLOCK_SIZE, length)];
+        for (long done = 0; done < length; done += BLOCK_SIZE) {
+            int count = (int) Math.min(BLOCK_SIZE, length - done);
+            if (floating) {
+                source.getDoubles(done, doubles, 0, count);
+                target.setDoubles(targetFrom + done, doubles, 0, count);
+            } else {
+                source.getLongs(done, longs, 0, count);
+                target.setLongs(targetFrom + done, longs, 0, count);
+            }
+        }
+    }
+}
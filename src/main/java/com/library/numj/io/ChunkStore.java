@@ -0,0 +1,717 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.Compression;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+import com.library.numj.storage.Storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static com.library.numj.ExceptionMessages.chunkShapeException;
+import static com.library.numj.ExceptionMessages.chunkStoreException;
+import static com.library.numj.ExceptionMessages.illegalDataType;
+import static com.library.numj.ExceptionMessages.negativeSizeException;
+import static com.library.numj.ExceptionMessages.regionException;
+
+/**
+ * An N-dimensional array stored on the local file system as a directory of fixed-shape, compressed chunks,
+ * laid out as a Zarr version 2 array so that other Zarr readers can open it.
+ * <p>
+ * The directory holds a {@code .zarray} JSON header giving the shape, the chunk shape, the element type, the
+ * memory order of the elements inside a chunk, the compressor and the fill value, and one file per chunk named
+ * after its position in the chunk grid, such as {@code 2.0.1}. Every chunk file holds a whole chunk, those on
+ * the upper edges being padded, compressed with Deflate in the zlib format, with LZ4 (a block preceded by its
+ * decompressed size, as the numcodecs codec writes it), or not at all. Chunks never written are missing and
+ * read as the fill value.
+ * <p>
+ * Reading or writing a hyper-rectangular region only touches the chunks it intersects, which are processed in
+ * parallel on the default {@link com.library.numj.parallel.ExecutionContext}, so a small window of a huge array
+ * is cheap to read. Decoded chunks are kept in an LRU cache of a bounded number of chunks, so overlapping reads
+ * do not decode them again. Writes replace whole chunk files atomically, reading and merging the chunks the
+ * region covers only partially. Regions may be read and written from several threads at once, but concurrent
+ * writes to the same chunk may lose one another's changes.
+ */
+public final class ChunkStore {
+    /** The name of the header file. */
+    static final String HEADER = ".zarray";
+    /** Default number of decoded chunks kept in the cache. */
+    private static final int DEFAULT_CACHE_CHUNKS = 64;
+    /** Deflate level, favouring speed. */
+    private static final int DEFLATE_LEVEL = 1;
+
+    private final Path directory;
+    private final int[] shape;
+    private final int[] chunks;
+    private final DType type;
+    private final ByteOrder byteOrder;
+    private final Order order;
+    private final Compression compression;
+    private final int level;
+    private final double fillValue;
+    private final String separator;
+    /** Number of chunks along every dimension. */
+    private final int[] grid;
+    /** Number of elements of a chunk. */
+    private final int chunkLength;
+    /** Strides of the elements inside a chunk. */
+    private final long[] chunkStrides;
+    /** Maximal number of chunks in the cache. */
+    private volatile int cacheCapacity = DEFAULT_CACHE_CHUNKS;
+    /** Decoded chunks by linear position in the grid, least recently used first, guarded by itself. */
+    private final Map<Long, Storage> cache = new LinkedHashMap<Long, Storage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Storage> eldest) {
+            return size() > cacheCapacity;
+        }
+    };
+
+    private ChunkStore(Path directory, int[] shape, int[] chunks, DType type, ByteOrder byteOrder, Order order,
+                       Compression compression, int level, double fillValue, String separator) {
+        this.directory = directory;
+        this.shape = shape;
+        this.chunks = chunks;
+        this.type = type;
+        this.byteOrder = byteOrder;
+        this.order = order;
+        this.compression = compression;
+        this.level = level;
+        this.fillValue = fillValue;
+        this.separator = separator;
+        this.grid = new int[shape.length];
+        long length = 1;
+        for (int d = 0; d < shape.length; d++) {
+            grid[d] = (shape[d] + chunks[d] - 1) / chunks[d];
+            length *= chunks[d];
+        }
+        if (length * NpyFormat.elementSize(type) > Storage.MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException(chunkShapeException(chunks, shape));
+        }
+        this.chunkLength = (int) length;
+        this.chunkStrides = new long[shape.length];
+        long stride = 1;
+        for (int i = 0; i < shape.length; i++) {
+            int d = order == Order.F ? i : shape.length - 1 - i;
+            chunkStrides[d] = stride;
+            stride *= chunks[d];
+        }
+    }
+
+    /**
+     * Creates an empty store in a directory, created if needed, replacing the header and chunks of any store
+     * already there. Every element reads as zero until written.
+     *
+     * @param directory   The directory of the store.
+     * @param shape       The shape of the array.
+     * @param chunks      The shape of a chunk, with as many dimensions as the array.
+     * @param dType       The data type of the elements.
+     * @param order       The memory order of the elements inside a chunk.
+     * @param compression How chunks are compressed.
+     * @return The new store.
+     * @throws IOException                  If the directory or the header cannot be written.
+     * @throws IllegalArgumentException     If the chunk shape does not match the shape or is not positive.
+     * @throws UnsupportedDataTypeException If the type is {@link DType#OBJECT}.
+     */
+    public static ChunkStore create(Path directory, int[] shape, int[] chunks, DType dType, Order order,
+                                    Compression compression) throws IOException {
+        if (dType == DType.OBJECT) {
+            throw new UnsupportedDataTypeException(illegalDataType(dType));
+        }
+        if (chunks.length != shape.length) {
+            throw new IllegalArgumentException(chunkShapeException(chunks, shape));
+        }
+        for (int d = 0; d < shape.length; d++) {
+            if (shape[d] < 0 || chunks[d] <= 0) {
+                throw new IllegalArgumentException(chunkShapeException(chunks, shape));
+            }
+        }
+        ChunkStore store = new ChunkStore(directory, shape.clone(), chunks.clone(), dType, ByteOrder.LITTLE_ENDIAN,
+                order, compression, DEFLATE_LEVEL, 0, ".");
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*[0-9]")) {
+            for (Path file : files) {
+                if (file.getFileName().toString().matches("[0-9]+([./][0-9]+)*")) Files.delete(file);
+            }
+        }
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("zarr_format", 2);
+        header.put("shape", shape);
+        header.put("chunks", chunks);
+        header.put("dtype", NpyFormat.descr(dType));
+        Map<String, Object> compressor = null;
+        if (compression != Compression.NONE) {
+            compressor = new LinkedHashMap<>();
+            compressor.put("id", compression == Compression.LZ4 ? "lz4" : "zlib");
+            if (compression == Compression.LZ4) compressor.put("acceleration", 1);
+            else compressor.put("level", DEFLATE_LEVEL);
+        }
+        header.put("compressor", compressor);
+        header.put("fill_value", dType.isFloatingPoint() ? (Object) 0.0 : (Object) 0);
+        header.put("order", order == Order.F ? "F" : "C");
+        header.put("filters", null);
+        Files.write(directory.resolve(HEADER), (Json.write(header) + "\n").getBytes(StandardCharsets.UTF_8));
+        return store;
+    }
+
+    /**
+     * Opens the store in a directory.
+     *
+     * @param directory The directory of the store.
+     * @return The store.
+     * @throws IOException                  If the header cannot be read or does not describe a supported array.
+     * @throws UnsupportedDataTypeException If the elements are of a type NumJ cannot represent.
+     */
+    public static ChunkStore open(Path directory) throws IOException {
+        Object parsed;
+        try {
+            parsed = Json.parse(new String(Files.readAllBytes(directory.resolve(HEADER)), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            throw new IOException(chunkStoreException("no " + HEADER + " header in " + directory), e);
+        }
+        if (!(parsed instanceof Map)) {
+            throw new IOException(chunkStoreException("the header is not a JSON object"));
+        }
+        Map<?, ?> header = (Map<?, ?>) parsed;
+        if (!Long.valueOf(2).equals(header.get("zarr_format"))) {
+            throw new IOException(chunkStoreException("only version 2 is supported, not " + header.get("zarr_format")));
+        }
+        int[] shape = dimensions(header.get("shape"), "shape");
+        int[] chunks = dimensions(header.get("chunks"), "chunks");
+        if (chunks.length != shape.length) {
+            throw new IOException(chunkStoreException("the chunks do not match the shape"));
+        }
+        for (int chunk : chunks) {
+            if (chunk <= 0) throw new IOException(chunkStoreException("the chunks must be positive"));
+        }
+        if (!(header.get("dtype") instanceof String)) {
+            throw new IOException(chunkStoreException("the dtype is not a NumPy type description"));
+        }
+        String descr = (String) header.get("dtype");
+        Object filters = header.get("filters");
+        if (filters != null && !(filters instanceof List && ((List<?>) filters).isEmpty())) {
+            throw new IOException(chunkStoreException("filters are not supported"));
+        }
+        Compression compression = Compression.NONE;
+        int level = DEFLATE_LEVEL;
+        Object compressor = header.get("compressor");
+        if (compressor instanceof Map) {
+            Object id = ((Map<?, ?>) compressor).get("id");
+            if ("zlib".equals(id)) {
+                compression = Compression.DEFLATE;
+                Object configured = ((Map<?, ?>) compressor).get("level");
+                if (configured instanceof Long) level = ((Long) configured).intValue();
+            } else if ("lz4".equals(id)) {
+                compression = Compression.LZ4;
+            } else {
+                throw new IOException(chunkStoreException("the compressor " + id + " is not supported"));
+            }
+        } else if (compressor != null) {
+            throw new IOException(chunkStoreException("the compressor is not a JSON object"));
+        }
+        Object orderName = header.get("order");
+        if (!"C".equals(orderName) && !"F".equals(orderName)) {
+            throw new IOException(chunkStoreException("the order " + orderName + " is neither C nor F"));
+        }
+        Object separator = header.get("dimension_separator");
+        if (separator != null && !".".equals(separator) && !"/".equals(separator)) {
+            throw new IOException(chunkStoreException("the dimension separator " + separator + " is not supported"));
+        }
+        return new ChunkStore(directory, shape, chunks, NpyFormat.type(descr), NpyFormat.byteOrder(descr),
+                "F".equals(orderName) ? Order.F : Order.C, compression, level, fillValue(header.get("fill_value")),
+                separator == null ? "." : (String) separator);
+    }
+
+    private static int[] dimensions(Object value, String name) throws IOException {
+        if (!(value instanceof List)) {
+            throw new IOException(chunkStoreException("the " + name + " is not a list of dimensions"));
+        }
+        List<?> list = (List<?>) value;
+        int[] dimensions = new int[list.size()];
+        for (int d = 0; d < dimensions.length; d++) {
+            Object dimension = list.get(d);
+            if (!(dimension instanceof Long) || (Long) dimension < 0 || (Long) dimension > Integer.MAX_VALUE) {
+                throw new IOException(chunkStoreException("the " + name + " has an invalid dimension " + dimension));
+            }
+            dimensions[d] = ((Long) dimension).intValue();
+        }
+        return dimensions;
+    }
+
+    private static double fillValue(Object value) throws IOException {
+        if (value == null) return 0;
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        if ("NaN".equals(value)) return Double.NaN;
+        if ("Infinity".equals(value)) return Double.POSITIVE_INFINITY;
+        if ("-Infinity".equals(value)) return Double.NEGATIVE_INFINITY;
+        throw new IOException(chunkStoreException("the fill value " + value + " is not a number"));
+    }
+
+    /**
+     * Returns the shape of the array.
+     *
+     * @return A copy of the shape.
+     */
+    public int[] shapeArray() {
+        return shape.clone();
+    }
+
+    /**
+     * Returns the shape of a chunk.
+     *
+     * @return A copy of the chunk shape.
+     */
+    public int[] chunkShape() {
+        return chunks.clone();
+    }
+
+    /**
+     * Returns the data type of the elements.
+     *
+     * @return The data type.
+     */
+    public DType type() {
+        return type;
+    }
+
+    /**
+     * Returns the memory order of the elements inside a chunk.
+     *
+     * @return The order.
+     */
+    public Order order() {
+        return order;
+    }
+
+    /**
+     * Returns how the chunks are compressed.
+     *
+     * @return The compression.
+     */
+    public Compression compression() {
+        return compression;
+    }
+
+    /**
+     * Sets the number of decoded chunks kept in the cache, dropping the least recently used ones beyond it.
+     * A capacity of zero disables the cache.
+     *
+     * @param chunks The number of chunks.
+     * @throws IllegalArgumentException If the number is negative.
+     */
+    public void setCacheCapacity(int chunks) {
+        if (chunks < 0) {
+            throw new IllegalArgumentException(negativeSizeException(chunks));
+        }
+        synchronized (cache) {
+            cacheCapacity = chunks;
+            Iterator<Long> eldest = cache.keySet().iterator();
+            while (cache.size() > chunks) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of decoded chunks currently in the cache.
+     *
+     * @return The number of cached chunks.
+     */
+    public int cachedChunks() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Reads the whole array.
+     *
+     * @param <R> The type of the elements of the array.
+     * @return A new row-major NDArray holding the elements.
+     * @throws IOException If a chunk cannot be read or is corrupt.
+     */
+    public <R> NDArray<R> read() throws IOException {
+        return read(new int[shape.length], shape);
+    }
+
+    /**
+     * Reads a hyper-rectangular region of the array, decoding only the chunks it intersects.
+     *
+     * @param start The first index of the region along every dimension.
+     * @param stop  The index after the last one of the region along every dimension.
+     * @param <R>   The type of the elements of the array.
+     * @return A new row-major NDArray of shape stop - start holding the elements of the region.
+     * @throws IOException              If a chunk cannot be read or is corrupt.
+     * @throws IllegalArgumentException If the region does not lie inside the array.
+     */
+    public <R> NDArray<R> read(int[] start, int[] stop) throws IOException {
+        int[] extent = extent(start, stop);
+        long size = 1;
+        for (int length : extent) size *= length;
+        Storage result = Storage.allocate(type, size);
+        long[] strides = new long[extent.length];
+        long stride = 1;
+        for (int d = extent.length - 1; d >= 0; d--) {
+            strides[d] = stride;
+            stride *= extent[d];
+        }
+        forEachChunk(start, stop, (coordinates, id) -> {
+            Storage chunk = chunk(id, coordinates);
+            long source = 0;
+            long target = 0;
+            int[] overlap = new int[extent.length];
+            for (int d = 0; d < extent.length; d++) {
+                int chunkStart = coordinates[d] * chunks[d];
+                int from = Math.max(start[d], chunkStart);
+                overlap[d] = Math.min(stop[d], chunkStart + chunks[d]) - from;
+                source += (from - chunkStart) * chunkStrides[d];
+                target += (long) (from - start[d]) * strides[d];
+            }
+            copyBlock(chunk, source, chunkStrides, result, target, strides, overlap);
+        });
+        return new NumJ().array(result, extent);
+    }
+
+    /**
+     * Writes an array into the region of the store starting at the origin.
+     *
+     * @param values The elements to write, converted to the type of the store.
+     * @throws IOException              If a chunk cannot be read or written.
+     * @throws IllegalArgumentException If the array does not fit inside the store.
+     */
+    public void write(NDArray<?> values) throws IOException {
+        write(new int[shape.length], values);
+    }
+
+    /**
+     * Writes an array into a hyper-rectangular region of the store, rewriting only the chunks it intersects.
+     *
+     * @param start  The first index of the region along every dimension.
+     * @param values The elements to write, of the shape of the region, converted to the type of the store.
+     * @throws IOException                  If a chunk cannot be read or written.
+     * @throws IllegalArgumentException     If the region does not lie inside the store.
+     * @throws UnsupportedDataTypeException If the elements are of type {@link DType#OBJECT}.
+     */
+    public void write(int[] start, NDArray<?> values) throws IOException {
+        if (values.type() == DType.OBJECT) {
+            throw new UnsupportedDataTypeException(illegalDataType(values.type()));
+        }
+        int[] extent = values.shapeArray();
+        int[] stop = new int[extent.length];
+        for (int d = 0; d < extent.length; d++) stop[d] = (d < start.length ? start[d] : 0) + extent[d];
+        extent(start, stop);
+        Storage storage = values.storage();
+        long[] strides = values.elementStrides();
+        long offset = values.offset();
+        forEachChunk(start, stop, (coordinates, id) -> {
+            long source = offset;
+            long target = 0;
+            boolean covered = true;
+            int[] overlap = new int[extent.length];
+            for (int d = 0; d < extent.length; d++) {
+                int chunkStart = coordinates[d] * chunks[d];
+                int chunkStop = Math.min(shape[d], chunkStart + chunks[d]);
+                int from = Math.max(start[d], chunkStart);
+                int to = Math.min(stop[d], chunkStop);
+                covered &= from == chunkStart && to == chunkStop;
+                overlap[d] = to - from;
+                source += (from - start[d]) * strides[d];
+                target += (from - chunkStart) * chunkStrides[d];
+            }
+            Storage chunk = emptyChunk();
+            if (!covered) {
+                // Cached chunks may be read by other threads, so they are copied rather than modified
+                chunk(id, coordinates).copyTo(0, chunk, 0, chunkLength);
+            }
+            copyBlock(storage, source, strides, chunk, target, chunkStrides, overlap);
+            writeChunk(coordinates, chunk);
+            synchronized (cache) {
+                cache.put(id, chunk);
+            }
+        });
+    }
+
+    /**
+     * Checks that a region lies inside the array and returns its extent.
+     */
+    private int[] extent(int[] start, int[] stop) {
+        boolean valid = start.length == shape.length && stop.length == shape.length;
+        int[] extent = new int[shape.length];
+        for (int d = 0; valid && d < shape.length; d++) {
+            valid = 0 <= start[d] && start[d] <= stop[d] && stop[d] <= shape[d];
+            extent[d] = stop[d] - start[d];
+        }
+        if (!valid) {
+            throw new IllegalArgumentException(regionException(start, stop, shape));
+        }
+        return extent;
+    }
+
+    /**
+     * Work done on one chunk intersecting a region.
+     */
+    private interface ChunkAction {
+        void run(int[] coordinates, long id) throws IOException;
+    }
+
+    /**
+     * Runs an action in parallel on every chunk intersecting a region, given its position in the grid.
+     */
+    private void forEachChunk(int[] start, int[] stop, ChunkAction action) throws IOException {
+        int n = shape.length;
+        int[] first = new int[n];
+        int[] counts = new int[n];
+        long total = 1;
+        for (int d = 0; d < n; d++) {
+            if (start[d] == stop[d]) return;
+            first[d] = start[d] / chunks[d];
+            counts[d] = (stop[d] - 1) / chunks[d] - first[d] + 1;
+            total *= counts[d];
+        }
+        ParallelIo.forEach(total, index -> {
+            int[] coordinates = new int[n];
+            long id = 0;
+            long rest = index;
+            for (int d = n - 1; d >= 0; d--) {
+                coordinates[d] = first[d] + (int) (rest % counts[d]);
+                rest /= counts[d];
+            }
+            for (int d = 0; d < n; d++) id = id * grid[d] + coordinates[d];
+            action.run(coordinates, id);
+        });
+    }
+
+    /**
+     * Returns a decoded chunk, from the cache or from its file.
+     */
+    private Storage chunk(long id, int[] coordinates) throws IOException {
+        synchronized (cache) {
+            Storage cached = cache.get(id);
+            if (cached != null) return cached;
+        }
+        Storage chunk = readChunk(coordinates);
+        synchronized (cache) {
+            cache.put(id, chunk);
+        }
+        return chunk;
+    }
+
+    private Storage emptyChunk() {
+        Storage chunk = Storage.allocate(type, chunkLength);
+        if (fillValue != 0) chunk.fill(0, chunkLength, fillValue);
+        return chunk;
+    }
+
+    private Path chunkPath(int[] coordinates) {
+        if (coordinates.length == 0) return directory.resolve("0");
+        StringBuilder key = new StringBuilder();
+        for (int d = 0; d < coordinates.length; d++) key.append(d == 0 ? "" : separator).append(coordinates[d]);
+        return directory.resolve(key.toString());
+    }
+
+    /**
+     * Reads and decodes the file of a chunk, a missing file standing for a chunk of fill values.
+     */
+    private Storage readChunk(int[] coordinates) throws IOException {
+        Path path = chunkPath(coordinates);
+        byte[] encoded;
+        try {
+            encoded = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return emptyChunk();
+        }
+        int size = chunkLength * NpyFormat.elementSize(type);
+        byte[] raw;
+        switch (compression) {
+            case DEFLATE: {
+                raw = new byte[size];
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(encoded);
+                    int inflated = 0;
+                    byte[] excess = new byte[1];
+                    while (inflated <= size && !inflater.finished()) {
+                        int count = inflated < size ? inflater.inflate(raw, inflated, size - inflated) : inflater.inflate(excess);
+                        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                        inflated += count;
+                    }
+                    if (inflated != size || !inflater.finished()) {
+                        throw new IOException(chunkStoreException("chunk " + path.getFileName() + " does not inflate to " + size + " bytes"));
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException(chunkStoreException("chunk " + path.getFileName() + " is corrupt"), e);
+                } finally {
+                    inflater.end();
+                }
+                break;
+            }
+            case LZ4: {
+                if (encoded.length < 4 || ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN).getInt(0) != size) {
+                    throw new IOException(chunkStoreException("chunk " + path.getFileName() + " does not hold " + size + " bytes"));
+                }
+                raw = new byte[size];
+                try {
+                    Lz4.decompress(encoded, 4, encoded.length - 4, raw, 0, size);
+                } catch (IOException e) {
+                    throw new IOException(chunkStoreException("chunk " + path.getFileName() + " is corrupt"), e);
+                }
+                break;
+            }
+            default:
+                if (encoded.length != size) {
+                    throw new IOException(chunkStoreException("chunk " + path.getFileName() + " does not hold " + size + " bytes"));
+                }
+                raw = encoded;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(raw).order(byteOrder);
+        switch (type) {
+            case FLOAT64: {
+                double[] elements = new double[chunkLength];
+                buffer.asDoubleBuffer().get(elements);
+                return Storage.wrap(elements);
+            }
+            case FLOAT32: {
+                float[] elements = new float[chunkLength];
+                buffer.asFloatBuffer().get(elements);
+                return Storage.wrap(elements);
+            }
+            case INT64: {
+                long[] elements = new long[chunkLength];
+                buffer.asLongBuffer().get(elements);
+                return Storage.wrap(elements);
+            }
+            case INT32: {
+                int[] elements = new int[chunkLength];
+                buffer.asIntBuffer().get(elements);
+                return Storage.wrap(elements);
+            }
+            case INT16: {
+                short[] elements = new short[chunkLength];
+                buffer.asShortBuffer().get(elements);
+                return Storage.wrap(elements);
+            }
+            default:
+                return Storage.wrap(raw.clone());
+        }
+    }
+
+    /**
+     * Encodes a chunk and replaces its file atomically, through a temporary file in the same directory.
+     */
+    private void writeChunk(int[] coordinates, Storage chunk) throws IOException {
+        int size = chunkLength * NpyFormat.elementSize(type);
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(byteOrder);
+        switch (type) {
+            case FLOAT64: buffer.asDoubleBuffer().put((double[]) chunk.array()); break;
+            case FLOAT32: buffer.asFloatBuffer().put((float[]) chunk.array()); break;
+            case INT64: buffer.asLongBuffer().put((long[]) chunk.array()); break;
+            case INT32: buffer.asIntBuffer().put((int[]) chunk.array()); break;
+            case INT16: buffer.asShortBuffer().put((short[]) chunk.array()); break;
+            default: buffer.put((byte[]) chunk.array());
+        }
+        byte[] raw = buffer.array();
+        byte[] encoded;
+        int length;
+        switch (compression) {
+            case DEFLATE: {
+                Deflater deflater = new Deflater(level);
+                try {
+                    deflater.setInput(raw);
+                    deflater.finish();
+                    encoded = new byte[Math.max(64, size / 4)];
+                    length = 0;
+                    while (!deflater.finished()) {
+                        if (length == encoded.length) encoded = Arrays.copyOf(encoded, encoded.length * 2);
+                        length += deflater.deflate(encoded, length, encoded.length - length);
+                    }
+                } finally {
+                    deflater.end();
+                }
+                break;
+            }
+            case LZ4: {
+                encoded = new byte[4 + Lz4.maxCompressedLength(size)];
+                ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN).putInt(0, size);
+                length = 4 + Lz4.compress(raw, 0, size, encoded, 4);
+                break;
+            }
+            default:
+                encoded = raw;
+                length = size;
+        }
+        Path path = chunkPath(coordinates);
+        Files.createDirectories(path.getParent());
+        Path partial = Files.createTempFile(path.getParent(), ".", ".partial");
+        try {
+            Files.write(partial, length == encoded.length ? encoded : Arrays.copyOf(encoded, length));
+            Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Copies a hyper-rectangular block of elements between two strided layouts, converting them to the type of
+     * the target. Runs along the dimension where the source is densest are copied at a time, in bulk when both
+     * sides are contiguous and of the same type.
+     */
+    private static void copyBlock(Storage source, long sourceOffset, long[] sourceStrides, Storage target,
+                                  long targetOffset, long[] targetStrides, int[] extent) {
+        int n = extent.length;
+        if (n == 0) {
+            copyRun(source, sourceOffset, 1, target, targetOffset, 1, 1);
+            return;
+        }
+        int inner = n - 1;
+        for (int d = 0; d < n; d++) {
+            if (Math.abs(sourceStrides[d]) < Math.abs(sourceStrides[inner]) && extent[d] > 1) inner = d;
+        }
+        long runs = 1;
+        for (int d = 0; d < n; d++) {
+            if (d != inner) runs *= extent[d];
+        }
+        int[] index = new int[n];
+        long s = sourceOffset;
+        long t = targetOffset;
+        for (long run = 0; run < runs; run++) {
+            copyRun(source, s, sourceStrides[inner], target, t, targetStrides[inner], extent[inner]);
+            for (int d = n - 1; d >= 0; d--) {
+                if (d == inner) continue;
+                s += sourceStrides[d];
+                t += targetStrides[d];
+                if (++index[d] < extent[d]) break;
+                s -= sourceStrides[d] * extent[d];
+                t -= targetStrides[d] * extent[d];
+                index[d] = 0;
+            }
+        }
+    }
+
+    private static void copyRun(Storage source, long s, long sourceStride, Storage target, long t, long targetStride, int length) {
+        if (sourceStride == 1 && targetStride == 1 && source.dType() == target.dType()) {
+            source.copyTo(s, target, t, length);
+        } else if (target.dType().isFloatingPoint()) {
+            for (int i = 0; i < length; i++, s += sourceStride, t += targetStride) target.setDouble(t, source.getDouble(s));
+        } else {
+            for (int i = 0; i < length; i++, s += sourceStride, t += targetStride) target.setLong(t, source.getLong(s));
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.library.numj.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads and builds the FlatBuffers tables the metadata of the Arrow formats is encoded in, as far as those
+ * formats need.
+ * <p>
+ * A table starts with a signed 32-bit offset back to its vtable, which holds the size of the vtable and of the
+ * table followed by the position of every field in the table, 0 for absent fields. Scalars are stored in the
+ * table; tables, vectors and strings elsewhere, through an unsigned 32-bit offset relative to the field. Vectors
+ * and strings start with their length, strings ending with a zero byte. Everything is little-endian, and the
+ * buffer starts with the offset of the root table.
+ * <p>
+ * The builder writes front to back: each table is preceded by its vtable and followed by its children, whose
+ * offsets are patched once they are written, instead of the back to front layout of the reference
+ * implementation. Both are valid, every value being aligned to its size.
+ */
+final class FlatBuffers {
+    private FlatBuffers() {
+    }
+
+    /**
+     * A table of a buffer, whose accessors return defaults for absent fields.
+     */
+    static final class Table {
+        private final ByteBuffer buffer;
+        private final int position;
+
+        private Table(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        /**
+         * Returns the root table of a buffer, which starts at its position.
+         */
+        static Table root(ByteBuffer buffer) {
+            ByteBuffer bytes = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            return new Table(bytes, bytes.getInt(0));
+        }
+
+        private int field(int index) {
+            int vtable = position - buffer.getInt(position);
+            int offset = 4 + 2 * index;
+            return offset < (buffer.getShort(vtable) & 0xFFFF) ? buffer.getShort(vtable + offset) & 0xFFFF : 0;
+        }
+
+        boolean has(int index) {
+            return field(index) != 0;
+        }
+
+        long getLong(int index, long defaultValue) {
+            int offset = field(index);
+            return offset == 0 ? defaultValue : buffer.getLong(position + offset);
+        }
+
+        int getInt(int index, int defaultValue) {
+            int offset = field(index);
+            return offset == 0 ? defaultValue : buffer.getInt(position + offset);
+        }
+
+        short getShort(int index, short defaultValue) {
+            int offset = field(index);
+            return offset == 0 ? defaultValue : buffer.getShort(position + offset);
+        }
+
+        byte getByte(int index, byte defaultValue) {
+            int offset = field(index);
+            return offset == 0 ? defaultValue : buffer.get(position + offset);
+        }
+
+        /**
+         * Returns a child table, or null if absent.
+         */
+        Table getTable(int index) {
+            int offset = field(index);
+            return offset == 0 ? null : new Table(buffer, indirect(position + offset));
+        }
+
+        /**
+         * Returns a string, or null if absent.
+         */
+        String getString(int index) {
+            int offset = field(index);
+            if (offset == 0) {
+                return null;
+            }
+            int start = indirect(position + offset);
+            byte[] bytes = new byte[buffer.getInt(start)];
+            for (int i = 0; i < bytes.length; i++) bytes[i] = buffer.get(start + 4 + i);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the length of a vector, 0 if absent.
+         */
+        int vectorLength(int index) {
+            int offset = field(index);
+            return offset == 0 ? 0 : buffer.getInt(indirect(position + offset));
+        }
+
+        /**
+         * Returns an element of a vector of tables.
+         */
+        Table vectorTable(int index, int element) {
+            int start = indirect(position + field(index)) + 4 + 4 * element;
+            return new Table(buffer, indirect(start));
+        }
+
+        /**
+         * Returns a 64-bit field of an element of a vector of structs.
+         *
+         * @param structSize The size of the structs, in bytes.
+         * @param fieldStart The position of the field in the struct, in bytes.
+         */
+        long vectorLong(int index, int element, int structSize, int fieldStart) {
+            int start = indirect(position + field(index)) + 4;
+            return buffer.getLong(start + element * structSize + fieldStart);
+        }
+
+        /**
+         * Returns a 32-bit field of an element of a vector of structs.
+         */
+        int vectorInt(int index, int element, int structSize, int fieldStart) {
+            int start = indirect(position + field(index)) + 4;
+            return buffer.getInt(start + element * structSize + fieldStart);
+        }
+
+        private int indirect(int at) {
+            return at + buffer.getInt(at);
+        }
+    }
+
+    /**
+     * A table to build, with scalars and children set field by field.
+     */
+    static final class Builder {
+        private static final int SCALAR = 0;
+        private static final int TABLE = 1;
+        private static final int TABLES = 2;
+        private static final int STRUCTS = 3;
+        private static final int STRING = 4;
+
+        private final List<Slot> slots = new ArrayList<>();
+
+        Builder addLong(int index, long value) {
+            return add(new Slot(index, 8, SCALAR, value, null));
+        }
+
+        Builder addInt(int index, int value) {
+            return add(new Slot(index, 4, SCALAR, value, null));
+        }
+
+        Builder addShort(int index, short value) {
+            return add(new Slot(index, 2, SCALAR, value, null));
+        }
+
+        Builder addByte(int index, byte value) {
+            return add(new Slot(index, 1, SCALAR, value, null));
+        }
+
+        Builder addTable(int index, Builder table) {
+            return add(new Slot(index, 4, TABLE, 0, table));
+        }
+
+        Builder addTables(int index, List<Builder> tables) {
+            return add(new Slot(index, 4, TABLES, 0, tables));
+        }
+
+        /**
+         * Adds a vector of structs.
+         *
+         * @param structs The structs one after the other, little-endian, each a multiple of 8 bytes long.
+         * @param count   The number of structs.
+         */
+        Builder addStructs(int index, ByteBuffer structs, int count) {
+            return add(new Slot(index, 4, STRUCTS, count, structs));
+        }
+
+        Builder addString(int index, String value) {
+            return add(new Slot(index, 4, STRING, 0, value.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        private Builder add(Slot slot) {
+            slots.add(slot);
+            return this;
+        }
+
+        /**
+         * Encodes the table as the root of a new buffer, padded to a multiple of 8 bytes.
+         *
+         * @return The encoded buffer, flipped for reading.
+         */
+        ByteBuffer finish() {
+            Output out = new Output();
+            out.reserve(4);
+            out.patch(0, writeTable(out));
+            out.align(8, 0);
+            return out.flip();
+        }
+
+        private int writeTable(Output out) {
+            int fields = 0;
+            for (Slot slot : slots) fields = Math.max(fields, slot.index + 1);
+            int vtableSize = 4 + 2 * fields;
+            out.align(2, 0);
+            int vtable = out.position();
+            out.reserve(vtableSize);
+            // The table starts 4 bytes past a multiple of 8, so that 8-byte fields following the offset are aligned
+            out.align(8, 4);
+            int table = out.position();
+            Slot[] sorted = slots.toArray(new Slot[0]);
+            Arrays.sort(sorted, Comparator.comparingInt((Slot slot) -> slot.size).reversed());
+            int end = table + 4;
+            int[] positions = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                end = (end + sorted[i].size - 1) & -sorted[i].size;
+                positions[i] = end;
+                end += sorted[i].size;
+            }
+            out.reserve(end - table);
+            out.putShort(vtable, vtableSize);
+            out.putShort(vtable + 2, end - table);
+            for (int i = 0; i < sorted.length; i++) {
+                out.putShort(vtable + 4 + 2 * sorted[i].index, positions[i] - table);
+            }
+            out.putInt(table, table - vtable);
+            for (int i = 0; i < sorted.length; i++) {
+                if (sorted[i].kind == SCALAR) out.putScalar(positions[i], sorted[i].size, sorted[i].value);
+            }
+            for (int i = 0; i < sorted.length; i++) {
+                Slot slot = sorted[i];
+                switch (slot.kind) {
+                    case TABLE:
+                        out.patch(positions[i], ((Builder) slot.child).writeTable(out));
+                        break;
+                    case TABLES:
+                        out.patch(positions[i], writeTables(out, (List<?>) slot.child));
+                        break;
+                    case STRUCTS:
+                        out.align(8, 4);
+                        out.patch(positions[i], out.position());
+                        out.putInt(out.reserve(4), (int) slot.value);
+                        out.put(((ByteBuffer) slot.child).duplicate());
+                        break;
+                    case STRING:
+                        byte[] bytes = (byte[]) slot.child;
+                        out.align(4, 0);
+                        out.patch(positions[i], out.position());
+                        out.putInt(out.reserve(4), bytes.length);
+                        out.put(ByteBuffer.wrap(bytes));
+                        out.reserve(1);
+                        break;
+                    default:
+                }
+            }
+            return table;
+        }
+
+        private static int writeTables(Output out, List<?> tables) {
+            out.align(4, 0);
+            int vector = out.position();
+            out.putInt(out.reserve(4), tables.size());
+            int elements = out.reserve(4 * tables.size());
+            for (int i = 0; i < tables.size(); i++) {
+                out.patch(elements + 4 * i, ((Builder) tables.get(i)).writeTable(out));
+            }
+            return vector;
+        }
+    }
+
+    private static final class Slot {
+        final int index;
+        final int size;
+        final int kind;
+        final long value;
+        final Object child;
+
+        Slot(int index, int size, int kind, long value, Object child) {
+            this.index = index;
+            this.size = size;
+            this.kind = kind;
+            this.value = value;
+            this.child = child;
+        }
+    }
+
+    /**
+     * A growing little-endian buffer of zero bytes written in place.
+     */
+    private static final class Output {
+        private ByteBuffer bytes = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        private int size;
+
+        int position() {
+            return size;
+        }
+
+        /**
+         * Appends zero bytes, returning the position of the first.
+         */
+        int reserve(int count) {
+            if (size + count > bytes.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * bytes.capacity(), size + count)).order(ByteOrder.LITTLE_ENDIAN);
+                grown.put(bytes.array(), 0, size);
+                bytes = grown;
+            }
+            int start = size;
+            size += count;
+            return start;
+        }
+
+        /**
+         * Appends zero bytes up to a position congruent to remainder modulo alignment.
+         */
+        void align(int alignment, int remainder) {
+            reserve(((remainder - size) % alignment + alignment) % alignment);
+        }
+
+        void put(ByteBuffer source) {
+            int start = reserve(source.remaining());
+            for (int i = 0; source.hasRemaining(); i++) bytes.put(start + i, source.get());
+        }
+
+        void putShort(int at, int value) {
+            bytes.putShort(at, (short) value);
+        }
+
+        void putInt(int at, int value) {
+            bytes.putInt(at, value);
+        }
+
+        void putScalar(int at, int size, long value) {
+            switch (size) {
+                case 8: bytes.putLong(at, value); break;
+                case 4: bytes.putInt(at, (int) value); break;
+                case 2: bytes.putShort(at, (short) value); break;
+                default: bytes.put(at, (byte) value);
+            }
+        }
+
+        /**
+         * Sets the offset at a position to point at a later position.
+         */
+        void patch(int at, int target) {
+            bytes.putInt(at, target - at);
+        }
+
+        ByteBuffer flip() {
+            return ByteBuffer.wrap(bytes.array(), 0, size).slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
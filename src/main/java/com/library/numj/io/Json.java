@@ -0,0 +1,226 @@
+package com.library.numj.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal JSON reader and writer for the metadata files of the storage formats.
+ * <p>
+ * Objects are read as {@link LinkedHashMap}s, arrays as {@link List}s, numbers as {@link Long} when they are
+ * integers and {@link Double} otherwise, and {@code null}, booleans and strings as themselves. Written values
+ * may be any of those types, {@code int[]} arrays and other numbers.
+ */
+final class Json {
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a JSON document.
+     *
+     * @throws IOException If the text is not valid JSON.
+     */
+    static Object parse(String text) throws IOException {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipWhitespace();
+        if (json.position != text.length()) {
+            throw json.error("trailing characters");
+        }
+        return value;
+    }
+
+    /**
+     * Writes a value as JSON, objects and arrays on a single line.
+     */
+    static String write(Object value) {
+        StringBuilder out = new StringBuilder();
+        write(value, out);
+        return out.toString();
+    }
+
+    private static void write(Object value, StringBuilder out) {
+        if (value instanceof Map) {
+            out.append('{');
+            String separator = "";
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                out.append(separator);
+                write(entry.getKey().toString(), out);
+                out.append(": ");
+                write(entry.getValue(), out);
+                separator = ", ";
+            }
+            out.append('}');
+        } else if (value instanceof List) {
+            out.append('[');
+            String separator = "";
+            for (Object element : (List<?>) value) {
+                out.append(separator);
+                write(element, out);
+                separator = ", ";
+            }
+            out.append(']');
+        } else if (value instanceof int[]) {
+            out.append('[');
+            int[] array = (int[]) value;
+            for (int i = 0; i < array.length; i++) out.append(i == 0 ? "" : ", ").append(array[i]);
+            out.append(']');
+        } else if (value instanceof String) {
+            out.append('"');
+            for (char c : ((String) value).toCharArray()) {
+                if (c == '"' || c == '\\') out.append('\\').append(c);
+                else if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                else out.append(c);
+            }
+            out.append('"');
+        } else if (value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite())) {
+            // Not JSON numbers, written as strings the way Zarr does
+            write(((Double) value).isNaN() ? "NaN" : (Double) value > 0 ? "Infinity" : "-Infinity", out);
+        } else {
+            out.append(value);
+        }
+    }
+
+    private Object value() throws IOException {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("unexpected end");
+        }
+        char c = text.charAt(position);
+        switch (c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if (c == '-' || c >= '0' && c <= '9') return number();
+                throw error("unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> object() throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') throw error("expected a key");
+            String key = string();
+            skipWhitespace();
+            expect(':');
+            object.put(key, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> array() throws IOException {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String string() throws IOException {
+        StringBuilder out = new StringBuilder();
+        position++;
+        while (true) {
+            if (position >= text.length()) throw error("unterminated string");
+            char c = text.charAt(position++);
+            if (c == '"') return out.toString();
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (position >= text.length()) throw error("unterminated string");
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                case 'u':
+                    if (position + 4 > text.length()) throw error("truncated escape");
+                    try {
+                        out.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("invalid escape");
+                    }
+                    position += 4;
+                    break;
+                default: out.append(escaped);
+            }
+        }
+    }
+
+    private Object number() throws IOException {
+        int start = position;
+        boolean integer = true;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') integer = false;
+            else if (c != '-' && c != '+' && (c < '0' || c > '9')) break;
+            position++;
+        }
+        String literal = text.substring(start, position);
+        try {
+            return integer ? (Object) Long.parseLong(literal) : (Object) Double.parseDouble(literal);
+        } catch (NumberFormatException e) {
+            throw error("invalid number " + literal);
+        }
+    }
+
+    private Object literal(String word, Object value) throws IOException {
+        if (!text.startsWith(word, position)) throw error("unexpected literal");
+        position += word.length();
+        return value;
+    }
+
+    private void expect(char c) throws IOException {
+        if (peek() != c) throw error("expected '" + c + "'");
+        position++;
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : '\0';
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) position++;
+    }
+
+    private IOException error(String reason) {
+        return new IOException("Invalid JSON at character " + position + ": " + reason);
+    }
+}
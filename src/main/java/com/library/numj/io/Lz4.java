@@ -0,0 +1,203 @@
+package com.library.numj.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.library.numj.ExceptionMessages.lz4LiteralsException;
+import static com.library.numj.ExceptionMessages.lz4MatchException;
+import static com.library.numj.ExceptionMessages.lz4OffsetException;
+import static com.library.numj.ExceptionMessages.lz4SizeException;
+import static com.library.numj.ExceptionMessages.lz4TruncatedException;
+
+/**
+ * Compresses and decompresses bytes in the LZ4 block format, in plain Java.
+ * <p>
+ * A block is a series of sequences, each made of a token, literals copied as they are and a match copying
+ * earlier output: the high four bits of the token give the number of literals and the low four bits the
+ * match length minus four, a value of 15 being extended by following bytes; the match offset is two bytes,
+ * little-endian. The last sequence has literals only. The compressor is the greedy single-pass one of the
+ * reference implementation: four-byte sequences are hashed into a table of their last positions, and a hit is
+ * extended backwards and forwards; the search skips ahead faster the longer it goes without a match, so
+ * incompressible data costs little. As the format requires, the last five bytes are always literals and no
+ * match starts in the last twelve.
+ */
+final class Lz4 {
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_LOG = 14;
+
+    private Lz4() {
+    }
+
+    /**
+     * Returns the largest size a block of the given number of bytes can compress to.
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses bytes into a block.
+     *
+     * @param src    The bytes to compress.
+     * @param from   The position of the first byte.
+     * @param length The number of bytes.
+     * @param dst    The array receiving the block, with room for {@link #maxCompressedLength} bytes.
+     * @param to     The position of the block in the array.
+     * @return The size of the block.
+     */
+    static int compress(byte[] src, int from, int length, byte[] dst, int to) {
+        int end = from + length;
+        int matchLimit = end - LAST_LITERALS;
+        int findLimit = end - MATCH_FIND_LIMIT;
+        int anchor = from;
+        int op = to;
+        if (length > MATCH_FIND_LIMIT) {
+            int[] table = new int[1 << HASH_LOG];
+            Arrays.fill(table, -1);
+            int ip = from;
+            int misses = 0;
+            while (ip < findLimit) {
+                int sequence = readInt(src, ip);
+                int hash = hash(sequence);
+                int ref = table[hash];
+                table[hash] = ip;
+                if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                    ip += 1 + (misses++ >>> 6);
+                    continue;
+                }
+                misses = 0;
+                while (ip > anchor && ref > from && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+                op = writeSequence(src, anchor, ip - anchor, dst, op, ip - ref, matchLength);
+                ip += matchLength;
+                anchor = ip;
+                if (ip < findLimit) {
+                    table[hash(readInt(src, ip - 2))] = ip - 2;
+                }
+            }
+        }
+        int literals = end - anchor;
+        op = writeLength(dst, op, literals, 0);
+        System.arraycopy(src, anchor, dst, op, literals);
+        return op + literals - to;
+    }
+
+    /**
+     * Decompresses a block whose decompressed size is known.
+     *
+     * @param src     The array holding the block.
+     * @param from    The position of the block.
+     * @param length  The size of the block.
+     * @param dst     The array receiving the bytes.
+     * @param to      The position of the first byte.
+     * @param outputs The number of bytes the block decompresses to.
+     * @throws IOException If the block is corrupt or does not decompress to exactly the given size.
+     */
+    static void decompress(byte[] src, int from, int length, byte[] dst, int to, int outputs) throws IOException {
+        int ip = from;
+        int end = from + length;
+        int op = to;
+        int outputEnd = to + outputs;
+        while (true) {
+            if (ip >= end) {
+                throw new IOException(lz4TruncatedException());
+            }
+            int token = src[ip++] & 0xFF;
+            int literals = token >>> 4;
+            if (literals == 15) {
+                int extra;
+                do {
+                    if (ip >= end) throw new IOException(lz4TruncatedException());
+                    extra = src[ip++] & 0xFF;
+                    literals += extra;
+                } while (extra == 255);
+            }
+            if (literals > end - ip || literals > outputEnd - op) {
+                throw new IOException(lz4LiteralsException());
+            }
+            System.arraycopy(src, ip, dst, op, literals);
+            ip += literals;
+            op += literals;
+            if (ip == end) {
+                break;
+            }
+            if (end - ip < 2) {
+                throw new IOException(lz4TruncatedException());
+            }
+            int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+            ip += 2;
+            if (offset == 0 || offset > op - to) {
+                throw new IOException(lz4OffsetException(offset));
+            }
+            int matchLength = token & 15;
+            if (matchLength == 15) {
+                int extra;
+                do {
+                    if (ip >= end) throw new IOException(lz4TruncatedException());
+                    extra = src[ip++] & 0xFF;
+                    matchLength += extra;
+                } while (extra == 255);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > outputEnd - op) {
+                throw new IOException(lz4MatchException());
+            }
+            int ref = op - offset;
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, op, matchLength);
+                op += matchLength;
+            } else {
+                // Overlapping match repeating the last offset bytes
+                for (int i = 0; i < matchLength; i++) dst[op++] = dst[ref++];
+            }
+        }
+        if (op != outputEnd) {
+            throw new IOException(lz4SizeException(op - to, outputs));
+        }
+    }
+
+    private static int writeSequence(byte[] src, int anchor, int literals, byte[] dst, int op, int offset, int matchLength) {
+        int tokenPosition = op;
+        op = writeLength(dst, op, literals, matchLength - MIN_MATCH);
+        System.arraycopy(src, anchor, dst, op, literals);
+        op += literals;
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+        int remaining = matchLength - MIN_MATCH;
+        if (remaining >= 15) {
+            op = writeExtension(dst, op, remaining - 15);
+        }
+        return op;
+    }
+
+    /**
+     * Writes the token of a sequence and the extension of its literal length.
+     */
+    private static int writeLength(byte[] dst, int op, int literals, int matchLength) {
+        dst[op++] = (byte) (Math.min(literals, 15) << 4 | Math.min(matchLength, 15));
+        return literals >= 15 ? writeExtension(dst, op, literals - 15) : op;
+    }
+
+    private static int writeExtension(byte[] dst, int op, int value) {
+        for (; value >= 255; value -= 255) dst[op++] = (byte) 255;
+        dst[op++] = (byte) value;
+        return op;
+    }
+
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
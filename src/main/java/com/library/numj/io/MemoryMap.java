@@ -0,0 +1,120 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.MapMode;
+import com.library.numj.enums.Order;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+import com.library.numj.storage.OffHeapStorage;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.library.numj.ExceptionMessages.dimensionTooLargeException;
+import static com.library.numj.ExceptionMessages.mapModeException;
+import static com.library.numj.ExceptionMessages.mappedSizeException;
+import static com.library.numj.ExceptionMessages.negativeSizeException;
+
+/**
+ * Creates arrays over raw binary files mapped into memory, the counterpart of NumPy's {@code memmap}.
+ * <p>
+ * The file holds the elements back to back in native byte order, starting at a given offset, with no header.
+ * The array is backed by an {@link OffHeapStorage} whose segments are {@link java.nio.MappedByteBuffer}s of
+ * at most 1 GiB, so files larger than the 2 GiB limit of a single mapping are supported; nothing is read up
+ * front and the operating system pages the elements in as they are touched. Element-wise operations and
+ * reductions go through the bulk transfers of the storage, a block at a time, so they stream over the file
+ * without holding it in the heap.
+ * <p>
+ * Writes to a read-write mapping reach the file at the latest when the pages are evicted or the array is
+ * closed; {@link NDArray#flush()} forces them out right away. The mapping outlives the file channel, which is
+ * closed before returning, and is released by {@link NDArray#close()}.
+ */
+public final class MemoryMap {
+    private MemoryMap() {
+    }
+
+    /**
+     * Maps a raw binary file as an array.
+     *
+     * @param path   The file.
+     * @param dType  The data type of the elements.
+     * @param shape  The shape of the array, or null to map every element past the offset as a one-dimensional
+     *               array, which only modes reading an existing file allow.
+     * @param mode   How the file is opened and how writes are handled.
+     * @param offset The position of the first element in the file, in bytes.
+     * @param order  The memory order of the elements in the file.
+     * @param <R>    The type of the elements of the array.
+     * @return A new NDArray over the mapped file.
+     * @throws IOException                  If the file cannot be opened or mapped, or is too short for the shape.
+     * @throws IllegalArgumentException     If the offset or a dimension is negative, the shape is null in
+     *                                      {@link MapMode#WRITE} mode, or a one-dimensional array would be too long.
+     * @throws UnsupportedDataTypeException If the type is {@link DType#OBJECT}.
+     */
+    public static <R> NDArray<R> open(Path path, DType dType, int[] shape, MapMode mode, long offset, Order order)
+            throws IOException {
+        if (offset < 0) {
+            throw new IllegalArgumentException(mapModeException(mode, "the offset " + offset + " is negative"));
+        }
+        if (shape == null && mode == MapMode.WRITE) {
+            throw new IllegalArgumentException(mapModeException(mode, "a new file needs a shape"));
+        }
+        int elementSize = NpyFormat.elementSize(dType);
+        try (FileChannel channel = FileChannel.open(path, options(mode))) {
+            long length;
+            if (shape == null) {
+                length = Math.max(0, channel.size() - offset) / elementSize;
+                if (length > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException(dimensionTooLargeException(length));
+                }
+                shape = new int[]{(int) length};
+            } else {
+                length = 1;
+                for (int dimension : shape) {
+                    if (dimension < 0) {
+                        throw new IllegalArgumentException(negativeSizeException(dimension));
+                    }
+                    length *= dimension;
+                }
+            }
+            OffHeapStorage storage = map(channel, offset, dType, length, ByteOrder.nativeOrder(), mode);
+            return new NumJ().array(storage, shape, order);
+        }
+    }
+
+    /**
+     * Returns the options opening a file in a mapping mode. Copy-on-write mappings need a channel open for
+     * writing too, although they never write to it.
+     */
+    static OpenOption[] options(MapMode mode) {
+        switch (mode) {
+            case READ_ONLY:
+                return new OpenOption[]{StandardOpenOption.READ};
+            case WRITE:
+                return new OpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING};
+            default:
+                return new OpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        }
+    }
+
+    /**
+     * Maps a region of an open file in a mapping mode, checking that an existing file is long enough.
+     * In {@link MapMode#WRITE} mode the file grows to fit the region, zero-filled.
+     */
+    static OffHeapStorage map(FileChannel channel, long position, DType dType, long length, ByteOrder order,
+                              MapMode mode) throws IOException {
+        long bytes = length * NpyFormat.elementSize(dType);
+        long available = Math.max(0, channel.size() - position);
+        if (mode != MapMode.WRITE && available < bytes) {
+            throw new IOException(mappedSizeException(bytes, available));
+        }
+        FileChannel.MapMode mapMode = mode == MapMode.READ_ONLY ? FileChannel.MapMode.READ_ONLY
+                : mode == MapMode.COPY_ON_WRITE ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_WRITE;
+        return OffHeapStorage.map(channel, position, dType, length, order, mapMode);
+    }
+}
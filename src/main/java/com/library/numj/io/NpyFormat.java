@@ -0,0 +1,491 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.MapMode;
+import com.library.numj.enums.Order;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+import com.library.numj.storage.OffHeapStorage;
+import com.library.numj.storage.Storage;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static com.library.numj.ExceptionMessages.illegalDataType;
+import static com.library.numj.ExceptionMessages.mapModeException;
+import static com.library.numj.ExceptionMessages.npyFormatException;
+import static com.library.numj.ExceptionMessages.npyTypeException;
+
+/**
+ * Reads and writes arrays in the NumPy {@code .npy} format, and archives of them in the {@code .npz} format.
+ * <p>
+ * A {@code .npy} file starts with a header, a Python dictionary literal giving the element type, the memory
+ * order and the shape, padded so that the elements start at a multiple of 64 bytes, followed by the raw
+ * elements. Arrays are written little-endian: C-contiguous arrays in row-major order and F-contiguous arrays in
+ * column-major order with {@code fortran_order} set, so neither is copied, and any other view row-major through
+ * a contiguous copy. Elements are converted to and from bytes by blocks, through typed views of a byte buffer
+ * for storages backed by a Java array.
+ * <p>
+ * Loading can map the elements of a file into memory instead of reading them: the array is then backed by an
+ * {@link OffHeapStorage} over the mapped file, created without copying anything, whose pages the operating
+ * system reads on first access. Files of either byte order and memory order are mapped as they are, read-only,
+ * read-write or copy-on-write.
+ * <p>
+ * A {@code .npz} file is a zip archive holding one {@code .npy} entry per array, named after its key. Entries
+ * are stored uncompressed, as NumPy's {@code savez} does, or deflated.
+ */
+public final class NpyFormat {
+    /** The first bytes of every .npy file. */
+    private static final byte[] MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y'};
+    /** The alignment of the elements in the file, in bytes. */
+    private static final int ALIGNMENT = 64;
+    /** Size of the buffer converting elements to and from bytes. */
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final Pattern DESCR = Pattern.compile("'descr'\\s*:\\s*'([^']*)'");
+    private static final Pattern FORTRAN_ORDER = Pattern.compile("'fortran_order'\\s*:\\s*(True|False)");
+    private static final Pattern SHAPE = Pattern.compile("'shape'\\s*:\\s*\\(([^)]*)\\)");
+
+    private NpyFormat() {
+    }
+
+    /**
+     * Writes an array to a .npy file, replacing any existing file.
+     *
+     * @param path  The file.
+     * @param array The array.
+     * @throws IOException                  If the file cannot be written.
+     * @throws UnsupportedDataTypeException If the array holds {@link DType#OBJECT} elements.
+     */
+    public static void save(Path path, NDArray<?> array) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(array, channel);
+        }
+    }
+
+    /**
+     * Reads an array from a .npy file, either into heap memory or by mapping the file read-only.
+     *
+     * @param path      The file.
+     * @param memoryMap Whether the elements are mapped instead of read.
+     * @param <R>       The type of the elements of the array.
+     * @return A new NDArray holding the elements of the file.
+     * @throws IOException                  If the file cannot be read or is not a .npy file.
+     * @throws UnsupportedDataTypeException If the file holds elements of a type NumJ cannot represent.
+     */
+    public static <R> NDArray<R> load(Path path, boolean memoryMap) throws IOException {
+        if (memoryMap) {
+            return load(path, MapMode.READ_ONLY);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, readHeader(channel));
+        }
+    }
+
+    /**
+     * Maps the elements of an existing .npy file as an array, without reading them.
+     *
+     * @param path The file.
+     * @param mode How writes to the array are handled; {@link MapMode#WRITE} would discard the header and is refused.
+     * @param <R>  The type of the elements of the array.
+     * @return A new NDArray over the mapped elements of the file.
+     * @throws IOException                  If the file cannot be read or is not a .npy file.
+     * @throws IllegalArgumentException     If the mode is {@link MapMode#WRITE}.
+     * @throws UnsupportedDataTypeException If the file holds elements of a type NumJ cannot represent.
+     */
+    public static <R> NDArray<R> load(Path path, MapMode mode) throws IOException {
+        if (mode == MapMode.WRITE) {
+            throw new IllegalArgumentException(mapModeException(mode, "a .npy file must already exist to be mapped"));
+        }
+        try (FileChannel channel = FileChannel.open(path, MemoryMap.options(mode))) {
+            Header header = readHeader(channel);
+            long position = channel.position();
+            if (channel.size() - position < header.length * elementSize(header.type)) {
+                throw new EOFException(npyFormatException("the file ends before its elements"));
+            }
+            return header.wrap(MemoryMap.map(channel, position, header.type, header.length, header.order, mode));
+        }
+    }
+
+    /**
+     * Writes arrays to a .npz archive, replacing any existing file.
+     *
+     * @param path     The file.
+     * @param arrays   The arrays by name, written in the iteration order of the map.
+     * @param compress Whether the entries are deflated instead of stored.
+     * @throws IOException                  If the file cannot be written.
+     * @throws UnsupportedDataTypeException If an array holds {@link DType#OBJECT} elements.
+     */
+    public static void savez(Path path, Map<String, ? extends NDArray<?>> arrays, boolean compress) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BLOCK_SIZE))) {
+            WritableByteChannel channel = Channels.newChannel(zip);
+            for (Map.Entry<String, ? extends NDArray<?>> entry : arrays.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey() + ".npy");
+                if (compress) {
+                    zipEntry.setMethod(ZipEntry.DEFLATED);
+                } else {
+                    // Stored entries give their size and checksum up front, found by a first pass over the array
+                    ChecksumChannel checksum = new ChecksumChannel();
+                    write(entry.getValue(), checksum);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(checksum.size);
+                    zipEntry.setCompressedSize(checksum.size);
+                    zipEntry.setCrc(checksum.crc.getValue());
+                }
+                zip.putNextEntry(zipEntry);
+                write(entry.getValue(), channel);
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Reads every array of a .npz archive into heap memory.
+     *
+     * @param path The file.
+     * @return The arrays by name, in the order of the archive.
+     * @throws IOException                  If the file cannot be read or an entry is not a .npy file.
+     * @throws UnsupportedDataTypeException If an entry holds elements of a type NumJ cannot represent.
+     */
+    public static Map<String, NDArray<?>> loadz(Path path) throws IOException {
+        Map<String, NDArray<?>> arrays = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".npy")) {
+                    continue;
+                }
+                try (InputStream input = zip.getInputStream(entry)) {
+                    ReadableByteChannel channel = Channels.newChannel(input);
+                    arrays.put(name.substring(0, name.length() - 4), read(channel, readHeader(channel)));
+                }
+            }
+        }
+        return arrays;
+    }
+
+    /**
+     * Writes the header and elements of an array to a channel.
+     */
+    static void write(NDArray<?> array, WritableByteChannel channel) throws IOException {
+        DType type = array.type();
+        if (type == DType.OBJECT) {
+            throw new UnsupportedDataTypeException(illegalDataType(type));
+        }
+        boolean fortran = !array.isCContiguous() && array.isFContiguous();
+        NDArray<?> source = array.isCContiguous() || fortran ? array : array.copy();
+        String dictionary = "{'descr': '" + descr(type) + "', 'fortran_order': " + (fortran ? "True" : "False")
+                + ", 'shape': " + shapeLiteral(source.shapeArray()) + ", }";
+        int version = dictionary.length() + ALIGNMENT > 0xFFFF ? 2 : 1;
+        int prefix = MAGIC.length + 2 + (version == 1 ? 2 : 4);
+        int total = (prefix + dictionary.length() + 1 + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        ByteBuffer header = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).put((byte) version).put((byte) 0);
+        if (version == 1) {
+            header.putShort((short) (total - prefix));
+        } else {
+            header.putInt(total - prefix);
+        }
+        header.put(dictionary.getBytes(StandardCharsets.ISO_8859_1));
+        while (header.position() < total - 1) {
+            header.put((byte) ' ');
+        }
+        header.put((byte) '\n');
+        // Buffer methods are called through Buffer, whose signatures are the same on Java 8 and later
+        ((Buffer) header).flip();
+        writeFully(channel, header);
+
+        Storage storage = source.storage();
+        int size = elementSize(type);
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (long done = 0; done < source.size(); ) {
+            int count = (int) Math.min(BLOCK_SIZE / size, source.size() - done);
+            ((Buffer) block).clear();
+            put(block, storage, source.offset() + done, count);
+            ((Buffer) block).flip();
+            writeFully(channel, block);
+            done += count;
+        }
+    }
+
+    /**
+     * Reads the header of a .npy file, leaving the channel at the first element.
+     */
+    static Header readHeader(ReadableByteChannel channel) throws IOException {
+        ByteBuffer start = ByteBuffer.allocate(MAGIC.length + 2).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, start);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (start.get(i) != MAGIC[i]) {
+                throw new IOException(npyFormatException("the magic string is missing"));
+            }
+        }
+        int major = start.get(MAGIC.length);
+        if (major < 1 || major > 3) {
+            throw new IOException(npyFormatException("version " + major + " is not supported"));
+        }
+        ByteBuffer size = ByteBuffer.allocate(major == 1 ? 2 : 4).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, size);
+        int length = major == 1 ? size.getShort(0) & 0xFFFF : size.getInt(0);
+        if (length < 0) {
+            throw new IOException(npyFormatException("the header length is negative"));
+        }
+        ByteBuffer text = ByteBuffer.allocate(length);
+        readFully(channel, text);
+        String dictionary = new String(text.array(), major == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+        return new Header(field(DESCR, "descr", dictionary), "True".equals(field(FORTRAN_ORDER, "fortran_order", dictionary)),
+                field(SHAPE, "shape", dictionary));
+    }
+
+    /**
+     * Reads the elements following a header into a new heap storage.
+     */
+    static <R> NDArray<R> read(ReadableByteChannel channel, Header header) throws IOException {
+        Storage storage = Storage.allocate(header.type, header.length);
+        int size = elementSize(header.type);
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE).order(header.order);
+        for (long done = 0; done < header.length; ) {
+            int count = (int) Math.min(BLOCK_SIZE / size, header.length - done);
+            ((Buffer) block).clear();
+            ((Buffer) block).limit(count * size);
+            readFully(channel, block);
+            ((Buffer) block).flip();
+            get(block, storage, done, count);
+            done += count;
+        }
+        return header.wrap(storage);
+    }
+
+    /**
+     * Copies count elements of a storage into a buffer, advancing its position.
+     */
+    static void put(ByteBuffer block, Storage storage, long from, int count) {
+        DType type = storage.dType();
+        if (storage.hasArray()) {
+            int start = (int) from;
+            switch (type) {
+                case FLOAT64: block.asDoubleBuffer().put((double[]) storage.array(), start, count); break;
+                case FLOAT32: block.asFloatBuffer().put((float[]) storage.array(), start, count); break;
+                case INT64: block.asLongBuffer().put((long[]) storage.array(), start, count); break;
+                case INT32: block.asIntBuffer().put((int[]) storage.array(), start, count); break;
+                case INT16: block.asShortBuffer().put((short[]) storage.array(), start, count); break;
+                default: block.put((byte[]) storage.array(), start, count); return;
+            }
+            ((Buffer) block).position(block.position() + count * elementSize(type));
+            return;
+        }
+        for (long i = from; i < from + count; i++) {
+            switch (type) {
+                case FLOAT64: block.putDouble(storage.getDouble(i)); break;
+                case FLOAT32: block.putFloat((float) storage.getDouble(i)); break;
+                case INT64: block.putLong(storage.getLong(i)); break;
+                case INT32: block.putInt((int) storage.getLong(i)); break;
+                case INT16: block.putShort((short) storage.getLong(i)); break;
+                default: block.put((byte) storage.getLong(i));
+            }
+        }
+    }
+
+    /**
+     * Copies count elements of a buffer into a storage.
+     */
+    static void get(ByteBuffer block, Storage storage, long from, int count) {
+        DType type = storage.dType();
+        if (storage.hasArray()) {
+            int start = (int) from;
+            switch (type) {
+                case FLOAT64: block.asDoubleBuffer().get((double[]) storage.array(), start, count); break;
+                case FLOAT32: block.asFloatBuffer().get((float[]) storage.array(), start, count); break;
+                case INT64: block.asLongBuffer().get((long[]) storage.array(), start, count); break;
+                case INT32: block.asIntBuffer().get((int[]) storage.array(), start, count); break;
+                case INT16: block.asShortBuffer().get((short[]) storage.array(), start, count); break;
+                default: block.get((byte[]) storage.array(), start, count);
+            }
+            return;
+        }
+        for (long i = from; i < from + count; i++) {
+            switch (type) {
+                case FLOAT64: storage.setDouble(i, block.getDouble()); break;
+                case FLOAT32: storage.setDouble(i, block.getFloat()); break;
+                case INT64: storage.setLong(i, block.getLong()); break;
+                case INT32: storage.setLong(i, block.getInt()); break;
+                case INT16: storage.setLong(i, block.getShort()); break;
+                default: storage.setLong(i, block.get());
+            }
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException(npyFormatException("the file ends before its elements"));
+            }
+        }
+    }
+
+    private static String field(Pattern pattern, String name, String dictionary) throws IOException {
+        Matcher matcher = pattern.matcher(dictionary);
+        if (!matcher.find()) {
+            throw new IOException(npyFormatException("the header has no " + name + " field"));
+        }
+        return matcher.group(1);
+    }
+
+    static String descr(DType type) {
+        switch (type) {
+            case FLOAT64: return "<f8";
+            case FLOAT32: return "<f4";
+            case INT64: return "<i8";
+            case INT32: return "<i4";
+            case INT16: return "<i2";
+            default: return "|i1";
+        }
+    }
+
+    /**
+     * Returns the data type of a NumPy type description.
+     *
+     * @throws UnsupportedDataTypeException If NumJ cannot represent the type.
+     */
+    static DType type(String descr) {
+        char byteOrder = descr.isEmpty() ? '?' : descr.charAt(0);
+        switch ("<>|=".indexOf(byteOrder) >= 0 ? descr.substring(1) : descr) {
+            case "f8": return DType.FLOAT64;
+            case "f4": return DType.FLOAT32;
+            case "i8": return DType.INT64;
+            case "i4": return DType.INT32;
+            case "i2": return DType.INT16;
+            case "i1":
+            case "b1": return DType.INT8;
+            default: throw new UnsupportedDataTypeException(npyTypeException(descr));
+        }
+    }
+
+    /**
+     * Returns the byte order of a NumPy type description, native when it does not give one.
+     */
+    static ByteOrder byteOrder(String descr) {
+        char byteOrder = descr.isEmpty() ? '?' : descr.charAt(0);
+        return byteOrder == '>' ? ByteOrder.BIG_ENDIAN : byteOrder == '<' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.nativeOrder();
+    }
+
+    static int elementSize(DType type) {
+        switch (type) {
+            case FLOAT64:
+            case INT64: return 8;
+            case FLOAT32:
+            case INT32: return 4;
+            case INT16: return 2;
+            default: return 1;
+        }
+    }
+
+    private static String shapeLiteral(int[] shape) {
+        StringBuilder literal = new StringBuilder("(");
+        for (int i = 0; i < shape.length; i++) {
+            literal.append(i == 0 ? "" : ", ").append(shape[i]);
+        }
+        return literal.append(shape.length == 1 ? ",)" : ")").toString();
+    }
+
+    /**
+     * The description of the elements of a .npy file.
+     */
+    static final class Header {
+        final DType type;
+        final ByteOrder order;
+        final boolean fortran;
+        final int[] shape;
+        final long length;
+
+        Header(String descr, boolean fortran, String shape) throws IOException {
+            this.order = byteOrder(descr);
+            this.type = type(descr);
+            this.fortran = fortran;
+            List<Integer> dimensions = new ArrayList<>();
+            for (String dimension : shape.split(",")) {
+                if (!dimension.trim().isEmpty()) {
+                    try {
+                        dimensions.add(Integer.parseInt(dimension.trim()));
+                    } catch (NumberFormatException e) {
+                        throw new IOException(npyFormatException("the shape (" + shape + ") is not a tuple of dimensions"));
+                    }
+                }
+            }
+            this.shape = new int[dimensions.size()];
+            long count = 1;
+            for (int i = 0; i < this.shape.length; i++) {
+                this.shape[i] = dimensions.get(i);
+                if (this.shape[i] < 0) {
+                    throw new IOException(npyFormatException("the shape (" + shape + ") has a negative dimension"));
+                }
+                count *= this.shape[i];
+            }
+            this.length = count;
+        }
+
+        /**
+         * Creates the array described by the header over a storage holding its elements.
+         */
+        <R> NDArray<R> wrap(Storage storage) {
+            return fortran ? new NumJ().array(storage, shape, Order.F) : new NumJ().array(storage, shape);
+        }
+    }
+
+    /**
+     * A channel discarding the bytes written to it, keeping their count and checksum.
+     */
+    private static final class ChecksumChannel implements WritableByteChannel {
+        final CRC32 crc = new CRC32();
+        long size;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int count = source.remaining();
+            crc.update(source);
+            size += count;
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.library.numj.io;
+
+import com.library.numj.parallel.ExecutionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Runs I/O tasks in parallel on the default {@link ExecutionContext}, one task per index, rethrowing the first
+ * {@link IOException} a task throws. Nested calls run on the calling thread.
+ */
+final class ParallelIo {
+    private ParallelIo() {
+    }
+
+    /**
+     * Work done for one index.
+     */
+    interface IndexTask {
+        void run(long index) throws IOException;
+    }
+
+    /**
+     * Runs a task for every index from 0 to count, in parallel, and waits for all of them.
+     *
+     * @throws IOException The first I/O failure of a task.
+     */
+    static void forEach(long count, IndexTask task) throws IOException {
+        try {
+            ExecutionContext.getDefault().forEachChunk(count, 1, (start, end) -> {
+                for (long index = start; index < end; index++) {
+                    try {
+                        task.run(index);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
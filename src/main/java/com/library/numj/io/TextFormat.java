@@ -0,0 +1,692 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.storage.Storage;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static com.library.numj.ExceptionMessages.columnIndexException;
+import static com.library.numj.ExceptionMessages.dimensionTooLargeException;
+import static com.library.numj.ExceptionMessages.illegalDataType;
+import static com.library.numj.ExceptionMessages.negativeSkipException;
+import static com.library.numj.ExceptionMessages.textDimensionException;
+import static com.library.numj.ExceptionMessages.textFieldCountException;
+import static com.library.numj.ExceptionMessages.textParseException;
+
+/**
+ * Reads and writes arrays as delimited text, one row per line, the counterpart of NumPy's {@code loadtxt},
+ * {@code genfromtxt} and {@code savetxt}.
+ * <p>
+ * Fields are separated by a delimiter character, a space standing for any run of spaces and tabs. Blank lines
+ * and lines starting with {@code #} are skipped, and a {@code #} ends the data of any line. The first data line
+ * sets the number of fields, which every other line must have.
+ * <p>
+ * Reading makes two passes over the file, both in parallel: the data after the skipped rows is cut into parts
+ * ending on line boundaries, whose rows are counted first, so that every part then parses its own rows straight
+ * into the storage of the result at a known position. Parts read the file through positional channel reads into
+ * a buffer of their own and parse fields from the bytes in place, without splitting lines into strings or boxing
+ * values. Decimal numbers of at most 15 significant digits with small exponents are converted exactly with a
+ * single multiplication or division; longer ones fall back to {@link Double#parseDouble}.
+ */
+public final class TextFormat {
+    /** The delimiter standing for any run of spaces and tabs. */
+    public static final char WHITESPACE = ' ';
+    /** Size of the buffer of every part, grown for longer lines. */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /** Smallest number of bytes parsed by a part. */
+    private static final int PART_SIZE = 1 << 22;
+    /** Number of elements staged before they are written to the storage. */
+    private static final int BLOCK_SIZE = 1 << 12;
+    /** Powers of ten exactly representable as doubles. */
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private TextFormat() {
+    }
+
+    /**
+     * Reads a two-dimensional array from delimited text, every field having to be a number of the requested type.
+     *
+     * @param path      The file.
+     * @param dType     The data type of the elements.
+     * @param delimiter The character separating fields, {@link #WHITESPACE} for runs of spaces and tabs.
+     * @param skipRows  The number of lines skipped at the start of the file, comments and blank lines included.
+     * @param usecols   The fields read as columns, in order, negative ones counting from the last field, or null for all.
+     * @param maxRows   The largest number of rows read, or a negative number to read every row.
+     * @param <R>       The type of the elements of the array.
+     * @return A new NDArray of shape (rows, columns).
+     * @throws IOException                  If the file cannot be read, a field is not a number or a line has
+     *                                      a different number of fields than the first one.
+     * @throws IllegalArgumentException     If skipRows is negative or a selected column does not exist.
+     * @throws UnsupportedDataTypeException If the type is {@link DType#OBJECT}.
+     */
+    public static <R> NDArray<R> loadtxt(Path path, DType dType, char delimiter, int skipRows, int[] usecols,
+                                         long maxRows) throws IOException {
+        return read(path, dType, delimiter, skipRows, usecols, maxRows, false, 0);
+    }
+
+    /**
+     * Reads a two-dimensional array from delimited text, replacing missing fields and fields that are not numbers
+     * of the requested type by a filling value. Lines with fewer fields than the first one are filled the same way.
+     *
+     * @param path         The file.
+     * @param dType        The data type of the elements.
+     * @param delimiter    The character separating fields, {@link #WHITESPACE} for runs of spaces and tabs.
+     * @param skipRows     The number of lines skipped at the start of the file, comments and blank lines included.
+     * @param usecols      The fields read as columns, in order, negative ones counting from the last field, or null for all.
+     * @param maxRows      The largest number of rows read, or a negative number to read every row.
+     * @param fillingValue The value of missing fields, truncated for integer types.
+     * @param <R>          The type of the elements of the array.
+     * @return A new NDArray of shape (rows, columns).
+     * @throws IOException                  If the file cannot be read or a line has more fields than the first one.
+     * @throws IllegalArgumentException     If skipRows is negative or a selected column does not exist.
+     * @throws UnsupportedDataTypeException If the type is {@link DType#OBJECT}.
+     */
+    public static <R> NDArray<R> genfromtxt(Path path, DType dType, char delimiter, int skipRows, int[] usecols,
+                                            long maxRows, double fillingValue) throws IOException {
+        return read(path, dType, delimiter, skipRows, usecols, maxRows, true, fillingValue);
+    }
+
+    /**
+     * Writes a one- or two-dimensional array as delimited text, one row per line, a one-dimensional array
+     * having one element per line. Floating point elements are written with the shortest decimal representation
+     * that reads back to the same value, {@code nan}, {@code inf} and {@code -inf} standing for the special values.
+     * Rows are formatted in parallel, a batch at a time, and written in order.
+     *
+     * @param path      The file, created or overwritten.
+     * @param array     The array to write.
+     * @param delimiter The character written between the elements of a row.
+     * @throws IOException    If the file cannot be written.
+     * @throws ShapeException If the array is neither one- nor two-dimensional.
+     */
+    public static void savetxt(Path path, NDArray<?> array, char delimiter) throws IOException, ShapeException {
+        int[] shape = array.shapeArray();
+        if (shape.length < 1 || shape.length > 2) {
+            throw new ShapeException(textDimensionException(shape));
+        }
+        if (array.type() == DType.OBJECT) {
+            throw new UnsupportedDataTypeException(illegalDataType(array.type()));
+        }
+        NDArray<?> contiguous = array.isCContiguous() ? array : array.copy();
+        Storage storage = contiguous.storage();
+        long offset = contiguous.offset();
+        long rows = shape[0];
+        int columns = shape.length == 2 ? shape[1] : 1;
+        boolean floating = array.type().isFloatingPoint();
+        boolean single = array.type() == DType.FLOAT32;
+        ExecutionContext context = ExecutionContext.getDefault();
+        long rowsPerPart = Math.max(1, BLOCK_SIZE * 16 / Math.max(1, columns));
+        int partsPerBatch = context.parallelism() * 4;
+        byte[][] parts = new byte[partsPerBatch][];
+        int[] lengths = new int[partsPerBatch];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long batch = 0; batch < rows; batch += rowsPerPart * partsPerBatch) {
+                long first = batch;
+                int count = (int) Math.min(partsPerBatch, (rows - batch + rowsPerPart - 1) / rowsPerPart);
+                context.forEachChunk(count, 1, (start, end) -> {
+                    double[] doubles = floating ? new double[columns] : null;
+                    long[] longs = floating ? null : new long[columns];
+                    for (int part = (int) start; part < end; part++) {
+                        Formatter formatter = new Formatter(parts[part]);
+                        long from = first + part * rowsPerPart;
+                        long to = Math.min(rows, from + rowsPerPart);
+                        for (long row = from; row < to; row++) {
+                            long position = offset + row * columns;
+                            if (floating) storage.getDoubles(position, doubles, 0, columns);
+                            else storage.getLongs(position, longs, 0, columns);
+                            for (int j = 0; j < columns; j++) {
+                                if (j > 0) formatter.put((byte) delimiter);
+                                if (!floating) formatter.putLong(longs[j]);
+                                else if (single) formatter.putFloat((float) doubles[j]);
+                                else formatter.putDouble(doubles[j]);
+                            }
+                            formatter.put((byte) '\n');
+                        }
+                        parts[part] = formatter.bytes;
+                        lengths[part] = formatter.length;
+                    }
+                });
+                for (int part = 0; part < count; part++) {
+                    ByteBuffer buffer = ByteBuffer.wrap(parts[part], 0, lengths[part]);
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the text of a file into an array of shape (rows, columns), either strictly or filling missing fields.
+     */
+    private static <R> NDArray<R> read(Path path, DType dType, char delimiter, int skipRows, int[] usecols,
+                                       long maxRows, boolean lenient, double fillingValue) throws IOException {
+        if (dType == DType.OBJECT) {
+            throw new UnsupportedDataTypeException(illegalDataType(dType));
+        }
+        if (skipRows < 0) {
+            throw new IllegalArgumentException(negativeSkipException(skipRows));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            LineReader head = new LineReader(channel, 0, size, BUFFER_SIZE >> 4);
+            for (int i = 0; i < skipRows && head.nextLine(); i++) {
+                // Skipped rows are dropped whatever they hold
+            }
+            long dataStart = head.next();
+            int fields = -1;
+            while (head.nextLine()) {
+                if (isData(head.buffer, head.lineStart, head.lineEnd)) {
+                    fields = split(head.buffer, head.lineStart, head.lineEnd, delimiter, null, null);
+                    break;
+                }
+            }
+            if (fields < 0) {
+                return new NumJ().array(Storage.allocate(dType, 0), new int[]{0, usecols == null ? 0 : usecols.length});
+            }
+            int[] columns = columns(usecols, fields);
+            if (maxRows == 0) {
+                return new NumJ().array(Storage.allocate(dType, 0), new int[]{0, columns.length});
+            }
+
+            ExecutionContext context = ExecutionContext.getDefault();
+            int parts = (int) Math.max(1, Math.min(context.parallelism() * 4L, (size - dataStart) / PART_SIZE));
+            long[] bounds = new long[parts + 1];
+            bounds[0] = dataStart;
+            bounds[parts] = size;
+            for (int i = 1; i < parts; i++) {
+                bounds[i] = Math.max(bounds[i - 1], lineStart(channel, dataStart + (size - dataStart) * i / parts, size));
+            }
+            long[] counts = new long[parts];
+            ParallelIo.forEach(parts, index -> {
+                int part = (int) index;
+                LineReader reader = new LineReader(channel, bounds[part], bounds[part + 1], BUFFER_SIZE);
+                long count = 0;
+                while (reader.nextLine()) {
+                    if (isData(reader.buffer, reader.lineStart, reader.lineEnd)) count++;
+                }
+                counts[part] = count;
+            });
+            long[] firstRows = new long[parts + 1];
+            for (int i = 0; i < parts; i++) firstRows[i + 1] = firstRows[i] + counts[i];
+            long rows = maxRows < 0 ? firstRows[parts] : Math.min(maxRows, firstRows[parts]);
+            if (rows > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(dimensionTooLargeException(rows));
+            }
+
+            Storage storage = Storage.allocate(dType, rows * columns.length);
+            int expected = fields;
+            ParallelIo.forEach(parts, index -> {
+                int part = (int) index;
+                long limit = Math.min(counts[part], rows - firstRows[part]);
+                if (limit > 0) {
+                    new Parser(channel, bounds[part], bounds[part + 1], storage, firstRows[part] * columns.length,
+                            delimiter, expected, columns, lenient, fillingValue).parse(limit);
+                }
+            });
+            return new NumJ().array(storage, new int[]{(int) rows, columns.length});
+        }
+    }
+
+    /**
+     * Resolves the selected fields, null selecting all of them.
+     */
+    private static int[] columns(int[] usecols, int fields) {
+        if (usecols == null) {
+            int[] all = new int[fields];
+            for (int i = 0; i < fields; i++) all[i] = i;
+            return all;
+        }
+        int[] columns = new int[usecols.length];
+        for (int i = 0; i < usecols.length; i++) {
+            int column = usecols[i] < 0 ? usecols[i] + fields : usecols[i];
+            if (column < 0 || column >= fields) {
+                throw new IllegalArgumentException(columnIndexException(usecols[i], fields));
+            }
+            columns[i] = column;
+        }
+        return columns;
+    }
+
+    /**
+     * Returns the position of the first line starting at or after a position.
+     */
+    private static long lineStart(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        for (long at = position - 1; at < end; ) {
+            ((Buffer) buffer).clear();
+            int read = channel.read(buffer, at);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return at + i + 1;
+            }
+            at += read;
+        }
+        return end;
+    }
+
+    /**
+     * Checks whether a line holds data, that is neither blank nor a comment.
+     */
+    private static boolean isData(byte[] buffer, int from, int to) {
+        while (from < to && (buffer[from] == ' ' || buffer[from] == '\t')) from++;
+        return from < to && buffer[from] != '#';
+    }
+
+    /**
+     * Splits a line into fields, recording the bounds of as many of them as the arrays hold.
+     *
+     * @return The number of fields of the line.
+     */
+    private static int split(byte[] buffer, int from, int to, char delimiter, int[] starts, int[] ends) {
+        int capacity = starts == null ? 0 : starts.length;
+        int count = 0;
+        int p = from;
+        if (delimiter == WHITESPACE) {
+            while (true) {
+                while (p < to && (buffer[p] == ' ' || buffer[p] == '\t')) p++;
+                if (p >= to || buffer[p] == '#') return count;
+                int start = p;
+                while (p < to && buffer[p] != ' ' && buffer[p] != '\t' && buffer[p] != '#') p++;
+                if (count < capacity) {
+                    starts[count] = start;
+                    ends[count] = p;
+                }
+                count++;
+            }
+        }
+        byte separator = (byte) delimiter;
+        while (true) {
+            int start = p;
+            while (p < to && buffer[p] != separator && buffer[p] != '#') p++;
+            if (count < capacity) {
+                starts[count] = start;
+                ends[count] = p;
+            }
+            count++;
+            if (p >= to || buffer[p] != separator) return count;
+            p++;
+        }
+    }
+
+    /**
+     * Reads the lines of a range of a file through a buffer of its own, positioned reads leaving the channel
+     * free for the other parts.
+     */
+    private static final class LineReader {
+        private final FileChannel channel;
+        private final long end;
+        /** Position in the file of the byte after the last one in the buffer. */
+        private long position;
+        private ByteBuffer wrapper;
+        byte[] buffer;
+        /** Number of bytes in the buffer. */
+        private int limit;
+        /** Start of the first line not returned yet. */
+        private int next;
+        /** Position up to which the pending line has been searched for its end. */
+        private int scanned;
+        int lineStart;
+        int lineEnd;
+
+        LineReader(FileChannel channel, long start, long end, int bufferSize) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+            this.buffer = new byte[bufferSize];
+            this.wrapper = ByteBuffer.wrap(buffer);
+        }
+
+        /**
+         * Moves to the next line, whose bounds exclude the line feed and a carriage return before it.
+         *
+         * @return False once the range is exhausted.
+         */
+        boolean nextLine() throws IOException {
+            while (true) {
+                for (int i = scanned; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        setLine(next, i);
+                        next = scanned = i + 1;
+                        return true;
+                    }
+                }
+                scanned = limit;
+                if (position >= end) {
+                    if (next < limit) {
+                        setLine(next, limit);
+                        next = scanned = limit;
+                        return true;
+                    }
+                    return false;
+                }
+                fill();
+            }
+        }
+
+        /**
+         * Returns the position in the file of the first line not returned yet.
+         */
+        long next() {
+            return position - (limit - next);
+        }
+
+        /**
+         * Returns the position in the file of the current line.
+         */
+        long linePosition() {
+            return position - (limit - lineStart);
+        }
+
+        private void setLine(int from, int to) {
+            lineStart = from;
+            lineEnd = to > from && buffer[to - 1] == '\r' ? to - 1 : to;
+        }
+
+        /**
+         * Moves the pending line to the start of the buffer, growing it if the line fills it, and reads more bytes.
+         */
+        private void fill() throws IOException {
+            int pending = limit - next;
+            if (pending == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                wrapper = ByteBuffer.wrap(buffer);
+            } else {
+                System.arraycopy(buffer, next, buffer, 0, pending);
+            }
+            scanned -= next;
+            next = 0;
+            limit = pending;
+            ((Buffer) wrapper).limit((int) Math.min(buffer.length, limit + (end - position)));
+            ((Buffer) wrapper).position(limit);
+            int read = channel.read(wrapper, position);
+            if (read < 0) {
+                position = end;
+                return;
+            }
+            position += read;
+            limit += read;
+        }
+    }
+
+    /**
+     * Parses the data lines of a part into consecutive rows of a storage.
+     */
+    private static final class Parser {
+        private final LineReader reader;
+        private final Storage storage;
+        private final char delimiter;
+        private final int fields;
+        private final int[] columns;
+        private final boolean lenient;
+        private final double fillingValue;
+        private final boolean floating;
+        private final int[] starts;
+        private final int[] ends;
+        private final double[] doubles;
+        private final long[] longs;
+        /** Position in the storage of the first staged element. */
+        private long position;
+        /** Number of staged elements. */
+        private int staged;
+        /** Set by the number parsers when a field is not a number. */
+        private boolean failed;
+
+        Parser(FileChannel channel, long start, long end, Storage storage, long position, char delimiter, int fields,
+               int[] columns, boolean lenient, double fillingValue) {
+            this.reader = new LineReader(channel, start, end, BUFFER_SIZE);
+            this.storage = storage;
+            this.position = position;
+            this.delimiter = delimiter;
+            this.fields = fields;
+            this.columns = columns;
+            this.lenient = lenient;
+            this.fillingValue = fillingValue;
+            this.floating = storage.dType().isFloatingPoint();
+            this.starts = new int[fields];
+            this.ends = new int[fields];
+            int block = Math.max(BLOCK_SIZE - BLOCK_SIZE % Math.max(1, columns.length), columns.length);
+            this.doubles = floating ? new double[block] : null;
+            this.longs = floating ? null : new long[block];
+        }
+
+        /**
+         * Parses the given number of data lines.
+         */
+        void parse(long rows) throws IOException {
+            for (long row = 0; row < rows && reader.nextLine(); ) {
+                byte[] buffer = reader.buffer;
+                if (!isData(buffer, reader.lineStart, reader.lineEnd)) continue;
+                int count = split(buffer, reader.lineStart, reader.lineEnd, delimiter, starts, ends);
+                if (count > fields || count < fields && !lenient) {
+                    throw new IOException(textFieldCountException(fields, count, reader.linePosition()));
+                }
+                if ((floating ? doubles.length : longs.length) - staged < columns.length) flush();
+                for (int column : columns) {
+                    if (column >= count) {
+                        stage(Double.NaN, 0, true);
+                        continue;
+                    }
+                    failed = false;
+                    if (floating) stage(parseDouble(buffer, starts[column], ends[column]), 0, failed);
+                    else stage(0, parseLong(buffer, starts[column], ends[column]), failed);
+                    if (failed && !lenient) {
+                        String field = new String(buffer, starts[column], ends[column] - starts[column], StandardCharsets.US_ASCII);
+                        throw new IOException(textParseException(field.trim(), reader.linePosition()));
+                    }
+                }
+                row++;
+            }
+            flush();
+        }
+
+        private void stage(double d, long l, boolean missing) {
+            if (floating) doubles[staged++] = missing ? fillingValue : d;
+            else longs[staged++] = missing ? (long) fillingValue : l;
+        }
+
+        private void flush() {
+            if (floating) storage.setDoubles(position, doubles, 0, staged);
+            else storage.setLongs(position, longs, 0, staged);
+            position += staged;
+            staged = 0;
+        }
+
+        /**
+         * Parses a decimal integer, setting the failure flag if the field is not one or overflows.
+         */
+        private long parseLong(byte[] b, int from, int to) {
+            while (from < to && (b[from] & 0xFF) <= ' ') from++;
+            while (to > from && (b[to - 1] & 0xFF) <= ' ') to--;
+            boolean negative = from < to && b[from] == '-';
+            if (from < to && (b[from] == '-' || b[from] == '+')) from++;
+            if (from == to) {
+                failed = true;
+                return 0;
+            }
+            long value = 0;
+            for (int p = from; p < to; p++) {
+                int digit = b[p] - '0';
+                if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                    failed = true;
+                    return 0;
+                }
+                // Accumulated negatively, so Long.MIN_VALUE is reachable
+                value = value * 10 - digit;
+            }
+            if (!negative && value == Long.MIN_VALUE) {
+                failed = true;
+                return 0;
+            }
+            return negative ? value : -value;
+        }
+
+        /**
+         * Parses a decimal floating point number, {@code nan}, {@code inf} or {@code infinity} in any case, setting
+         * the failure flag if the field is none of them.
+         */
+        private double parseDouble(byte[] b, int from, int to) {
+            while (from < to && (b[from] & 0xFF) <= ' ') from++;
+            while (to > from && (b[to - 1] & 0xFF) <= ' ') to--;
+            int p = from;
+            boolean negative = p < to && b[p] == '-';
+            if (p < to && (b[p] == '-' || b[p] == '+')) p++;
+            if (p < to && (b[p] | 0x20) >= 'a' && (b[p] | 0x20) != 'e') {
+                return special(b, p, to, negative);
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean any = false;
+            for (; p < to && b[p] >= '0' && b[p] <= '9'; p++) {
+                any = true;
+                if (digits < 19) {
+                    mantissa = mantissa * 10 + (b[p] - '0');
+                    if (mantissa != 0) digits++;
+                } else {
+                    digits++;
+                    exponent++;
+                }
+            }
+            if (p < to && b[p] == '.') {
+                for (p++; p < to && b[p] >= '0' && b[p] <= '9'; p++) {
+                    any = true;
+                    if (digits < 19) {
+                        mantissa = mantissa * 10 + (b[p] - '0');
+                        if (mantissa != 0) digits++;
+                        exponent--;
+                    } else {
+                        digits++;
+                    }
+                }
+            }
+            if (!any) {
+                failed = true;
+                return 0;
+            }
+            if (p < to && (b[p] == 'e' || b[p] == 'E')) {
+                p++;
+                boolean negativeExponent = p < to && b[p] == '-';
+                if (p < to && (b[p] == '-' || b[p] == '+')) p++;
+                if (p == to) {
+                    failed = true;
+                    return 0;
+                }
+                int value = 0;
+                for (; p < to && b[p] >= '0' && b[p] <= '9'; p++) {
+                    if (value < 100000) value = value * 10 + (b[p] - '0');
+                }
+                exponent += negativeExponent ? -value : value;
+            }
+            if (p != to) {
+                failed = true;
+                return 0;
+            }
+            if (mantissa == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+                // Both operands are exact, so the single rounding of the operation gives the correctly rounded value
+                double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+                return negative ? -value : value;
+            }
+            try {
+                return Double.parseDouble(new String(b, from, to - from, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                failed = true;
+                return 0;
+            }
+        }
+
+        private double special(byte[] b, int from, int to, boolean negative) {
+            if (matches(b, from, to, "nan")) return Double.NaN;
+            if (matches(b, from, to, "inf") || matches(b, from, to, "infinity")) {
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
+            failed = true;
+            return 0;
+        }
+
+        private static boolean matches(byte[] b, int from, int to, String word) {
+            if (to - from != word.length()) return false;
+            for (int i = 0; i < word.length(); i++) {
+                if ((b[from + i] | 0x20) != word.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Formats numbers as ASCII text into a growing byte array.
+     */
+    private static final class Formatter {
+        byte[] bytes;
+        int length;
+
+        Formatter(byte[] bytes) {
+            this.bytes = bytes == null ? new byte[BLOCK_SIZE] : bytes;
+        }
+
+        void put(byte value) {
+            if (length == bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            bytes[length++] = value;
+        }
+
+        void putLong(long value) {
+            if (length + 20 > bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            if (value < 0) {
+                bytes[length++] = '-';
+            } else {
+                value = -value;
+            }
+            // Digits of the negated value, so Long.MIN_VALUE needs no special case
+            int start = length;
+            do {
+                bytes[length++] = (byte) ('0' - value % 10);
+                value /= 10;
+            } while (value != 0);
+            for (int i = start, j = length - 1; i < j; i++, j--) {
+                byte digit = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = digit;
+            }
+        }
+
+        void putDouble(double value) {
+            if (value == (long) value && Math.abs(value) < 1e15 && !(value == 0 && 1 / value < 0)) {
+                putLong((long) value);
+            } else {
+                putString(Double.isNaN(value) ? "nan" : Double.isInfinite(value) ? (value > 0 ? "inf" : "-inf")
+                        : Double.toString(value));
+            }
+        }
+
+        void putFloat(float value) {
+            if (value == (long) value && Math.abs(value) < 1e7f && !(value == 0 && 1 / value < 0)) {
+                putLong((long) value);
+            } else {
+                putString(Float.isNaN(value) ? "nan" : Float.isInfinite(value) ? (value > 0 ? "inf" : "-inf")
+                        : Float.toString(value));
+            }
+        }
+
+        private void putString(String text) {
+            for (int i = 0; i < text.length(); i++) put((byte) text.charAt(i));
+        }
+    }
+}
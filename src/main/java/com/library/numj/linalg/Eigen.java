@@ -0,0 +1,734 @@
+package com.library.numj.linalg;
+
+import com.library.numj.enums.DType;
+import com.library.numj.exceptions.LinAlgException;
+import com.library.numj.parallel.ChunkTask;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import static com.library.numj.ExceptionMessages.convergenceException;
+
+/**
+ * Eigenvalue kernels for square matrices held row by row in double arrays, computed in double precision.
+ * <p>
+ * Symmetric matrices are reduced to tridiagonal form by Householder reflections, whose products with the
+ * matrix are spread over threads row by row, and Q is formed by the blocked kernels of {@link Factorizations}.
+ * The tridiagonal matrix is diagonalized by the implicit QL iteration with Wilkinson shifts. The rotations of
+ * every sweep are recorded and then applied to the eigenvectors, which are held as rows, in column ranges
+ * spread over threads.
+ * <p>
+ * General matrices are reduced to Hessenberg form and then to real Schur form by the Francis double shift QR
+ * iteration, eigenvectors being found by back substitution, as in EISPACK's {@code orthes} and {@code hqr2}.
+ */
+final class Eigen {
+    /** Relative precision of double values. */
+    private static final double EPSILON = Math.ulp(1d);
+    /** Number of iterations allowed for one eigenvalue before giving up. */
+    private static final int MAX_ITERATIONS = 100;
+
+    private Eigen() {
+    }
+
+    /**
+     * Computes the eigenvalues, in ascending order, and the eigenvectors of a symmetric matrix.
+     *
+     * @param a The matrix, n rows of n elements, overwritten.
+     * @param n The order of the matrix.
+     * @param w Receives the eigenvalues, of length n.
+     * @param v Receives the eigenvectors as columns, n rows of n elements, or null if only eigenvalues are needed.
+     * @throws LinAlgException If the iteration does not converge.
+     */
+    static void symmetric(double[] a, int n, double[] w, double[] v) {
+        if (n == 0) {
+            return;
+        }
+        double[] e = new double[n];
+        double[] tau = new double[n];
+        tridiagonalize(a, n, w, e, tau);
+        double[] z = null;
+        if (v != null) {
+            // Q = diag(1, Q'), Q' formed from the reflections stored below the subdiagonal
+            int order = n - 1;
+            Storage reflectors = Storage.allocate(DType.FLOAT64, (long) order * order);
+            for (int r = 1; r < order; r++) {
+                for (int c = 0; c < r; c++) {
+                    reflectors.setDouble((long) r * order + c, a[(r + 1) * n + c]);
+                }
+            }
+            Storage q = Storage.allocate(DType.FLOAT64, (long) order * order);
+            Factorizations.formQ(DType.FLOAT64, reflectors, 0, order, order, tau, q, 0, order);
+            // Eigenvectors are kept as rows, starting from the rows of Q^T
+            z = new double[n * n];
+            z[0] = 1;
+            for (int r = 0; r < order; r++) {
+                for (int c = 0; c < order; c++) {
+                    z[(c + 1) * n + r + 1] = q.getDouble((long) r * order + c);
+                }
+            }
+        }
+        diagonalize(w, e, n, z);
+        Integer[] sorted = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = i;
+        }
+        java.util.Arrays.sort(sorted, (i, j) -> Double.compare(w[i], w[j]));
+        double[] values = w.clone();
+        for (int j = 0; j < n; j++) {
+            w[j] = values[sorted[j]];
+            if (z != null) {
+                int row = sorted[j] * n;
+                for (int k = 0; k < n; k++) {
+                    v[k * n + j] = z[row + k];
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduces a full symmetric matrix to tridiagonal form {@code Q^T A Q = T}. The reflection of column i is
+     * stored below the subdiagonal of that column, its leading one implicit.
+     *
+     * @param a   The matrix, overwritten by the reflections.
+     * @param n   The order of the matrix.
+     * @param d   Receives the diagonal of T.
+     * @param e   Receives the subdiagonal of T, e[i] joining rows i and i + 1, and e[n - 1] = 0.
+     * @param tau Receives the factors of the reflections.
+     */
+    private static void tridiagonalize(double[] a, int n, double[] d, double[] e, double[] tau) {
+        double[] v = new double[n];
+        double[] p = new double[n];
+        for (int i = 0; i < n - 2; i++) {
+            int start = i + 1;
+            int length = n - start;
+            double alpha = a[start * n + i];
+            double max = 0;
+            for (int r = start + 1; r < n; r++) {
+                max = Math.max(max, Math.abs(a[r * n + i]));
+            }
+            if (max == 0) {
+                tau[i] = 0;
+                e[i] = alpha;
+                continue;
+            }
+            double sum = 0;
+            for (int r = start + 1; r < n; r++) {
+                double value = a[r * n + i] / max;
+                sum += value * value;
+            }
+            double beta = -Math.copySign(Math.hypot(alpha, max * Math.sqrt(sum)), alpha);
+            double factor = (beta - alpha) / beta;
+            double scale = 1 / (alpha - beta);
+            v[0] = 1;
+            for (int r = start + 1; r < n; r++) {
+                a[r * n + i] *= scale;
+                v[r - start] = a[r * n + i];
+            }
+            tau[i] = factor;
+            e[i] = beta;
+            // p = tau A22 v, w = p - (tau / 2) (p . v) v, A22 = A22 - v w^T - w v^T
+            rows(length, length, (from, to) -> {
+                for (int r = (int) from; r < to; r++) {
+                    int row = (start + r) * n + start;
+                    double dot = 0;
+                    for (int c = 0; c < length; c++) {
+                        dot += a[row + c] * v[c];
+                    }
+                    p[r] = factor * dot;
+                }
+            });
+            double pv = 0;
+            for (int r = 0; r < length; r++) {
+                pv += p[r] * v[r];
+            }
+            double shift = -0.5 * factor * pv;
+            for (int r = 0; r < length; r++) {
+                p[r] += shift * v[r];
+            }
+            rows(length, length, (from, to) -> {
+                for (int r = (int) from; r < to; r++) {
+                    int row = (start + r) * n + start;
+                    double vr = v[r], pr = p[r];
+                    for (int c = 0; c < length; c++) {
+                        a[row + c] -= vr * p[c] + pr * v[c];
+                    }
+                }
+            });
+        }
+        if (n >= 2) {
+            e[n - 2] = a[(n - 1) * n + n - 2];
+        }
+        e[n - 1] = 0;
+        for (int i = 0; i < n; i++) {
+            d[i] = a[i * n + i];
+        }
+    }
+
+    /**
+     * Diagonalizes a symmetric tridiagonal matrix by the implicit QL iteration, applying the rotations to
+     * the rows of z.
+     *
+     * @param d The diagonal, replaced by the eigenvalues.
+     * @param e The subdiagonal, destroyed.
+     * @param n The order of the matrix.
+     * @param z The vectors rotated, n rows of n elements, or null.
+     */
+    private static void diagonalize(double[] d, double[] e, int n, double[] z) {
+        double[] cosines = new double[n];
+        double[] sines = new double[n];
+        double f = 0;
+        double norm = 0;
+        for (int l = 0; l < n; l++) {
+            norm = Math.max(norm, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n && Math.abs(e[m]) > EPSILON * norm) {
+                m++;
+            }
+            if (m > l) {
+                int iterations = 0;
+                do {
+                    if (++iterations > MAX_ITERATIONS) {
+                        throw new LinAlgException(convergenceException("Eigenvalues"));
+                    }
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2 * e[l]);
+                    double r = Math.copySign(Math.hypot(p, 1), p);
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) {
+                        d[i] -= h;
+                    }
+                    f += h;
+                    p = d[m];
+                    double c = 1, c2 = 1, c3 = 1;
+                    double el1 = e[l + 1];
+                    double s = 0, s2 = 0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+                        cosines[i] = c;
+                        sines[i] = s;
+                    }
+                    if (z != null) {
+                        rotate(z, n, l, m, cosines, sines);
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > EPSILON * norm);
+            }
+            d[l] += f;
+            e[l] = 0;
+        }
+    }
+
+    /**
+     * Applies the rotations of rows i and i + 1, for i from m - 1 down to l, to the vectors held as rows,
+     * every thread taking a range of columns through the whole sequence.
+     */
+    private static void rotate(double[] z, int n, int l, int m, double[] cosines, double[] sines) {
+        rows(n, m - l, (from, to) -> {
+            for (int i = m - 1; i >= l; i--) {
+                double c = cosines[i], s = sines[i];
+                int upper = i * n, lower = upper + n;
+                for (int k = (int) from; k < to; k++) {
+                    double h = z[lower + k];
+                    z[lower + k] = s * z[upper + k] + c * h;
+                    z[upper + k] = c * z[upper + k] - s * h;
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a task over count rows of the given width, spread over threads when the work is large enough.
+     */
+    private static void rows(int count, int width, ChunkTask task) {
+        long work = (long) count * width;
+        if (work < ExecutionEngine.getThreshold()) {
+            task.run(0, count);
+        } else {
+            ExecutionContext.getDefault().forEachChunk(count, Math.max(1, ExecutionEngine.getChunkSize() / Math.max(1, width)), task);
+        }
+    }
+
+    /**
+     * Computes the eigenvalues and eigenvectors of a general real matrix. A complex pair of eigenvalues
+     * {@code wr[j] +- i wi[j]}, with wi[j] > 0, has the eigenvectors {@code v[:, j] +- i v[:, j + 1]}, as in
+     * LAPACK. Every eigenvector has unit norm.
+     *
+     * @param a  The matrix, n rows of n elements.
+     * @param n  The order of the matrix.
+     * @param wr Receives the real parts of the eigenvalues.
+     * @param wi Receives the imaginary parts of the eigenvalues.
+     * @param v  Receives the eigenvectors as columns, n rows of n elements.
+     * @throws LinAlgException If the iteration does not converge.
+     */
+    static void general(double[] a, int n, double[] wr, double[] wi, double[] v) {
+        if (n == 0) {
+            return;
+        }
+        double[][] h = new double[n][n];
+        double[][] vectors = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a, i * n, h[i], 0, n);
+        }
+        hessenberg(h, vectors, n);
+        schur(h, vectors, n, wr, wi);
+        for (int j = 0; j < n; j++) {
+            boolean pair = wi[j] != 0;
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += vectors[i][j] * vectors[i][j] + (pair ? vectors[i][j + 1] * vectors[i][j + 1] : 0);
+            }
+            double scale = sum > 0 ? 1 / Math.sqrt(sum) : 1;
+            for (int i = 0; i < n; i++) {
+                v[i * n + j] = vectors[i][j] * scale;
+                if (pair) {
+                    v[i * n + j + 1] = vectors[i][j + 1] * scale;
+                }
+            }
+            if (pair) {
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Reduces a matrix to Hessenberg form by orthogonal similarity transformations, accumulated in v.
+     */
+    private static void hessenberg(double[][] h, double[][] v, int n) {
+        double[] ort = new double[n];
+        int high = n - 1;
+        for (int m = 1; m <= high - 1; m++) {
+            double scale = 0;
+            for (int i = m; i <= high; i++) {
+                scale += Math.abs(h[i][m - 1]);
+            }
+            if (scale == 0) {
+                continue;
+            }
+            double sum = 0;
+            for (int i = high; i >= m; i--) {
+                ort[i] = h[i][m - 1] / scale;
+                sum += ort[i] * ort[i];
+            }
+            double g = Math.sqrt(sum);
+            if (ort[m] > 0) {
+                g = -g;
+            }
+            sum -= ort[m] * g;
+            ort[m] -= g;
+            for (int j = m; j < n; j++) {
+                double f = 0;
+                for (int i = high; i >= m; i--) {
+                    f += ort[i] * h[i][j];
+                }
+                f /= sum;
+                for (int i = m; i <= high; i++) {
+                    h[i][j] -= f * ort[i];
+                }
+            }
+            for (int i = 0; i <= high; i++) {
+                double f = 0;
+                for (int j = high; j >= m; j--) {
+                    f += ort[j] * h[i][j];
+                }
+                f /= sum;
+                for (int j = m; j <= high; j++) {
+                    h[i][j] -= f * ort[j];
+                }
+            }
+            ort[m] *= scale;
+            h[m][m - 1] = scale * g;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                v[i][j] = i == j ? 1 : 0;
+            }
+        }
+        for (int m = high - 1; m >= 1; m--) {
+            if (h[m][m - 1] == 0) {
+                continue;
+            }
+            for (int i = m + 1; i <= high; i++) {
+                ort[i] = h[i][m - 1];
+            }
+            for (int j = m; j <= high; j++) {
+                double g = 0;
+                for (int i = m; i <= high; i++) {
+                    g += ort[i] * v[i][j];
+                }
+                // Double division avoids possible underflow
+                g = (g / ort[m]) / h[m][m - 1];
+                for (int i = m; i <= high; i++) {
+                    v[i][j] += g * ort[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduces a Hessenberg matrix to real Schur form by the Francis double shift QR iteration, then computes
+     * the eigenvectors by back substitution and transforms them back with the accumulated transformations.
+     */
+    private static void schur(double[][] h, double[][] v, int size, double[] d, double[] e) {
+        int n = size - 1;
+        double exshift = 0;
+        double p = 0, q = 0, r = 0, s = 0, z = 0, t, w, x, y;
+        double[] quotient = new double[2];
+
+        double norm = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = Math.max(i - 1, 0); j < size; j++) {
+                norm += Math.abs(h[i][j]);
+            }
+        }
+
+        int iterations = 0;
+        while (n >= 0) {
+            // Look for a single small subdiagonal element
+            int l = n;
+            while (l > 0) {
+                s = Math.abs(h[l - 1][l - 1]) + Math.abs(h[l][l]);
+                if (s == 0) {
+                    s = norm;
+                }
+                if (Math.abs(h[l][l - 1]) < EPSILON * s) {
+                    break;
+                }
+                l--;
+            }
+            if (l == n) {
+                // One root found
+                h[n][n] += exshift;
+                d[n] = h[n][n];
+                e[n] = 0;
+                n--;
+                iterations = 0;
+            } else if (l == n - 1) {
+                // Two roots found
+                w = h[n][n - 1] * h[n - 1][n];
+                p = (h[n - 1][n - 1] - h[n][n]) / 2;
+                q = p * p + w;
+                z = Math.sqrt(Math.abs(q));
+                h[n][n] += exshift;
+                h[n - 1][n - 1] += exshift;
+                x = h[n][n];
+                if (q >= 0) {
+                    // Real pair
+                    z = p >= 0 ? p + z : p - z;
+                    d[n - 1] = x + z;
+                    d[n] = d[n - 1];
+                    if (z != 0) {
+                        d[n] = x - w / z;
+                    }
+                    e[n - 1] = 0;
+                    e[n] = 0;
+                    x = h[n][n - 1];
+                    s = Math.abs(x) + Math.abs(z);
+                    p = x / s;
+                    q = z / s;
+                    r = Math.sqrt(p * p + q * q);
+                    p /= r;
+                    q /= r;
+                    for (int j = n - 1; j < size; j++) {
+                        z = h[n - 1][j];
+                        h[n - 1][j] = q * z + p * h[n][j];
+                        h[n][j] = q * h[n][j] - p * z;
+                    }
+                    for (int i = 0; i <= n; i++) {
+                        z = h[i][n - 1];
+                        h[i][n - 1] = q * z + p * h[i][n];
+                        h[i][n] = q * h[i][n] - p * z;
+                    }
+                    for (int i = 0; i < size; i++) {
+                        z = v[i][n - 1];
+                        v[i][n - 1] = q * z + p * v[i][n];
+                        v[i][n] = q * v[i][n] - p * z;
+                    }
+                } else {
+                    // Complex pair
+                    d[n - 1] = x + p;
+                    d[n] = x + p;
+                    e[n - 1] = z;
+                    e[n] = -z;
+                }
+                n -= 2;
+                iterations = 0;
+            } else {
+                if (iterations >= MAX_ITERATIONS) {
+                    throw new LinAlgException(convergenceException("Eigenvalues"));
+                }
+                // Form shift
+                x = h[n][n];
+                y = 0;
+                w = 0;
+                if (l < n) {
+                    y = h[n - 1][n - 1];
+                    w = h[n][n - 1] * h[n - 1][n];
+                }
+                // Wilkinson's original ad hoc shift
+                if (iterations == 10) {
+                    exshift += x;
+                    for (int i = 0; i <= n; i++) {
+                        h[i][i] -= x;
+                    }
+                    s = Math.abs(h[n][n - 1]) + Math.abs(h[n - 1][n - 2]);
+                    x = y = 0.75 * s;
+                    w = -0.4375 * s * s;
+                }
+                // MATLAB's ad hoc shift
+                if (iterations == 30) {
+                    s = (y - x) / 2;
+                    s = s * s + w;
+                    if (s > 0) {
+                        s = Math.sqrt(s);
+                        if (y < x) {
+                            s = -s;
+                        }
+                        s = x - w / ((y - x) / 2 + s);
+                        for (int i = 0; i <= n; i++) {
+                            h[i][i] -= s;
+                        }
+                        exshift += s;
+                        x = y = w = 0.964;
+                    }
+                }
+                iterations++;
+                // Look for two consecutive small subdiagonal elements
+                int m = n - 2;
+                while (m >= l) {
+                    z = h[m][m];
+                    r = x - z;
+                    s = y - z;
+                    p = (r * s - w) / h[m + 1][m] + h[m][m + 1];
+                    q = h[m + 1][m + 1] - z - r - s;
+                    r = h[m + 2][m + 1];
+                    s = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                    p /= s;
+                    q /= s;
+                    r /= s;
+                    if (m == l) {
+                        break;
+                    }
+                    if (Math.abs(h[m][m - 1]) * (Math.abs(q) + Math.abs(r))
+                            < EPSILON * (Math.abs(p) * (Math.abs(h[m - 1][m - 1]) + Math.abs(z) + Math.abs(h[m + 1][m + 1])))) {
+                        break;
+                    }
+                    m--;
+                }
+                for (int i = m + 2; i <= n; i++) {
+                    h[i][i - 2] = 0;
+                    if (i > m + 2) {
+                        h[i][i - 3] = 0;
+                    }
+                }
+                // Double QR step involving rows l to n and columns m to n
+                for (int k = m; k <= n - 1; k++) {
+                    boolean notLast = k != n - 1;
+                    if (k != m) {
+                        p = h[k][k - 1];
+                        q = h[k + 1][k - 1];
+                        r = notLast ? h[k + 2][k - 1] : 0;
+                        x = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                        if (x == 0) {
+                            continue;
+                        }
+                        p /= x;
+                        q /= x;
+                        r /= x;
+                    }
+                    s = Math.sqrt(p * p + q * q + r * r);
+                    if (p < 0) {
+                        s = -s;
+                    }
+                    if (s == 0) {
+                        continue;
+                    }
+                    if (k != m) {
+                        h[k][k - 1] = -s * x;
+                    } else if (l != m) {
+                        h[k][k - 1] = -h[k][k - 1];
+                    }
+                    p += s;
+                    x = p / s;
+                    y = q / s;
+                    z = r / s;
+                    q /= p;
+                    r /= p;
+                    for (int j = k; j < size; j++) {
+                        p = h[k][j] + q * h[k + 1][j];
+                        if (notLast) {
+                            p += r * h[k + 2][j];
+                            h[k + 2][j] -= p * z;
+                        }
+                        h[k][j] -= p * x;
+                        h[k + 1][j] -= p * y;
+                    }
+                    for (int i = 0; i <= Math.min(n, k + 3); i++) {
+                        p = x * h[i][k] + y * h[i][k + 1];
+                        if (notLast) {
+                            p += z * h[i][k + 2];
+                            h[i][k + 2] -= p * r;
+                        }
+                        h[i][k] -= p;
+                        h[i][k + 1] -= p * q;
+                    }
+                    for (int i = 0; i < size; i++) {
+                        p = x * v[i][k] + y * v[i][k + 1];
+                        if (notLast) {
+                            p += z * v[i][k + 2];
+                            v[i][k + 2] -= p * r;
+                        }
+                        v[i][k] -= p;
+                        v[i][k + 1] -= p * q;
+                    }
+                }
+            }
+        }
+
+        if (norm == 0) {
+            return;
+        }
+        // Back substitution for the eigenvectors of the upper triangular form
+        for (n = size - 1; n >= 0; n--) {
+            p = d[n];
+            q = e[n];
+            if (q == 0) {
+                // Real vector
+                int l = n;
+                h[n][n] = 1;
+                for (int i = n - 1; i >= 0; i--) {
+                    w = h[i][i] - p;
+                    r = 0;
+                    for (int j = l; j <= n; j++) {
+                        r += h[i][j] * h[j][n];
+                    }
+                    if (e[i] < 0) {
+                        z = w;
+                        s = r;
+                        continue;
+                    }
+                    l = i;
+                    if (e[i] == 0) {
+                        h[i][n] = w != 0 ? -r / w : -r / (EPSILON * norm);
+                    } else {
+                        x = h[i][i + 1];
+                        y = h[i + 1][i];
+                        q = (d[i] - p) * (d[i] - p) + e[i] * e[i];
+                        t = (x * s - z * r) / q;
+                        h[i][n] = t;
+                        h[i + 1][n] = Math.abs(x) > Math.abs(z) ? (-r - w * t) / x : (-s - y * t) / z;
+                    }
+                    // Overflow control
+                    t = Math.abs(h[i][n]);
+                    if ((EPSILON * t) * t > 1) {
+                        for (int j = i; j <= n; j++) {
+                            h[j][n] /= t;
+                        }
+                    }
+                }
+            } else if (q < 0) {
+                // Complex vector, the last component taken imaginary so the system is triangular
+                int l = n - 1;
+                if (Math.abs(h[n][n - 1]) > Math.abs(h[n - 1][n])) {
+                    h[n - 1][n - 1] = q / h[n][n - 1];
+                    h[n - 1][n] = -(h[n][n] - p) / h[n][n - 1];
+                } else {
+                    divide(0, -h[n - 1][n], h[n - 1][n - 1] - p, q, quotient);
+                    h[n - 1][n - 1] = quotient[0];
+                    h[n - 1][n] = quotient[1];
+                }
+                h[n][n - 1] = 0;
+                h[n][n] = 1;
+                for (int i = n - 2; i >= 0; i--) {
+                    double ra = 0, sa = 0;
+                    for (int j = l; j <= n; j++) {
+                        ra += h[i][j] * h[j][n - 1];
+                        sa += h[i][j] * h[j][n];
+                    }
+                    w = h[i][i] - p;
+                    if (e[i] < 0) {
+                        z = w;
+                        r = ra;
+                        s = sa;
+                        continue;
+                    }
+                    l = i;
+                    if (e[i] == 0) {
+                        divide(-ra, -sa, w, q, quotient);
+                        h[i][n - 1] = quotient[0];
+                        h[i][n] = quotient[1];
+                    } else {
+                        x = h[i][i + 1];
+                        y = h[i + 1][i];
+                        double vr = (d[i] - p) * (d[i] - p) + e[i] * e[i] - q * q;
+                        double vi = (d[i] - p) * 2 * q;
+                        if (vr == 0 && vi == 0) {
+                            vr = EPSILON * norm * (Math.abs(w) + Math.abs(q) + Math.abs(x) + Math.abs(y) + Math.abs(z));
+                        }
+                        divide(x * r - z * ra + q * sa, x * s - z * sa - q * ra, vr, vi, quotient);
+                        h[i][n - 1] = quotient[0];
+                        h[i][n] = quotient[1];
+                        if (Math.abs(x) > Math.abs(z) + Math.abs(q)) {
+                            h[i + 1][n - 1] = (-ra - w * h[i][n - 1] + q * h[i][n]) / x;
+                            h[i + 1][n] = (-sa - w * h[i][n] - q * h[i][n - 1]) / x;
+                        } else {
+                            divide(-r - y * h[i][n - 1], -s - y * h[i][n], z, q, quotient);
+                            h[i + 1][n - 1] = quotient[0];
+                            h[i + 1][n] = quotient[1];
+                        }
+                    }
+                    // Overflow control
+                    t = Math.max(Math.abs(h[i][n - 1]), Math.abs(h[i][n]));
+                    if ((EPSILON * t) * t > 1) {
+                        for (int j = i; j <= n; j++) {
+                            h[j][n - 1] /= t;
+                            h[j][n] /= t;
+                        }
+                    }
+                }
+            }
+        }
+        // Back transformation to the eigenvectors of the original matrix
+        for (int j = size - 1; j >= 0; j--) {
+            for (int i = 0; i < size; i++) {
+                z = 0;
+                for (int k = 0; k <= j; k++) {
+                    z += v[i][k] * h[k][j];
+                }
+                v[i][j] = z;
+            }
+        }
+    }
+
+    /**
+     * Divides the complex number xr + i xi by yr + i yi into quotient.
+     */
+    private static void divide(double xr, double xi, double yr, double yi, double[] quotient) {
+        double r, d;
+        if (Math.abs(yr) > Math.abs(yi)) {
+            r = yi / yr;
+            d = yr + r * yi;
+            quotient[0] = (xr + r * xi) / d;
+            quotient[1] = (xi - r * xr) / d;
+        } else {
+            r = yr / yi;
+            d = yi + r * yr;
+            quotient[0] = (r * xr + xi) / d;
+            quotient[1] = (r * xi - xr) / d;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.library.numj.linalg;
+
+import com.library.numj.enums.DType;
+import com.library.numj.operations.Gemm;
+import com.library.numj.storage.Storage;
+
+/**
+ * Blocked factorization kernels working in place on square or rectangular matrices stored row by row,
+ * {@code ld} elements apart, at a position of a storage of type {@link DType#FLOAT64} or {@link DType#FLOAT32}.
+ * <p>
+ * The factorizations are right-looking: a panel of {@link #NB} columns is factorized with row operations,
+ * then the trailing matrix is updated at once by {@link Gemm#multiplyAdd}, where nearly all the arithmetic
+ * of a large factorization takes place. Matrices of at most {@link #NB} columns are factorized without
+ * calling the matrix product at all, which keeps stacks of small matrices cheap.
+ */
+final class Factorizations {
+    /** Number of columns of the panels factorized by row operations. */
+    static final int NB = 64;
+
+    private Factorizations() {
+    }
+
+    /**
+     * Factorizes {@code P A = L U} with partial pivoting, L being unit lower triangular and U upper triangular.
+     * L is stored below the diagonal and U on and above it; row i was exchanged with row pivots[i] in turn.
+     * Singular matrices are factorized to the end, their zero pivots being left in U.
+     *
+     * @param type   The data type of the storage.
+     * @param s      The storage of the matrix.
+     * @param o      The position of the first element.
+     * @param n      The order of the matrix, also the distance between rows.
+     * @param pivots Receives the row exchanges, of length n.
+     * @return The sign of the permutation, or 0 if the matrix is singular.
+     */
+    static int lu(DType type, Storage s, long o, int n, int[] pivots) {
+        int sign = 1;
+        boolean singular = false;
+        for (int j = 0; j < n; j += NB) {
+            int jb = Math.min(NB, n - j);
+            for (int c = j; c < j + jb; c++) {
+                int p = c;
+                double max = -1;
+                for (int r = c; r < n; r++) {
+                    double value = Math.abs(s.getDouble(o + (long) r * n + c));
+                    if (value > max) {
+                        max = value;
+                        p = r;
+                    }
+                }
+                pivots[c] = p;
+                if (p != c) {
+                    swapRows(s, o + (long) p * n, o + (long) c * n, n);
+                    sign = -sign;
+                }
+                long pivotRow = o + (long) c * n;
+                double pivot = s.getDouble(pivotRow + c);
+                if (pivot == 0) {
+                    singular = true;
+                    continue;
+                }
+                for (int r = c + 1; r < n; r++) {
+                    long row = o + (long) r * n;
+                    double l = s.getDouble(row + c) / pivot;
+                    s.setDouble(row + c, l);
+                    if (l != 0) {
+                        axpy(-l, s, pivotRow + c + 1, s, row + c + 1, j + jb - c - 1);
+                    }
+                }
+            }
+            int rest = n - j - jb;
+            if (rest > 0) {
+                // U12 = L11^-1 A12, then A22 = A22 - L21 U12
+                for (int i = j + 1; i < j + jb; i++) {
+                    long row = o + (long) i * n;
+                    for (int p = j; p < i; p++) {
+                        double l = s.getDouble(row + p);
+                        if (l != 0) {
+                            axpy(-l, s, o + (long) p * n + j + jb, s, row + j + jb, rest);
+                        }
+                    }
+                }
+                long top = o + (long) j * n + j;
+                Gemm.multiplyAdd(type, rest, rest, jb, -1, operand(s, top + (long) jb * n, n, 1),
+                        operand(s, top + jb, n, 1), operand(s, top + (long) jb * n + jb, n, 1));
+            }
+        }
+        return singular ? 0 : sign;
+    }
+
+    /**
+     * Solves {@code A X = B} in place of B from the LU factorization of A.
+     *
+     * @param type   The data type of the storages.
+     * @param lu     The storage of the factorization.
+     * @param o      The position of its first element.
+     * @param n      The order of the matrix.
+     * @param pivots The row exchanges of the factorization.
+     * @param x      The storage of the right hand sides, n rows of k elements.
+     * @param xo     The position of their first element.
+     * @param k      The number of right hand sides.
+     */
+    static void luSolve(DType type, Storage lu, long o, int n, int[] pivots, Storage x, long xo, int k) {
+        for (int i = 0; i < n; i++) {
+            if (pivots[i] != i) {
+                swapRows(x, xo + (long) i * k, xo + (long) pivots[i] * k, k);
+            }
+        }
+        solveTriangular(type, lu, o, n, 1, n, true, true, x, xo, k);
+        solveTriangular(type, lu, o, n, 1, n, false, false, x, xo, k);
+    }
+
+    /**
+     * Solves {@code T X = B} in place of B for a triangular matrix T with arbitrary strides, blocks of
+     * {@link #NB} rows being solved by row operations and the remaining rows updated by a matrix product.
+     *
+     * @param type      The data type of the storages.
+     * @param t         The storage of the triangular matrix.
+     * @param to        The position of its first element.
+     * @param rowStride The distance between its rows.
+     * @param colStride The distance between its columns.
+     * @param n         The order of the triangular matrix.
+     * @param lower     Whether T is lower triangular, otherwise upper triangular.
+     * @param unit      Whether the diagonal of T is taken as ones.
+     * @param x         The storage of the right hand sides, n rows of k elements.
+     * @param xo        The position of their first element.
+     * @param k         The number of right hand sides.
+     */
+    static void solveTriangular(DType type, Storage t, long to, long rowStride, long colStride, int n,
+                                boolean lower, boolean unit, Storage x, long xo, int k) {
+        if (lower) {
+            for (int j = 0; j < n; j += NB) {
+                int jb = Math.min(NB, n - j);
+                for (int i = j; i < j + jb; i++) {
+                    long row = xo + (long) i * k;
+                    for (int p = j; p < i; p++) {
+                        double l = t.getDouble(to + i * rowStride + p * colStride);
+                        if (l != 0) {
+                            axpy(-l, x, xo + (long) p * k, x, row, k);
+                        }
+                    }
+                    if (!unit) {
+                        scale(1 / t.getDouble(to + i * rowStride + i * colStride), x, row, k);
+                    }
+                }
+                int rest = n - j - jb;
+                if (rest > 0) {
+                    Gemm.multiplyAdd(type, rest, k, jb, -1, operand(t, to + (j + jb) * rowStride + j * colStride, rowStride, colStride),
+                            operand(x, xo + (long) j * k, k, 1), operand(x, xo + (long) (j + jb) * k, k, 1));
+                }
+            }
+            return;
+        }
+        for (int end = n; end > 0; ) {
+            int jb = Math.min(NB, end);
+            int j = end - jb;
+            for (int i = end - 1; i >= j; i--) {
+                long row = xo + (long) i * k;
+                for (int p = i + 1; p < end; p++) {
+                    double u = t.getDouble(to + i * rowStride + p * colStride);
+                    if (u != 0) {
+                        axpy(-u, x, xo + (long) p * k, x, row, k);
+                    }
+                }
+                if (!unit) {
+                    scale(1 / t.getDouble(to + i * rowStride + i * colStride), x, row, k);
+                }
+            }
+            if (j > 0) {
+                Gemm.multiplyAdd(type, j, k, jb, -1, operand(t, to + j * colStride, rowStride, colStride),
+                        operand(x, xo + (long) j * k, k, 1), operand(x, xo, k, 1));
+            }
+            end = j;
+        }
+    }
+
+    /**
+     * Factorizes a symmetric positive definite matrix as {@code A = L L^T}, reading the lower triangle of A
+     * and leaving L in its place with zeros above the diagonal.
+     *
+     * @param type The data type of the storage.
+     * @param s    The storage of the matrix.
+     * @param o    The position of the first element.
+     * @param n    The order of the matrix, also the distance between rows.
+     * @return False if the matrix is not positive definite.
+     */
+    static boolean cholesky(DType type, Storage s, long o, int n) {
+        for (int j = 0; j < n; j += NB) {
+            int jb = Math.min(NB, n - j);
+            for (int c = j; c < j + jb; c++) {
+                long rowC = o + (long) c * n;
+                double d = s.getDouble(rowC + c) - dot(s, rowC + j, s, rowC + j, c - j);
+                if (!(d > 0)) {
+                    return false;
+                }
+                double l = Math.sqrt(d);
+                s.setDouble(rowC + c, l);
+                for (int r = c + 1; r < j + jb; r++) {
+                    long row = o + (long) r * n;
+                    s.setDouble(row + c, (s.getDouble(row + c) - dot(s, row + j, s, rowC + j, c - j)) / l);
+                }
+            }
+            int rest = n - j - jb;
+            if (rest > 0) {
+                // L21 = A21 L11^-T, then A22 = A22 - L21 L21^T
+                for (int r = j + jb; r < n; r++) {
+                    long row = o + (long) r * n;
+                    for (int c = j; c < j + jb; c++) {
+                        long rowC = o + (long) c * n;
+                        s.setDouble(row + c, (s.getDouble(row + c) - dot(s, row + j, s, rowC + j, c - j)) / s.getDouble(rowC + c));
+                    }
+                }
+                long panel = o + (long) (j + jb) * n + j;
+                Gemm.multiplyAdd(type, rest, rest, jb, -1, operand(s, panel, n, 1), operand(s, panel, 1, n),
+                        operand(s, panel + jb, n, 1));
+            }
+        }
+        for (int r = 0; r < n; r++) {
+            for (int c = r + 1; c < n; c++) {
+                s.setDouble(o + (long) r * n + c, 0);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Factorizes {@code A = Q R} with Householder reflections. R is stored on and above the diagonal and the
+     * reflection vectors below it, their leading ones being implicit, as in LAPACK. Q is the product of the
+     * reflections {@code H_i = I - tau[i] v_i v_i^T}.
+     *
+     * @param type The data type of the storage.
+     * @param s    The storage of the matrix.
+     * @param o    The position of the first element.
+     * @param m    The number of rows.
+     * @param n    The number of columns, also the distance between rows.
+     * @param tau  Receives the factors of the reflections, of length min(m, n).
+     */
+    static void qr(DType type, Storage s, long o, int m, int n, double[] tau) {
+        int k = Math.min(m, n);
+        for (int j = 0; j < k; j += NB) {
+            int jb = Math.min(NB, k - j);
+            for (int c = j; c < j + jb; c++) {
+                reflect(s, o, m, n, c, j + jb, tau);
+            }
+            if (j + jb < n) {
+                Storage[] block = reflectors(type, s, o, m, n, j, jb, tau);
+                applyBlock(type, block, m - j, jb, true, s, o + (long) j * n + j + jb, n, n - j - jb);
+            }
+        }
+    }
+
+    /**
+     * Applies Q or its transpose, stored as by {@link #qr}, to rows 0 to m of a matrix C from the left.
+     *
+     * @param type      The data type of the storages.
+     * @param s         The storage of the factorization.
+     * @param o         The position of its first element.
+     * @param m         The number of rows of the factorized matrix.
+     * @param n         The number of its columns.
+     * @param tau       The factors of the reflections.
+     * @param transpose Whether {@code Q^T C} is computed, otherwise {@code Q C}.
+     * @param c         The storage of C.
+     * @param co        The position of the first element of C.
+     * @param ld        The distance between the rows of C.
+     * @param nc        The number of columns of C.
+     */
+    static void applyQ(DType type, Storage s, long o, int m, int n, double[] tau, boolean transpose,
+                       Storage c, long co, long ld, int nc) {
+        int k = Math.min(m, n);
+        if (k == 0 || nc == 0) {
+            return;
+        }
+        int last = (k - 1) / NB * NB;
+        for (int j = transpose ? 0 : last; transpose ? j <= last : j >= 0; j += transpose ? NB : -NB) {
+            int jb = Math.min(NB, k - j);
+            applyBlock(type, reflectors(type, s, o, m, n, j, jb, tau), m - j, jb, transpose, c, co + j * ld, ld, nc);
+        }
+    }
+
+    /**
+     * Forms the first columns of Q, stored as by {@link #qr}, into a matrix stored row by row.
+     *
+     * @param type    The data type of the storages.
+     * @param s       The storage of the factorization.
+     * @param o       The position of its first element.
+     * @param m       The number of rows of the factorized matrix.
+     * @param n       The number of its columns.
+     * @param tau     The factors of the reflections.
+     * @param q       The storage receiving Q, m rows of the given number of columns.
+     * @param qo      The position of its first element.
+     * @param columns The number of columns of Q formed, between min(m, n) and m.
+     */
+    static void formQ(DType type, Storage s, long o, int m, int n, double[] tau, Storage q, long qo, int columns) {
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < columns; c++) {
+                q.setDouble(qo + (long) r * columns + c, r == c ? 1 : 0);
+            }
+        }
+        int k = Math.min(m, n);
+        for (int j = k == 0 ? -1 : (k - 1) / NB * NB; j >= 0; j -= NB) {
+            int jb = Math.min(NB, k - j);
+            // Rows from j on of the columns before j are still those of the identity, zeros, so only the
+            // columns from j on are transformed
+            applyBlock(type, reflectors(type, s, o, m, n, j, jb, tau), m - j, jb, false,
+                    q, qo + (long) j * columns + j, columns, columns - j);
+        }
+    }
+
+    /**
+     * Computes the reflection annihilating column c below the diagonal and applies it to the columns of
+     * the panel after c.
+     */
+    private static void reflect(Storage s, long o, int m, int n, int c, int end, double[] tau) {
+        long diagonal = o + (long) c * n + c;
+        double alpha = s.getDouble(diagonal);
+        double max = 0;
+        for (int r = c + 1; r < m; r++) {
+            max = Math.max(max, Math.abs(s.getDouble(diagonal + (long) (r - c) * n)));
+        }
+        if (max == 0) {
+            tau[c] = 0;
+            return;
+        }
+        double sum = 0;
+        for (int r = c + 1; r < m; r++) {
+            double value = s.getDouble(diagonal + (long) (r - c) * n) / max;
+            sum += value * value;
+        }
+        double beta = -Math.copySign(Math.hypot(alpha, max * Math.sqrt(sum)), alpha);
+        double t = (beta - alpha) / beta;
+        tau[c] = t;
+        double factor = 1 / (alpha - beta);
+        for (int r = c + 1; r < m; r++) {
+            long position = diagonal + (long) (r - c) * n;
+            s.setDouble(position, s.getDouble(position) * factor);
+        }
+        s.setDouble(diagonal, beta);
+        int width = end - c - 1;
+        if (width <= 0) {
+            return;
+        }
+        // w = v^T A, then A = A - tau v w, row by row
+        double[] w = new double[width];
+        for (int q = 0; q < width; q++) {
+            w[q] = s.getDouble(diagonal + 1 + q);
+        }
+        for (int r = c + 1; r < m; r++) {
+            long row = o + (long) r * n;
+            double v = s.getDouble(row + c);
+            if (v != 0) {
+                for (int q = 0; q < width; q++) {
+                    w[q] += v * s.getDouble(row + c + 1 + q);
+                }
+            }
+        }
+        for (int q = 0; q < width; q++) {
+            s.setDouble(diagonal + 1 + q, s.getDouble(diagonal + 1 + q) - t * w[q]);
+        }
+        for (int r = c + 1; r < m; r++) {
+            long row = o + (long) r * n;
+            double v = t * s.getDouble(row + c);
+            if (v != 0) {
+                for (int q = 0; q < width; q++) {
+                    long position = row + c + 1 + q;
+                    s.setDouble(position, s.getDouble(position) - v * w[q]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the compact form {@code I - V T V^T} of the product of jb reflections starting at column j:
+     * V holds the m - j by jb reflection vectors with their ones and zeros made explicit, and T is upper
+     * triangular, as in LAPACK's {@code larft}.
+     *
+     * @return V and T, both stored row by row.
+     */
+    private static Storage[] reflectors(DType type, Storage s, long o, int m, int n, int j, int jb, double[] tau) {
+        int rows = m - j;
+        Storage v = Storage.allocate(type, (long) rows * jb);
+        for (int r = 0; r < rows; r++) {
+            long row = o + (long) (j + r) * n + j;
+            for (int i = 0; i < jb && i <= r; i++) {
+                v.setDouble((long) r * jb + i, i == r ? 1 : s.getDouble(row + i));
+            }
+        }
+        Storage t = Storage.allocate(type, (long) jb * jb);
+        double[] w = new double[jb];
+        for (int i = 0; i < jb; i++) {
+            double factor = tau[j + i];
+            t.setDouble((long) i * jb + i, factor);
+            // w = -tau_i V(:, 0:i)^T v_i, then T(0:i, i) = T(0:i, 0:i) w
+            for (int p = 0; p < i; p++) {
+                double sum = 0;
+                for (int r = i; r < rows; r++) {
+                    sum += v.getDouble((long) r * jb + p) * v.getDouble((long) r * jb + i);
+                }
+                w[p] = -factor * sum;
+            }
+            for (int p = 0; p < i; p++) {
+                double sum = 0;
+                for (int q = p; q < i; q++) {
+                    sum += t.getDouble((long) p * jb + q) * w[q];
+                }
+                t.setDouble((long) p * jb + i, sum);
+            }
+        }
+        return new Storage[]{v, t};
+    }
+
+    /**
+     * Computes {@code C = (I - V T V^T) C}, or with T transposed, by three matrix products.
+     */
+    private static void applyBlock(DType type, Storage[] block, int rows, int jb, boolean transpose,
+                                   Storage c, long co, long ld, int nc) {
+        Storage v = block[0], t = block[1];
+        Storage w = Storage.allocate(type, (long) jb * nc);
+        Storage tw = Storage.allocate(type, (long) jb * nc);
+        Gemm.multiply(type, jb, nc, rows, operand(v, 0, 1, jb), operand(c, co, ld, 1), operand(w, 0, nc, 1));
+        Gemm.multiply(type, jb, nc, jb, transpose ? operand(t, 0, 1, jb) : operand(t, 0, jb, 1),
+                operand(w, 0, nc, 1), operand(tw, 0, nc, 1));
+        Gemm.multiplyAdd(type, rows, nc, jb, -1, operand(v, 0, jb, 1), operand(tw, 0, nc, 1), operand(c, co, ld, 1));
+    }
+
+    private static Gemm.Operand operand(Storage storage, long origin, long rowStride, long columnStride) {
+        return new Gemm.Operand(storage, new long[]{origin}, rowStride, columnStride);
+    }
+
+    /**
+     * Adds alpha times the n elements at x to the n elements at y.
+     */
+    private static void axpy(double alpha, Storage xs, long x, Storage ys, long y, int n) {
+        if (xs.hasArray() && ys.hasArray() && xs.dType() == DType.FLOAT64 && ys.dType() == DType.FLOAT64) {
+            double[] a = (double[]) xs.array(), b = (double[]) ys.array();
+            int p = (int) x, q = (int) y;
+            for (int i = 0; i < n; i++) {
+                b[q + i] += alpha * a[p + i];
+            }
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            ys.setDouble(y + i, ys.getDouble(y + i) + alpha * xs.getDouble(x + i));
+        }
+    }
+
+    /**
+     * Computes the dot product of the n elements at x and at y.
+     */
+    private static double dot(Storage xs, long x, Storage ys, long y, int n) {
+        double sum = 0;
+        if (xs.hasArray() && ys.hasArray() && xs.dType() == DType.FLOAT64 && ys.dType() == DType.FLOAT64) {
+            double[] a = (double[]) xs.array(), b = (double[]) ys.array();
+            int p = (int) x, q = (int) y;
+            for (int i = 0; i < n; i++) {
+                sum += a[p + i] * b[q + i];
+            }
+            return sum;
+        }
+        for (int i = 0; i < n; i++) {
+            sum += xs.getDouble(x + i) * ys.getDouble(y + i);
+        }
+        return sum;
+    }
+
+    private static void scale(double alpha, Storage s, long x, int n) {
+        for (int i = 0; i < n; i++) {
+            s.setDouble(x + i, alpha * s.getDouble(x + i));
+        }
+    }
+
+    private static void swapRows(Storage s, long x, long y, int n) {
+        for (int i = 0; i < n; i++) {
+            double value = s.getDouble(x + i);
+            s.setDouble(x + i, s.getDouble(y + i));
+            s.setDouble(y + i, value);
+        }
+    }
+}
@@ -0,0 +1,624 @@
+package com.library.numj.linalg;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.Utils;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.NormType;
+import com.library.numj.enums.QRMode;
+import com.library.numj.exceptions.LinAlgException;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.operations.Blas;
+import com.library.numj.operations.BroadcastIterator;
+import com.library.numj.parallel.ChunkTask;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static com.library.numj.ExceptionMessages.matmulShapeException;
+import static com.library.numj.ExceptionMessages.matrixDimensionException;
+import static com.library.numj.ExceptionMessages.notPositiveDefiniteException;
+import static com.library.numj.ExceptionMessages.rankDeficientException;
+import static com.library.numj.ExceptionMessages.singularMatrixException;
+import static com.library.numj.ExceptionMessages.squareMatrixException;
+import static com.library.numj.ExceptionMessages.truncationException;
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * The {@code LinearAlgebra} class provides the dense linear algebra of NumPy's {@code linalg} module over
+ * {@link NDArray} objects: linear solvers, inverses, determinants, least squares, the Cholesky and QR
+ * decompositions, eigenvalue and singular value decompositions and matrix norms.
+ * <p>
+ * Every operation accepts stacks of matrices held in the last two dimensions of an array and treats every
+ * matrix of the stack independently, leading dimensions of two operands being broadcast together.
+ * {@link DType#FLOAT32} operands are computed in single precision, every other numeric type in double
+ * precision. The operands are copied once, into the storage of the result wherever the result is the
+ * factorized matrix or the solution, and factorized there in place by the blocked kernels of
+ * {@link Factorizations}. Stacks of small matrices are spread over the threads of the shared
+ * {@link ExecutionContext}, one matrix per task, while large matrices are factorized one after the other
+ * with threaded matrix products. Eigenvalue and singular value decompositions are computed in double precision
+ * by the kernels of {@link Eigen} and {@link SingularValues} and returned in the working type.
+ */
+@SuppressWarnings("unchecked")
+public class LinearAlgebra {
+    /** Utility instance for broadcasting the leading dimensions of stacks of matrices. */
+    Utils utils;
+
+    /**
+     * Constructs an instance of {@code LinearAlgebra} and initializes utilities.
+     */
+    public LinearAlgebra() {
+        utils = new Utils();
+    }
+
+    /**
+     * Solves the linear systems {@code a x = b} by LU decomposition with partial pivoting.
+     *
+     * @param a The square matrices of the systems, of shape (..., n, n).
+     * @param b The right hand sides, a vector of length n or matrices of shape (..., n, k).
+     * @return A new NDArray holding the solutions, of the broadcast shape of the right hand sides.
+     * @throws ShapeException                If the matrices are not square, do not match the right hand sides
+     *                                       or their leading dimensions cannot be broadcast together.
+     * @throws LinAlgException               If a matrix is singular.
+     * @throws UnsupportedOperationException If an operand holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> solve(NDArray<T> a, NDArray<T> b) throws ShapeException {
+        int[] aShape = a.shapeArray();
+        int[] bShape = b.shapeArray();
+        int n = squareOrder(aShape);
+        DType type = workType(a.type().promote(b.type()));
+        boolean vector = bShape.length == 1;
+        if (bShape.length == 0 || bShape[vector ? 0 : bShape.length - 2] != n) {
+            throw new ShapeException(matmulShapeException(aShape, bShape));
+        }
+        int k = vector ? 1 : bShape[bShape.length - 1];
+        int[] batch = vector ? batchShape(aShape)
+                : utils.broadcastShapes(asList(batchShape(aShape)), asList(batchShape(bShape)));
+        int count = (int) utils.getSize(batch);
+        Storage lu = gather(a, matrixShape(batch, n, n), type);
+        Storage x = gather(vector ? b.reshape(n, 1) : b, matrixShape(batch, n, k), type);
+        forEachMatrix(count, n, i -> {
+            int[] pivots = new int[n];
+            long o = (long) i * n * n;
+            if (Factorizations.lu(type, lu, o, n, pivots) == 0) {
+                throw new LinAlgException(singularMatrixException());
+            }
+            Factorizations.luSolve(type, lu, o, n, pivots, x, (long) i * n * k, k);
+        });
+        return new NumJ().array(x, vector ? matrixShape(batch, n) : matrixShape(batch, n, k));
+    }
+
+    /**
+     * Computes the inverses of square matrices by LU decomposition with partial pivoting.
+     *
+     * @param a The matrices, of shape (..., n, n).
+     * @return A new NDArray of the shape of a holding the inverses.
+     * @throws ShapeException                If the matrices are not square.
+     * @throws LinAlgException               If a matrix is singular.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> inv(NDArray<T> a) throws ShapeException {
+        int[] shape = a.shapeArray();
+        int n = squareOrder(shape);
+        DType type = workType(a.type());
+        int count = (int) utils.getSize(batchShape(shape));
+        Storage lu = gather(a, shape, type);
+        Storage x = Storage.allocate(type, utils.getSize(shape));
+        forEachMatrix(count, n, i -> {
+            int[] pivots = new int[n];
+            long o = (long) i * n * n;
+            if (Factorizations.lu(type, lu, o, n, pivots) == 0) {
+                throw new LinAlgException(singularMatrixException());
+            }
+            for (int d = 0; d < n; d++) {
+                x.setDouble(o + (long) d * n + d, 1);
+            }
+            Factorizations.luSolve(type, lu, o, n, pivots, x, o, n);
+        });
+        return new NumJ().array(x, shape);
+    }
+
+    /**
+     * Computes the determinants of square matrices from their LU decomposition. Singular matrices have a
+     * determinant of zero.
+     *
+     * @param a The matrices, of shape (..., n, n).
+     * @return A new NDArray of the leading dimensions of a holding the determinants, zero-dimensional for a
+     * single matrix.
+     * @throws ShapeException                If the matrices are not square.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> det(NDArray<T> a) throws ShapeException {
+        int[] shape = a.shapeArray();
+        int n = squareOrder(shape);
+        DType type = workType(a.type());
+        int[] batch = batchShape(shape);
+        int count = (int) utils.getSize(batch);
+        Storage lu = gather(a, shape, type);
+        Storage output = Storage.allocate(type, count);
+        forEachMatrix(count, n, i -> {
+            long o = (long) i * n * n;
+            double det = Factorizations.lu(type, lu, o, n, new int[n]);
+            for (int d = 0; d < n && det != 0; d++) {
+                det *= lu.getDouble(o + (long) d * n + d);
+            }
+            output.setDouble(i, det);
+        });
+        return new NumJ().array(output, batch);
+    }
+
+    /**
+     * Computes the Cholesky decompositions {@code a = L L^T} of symmetric positive definite matrices. Only the
+     * lower triangles of the matrices are read.
+     *
+     * @param a The matrices, of shape (..., n, n).
+     * @return A new NDArray of the shape of a holding the lower triangular factors L.
+     * @throws ShapeException                If the matrices are not square.
+     * @throws LinAlgException               If a matrix is not positive definite.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> cholesky(NDArray<T> a) throws ShapeException {
+        int[] shape = a.shapeArray();
+        int n = squareOrder(shape);
+        DType type = workType(a.type());
+        int count = (int) utils.getSize(batchShape(shape));
+        Storage l = gather(a, shape, type);
+        forEachMatrix(count, n, i -> {
+            if (!Factorizations.cholesky(type, l, (long) i * n * n, n)) {
+                throw new LinAlgException(notPositiveDefiniteException());
+            }
+        });
+        return new NumJ().array(l, shape);
+    }
+
+    /**
+     * Computes the QR decompositions {@code a = Q R} of matrices by Householder reflections, Q having
+     * orthonormal columns and R being upper triangular.
+     *
+     * @param a    The matrices, of shape (..., m, n).
+     * @param mode The shapes of the factors: with k = min(m, n), {@link QRMode#REDUCED} gives Q of shape
+     *             (..., m, k) and R of shape (..., k, n), {@link QRMode#COMPLETE} gives Q of shape (..., m, m)
+     *             and R of shape (..., m, n).
+     * @return Two new NDArrays, Q and R.
+     * @throws ShapeException                If the array has fewer than two dimensions.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R>[] qr(NDArray<T> a, QRMode mode) throws ShapeException {
+        int[] shape = checkMatrices(a.shapeArray());
+        DType type = workType(a.type());
+        int m = shape[shape.length - 2];
+        int n = shape[shape.length - 1];
+        int k = Math.min(m, n);
+        int columns = mode == QRMode.COMPLETE ? m : k;
+        int[] batch = batchShape(shape);
+        int count = (int) utils.getSize(batch);
+        Storage work = gather(a, shape, type);
+        Storage q = Storage.allocate(type, (long) count * m * columns);
+        Storage r = Storage.allocate(type, (long) count * columns * n);
+        forEachMatrix(count, Math.max(m, n), i -> {
+            long o = (long) i * m * n;
+            double[] tau = new double[k];
+            Factorizations.qr(type, work, o, m, n, tau);
+            Factorizations.formQ(type, work, o, m, n, tau, q, (long) i * m * columns, columns);
+            long ro = (long) i * columns * n;
+            for (int row = 0; row < k; row++) {
+                for (int column = row; column < n; column++) {
+                    r.setDouble(ro + (long) row * n + column, work.getDouble(o + (long) row * n + column));
+                }
+            }
+        });
+        return (NDArray<R>[]) new NDArray<?>[]{new NumJ().array(q, matrixShape(batch, m, columns)),
+                new NumJ().array(r, matrixShape(batch, columns, n))};
+    }
+
+    /**
+     * Computes the least squares solution of {@code a x = b} for a matrix of full rank by QR decomposition:
+     * the x minimizing the norm of {@code a x - b} when a has at least as many rows as columns, and the x of
+     * least norm solving the system exactly when a has fewer rows than columns.
+     *
+     * @param a The matrix, of shape (m, n).
+     * @param b The right hand sides, a vector of length m or a matrix of shape (m, k).
+     * @return A new NDArray holding the solution, a vector of length n or a matrix of shape (n, k).
+     * @throws ShapeException                If a is not a matrix or does not match the right hand sides.
+     * @throws LinAlgException               If a does not have full rank.
+     * @throws UnsupportedOperationException If an operand holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> lstsq(NDArray<T> a, NDArray<T> b) throws ShapeException {
+        int[] aShape = a.shapeArray();
+        int[] bShape = b.shapeArray();
+        if (aShape.length != 2) {
+            throw new ShapeException(matrixDimensionException(aShape));
+        }
+        int m = aShape[0];
+        int n = aShape[1];
+        if (bShape.length == 0 || bShape.length > 2 || bShape[0] != m) {
+            throw new ShapeException(matmulShapeException(aShape, bShape));
+        }
+        DType type = workType(a.type().promote(b.type()));
+        boolean vector = bShape.length == 1;
+        int k = vector ? 1 : bShape[1];
+        double epsilon = type == DType.FLOAT32 ? Math.ulp(1f) : Math.ulp(1d);
+        NDArray<R> result;
+        if (m >= n) {
+            Storage work = gather(a, aShape, type);
+            double[] tau = new double[n];
+            Factorizations.qr(type, work, 0, m, n, tau);
+            checkRank(work, n, n + 1, m, epsilon);
+            Storage x = gather(vector ? b.reshape(m, 1) : b, new int[]{m, k}, type);
+            Factorizations.applyQ(type, work, 0, m, n, tau, true, x, 0, k, k);
+            Factorizations.solveTriangular(type, work, 0, n, 1, n, false, false, x, 0, k);
+            Storage solution = Storage.allocate(type, (long) n * k);
+            x.copyTo(0, solution, 0, (long) n * k);
+            result = new NumJ().array(solution, vector ? new int[]{n} : new int[]{n, k});
+        } else {
+            // a^T = Q R, so the solution of least norm is x = Q R^-T b
+            Storage work = gather(a.transpose(), new int[]{n, m}, type);
+            double[] tau = new double[m];
+            Factorizations.qr(type, work, 0, n, m, tau);
+            checkRank(work, m, m + 1, n, epsilon);
+            Storage x = Storage.allocate(type, (long) n * k);
+            gather(vector ? b.reshape(m, 1) : b, new int[]{m, k}, type).copyTo(0, x, 0, (long) m * k);
+            Factorizations.solveTriangular(type, work, 0, 1, m, m, true, false, x, 0, k);
+            Factorizations.applyQ(type, work, 0, n, m, tau, false, x, 0, k, k);
+            result = new NumJ().array(x, vector ? new int[]{n} : new int[]{n, k});
+        }
+        return result;
+    }
+
+    /**
+     * Computes the eigenvalues and eigenvectors of symmetric matrices, reading only their lower triangles.
+     *
+     * @param a The matrices, of shape (..., n, n).
+     * @return Two new NDArrays: the eigenvalues in ascending order, of shape (..., n), and the unit eigenvectors
+     * as the columns of matrices of the shape of a.
+     * @throws ShapeException                If the matrices are not square.
+     * @throws LinAlgException               If the iteration does not converge.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R>[] eigh(NDArray<T> a) throws ShapeException {
+        int[] shape = a.shapeArray();
+        int n = squareOrder(shape);
+        DType type = workType(a.type());
+        int[] batch = batchShape(shape);
+        int count = (int) utils.getSize(batch);
+        Storage source = gather(a, shape, DType.FLOAT64);
+        Storage values = Storage.allocate(type, (long) count * n);
+        Storage vectors = Storage.allocate(type, (long) count * n * n);
+        forEachMatrix(count, n, i -> {
+            double[] matrix = read(source, (long) i * n * n, n * n);
+            for (int r = 0; r < n; r++) {
+                for (int c = r + 1; c < n; c++) {
+                    matrix[r * n + c] = matrix[c * n + r];
+                }
+            }
+            double[] w = new double[n];
+            double[] v = new double[n * n];
+            Eigen.symmetric(matrix, n, w, v);
+            write(values, (long) i * n, w);
+            write(vectors, (long) i * n * n, v);
+        });
+        return (NDArray<R>[]) new NDArray<?>[]{new NumJ().array(values, matrixShape(batch, n)),
+                new NumJ().array(vectors, shape)};
+    }
+
+    /**
+     * Computes the eigenvalues and eigenvectors of general square matrices. NumJ has no complex type, so the
+     * eigenvalues are returned as their real and imaginary parts, and the eigenvectors as real matrices in the
+     * layout of LAPACK: a real eigenvalue has its eigenvector in the column of the same index, and a complex
+     * pair of eigenvalues {@code wr[j] +- i wi[j]}, with wi[j] > 0, has the eigenvectors
+     * {@code v[:, j] +- i v[:, j + 1]}. Eigenvectors have unit norm.
+     *
+     * @param a The matrices, of shape (..., n, n).
+     * @return Three new NDArrays: the real parts and the imaginary parts of the eigenvalues, of shape (..., n),
+     * and the eigenvectors, of the shape of a.
+     * @throws ShapeException                If the matrices are not square.
+     * @throws LinAlgException               If the iteration does not converge.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R>[] eig(NDArray<T> a) throws ShapeException {
+        int[] shape = a.shapeArray();
+        int n = squareOrder(shape);
+        DType type = workType(a.type());
+        int[] batch = batchShape(shape);
+        int count = (int) utils.getSize(batch);
+        Storage source = gather(a, shape, DType.FLOAT64);
+        Storage real = Storage.allocate(type, (long) count * n);
+        Storage imaginary = Storage.allocate(type, (long) count * n);
+        Storage vectors = Storage.allocate(type, (long) count * n * n);
+        forEachMatrix(count, n, i -> {
+            double[] wr = new double[n];
+            double[] wi = new double[n];
+            double[] v = new double[n * n];
+            Eigen.general(read(source, (long) i * n * n, n * n), n, wr, wi, v);
+            write(real, (long) i * n, wr);
+            write(imaginary, (long) i * n, wi);
+            write(vectors, (long) i * n * n, v);
+        });
+        int[] valueShape = matrixShape(batch, n);
+        return (NDArray<R>[]) new NDArray<?>[]{new NumJ().array(real, valueShape),
+                new NumJ().array(imaginary, valueShape), new NumJ().array(vectors, shape)};
+    }
+
+    /**
+     * Computes the singular value decompositions {@code a = U S V^T} of matrices.
+     *
+     * @param a            The matrices, of shape (..., m, n).
+     * @param fullMatrices Whether U and V^T are square, of shapes (..., m, m) and (..., n, n), otherwise they
+     *                     have shapes (..., m, k) and (..., k, n), with k = min(m, n).
+     * @return Three new NDArrays: U, the singular values in descending order, of shape (..., k), and V^T.
+     * @throws ShapeException                If the array has fewer than two dimensions.
+     * @throws LinAlgException               If the iteration does not converge.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R>[] svd(NDArray<T> a, boolean fullMatrices) throws ShapeException {
+        int[] shape = checkMatrices(a.shapeArray());
+        DType type = workType(a.type());
+        int m = shape[shape.length - 2];
+        int n = shape[shape.length - 1];
+        int k = Math.min(m, n);
+        int uColumns = fullMatrices ? m : k;
+        int vtRows = fullMatrices ? n : k;
+        int[] batch = batchShape(shape);
+        int count = (int) utils.getSize(batch);
+        Storage source = gather(a, shape, DType.FLOAT64);
+        Storage u = Storage.allocate(type, (long) count * m * uColumns);
+        Storage s = Storage.allocate(type, (long) count * k);
+        Storage vt = Storage.allocate(type, (long) count * vtRows * n);
+        forEachMatrix(count, Math.max(m, n), i -> {
+            double[] values = new double[k];
+            double[] left = new double[m * uColumns];
+            double[] right = new double[vtRows * n];
+            SingularValues.svd(read(source, (long) i * m * n, m * n), m, n, fullMatrices, values, left, right);
+            write(u, (long) i * m * uColumns, left);
+            write(s, (long) i * k, values);
+            write(vt, (long) i * vtRows * n, right);
+        });
+        return (NDArray<R>[]) new NDArray<?>[]{new NumJ().array(u, matrixShape(batch, m, uColumns)),
+                new NumJ().array(s, matrixShape(batch, k)), new NumJ().array(vt, matrixShape(batch, vtRows, n))};
+    }
+
+    /**
+     * Computes the singular values of matrices, without their singular vectors.
+     *
+     * @param a The matrices, of shape (..., m, n).
+     * @return A new NDArray of shape (..., min(m, n)) holding the singular values in descending order.
+     * @throws ShapeException                If the array has fewer than two dimensions.
+     * @throws LinAlgException               If the iteration does not converge.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> svdvals(NDArray<T> a) throws ShapeException {
+        int[] shape = checkMatrices(a.shapeArray());
+        DType type = workType(a.type());
+        int m = shape[shape.length - 2];
+        int n = shape[shape.length - 1];
+        int k = Math.min(m, n);
+        int[] batch = batchShape(shape);
+        int count = (int) utils.getSize(batch);
+        Storage source = gather(a, shape, DType.FLOAT64);
+        Storage s = Storage.allocate(type, (long) count * k);
+        forEachMatrix(count, Math.max(m, n), i -> {
+            double[] values = new double[k];
+            SingularValues.svd(read(source, (long) i * m * n, m * n), m, n, false, values, null, null);
+            write(s, (long) i * k, values);
+        });
+        return new NumJ().array(s, matrixShape(batch, k));
+    }
+
+    /**
+     * Computes the leading k singular triplets of a matrix by randomized range finding: the matrix is
+     * multiplied by a Gaussian test matrix of k + oversamples columns, the range found is refined by power
+     * iterations, and the small projection of the matrix on that range is decomposed exactly. Each power
+     * iteration costs two passes over the matrix and sharpens the result for slowly decaying spectra.
+     *
+     * @param a           The matrix, of shape (m, n).
+     * @param k           The number of triplets, between 1 and min(m, n).
+     * @param oversamples The number of additional columns of the test matrix, usually 5 to 10.
+     * @param iterations  The number of power iterations.
+     * @param seed        The seed of the test matrix, making the result reproducible.
+     * @return Three new NDArrays: U of shape (m, k), the singular values in descending order, of shape (k),
+     * and V^T of shape (k, n).
+     * @throws ShapeException                If the array is not a matrix.
+     * @throws IllegalArgumentException      If k is not between 1 and min(m, n).
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R>[] randomizedSvd(NDArray<T> a, int k, int oversamples, int iterations, long seed)
+            throws ShapeException {
+        int[] shape = a.shapeArray();
+        if (shape.length != 2) {
+            throw new ShapeException(matrixDimensionException(shape));
+        }
+        int m = shape[0];
+        int n = shape[1];
+        if (k < 1 || k > Math.min(m, n)) {
+            throw new IllegalArgumentException(truncationException(k, Math.min(m, n)));
+        }
+        DType type = workType(a.type());
+        long[] strides = a.elementStrides();
+        Storage[] triplets = SingularValues.randomized(type, a.storage(), a.offset(), strides[0], strides[1], m, n, k,
+                Math.max(0, oversamples), Math.max(0, iterations), seed);
+        return (NDArray<R>[]) new NDArray<?>[]{new NumJ().array(triplets[0], new int[]{m, k}),
+                new NumJ().array(triplets[1], new int[]{k}), new NumJ().array(triplets[2], new int[]{k, n})};
+    }
+
+    /**
+     * Computes the Euclidean norm of all the elements of an array, the Frobenius norm of a matrix.
+     *
+     * @param a The array.
+     * @return The square root of the sum of the squares of the elements.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public double norm(NDArray<?> a) {
+        return new Blas().nrm2(a);
+    }
+
+    /**
+     * Computes a matrix norm of every matrix of a stack.
+     *
+     * @param a    The matrices, of shape (..., m, n).
+     * @param norm The norm.
+     * @return A new NDArray of the leading dimensions of a holding the norms, zero-dimensional for a single matrix.
+     * @throws ShapeException                If the array has fewer than two dimensions.
+     * @throws LinAlgException               If the singular values cannot be computed.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> norm(NDArray<T> a, NormType norm) throws ShapeException {
+        int[] shape = checkMatrices(a.shapeArray());
+        DType type = workType(a.type());
+        int m = shape[shape.length - 2];
+        int n = shape[shape.length - 1];
+        int k = Math.min(m, n);
+        int[] batch = batchShape(shape);
+        int count = (int) utils.getSize(batch);
+        Storage source = gather(a, shape, DType.FLOAT64);
+        Storage output = Storage.allocate(type, count);
+        forEachMatrix(count, norm == NormType.FROBENIUS ? 1 : Math.max(m, n), i -> {
+            double[] matrix = read(source, (long) i * m * n, m * n);
+            double result = 0;
+            if (norm == NormType.FROBENIUS) {
+                double max = 0;
+                for (double value : matrix) {
+                    max = Math.max(max, Math.abs(value));
+                }
+                double sum = 0;
+                for (double value : matrix) {
+                    sum += (value / max) * (value / max);
+                }
+                result = max == 0 || Double.isInfinite(max) ? max : max * Math.sqrt(sum);
+            } else {
+                double[] values = new double[k];
+                SingularValues.svd(matrix, m, n, false, values, null, null);
+                for (double value : values) {
+                    result = norm == NormType.SPECTRAL ? Math.max(result, value) : result + value;
+                }
+            }
+            output.setDouble(i, result);
+        });
+        return new NumJ().array(output, batch);
+    }
+
+    /**
+     * Copies length elements of a storage into a new double array.
+     */
+    private static double[] read(Storage storage, long offset, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = storage.getDouble(offset + i);
+        }
+        return values;
+    }
+
+    /**
+     * Copies the elements of a double array into a storage.
+     */
+    private static void write(Storage storage, long offset, double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            storage.setDouble(offset + i, values[i]);
+        }
+    }
+
+    /**
+     * Checks that the diagonal of a triangular factor has no element negligible next to the largest one.
+     */
+    private static void checkRank(Storage r, int order, long diagonalStride, int rows, double epsilon) {
+        double max = 0;
+        for (int d = 0; d < order; d++) {
+            max = Math.max(max, Math.abs(r.getDouble(d * diagonalStride)));
+        }
+        double tolerance = max * Math.max(rows, order) * epsilon;
+        for (int d = 0; d < order; d++) {
+            if (!(Math.abs(r.getDouble(d * diagonalStride)) > tolerance)) {
+                throw new LinAlgException(rankDeficientException());
+            }
+        }
+    }
+
+    /**
+     * Runs a task for every matrix of a stack, spread over threads when the matrices are small enough to
+     * be factorized without threaded matrix products.
+     */
+    private static void forEachMatrix(int count, int order, IntConsumer task) {
+        long work = Math.max(1L, (long) order * order * order);
+        ChunkTask chunk = (start, end) -> {
+            for (long i = start; i < end; i++) {
+                task.accept((int) i);
+            }
+        };
+        if (order > Factorizations.NB || count * work < ExecutionEngine.getThreshold()) {
+            chunk.run(0, count);
+        } else {
+            ExecutionContext.getDefault().forEachChunk(count, (int) Math.max(1, ExecutionEngine.getChunkSize() / work), chunk);
+        }
+    }
+
+    /**
+     * Copies an array, broadcast to a shape, into a new contiguous storage of the given type.
+     */
+    private Storage gather(NDArray<?> source, int[] shape, DType type) throws ShapeException {
+        Storage target = Storage.allocate(type, utils.getSize(shape));
+        long[] strides = new long[shape.length];
+        long stride = 1;
+        for (int d = shape.length - 1; d >= 0; d--) {
+            strides[d] = stride;
+            stride *= shape[d];
+        }
+        BroadcastIterator iterator = new BroadcastIterator(shape, new long[]{source.offset(), 0},
+                new int[][]{source.shapeArray(), shape}, new long[][]{source.elementStrides(), strides});
+        Storage storage = source.storage();
+        while (iterator.next()) {
+            long from = iterator.offset(0), fromStride = iterator.innerStride(0);
+            long to = iterator.offset(1), toStride = iterator.innerStride(1);
+            for (int i = 0; i < iterator.innerSize(); i++) {
+                target.setDouble(to + i * toStride, storage.getDouble(from + i * fromStride));
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Returns the type computations on the given type are made in.
+     */
+    private static DType workType(DType type) {
+        if (type == DType.OBJECT) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        return type == DType.FLOAT32 ? DType.FLOAT32 : DType.FLOAT64;
+    }
+
+    private static int[] checkMatrices(int[] shape) throws ShapeException {
+        if (shape.length < 2) {
+            throw new ShapeException(matrixDimensionException(shape));
+        }
+        return shape;
+    }
+
+    private static int squareOrder(int[] shape) throws ShapeException {
+        checkMatrices(shape);
+        if (shape[shape.length - 1] != shape[shape.length - 2]) {
+            throw new ShapeException(squareMatrixException(shape));
+        }
+        return shape[shape.length - 1];
+    }
+
+    private static int[] batchShape(int[] shape) {
+        return Arrays.copyOf(shape, shape.length - 2);
+    }
+
+    private static int[] matrixShape(int[] batch, int... core) {
+        int[] shape = Arrays.copyOf(batch, batch.length + core.length);
+        System.arraycopy(core, 0, shape, batch.length, core.length);
+        return shape;
+    }
+
+    private static List<Integer> asList(int[] shape) {
+        List<Integer> list = new ArrayList<>(shape.length);
+        for (int dim : shape) {
+            list.add(dim);
+        }
+        return list;
+    }
+}
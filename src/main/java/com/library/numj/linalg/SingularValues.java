@@ -0,0 +1,418 @@
+package com.library.numj.linalg;
+
+import com.library.numj.enums.DType;
+import com.library.numj.exceptions.LinAlgException;
+import com.library.numj.operations.Gemm;
+import com.library.numj.parallel.ChunkTask;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.library.numj.ExceptionMessages.convergenceException;
+
+/**
+ * Singular value decomposition kernels.
+ * <p>
+ * Dense decompositions of an (m, n) matrix with m >= n start with a QR decomposition by the blocked kernels
+ * of {@link Factorizations}, so the iteration works on the n by n factor R only, which is what makes tall and
+ * skinny matrices cheap. R is then diagonalized by the one-sided Jacobi method, which rotates pairs of columns
+ * until all are orthogonal. Columns are visited in round-robin order, whose rounds pair every column with
+ * exactly one other, so the rotations of a round are independent and spread over threads.
+ * <p>
+ * The randomized decomposition of Halko, Martinsson and Tropp finds the leading k singular triplets of a
+ * large matrix from its products with a Gaussian test matrix of k + p columns, refined by power iterations.
+ * Every pass over the matrix is a {@link Gemm} product read directly from the operand's storage, and the bases
+ * found are orthonormalized by CholeskyQR2. The products reducing the long dimension are split into ranges
+ * computed in parallel and summed in order.
+ */
+final class SingularValues {
+    /** Relative precision of double values. */
+    private static final double EPSILON = Math.ulp(1d);
+    /** Number of Jacobi sweeps allowed before giving up. */
+    private static final int MAX_SWEEPS = 60;
+    /** Length of the ranges the long dimension of a product is split into. */
+    private static final int SPLIT = 4096;
+
+    private SingularValues() {
+    }
+
+    /**
+     * Computes the singular value decomposition {@code A = U S V^T} of a matrix.
+     *
+     * @param a    The matrix, m rows of n elements, overwritten.
+     * @param m    The number of rows.
+     * @param n    The number of columns.
+     * @param full Whether U and V^T are square, otherwise they have min(m, n) columns and rows.
+     * @param s    Receives the singular values in descending order, of length min(m, n).
+     * @param u    Receives U row by row, or null if the singular vectors are not needed.
+     * @param vt   Receives V^T row by row, or null if the singular vectors are not needed.
+     * @throws LinAlgException If the iteration does not converge.
+     */
+    static void svd(double[] a, int m, int n, boolean full, double[] s, double[] u, double[] vt) {
+        if (m >= n) {
+            tall(a, m, n, full, s, u, vt);
+            return;
+        }
+        // A^T = U' S V'^T, so U = V' and V^T = U'^T
+        double[] transposed = new double[m * n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                transposed[j * m + i] = a[i * n + j];
+            }
+        }
+        int columns = full ? n : m;
+        double[] uPrime = u == null ? null : new double[n * columns];
+        double[] vtPrime = u == null ? null : new double[m * m];
+        tall(transposed, n, m, full, s, uPrime, vtPrime);
+        if (u != null) {
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < m; j++) {
+                    u[i * m + j] = vtPrime[j * m + i];
+                }
+            }
+            for (int i = 0; i < columns; i++) {
+                for (int j = 0; j < n; j++) {
+                    vt[i * n + j] = uPrime[j * columns + i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the decomposition of a matrix with at least as many rows as columns.
+     */
+    private static void tall(double[] a, int m, int n, boolean full, double[] s, double[] u, double[] vt) {
+        boolean vectors = u != null;
+        Storage factor = Storage.wrap(a);
+        double[] tau = new double[n];
+        if (m > n) {
+            Factorizations.qr(DType.FLOAT64, factor, 0, m, n, tau);
+        }
+        // The rows of w are the columns of R, which the rotations orthogonalize
+        double[] w = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = m > n ? i : 0; j < n; j++) {
+                w[j * n + i] = a[i * n + j];
+            }
+        }
+        double[] v = null;
+        if (vectors) {
+            v = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                v[i * n + i] = 1;
+            }
+        }
+        jacobi(w, n, n, v);
+
+        double[] norms = new double[n];
+        Integer[] order = new Integer[n];
+        for (int j = 0; j < n; j++) {
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += w[j * n + k] * w[j * n + k];
+            }
+            norms[j] = Math.sqrt(sum);
+            order[j] = j;
+        }
+        Arrays.sort(order, (i, j) -> Double.compare(norms[j], norms[i]));
+        for (int j = 0; j < n; j++) {
+            s[j] = norms[order[j]];
+        }
+        if (!vectors) {
+            return;
+        }
+        // Left singular vectors of R as columns, completed to a basis where singular values vanish
+        double[] left = new double[n * n];
+        boolean[] found = new boolean[n];
+        for (int j = 0; j < n; j++) {
+            int source = order[j];
+            System.arraycopy(v, source * n, vt, j * n, n);
+            if (s[j] > Double.MIN_NORMAL) {
+                for (int k = 0; k < n; k++) {
+                    left[k * n + j] = w[source * n + k] / s[j];
+                }
+                found[j] = true;
+            }
+        }
+        complete(left, n, found);
+        int columns = full ? m : n;
+        if (m == n) {
+            System.arraycopy(left, 0, u, 0, n * n);
+            return;
+        }
+        // U = Q diag(left, I), the columns of Q after the first n being kept as they are
+        Storage q = Storage.allocate(DType.FLOAT64, (long) m * columns);
+        Factorizations.formQ(DType.FLOAT64, factor, 0, m, n, tau, q, 0, columns);
+        Storage result = Storage.wrap(u);
+        Gemm.multiply(DType.FLOAT64, m, n, n, operand(q, 0, columns, 1), operand(Storage.wrap(left), 0, n, 1),
+                operand(result, 0, columns, 1));
+        for (int i = 0; i < m; i++) {
+            for (int j = n; j < columns; j++) {
+                u[i * columns + j] = q.getDouble((long) i * columns + j);
+            }
+        }
+    }
+
+    /**
+     * Orthogonalizes the rows of w by one-sided Jacobi rotations, applying the same rotations to the rows
+     * of v.
+     *
+     * @param w      The rows, count rows of the given length.
+     * @param count  The number of rows.
+     * @param length The length of the rows.
+     * @param v      The rows rotated alongside, count rows of count elements, or null.
+     */
+    static void jacobi(double[] w, int count, int length, double[] v) {
+        int slots = count + (count & 1);
+        int[] ring = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            ring[i] = i;
+        }
+        int pairs = slots / 2;
+        long work = (long) pairs * length;
+        AtomicBoolean rotated = new AtomicBoolean();
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            rotated.set(false);
+            for (int round = 0; round < slots - 1; round++) {
+                int[] positions = ring.clone();
+                ChunkTask task = (start, end) -> {
+                    for (long pair = start; pair < end; pair++) {
+                        int p = positions[(int) pair];
+                        int q = positions[slots - 1 - (int) pair];
+                        if (p < count && q < count && rotate(w, length, Math.min(p, q), Math.max(p, q), v, count)) {
+                            rotated.set(true);
+                        }
+                    }
+                };
+                if (work < ExecutionEngine.getThreshold()) {
+                    task.run(0, pairs);
+                } else {
+                    ExecutionContext.getDefault().forEachChunk(pairs, Math.max(1, ExecutionEngine.getChunkSize() / Math.max(1, length)), task);
+                }
+                // Keep the first position, turn the others by one
+                int last = ring[slots - 1];
+                System.arraycopy(ring, 1, ring, 2, slots - 2);
+                if (slots > 1) {
+                    ring[1] = last;
+                }
+            }
+            if (!rotated.get()) {
+                return;
+            }
+        }
+        throw new LinAlgException(convergenceException("SVD"));
+    }
+
+    /**
+     * Rotates rows p and q of w, and of v, so that they become orthogonal.
+     *
+     * @return Whether a rotation was needed.
+     */
+    private static boolean rotate(double[] w, int length, int p, int q, double[] v, int count) {
+        int rowP = p * length, rowQ = q * length;
+        double alpha = 0, beta = 0, gamma = 0;
+        for (int k = 0; k < length; k++) {
+            double x = w[rowP + k], y = w[rowQ + k];
+            alpha += x * x;
+            beta += y * y;
+            gamma += x * y;
+        }
+        if (gamma == 0 || Math.abs(gamma) <= EPSILON * Math.sqrt(alpha * beta)) {
+            return false;
+        }
+        double zeta = (beta - alpha) / (2 * gamma);
+        double t = Math.copySign(1, zeta) / (Math.abs(zeta) + Math.hypot(1, zeta));
+        double c = 1 / Math.sqrt(1 + t * t);
+        double s = c * t;
+        for (int k = 0; k < length; k++) {
+            double x = w[rowP + k], y = w[rowQ + k];
+            w[rowP + k] = c * x - s * y;
+            w[rowQ + k] = s * x + c * y;
+        }
+        if (v != null) {
+            rowP = p * count;
+            rowQ = q * count;
+            for (int k = 0; k < count; k++) {
+                double x = v[rowP + k], y = v[rowQ + k];
+                v[rowP + k] = c * x - s * y;
+                v[rowQ + k] = s * x + c * y;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fills the columns of an orthonormal n by n matrix not yet found with unit vectors orthogonalized
+     * against the other columns.
+     */
+    private static void complete(double[] basis, int n, boolean[] found) {
+        double[] x = new double[n];
+        int candidate = 0;
+        for (int j = 0; j < n; j++) {
+            if (found[j]) {
+                continue;
+            }
+            while (candidate < n) {
+                Arrays.fill(x, 0);
+                x[candidate++] = 1;
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int c = 0; c < n; c++) {
+                        if (!found[c]) {
+                            continue;
+                        }
+                        double dot = 0;
+                        for (int k = 0; k < n; k++) {
+                            dot += basis[k * n + c] * x[k];
+                        }
+                        for (int k = 0; k < n; k++) {
+                            x[k] -= dot * basis[k * n + c];
+                        }
+                    }
+                }
+                double norm = 0;
+                for (double value : x) {
+                    norm += value * value;
+                }
+                norm = Math.sqrt(norm);
+                if (norm > 0.5) {
+                    for (int k = 0; k < n; k++) {
+                        basis[k * n + j] = x[k] / norm;
+                    }
+                    found[j] = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the leading singular triplets of a matrix by randomized range finding.
+     *
+     * @param type        The data type the products are computed in.
+     * @param a           The storage of the matrix.
+     * @param offset      The position of its first element.
+     * @param rowStride   The distance between its rows.
+     * @param colStride   The distance between its columns.
+     * @param m           The number of rows.
+     * @param n           The number of columns.
+     * @param k           The number of triplets, at most min(m, n).
+     * @param oversamples The number of additional columns of the test matrix.
+     * @param iterations  The number of power iterations.
+     * @param seed        The seed of the test matrix.
+     * @return U of shape (m, k), the k singular values and V^T of shape (k, n), row by row in storages of the type.
+     */
+    static Storage[] randomized(DType type, Storage a, long offset, long rowStride, long colStride, int m, int n, int k,
+                                int oversamples, int iterations, long seed) {
+        int l = Math.min(k + oversamples, Math.min(m, n));
+        Random random = new Random(seed);
+        Storage omega = Storage.allocate(type, (long) n * l);
+        for (long i = 0; i < (long) n * l; i++) {
+            omega.setDouble(i, random.nextGaussian());
+        }
+        Gemm.Operand matrix = operand(a, offset, rowStride, colStride);
+        Storage y = Storage.allocate(type, (long) m * l);
+        Gemm.multiply(type, m, l, n, matrix, operand(omega, 0, l, 1), operand(y, 0, l, 1));
+        Storage q = orthonormalize(type, y, m, l);
+        for (int i = 0; i < iterations; i++) {
+            // Z = A^T Q over the long dimension, then Q = orth(A orth(Z))
+            Storage z = multiplyTransposed(type, n, l, m, a, offset, colStride, rowStride, q, 0, l, 1);
+            z = orthonormalize(type, z, n, l);
+            y = Storage.allocate(type, (long) m * l);
+            Gemm.multiply(type, m, l, n, matrix, operand(z, 0, l, 1), operand(y, 0, l, 1));
+            q = orthonormalize(type, y, m, l);
+        }
+        // B = Q^T A is small, its decomposition gives the triplets of A
+        Storage b = multiplyTransposed(type, l, n, m, q, 0, 1, l, a, offset, rowStride, colStride);
+        double[] values = new double[l * n];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = b.getDouble(i);
+        }
+        double[] s = new double[l];
+        double[] ub = new double[l * l];
+        double[] vtb = new double[l * n];
+        svd(values, l, n, false, s, ub, vtb);
+        Storage smallU = Storage.allocate(type, (long) l * k);
+        for (int i = 0; i < l; i++) {
+            for (int j = 0; j < k; j++) {
+                smallU.setDouble((long) i * k + j, ub[i * l + j]);
+            }
+        }
+        Storage u = Storage.allocate(type, (long) m * k);
+        Gemm.multiply(type, m, k, l, operand(q, 0, l, 1), operand(smallU, 0, k, 1), operand(u, 0, k, 1));
+        Storage singular = Storage.allocate(type, k);
+        Storage vt = Storage.allocate(type, (long) k * n);
+        for (int j = 0; j < k; j++) {
+            singular.setDouble(j, s[j]);
+            for (int c = 0; c < n; c++) {
+                vt.setDouble((long) j * n + c, vtb[j * n + c]);
+            }
+        }
+        return new Storage[]{u, singular, vt};
+    }
+
+    /**
+     * Orthonormalizes the columns of an m by l matrix by CholeskyQR2, two passes of {@code Y = Y R^-1} with
+     * {@code Y^T Y = R^T R}, falling back to Householder QR when the columns are nearly dependent.
+     */
+    private static Storage orthonormalize(DType type, Storage y, int m, int l) {
+        for (int pass = 0; pass < 2; pass++) {
+            Storage gram = multiplyTransposed(type, l, l, m, y, 0, 1, l, y, 0, l, 1);
+            if (!Factorizations.cholesky(type, gram, 0, l)) {
+                double[] tau = new double[l];
+                Factorizations.qr(type, y, 0, m, l, tau);
+                Storage q = Storage.allocate(type, (long) m * l);
+                Factorizations.formQ(type, y, 0, m, l, tau, q, 0, l);
+                return q;
+            }
+            // Y R^-1 = Y L^-T
+            Storage inverse = Storage.allocate(type, (long) l * l);
+            for (int i = 0; i < l; i++) {
+                inverse.setDouble((long) i * l + i, 1);
+            }
+            Factorizations.solveTriangular(type, gram, 0, l, 1, l, true, false, inverse, 0, l);
+            Storage next = Storage.allocate(type, (long) m * l);
+            Gemm.multiply(type, m, l, l, operand(y, 0, l, 1), operand(inverse, 0, 1, l), operand(next, 0, l, 1));
+            y = next;
+        }
+        return y;
+    }
+
+    /**
+     * Computes the rows by columns product {@code X Y} over a long shared dimension, typically with X the
+     * transpose of a tall matrix, splitting the shared dimension into ranges whose products are computed in
+     * parallel and summed in order. Each operand is given by its storage, first position and strides.
+     */
+    private static Storage multiplyTransposed(DType type, int rows, int columns, int shared,
+                                              Storage x, long xOffset, long xRow, long xColumn,
+                                              Storage y, long yOffset, long yRow, long yColumn) {
+        long work = (long) rows * columns * shared;
+        int parts = work < ExecutionEngine.getThreshold() ? 1
+                : Math.max(1, Math.min(ExecutionContext.getDefault().parallelism(), (shared + SPLIT - 1) / SPLIT));
+        Storage[] partials = new Storage[parts];
+        ExecutionContext.getDefault().forEachChunk(parts, 1, (first, last) -> {
+            for (int p = (int) first; p < last; p++) {
+                int from = (int) ((long) shared * p / parts), to = (int) ((long) shared * (p + 1) / parts);
+                partials[p] = Storage.allocate(type, (long) rows * columns);
+                Gemm.multiply(type, rows, columns, to - from,
+                        operand(x, xOffset + from * xColumn, xRow, xColumn),
+                        operand(y, yOffset + from * yRow, yRow, yColumn),
+                        operand(partials[p], 0, columns, 1));
+            }
+        });
+        Storage result = partials[0];
+        for (int p = 1; p < parts; p++) {
+            for (long i = 0; i < (long) rows * columns; i++) {
+                result.setDouble(i, result.getDouble(i) + partials[p].getDouble(i));
+            }
+        }
+        return result;
+    }
+
+    private static Gemm.Operand operand(Storage storage, long origin, long rowStride, long columnStride) {
+        return new Gemm.Operand(storage, new long[]{origin}, rowStride, columnStride);
+    }
+}
@@ -3,12 +3,15 @@ package com.library.numj.operations;
 import com.library.numj.NDArray;
 import com.library.numj.NumJ;
 import com.library.numj.Utils;
+import com.library.numj.enums.DType;
 import com.library.numj.enums.OperationType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.StorageType;
 import com.library.numj.exceptions.ShapeException;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
 
-import java.lang.reflect.Array;
 import java.util.Arrays;
-import java.util.stream.IntStream;
 
 import static com.library.numj.ExceptionMessages.unsupportedOperation;
 
@@ -16,7 +19,9 @@ import static com.library.numj.ExceptionMessages.unsupportedOperation;
  * The {@code ArithmaticOperations} class provides methods to perform element-wise arithmetic operations
  * on {@link NDArray} objects. It supports operations like addition, subtraction, multiplication,
  * and division with broadcasting capabilities similar to NumPy.
- *
+ * <p>
+ * Result types follow {@link DType#promote(DType)} and numeric operands are processed by the
+ * primitive kernels of {@link KernelTable}; only {@link DType#OBJECT} arrays take the boxed path.
  */
 @SuppressWarnings("unchecked")
 public class ArithmaticOperations {
@@ -41,65 +46,80 @@ public class ArithmaticOperations {
      */
     public <T, R> NDArray<R> operate(NDArray<T> arr1, NDArray<T> arr2, OperationType operation) throws ShapeException {
         int[] broadcastedShape = utils.broadcastShapes(arr1.shape(), arr2.shape());
-        long totalElementsLong = Arrays.stream(broadcastedShape).reduce(1, (a, b) -> a*b);
-        int[] arr1Strides = arr1.strides();
-        int[] arr2Strides = arr2.strides();
+        long totalElements = utils.getSize(broadcastedShape);
 
-        int totalElements = (int)totalElementsLong;
+        // Initialize the output with the promoted data type and pick the matching kernel once
+        DType resultType = arr1.type().promote(arr2.type());
+        BinaryKernel kernel = KernelTable.binary(operation, arr1.type(), arr2.type());
+        Storage output = Storage.allocate(resultType, totalElements, resultStorageType(resultType, arr1, arr2));
+        NDArray<R> result = new NumJ().array(output, broadcastedShape, resultOrder(arr1, arr2));
 
-        T[] flatArr1 = (T[]) arr1.flatten().getArray();
-        T[] flatArr2 = (T[]) arr2.flatten().getArray();
-        // Get element sizes for proper indexing
-        int elementSize1 = utils.getElementSize(arr1.type().is());
-        int elementSize2 = utils.getElementSize(arr2.type().is());
-
-        // Initialize the output array
-        R[] outputArray = (R[]) new Object[totalElements];
-
-        int arr1Offset = broadcastedShape.length - arr1.shape().size();
-        int arr2Offset = broadcastedShape.length - arr2.shape().size();
-
-        // Perform the operation element-wise
-            IntStream.range(0, totalElements).forEach(i ->{
-            // Compute multi-dimensional indices for broadcasting
-            int[] multiDimIndices = utils.getMultiDimIndices(i, broadcastedShape);
+        apply(result, arr1, arr2, kernel, operation);
+        return result;
+    }
 
-            // Adjust indices for arr1 based on its shape
-            int[] arr1Indices = new int[arr1.shape().size()];
+    /**
+     * Performs the specified arithmetic operation on two NDArrays and writes the result into an existing array.
+     * The operands are broadcast to the shape of the output, which may be a view and may be one of the operands.
+     * An operand sharing memory with the output in a different layout is copied first, so overlapping
+     * writes never feed back into the inputs.
+     *
+     * @param out       The NDArray receiving the result.
+     * @param arr1      The first NDArray operand.
+     * @param arr2      The second NDArray operand.
+     * @param operation The type of arithmetic operation to perform.
+     * @return The output array.
+     * @throws ShapeException           If an operand cannot be broadcast to the shape of the output.
+     * @throws IllegalArgumentException If the result type cannot be cast to the data type of the output.
+     */
+    public <T, R> NDArray<R> operateInto(NDArray<R> out, NDArray<T> arr1, NDArray<T> arr2, OperationType operation) throws ShapeException {
+        BinaryKernel kernel = KernelTable.binary(operation, arr1.type(), arr2.type(), out.type());
+        apply(out, separate(out, arr1), separate(out, arr2), kernel, operation);
+        return out;
+    }
 
-            IntStream.range(0, arr1.shape().size()).parallel().forEach(index -> {
-                if (arr1.shape().get(index) == 1) {
-                    arr1Indices[index] = 0;
-                } else {
-                    arr1Indices[index] = multiDimIndices[arr1Offset + index];
+    /**
+     * Walks output and operands together, broadcast dimensions having a stride of 0.
+     * Large outputs are split into contiguous chunks walked by independent iterators on several cores.
+     *
+     * @param result    The array receiving the result.
+     * @param arr1      The first operand.
+     * @param arr2      The second operand.
+     * @param kernel    The kernel to apply, or null for the boxed path.
+     * @param operation The type of arithmetic operation to perform.
+     * @throws ShapeException If an operand cannot be broadcast to the shape of the result.
+     */
+    private void apply(NDArray<?> result, NDArray<?> arr1, NDArray<?> arr2, BinaryKernel kernel, OperationType operation) throws ShapeException {
+        Storage output = result.storage();
+        Storage storage1 = arr1.storage();
+        Storage storage2 = arr2.storage();
+        BroadcastIterator iterator = new BroadcastIterator(result.shapeArray(), result, arr1, arr2);
+        ExecutionEngine.forEachChunk(iterator.size(), (start, end) -> {
+            BroadcastIterator chunk = iterator.range(start, end);
+            while (chunk.next()) {
+                int length = chunk.innerSize();
+                long outIndex = chunk.offset(0);
+                long index1 = chunk.offset(1);
+                long index2 = chunk.offset(2);
+                long outStride = chunk.innerStride(0);
+                long stride1 = chunk.innerStride(1);
+                long stride2 = chunk.innerStride(2);
+                if (kernel != null) {
+                    kernel.apply(output, outIndex, outStride, storage1, index1, stride1, storage2, index2, stride2, length);
+                    continue;
                 }
-            });
-
-            int[] arr2Indices = new int[arr2.shape().size()];
-            IntStream.range(0, arr2.shape().size()).parallel().forEach(index -> {
-                if (arr2.shape().get(index) == 1) {
-                    arr2Indices[index] = 0;
-                } else {
-                    arr2Indices[index] = multiDimIndices[arr2Offset + index];
+                // Object operands fall back to the boxed element-by-element path
+                for (int i = 0; i < length; i++, outIndex += outStride, index1 += stride1, index2 += stride2) {
+                    Object value1 = storage1.get(index1);
+                    Object value2 = storage2.get(index2);
+                    if (value1 instanceof Number && value2 instanceof Number) {
+                        output.set(outIndex, getResult((Number) value1, (Number) value2, operation));
+                    } else {
+                        output.set(outIndex, stringOperation(String.valueOf(value1), String.valueOf(value2), operation));
+                    }
                 }
-            });
-            // Compute flat indices for the operands
-            int arr1FlatIndex = utils.getFlatIndex(arr1Indices, arr1Strides) / elementSize1;
-            int arr2FlatIndex = utils.getFlatIndex(arr2Indices, arr2Strides) / elementSize2;
-
-            // Perform the operation based on the type of elements
-            if (flatArr1[arr1FlatIndex] instanceof Number && flatArr2[arr2FlatIndex] instanceof Number) {
-                Number v1 = (Number) flatArr1[arr1FlatIndex];
-                Number v2 = (Number) flatArr2[arr2FlatIndex];
-                outputArray[i] = (R) getResult(v1, v2, operation);
-            } else {
-                outputArray[i] = (R) stringOperation(flatArr1[arr1FlatIndex].toString(), flatArr2[arr2FlatIndex].toString(), operation);
             }
         });
-
-        // Construct and return the result NDArray with the broadcasted shape
-        NDArray array = new NumJ().array((R) outputArray);
-        return  array.reshape(broadcastedShape);
     }
 
     /**
@@ -112,58 +132,131 @@ public class ArithmaticOperations {
      */
     public <T, R> NDArray<R> operate(NDArray<T> arr1, OperationType operation) throws ShapeException {
         int[] broadcastedShape = utils.broadcastShapes(arr1.shape());
-        long totalElementsLong = Arrays.stream(broadcastedShape).reduce(1, (a, b) -> a * b);
-        int[] arr1Strides = arr1.strides();
-
-        int totalElements = (int) totalElementsLong;
-
-        T[] flatArr1 = (T[]) arr1.flatten().getArray();
+        long totalElements = utils.getSize(broadcastedShape);
 
-        // Get element sizes for proper indexing
-        int elementSize1 = utils.getElementSize(flatArr1[0].getClass());
+        // Initialize the output with the data type of the operand
+        UnaryKernel kernel = KernelTable.unary(operation, arr1.type());
+        Storage output = Storage.allocate(arr1.type(), totalElements, resultStorageType(arr1.type(), arr1));
+        NDArray<R> result = new NumJ().array(output, broadcastedShape, resultOrder(arr1));
 
-        // Initialize the output array
-        R[] outputArray = (R[]) new Object[totalElements];
-
-        int arr1Offset = broadcastedShape.length - arr1.shape().size();
-
-        // Perform the operation element-wise
-//        for (int i = 0; i < totalElements; i++){
-        IntStream.range(0, totalElements).forEach(i -> {
-            // Compute multi-dimensional indices for broadcasting
-            int[] multiDimIndices = utils.getMultiDimIndices(i, broadcastedShape);
+        apply(result, arr1, kernel, operation);
+        return result;
+    }
 
-            // Adjust indices for arr1 based on its shape
-            int[] arr1Indices = new int[arr1.shape().size()];
+    /**
+     * Performs the specified arithmetic operation on NDArray and writes the result into an existing array.
+     * The operand is broadcast to the shape of the output, which may be the operand itself.
+     *
+     * @param out       The NDArray receiving the result.
+     * @param arr1      The operand.
+     * @param operation The type of arithmetic operation to perform.
+     * @return The output array.
+     * @throws ShapeException           If the operand cannot be broadcast to the shape of the output.
+     * @throws IllegalArgumentException If the operand type cannot be cast to the data type of the output.
+     */
+    public <T, R> NDArray<R> operateInto(NDArray<R> out, NDArray<T> arr1, OperationType operation) throws ShapeException {
+        UnaryKernel kernel = KernelTable.unary(operation, arr1.type(), out.type());
+        apply(out, separate(out, arr1), kernel, operation);
+        return out;
+    }
 
-            IntStream.range(0, arr1.shape().size()).parallel().forEach(index -> {
-                if (arr1.shape().get(index) == 1) {
-                    arr1Indices[index] = 0;
-                } else {
-                    arr1Indices[index] = multiDimIndices[arr1Offset + index];
+    /**
+     * Walks output and operand together in contiguous chunks, see {@link #apply(NDArray, NDArray, NDArray, BinaryKernel, OperationType)}.
+     */
+    private void apply(NDArray<?> result, NDArray<?> arr1, UnaryKernel kernel, OperationType operation) throws ShapeException {
+        Storage output = result.storage();
+        Storage storage1 = arr1.storage();
+        BroadcastIterator iterator = new BroadcastIterator(result.shapeArray(), result, arr1);
+        ExecutionEngine.forEachChunk(iterator.size(), (start, end) -> {
+            BroadcastIterator chunk = iterator.range(start, end);
+            while (chunk.next()) {
+                int length = chunk.innerSize();
+                long outIndex = chunk.offset(0);
+                long index1 = chunk.offset(1);
+                long outStride = chunk.innerStride(0);
+                long stride1 = chunk.innerStride(1);
+                if (kernel != null) {
+                    kernel.apply(output, outIndex, outStride, storage1, index1, stride1, length);
+                    continue;
                 }
-            });
-
-            // Compute flat indices for the operands
-            int arr1FlatIndex = utils.getFlatIndex(arr1Indices, arr1Strides) / elementSize1;
-
-            // Perform the operation based on the type of elements
-            if (flatArr1[arr1FlatIndex] instanceof Number) {
-                Number v1 = (Number) flatArr1[arr1FlatIndex];
-
-                boolean isFloatingPoint = (v1 instanceof Double || v1 instanceof Float);
-                if (!isFloatingPoint) {
-                    outputArray[i] = (R) getResult(v1, operation);
-                } else {
-                    throw new UnsupportedOperationException(unsupportedOperation);
+                for (int i = 0; i < length; i++, outIndex += outStride, index1 += stride1) {
+                    // Perform the operation based on the type of elements
+                    Object value1 = storage1.get(index1);
+                    if (value1 instanceof Number) {
+                        Number v1 = (Number) value1;
+
+                        boolean isFloatingPoint = (v1 instanceof Double || v1 instanceof Float);
+                        if (!isFloatingPoint) {
+                            output.set(outIndex, getResult(v1, operation));
+                        } else {
+                            throw new UnsupportedOperationException(unsupportedOperation);
+                        }
+                    } else {
+                        throw new UnsupportedOperationException(unsupportedOperation);
+                    }
                 }
-            } else {
-                throw new UnsupportedOperationException(unsupportedOperation);
             }
         });
+    }
+
+    /**
+     * Decides where a new result is held: off-heap as soon as one of the operands is, so that
+     * computations on large off-heap arrays do not bring their results back onto the heap.
+     * Object results always stay on the heap.
+     *
+     * @param resultType The data type of the result.
+     * @param operands   The operands of the operation.
+     * @return The storage type of the result.
+     */
+    static StorageType resultStorageType(DType resultType, NDArray<?>... operands) {
+        if (resultType == DType.OBJECT) {
+            return StorageType.HEAP;
+        }
+        for (NDArray<?> operand : operands) {
+            if (operand.storageType() == StorageType.OFF_HEAP) {
+                return StorageType.OFF_HEAP;
+            }
+        }
+        return StorageType.HEAP;
+    }
 
-        // Construct and return the result NDArray with the broadcasted shape
-        return new NumJ().array((R) outputArray).reshape(broadcastedShape);
+    /**
+     * Decides the memory order of a new result: column-major when every operand is F-contiguous and at least
+     * one of them is not also C-contiguous, so that operations on Fortran-ordered arrays stay Fortran-ordered
+     * and are walked with unit strides. Row-major otherwise.
+     *
+     * @param operands The operands of the operation.
+     * @return The memory order of the result.
+     */
+    static Order resultOrder(NDArray<?>... operands) {
+        boolean columnMajor = false;
+        for (NDArray<?> operand : operands) {
+            if (!operand.isFContiguous()) {
+                return Order.C;
+            }
+            columnMajor |= operand.order() == Order.F;
+        }
+        return columnMajor ? Order.F : Order.C;
+    }
+
+    /**
+     * Returns an operand that can safely be read while the output is written.
+     * An operand viewing exactly the elements of the output is read before each element is overwritten,
+     * so it is used as is; any other operand sharing memory with the output is copied.
+     *
+     * @param out     The output array.
+     * @param operand The operand.
+     * @return The operand, or a copy of it.
+     */
+    static <T> NDArray<T> separate(NDArray<?> out, NDArray<T> operand) {
+        if (!out.mayShareMemory(operand)) {
+            return operand;
+        }
+        if (out.offset() == operand.offset() && Arrays.equals(out.shapeArray(), operand.shapeArray())
+                && Arrays.equals(out.elementStrides(), operand.elementStrides())) {
+            return operand;
+        }
+        return operand.copy();
     }
 
     /**
@@ -4,58 +4,76 @@ import com.library.numj.ExceptionMessages;
 import com.library.numj.NDArray;
 import com.library.numj.NumJ;
 import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.StorageType;
 import com.library.numj.exceptions.InvalidShapeException;
 import com.library.numj.exceptions.ShapeException;
-
-import java.lang.reflect.Array;
-import java.util.Arrays;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
-import java.util.stream.IntStream;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
 
 /**
- * The ArrayCreation class provides methods to create NDArray objects filled with zeros or ones.
- * It supports recursive filling of multi-dimensional arrays.
+ * The ArrayCreation class provides methods to create NDArray objects filled with zeros, ones or a given value.
+ * Arrays are allocated directly as flat primitive storage and filled in a single pass with
+ * {@link Storage#fill(long, long, Object)}; large fills run in chunks on the shared
+ * {@link com.library.numj.parallel.ExecutionContext}.
  */
 @SuppressWarnings("unchecked")
 public class ArrayCreation {
-    ForkJoinPool pool = new ForkJoinPool();
-
     /**
-     * Recursively fills an array with the specified value based on the given data type.
-     * This method works for multi-dimensional arrays as well.
+     * Fills every element of a storage with the specified value, converted to the storage data type.
+     * Large storages are filled in chunks on several cores.
      *
-     * @param array  The array to be filled.
-     * @param dType  The data type of the array elements.
-     * @param value  The value to fill in the array.
-     * @return The filled array.
+     * @param storage The storage to be filled.
+     * @param value   The value to fill in the storage.
+     * @return The filled storage.
      */
-    private <T> T fillRecursive(T array, DType dType, double value) {
-        if (!array.getClass().isArray()) return array;
-
-        int length = Array.getLength(array);
-        IntStream.range(0, length).forEach(index -> {
-            T element = (T) Array.get(array, index);
-            if (element == null) {
-                dType.set(array, index, value);
-            } else {
-                fillRecursive((T) Array.get(array, index), dType, value);
-            }
-        });
-        return array;
+    private Storage fill(Storage storage, Object value) {
+        ExecutionEngine.forEachChunk(storage.length(), (start, end) -> storage.fill(start, end, value));
+        return storage;
     }
 
     /**
      * Creates an NDArray filled with zeros of the specified shape and data type.
+     * Freshly allocated primitive storage is already zeroed, so no filling pass is needed.
      *
      * @param shape The shape of the NDArray.
      * @param dType The data type of the array elements.
      * @return An NDArray filled with zeros.
      */
     public <T> NDArray<T> zeros(int[] shape, DType dType) {
+        return zeros(shape, dType, Order.C, StorageType.HEAP);
+    }
+
+    /**
+     * Creates an NDArray filled with zeros of the specified shape and data type, laid out in the given
+     * memory order and held in the given kind of memory.
+     * Freshly allocated storage is already zeroed, so no filling pass is needed.
+     *
+     * @param shape       The shape of the NDArray.
+     * @param dType       The data type of the array elements.
+     * @param order       Whether the elements are laid out in row-major (C) or column-major (F) order.
+     * @param storageType Where the elements are held.
+     * @return An NDArray filled with zeros.
+     */
+    public <T> NDArray<T> zeros(int[] shape, DType dType, Order order, StorageType storageType) {
+        if(shape.length == 0) throw new InvalidShapeException(ExceptionMessages.emptyShapeException(shape));
+        Storage storage = Storage.allocate(dType, size(shape), storageType);
+        if (dType == DType.OBJECT) fill(storage, 0.0);
+        return new NumJ().array(storage, shape, order);
+    }
+
+    /**
+     * Creates an NDArray of the specified shape and data type without setting its elements, held in the given
+     * kind of memory. Object arrays hold nulls; the elements of other arrays are unspecified.
+     *
+     * @param shape       The shape of the NDArray.
+     * @param dType       The data type of the array elements.
+     * @param storageType Where the elements are held.
+     * @return An NDArray whose elements are to be set by the caller.
+     */
+    public <T> NDArray<T> empty(int[] shape, DType dType, StorageType storageType) {
         if(shape.length == 0) throw new InvalidShapeException(ExceptionMessages.emptyShapeException(shape));
-        T array = (T) Array.newInstance(dType.is(), shape);
-        return new NumJ().array(fillRecursive(array, dType, 0), shape, shape.length, dType);
+        return new NumJ().array(Storage.allocate(dType, size(shape), storageType), shape);
     }
 
     /**
@@ -66,11 +84,53 @@ public class ArrayCreation {
      * @return An NDArray filled with ones.
      */
     public <T> NDArray<T> ones(int[] shape, DType dType) {
+        return ones(shape, dType, Order.C, StorageType.HEAP);
+    }
+
+    /**
+     * Creates an NDArray filled with ones of the specified shape and data type, laid out in the given
+     * memory order and held in the given kind of memory.
+     *
+     * @param shape       The shape of the NDArray.
+     * @param dType       The data type of the array elements.
+     * @param order       Whether the elements are laid out in row-major (C) or column-major (F) order.
+     * @param storageType Where the elements are held.
+     * @return An NDArray filled with ones.
+     */
+    public <T> NDArray<T> ones(int[] shape, DType dType, Order order, StorageType storageType) {
+        return full(shape, 1.0, dType, order, storageType);
+    }
+
+    /**
+     * Creates an NDArray of the specified shape and data type with every element set to the given value.
+     *
+     * @param shape       The shape of the NDArray.
+     * @param value       The value of every element, converted to the data type.
+     * @param dType       The data type of the array elements.
+     * @param order       Whether the elements are laid out in row-major (C) or column-major (F) order.
+     * @param storageType Where the elements are held.
+     * @return An NDArray filled with the value.
+     * @throws com.library.numj.exceptions.UnsupportedDataTypeException If the value cannot be stored in the data type.
+     */
+    public <T> NDArray<T> full(int[] shape, Object value, DType dType, Order order, StorageType storageType) {
         if(shape.length == 0) throw new InvalidShapeException(ExceptionMessages.emptyShapeException(shape));
-        T array = (T) Array.newInstance(dType.is(), shape);
-        return new NumJ().array(fillRecursive(array, dType, 1), shape, shape.length, dType);
+        Storage storage = Storage.allocate(dType, size(shape), storageType);
+        return new NumJ().array(fill(storage, value), shape, order);
     }
 
+    /**
+     * Computes the number of elements of an array with the given shape.
+     *
+     * @param shape The shape of the array.
+     * @return The total element count.
+     */
+    private long size(int[] shape) {
+        long size = 1;
+        for (int dim : shape) {
+            size *= dim;
+        }
+        return size;
+    }
 
     /**
      * Creates an identity matrix with specified rows and columns, and a diagonal offset.
@@ -84,14 +144,17 @@ public class ArrayCreation {
      * @throws ShapeException If there is an issue creating the identity matrix.
      */
     public <T> NDArray<T> eye(int rows, int cols, int identityDiagonal, DType dType) throws ShapeException {
-        T array = (T) Array.newInstance(dType.is(), new int[]{rows, cols});
-        IntStream.range(0, rows).parallel().forEach(index ->{
-            int j = index + identityDiagonal;
-            if(j >= 0 && j < cols)
-            {
-                Array.set(Array.get(array, index), j, 1);
+        Storage storage = Storage.allocate(dType, (long) rows * cols);
+        if (dType == DType.OBJECT) fill(storage, 0.0);
+        ExecutionEngine.forEachChunk(rows, (start, end) -> {
+            for (int index = (int) start; index < end; index++) {
+                int j = index + identityDiagonal;
+                if(j >= 0 && j < cols)
+                {
+                    storage.setLong((long) index * cols + j, 1);
+                }
             }
         });
-        return new NumJ().array(array);
+        return new NumJ().array(storage, new int[]{rows, cols});
     }
 }
@@ -1,67 +1,69 @@
 package com.library.numj.operations;
 
 import com.library.numj.NDArray;
-import com.library.numj.NumJ;
 import com.library.numj.Utils;
-import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
 import com.library.numj.exceptions.ShapeException;
 
-import java.lang.reflect.Array;
-import java.util.Arrays;
-
 
+/**
+ * The ArrayModification class provides methods that rearrange the dimensions of NDArray objects.
+ * All of them return views that share the storage of the input array and only rewrite its
+ * shape and strides, so they run in O(ndim) regardless of the array size.
+ */
 @SuppressWarnings("unchecked")
 public class ArrayModification {
     Utils utils = new Utils();
     /**
      * Transposes the array by reversing its axes.
      *
-     * @return A new NDArray that is the transposed version of the original array.
+     * @return A transposed view of the original array.
      * @throws ShapeException If an error occurs during transposition.
      */
     public <T, R> NDArray<R> transpose(NDArray<T> array) throws ShapeException {
-        int ndim = array.ndim();
-        int[] axes = new int[ndim];
-        for (int i = 0; i < ndim; i++) {
-            axes[i] = ndim - 1 - i;
-        }
+        return array.transpose();
+    }
+
+    /**
+     * Permutes the axes of the array.
+     *
+     * @param array The array to transpose.
+     * @param axes  The new order of the dimensions.
+     * @return A permuted view of the original array.
+     */
+    public <T, R> NDArray<R> transpose(NDArray<T> array, int... axes) {
+        return array.transpose(axes);
+    }
 
-        R transposedArray =
-                transposeRecursive(array, axes, new int[0], array.type().is());
-        return new NumJ().array(transposedArray);
+    /**
+     * Interchanges two axes of the array.
+     *
+     * @param array The array to modify.
+     * @param axis1 The first axis.
+     * @param axis2 The second axis.
+     * @return A view of the original array with the two axes swapped.
+     */
+    public <T, R> NDArray<R> swapAxes(NDArray<T> array, int axis1, int axis2) {
+        return array.swapAxes(axis1, axis2);
+    }
+
+    /**
+     * Returns the array itself when it is already C-contiguous, otherwise a contiguous copy of it.
+     *
+     * @param array The array to check.
+     * @return A C-contiguous array holding the same elements.
+     */
+    public <T, R> NDArray<R> ascontiguousarray(NDArray<T> array) {
+        return array.isContiguous() ? (NDArray<R>) array : array.copy();
     }
 
     /**
-     * Recursively transposes the array based on the provided axes.
+     * Returns the array itself when it is already F-contiguous, otherwise a column-major copy of it.
      *
-     * @param array            The array to transpose.
-     * @param axes           The order of axes for transposition.
-     * @param currentIndices The current indices during recursion.
-     * @return The transposed array.
+     * @param array The array to check.
+     * @return An F-contiguous array holding the same elements.
      */
-    private <T, R> R transposeRecursive(NDArray<T> array, int[] axes, int[] currentIndices,Class<?> type) {
-        int ndim = array.ndim();
-        if (currentIndices.length == ndim) {
-            int[] originalIndices = new int[ndim];
-            for (int i = 0; i < ndim; i++) {
-                originalIndices[i] = currentIndices[axes[i]];
-            }
-            R element = (R) array.getArray();
-            for (int idx : originalIndices) {
-                element = (R) Array.get(element, idx);
-            }
-            return element;
-        } else {
-            int axis = currentIndices.length;
-            int dimSize = array.shape().get(axes[axis]);
-            R newArr = (R) Array.newInstance(type, dimSize);
-            for (int i = 0; i < dimSize; i++) {
-                int[] newIndices = Arrays.copyOf(currentIndices, currentIndices.length + 1);
-                newIndices[currentIndices.length] = i;
-                R value = transposeRecursive(array, axes, newIndices, newArr.getClass());
-                Array.set(Array.get(newArr, axis), i, value);
-            }
-            return newArr;
-        }
+    public <T, R> NDArray<R> asfortranarray(NDArray<T> array) {
+        return array.isFContiguous() ? (NDArray<R>) array : array.copy(Order.F);
     }
 }
@@ -0,0 +1,29 @@
+package com.library.numj.operations;
+
+import com.library.numj.storage.Storage;
+
+/**
+ * A tight element-wise loop combining one inner run of two operands into an output run.
+ * Offsets and strides are element positions in the respective storages, as handed out by
+ * {@link BroadcastIterator}.
+ */
+@FunctionalInterface
+public interface BinaryKernel {
+    /**
+     * Applies the operation to {@code length} elements.
+     *
+     * @param out       The output storage.
+     * @param outOffset The position of the first output element.
+     * @param outStride The distance between output elements.
+     * @param a         The storage of the first operand.
+     * @param aOffset   The position of the first element of the first operand.
+     * @param aStride   The distance between elements of the first operand.
+     * @param b         The storage of the second operand.
+     * @param bOffset   The position of the first element of the second operand.
+     * @param bStride   The distance between elements of the second operand.
+     * @param length    The number of elements to process.
+     */
+    void apply(Storage out, long outOffset, long outStride,
+               Storage a, long aOffset, long aStride,
+               Storage b, long bOffset, long bStride, int length);
+}
@@ -0,0 +1,488 @@
+package com.library.numj.operations;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.OperationType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.exceptions.ShapeMismatchException;
+import com.library.numj.parallel.ChunkTask;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+
+import static com.library.numj.ExceptionMessages.castingException;
+import static com.library.numj.ExceptionMessages.matmulShapeException;
+import static com.library.numj.ExceptionMessages.outputShapeException;
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * The {@code Blas} class provides the level 1 and level 2 BLAS routines over {@link NDArray} objects:
+ * vector dot products, matrix-vector products ({@code gemv}), scaled updates ({@code axpy}, {@code scal}),
+ * the Euclidean norm ({@code nrm2}) and outer products.
+ * <p>
+ * Floating point operands are processed in double precision, integer operands in long, by loops over the
+ * primitive arrays when the operands have them and through the storage accessors otherwise; nothing is boxed.
+ * Updates are made in place on the destination, so no temporary array is created.
+ * <p>
+ * Matrix-vector products split the rows of the matrix over the threads of the shared
+ * {@link ExecutionContext}. A thread takes dot products of its rows with the vector when the matrix is
+ * row-major and sweeps the columns of its rows when the matrix is column-major, so the matrix is always read
+ * along its contiguous dimension. Long dot products and norms are split into a fixed number of ranges whose
+ * partial results are combined in order, so results do not depend on thread timing.
+ */
+@SuppressWarnings("unchecked")
+public class Blas {
+    /**
+     * Computes {@code y = alpha A x + beta y} in place.
+     *
+     * @param alpha The factor of the product.
+     * @param a     The matrix, of shape (m, n).
+     * @param x     The vector, of length n.
+     * @param beta  The factor of the previous content of y; when zero, y is overwritten.
+     * @param y     The vector receiving the result, of length m.
+     * @return The vector y.
+     * @throws ShapeException                If the matrix is not two-dimensional or does not fit the length of x.
+     * @throws ShapeMismatchException        If y is not a vector of the length of the rows of the matrix.
+     * @throws IllegalArgumentException      If the result cannot be stored in the data type of y.
+     * @throws UnsupportedOperationException If an operand holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> gemv(double alpha, NDArray<T> a, NDArray<T> x, double beta, NDArray<R> y) throws ShapeException {
+        int[] aShape = a.shapeArray();
+        int[] xShape = x.shapeArray();
+        if (aShape.length != 2 || xShape.length != 1 || aShape[1] != xShape[0]) {
+            throw new ShapeException(matmulShapeException(aShape, xShape));
+        }
+        if (!Arrays.equals(y.shapeArray(), new int[]{aShape[0]})) {
+            throw new ShapeMismatchException(outputShapeException(new int[]{aShape[0]}, y.shapeArray()));
+        }
+        checkCast(a.type().promote(x.type()), y.type(), alpha, beta);
+        multiplyVector(alpha, ArithmaticOperations.separate(y, a), ArithmaticOperations.separate(y, x), beta, y);
+        return y;
+    }
+
+    /**
+     * Computes {@code y = alpha x + y} in place.
+     *
+     * @param alpha The factor of x.
+     * @param x     The array added.
+     * @param y     The array updated, of the shape of x.
+     * @return The array y.
+     * @throws ShapeMismatchException        If the arrays have different shapes.
+     * @throws IllegalArgumentException      If the result cannot be stored in the data type of y.
+     * @throws UnsupportedOperationException If an operand holds {@link DType#OBJECT} elements.
+     */
+    public <T> NDArray<T> axpy(double alpha, NDArray<?> x, NDArray<T> y) {
+        if (!Arrays.equals(x.shapeArray(), y.shapeArray())) {
+            throw new ShapeMismatchException(outputShapeException(x.shapeArray(), y.shapeArray()));
+        }
+        checkCast(x.type(), y.type(), alpha);
+        update(alpha, ArithmaticOperations.separate(y, x), 1, y);
+        return y;
+    }
+
+    /**
+     * Computes {@code x = alpha x} in place.
+     *
+     * @param alpha The factor.
+     * @param x     The array scaled.
+     * @return The array x.
+     * @throws IllegalArgumentException      If the factor is not integral for an integer array.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T> NDArray<T> scal(double alpha, NDArray<T> x) {
+        checkCast(x.type(), x.type(), alpha);
+        update(0, null, alpha, x);
+        return x;
+    }
+
+    /**
+     * Computes the Euclidean norm of the elements of an array, the square root of the sum of their squares.
+     * Arrays whose squares would overflow or underflow are rescaled by their largest magnitude first.
+     *
+     * @param x The array.
+     * @return The norm.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public double nrm2(NDArray<?> x) {
+        if (x.type() == DType.OBJECT) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        double sum = accumulate(x, (storage, position, stride, n) -> sumOfSquares(storage, position, stride, n, 1), Double::sum);
+        if (Double.isFinite(sum) && sum >= Double.MIN_NORMAL) {
+            return Math.sqrt(sum);
+        }
+        double scale = accumulate(x, Blas::maxAbs, Math::max);
+        if (scale == 0 || Double.isInfinite(scale) || Double.isNaN(scale)) {
+            return scale;
+        }
+        double scaled = accumulate(x, (storage, position, stride, n) -> sumOfSquares(storage, position, stride, n, scale), Double::sum);
+        return scale * Math.sqrt(scaled);
+    }
+
+    /**
+     * Computes the outer product of two arrays, flattened to vectors first.
+     *
+     * @param a The array giving the rows.
+     * @param b The array giving the columns.
+     * @return A new matrix of shape (a.size(), b.size()) holding every product {@code a[i] b[j]}.
+     * @throws ShapeException If an array has more elements than a single dimension can hold.
+     */
+    public <T, R> NDArray<R> outer(NDArray<T> a, NDArray<T> b) throws ShapeException {
+        NDArray<T> column = a.ravel().reshape((int) a.size(), 1);
+        NDArray<T> row = b.ravel().reshape(1, (int) b.size());
+        return new ArithmaticOperations().operate(column, row, OperationType.MULTIPLICATION);
+    }
+
+    /**
+     * Computes the inner product of two vectors of the same length into a zero-dimensional array.
+     *
+     * @param x The first vector.
+     * @param y The second vector.
+     * @return A zero-dimensional NDArray of the promoted type holding the product.
+     */
+    static <R> NDArray<R> dot(NDArray<?> x, NDArray<?> y) {
+        DType type = x.type().promote(y.type());
+        Storage output = Storage.allocate(type, 1);
+        int n = x.shapeArray()[0];
+        Storage xs = x.storage(), ys = y.storage();
+        long xo = x.offset(), xd = x.elementStrides()[0];
+        long yo = y.offset(), yd = y.elementStrides()[0];
+        int parts = partCount(n);
+        if (type.isFloatingPoint()) {
+            double[] partials = new double[parts];
+            ExecutionContext.getDefault().forEachChunk(parts, 1, (first, last) -> {
+                for (int p = (int) first; p < last; p++) {
+                    long from = (long) n * p / parts, to = (long) n * (p + 1) / parts;
+                    partials[p] = dot(xs, xo + from * xd, xd, ys, yo + from * yd, yd, (int) (to - from));
+                }
+            });
+            double sum = 0;
+            for (double partial : partials) sum += partial;
+            output.setDouble(0, sum);
+        } else {
+            long[] partials = new long[parts];
+            ExecutionContext.getDefault().forEachChunk(parts, 1, (first, last) -> {
+                for (int p = (int) first; p < last; p++) {
+                    long from = (long) n * p / parts, to = (long) n * (p + 1) / parts;
+                    partials[p] = dotLong(xs, xo + from * xd, xd, ys, yo + from * yd, yd, (int) (to - from));
+                }
+            });
+            long sum = 0;
+            for (long partial : partials) sum += partial;
+            output.setLong(0, sum);
+        }
+        return new NumJ().array(output, new int[0]);
+    }
+
+    /**
+     * Computes {@code y = alpha A x + beta y} for checked operands, splitting the rows of A over threads.
+     *
+     * @param alpha The factor of the product.
+     * @param a     The matrix.
+     * @param x     The vector.
+     * @param beta  The factor of the previous content of y.
+     * @param y     The vector receiving the result.
+     */
+    static void multiplyVector(double alpha, NDArray<?> a, NDArray<?> x, double beta, NDArray<?> y) {
+        int m = a.shapeArray()[0];
+        int n = a.shapeArray()[1];
+        Storage as = a.storage(), xs = x.storage(), ys = y.storage();
+        long rowStride = a.elementStrides()[0], columnStride = a.elementStrides()[1];
+        long xd = x.elementStrides()[0], yd = y.elementStrides()[0];
+        boolean floating = y.type().isFloatingPoint();
+        // Column-major matrices are swept column by column, row-major ones are read row by row
+        boolean sweep = Math.abs(rowStride) < Math.abs(columnStride);
+        ChunkTask task = (start, end) -> {
+            int rows = (int) (end - start);
+            long yStart = y.offset() + start * yd;
+            long aStart = a.offset() + start * rowStride;
+            if (beta != 1) {
+                if (floating) scale(beta, ys, yStart, yd, rows);
+                else scaleLong((long) beta, ys, yStart, yd, rows);
+            }
+            if (alpha == 0) {
+                return;
+            }
+            if (sweep) {
+                for (int j = 0; j < n; j++) {
+                    long xPosition = x.offset() + j * xd;
+                    if (floating) axpy(alpha * xs.getDouble(xPosition), as, aStart + j * columnStride, rowStride, ys, yStart, yd, rows);
+                    else axpyLong((long) alpha * xs.getLong(xPosition), as, aStart + j * columnStride, rowStride, ys, yStart, yd, rows);
+                }
+                return;
+            }
+            for (int i = 0; i < rows; i++) {
+                long yPosition = yStart + i * yd;
+                long aPosition = aStart + i * rowStride;
+                if (floating) ys.setDouble(yPosition, ys.getDouble(yPosition) + alpha * dot(as, aPosition, columnStride, xs, x.offset(), xd, n));
+                else ys.setLong(yPosition, ys.getLong(yPosition) + (long) alpha * dotLong(as, aPosition, columnStride, xs, x.offset(), xd, n));
+            }
+        };
+        if ((long) m * n < ExecutionEngine.getThreshold()) {
+            task.run(0, m);
+        } else {
+            ExecutionContext.getDefault().forEachChunk(m, Math.max(8, ExecutionEngine.getChunkSize() / Math.max(1, n)), task);
+        }
+    }
+
+    /**
+     * Computes {@code y = alpha x + beta y} element-wise in place, or {@code y = beta y} without x.
+     */
+    private void update(double alpha, NDArray<?> x, double beta, NDArray<?> y) {
+        boolean floating = y.type().isFloatingPoint();
+        Storage ys = y.storage();
+        Storage xs = x == null ? null : x.storage();
+        BroadcastIterator iterator;
+        try {
+            iterator = x == null ? new BroadcastIterator(y.shapeArray(), y) : new BroadcastIterator(y.shapeArray(), y, x);
+        } catch (ShapeException e) {
+            // The operands have the shape of y
+            throw new IllegalStateException(e);
+        }
+        ExecutionEngine.forEachChunk(iterator.size(), (start, end) -> {
+            BroadcastIterator chunk = iterator.range(start, end);
+            while (chunk.next()) {
+                int n = chunk.innerSize();
+                long yPosition = chunk.offset(0), yStride = chunk.innerStride(0);
+                if (beta != 1) {
+                    if (floating) scale(beta, ys, yPosition, yStride, n);
+                    else scaleLong((long) beta, ys, yPosition, yStride, n);
+                }
+                if (x != null) {
+                    if (floating) axpy(alpha, xs, chunk.offset(1), chunk.innerStride(1), ys, yPosition, yStride, n);
+                    else axpyLong((long) alpha, xs, chunk.offset(1), chunk.innerStride(1), ys, yPosition, yStride, n);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reduces the runs of an array, splitting large arrays into ranges combined in order.
+     */
+    private double accumulate(NDArray<?> x, RunReduction reduction, DoubleBinaryOperator combine) {
+        BroadcastIterator iterator;
+        try {
+            iterator = new BroadcastIterator(x.shapeArray(), x);
+        } catch (ShapeException e) {
+            throw new IllegalStateException(e);
+        }
+        Storage storage = x.storage();
+        long size = iterator.size();
+        int parts = partCount(size);
+        double[] partials = new double[parts];
+        ExecutionContext.getDefault().forEachChunk(parts, 1, (first, last) -> {
+            for (int p = (int) first; p < last; p++) {
+                BroadcastIterator range = iterator.range(size * p / parts, size * (p + 1) / parts);
+                double result = 0;
+                while (range.next()) {
+                    result = combine.applyAsDouble(result, reduction.apply(storage, range.offset(0), range.innerStride(0), range.innerSize()));
+                }
+                partials[p] = result;
+            }
+        });
+        double result = 0;
+        for (double partial : partials) {
+            result = combine.applyAsDouble(result, partial);
+        }
+        return result;
+    }
+
+    /**
+     * Decides how many ranges a reduction over the given number of elements is split into.
+     */
+    private static int partCount(long size) {
+        if (size < ExecutionEngine.getThreshold()) {
+            return 1;
+        }
+        long chunks = (size + ExecutionEngine.getChunkSize() - 1) / ExecutionEngine.getChunkSize();
+        return (int) Math.max(1, Math.min(ExecutionContext.getDefault().parallelism(), chunks));
+    }
+
+    /**
+     * Checks that results of the given type, scaled by the given factors, can be stored in the output type.
+     */
+    private static void checkCast(DType result, DType out, double... factors) {
+        if (result == DType.OBJECT || out == DType.OBJECT) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        if (!result.canCastTo(out)) {
+            throw new IllegalArgumentException(castingException(result, out));
+        }
+        for (double factor : factors) {
+            if (!out.isFloatingPoint() && factor != Math.rint(factor)) {
+                throw new IllegalArgumentException(castingException(DType.FLOAT64, out));
+            }
+        }
+    }
+
+    /**
+     * Computes the dot product of two strided runs in double precision.
+     *
+     * @param x  The storage of the first run.
+     * @param xp The position of the first element of the first run.
+     * @param xs The stride of the first run.
+     * @param y  The storage of the second run.
+     * @param yp The position of the first element of the second run.
+     * @param ys The stride of the second run.
+     * @param n  The number of elements.
+     * @return The sum of the products.
+     */
+    static double dot(Storage x, long xp, long xs, Storage y, long yp, long ys, int n) {
+        if (x.hasArray() && y.hasArray() && x.dType() == DType.FLOAT64 && y.dType() == DType.FLOAT64) {
+            double[] a = (double[]) x.array(), b = (double[]) y.array();
+            int p = (int) xp, q = (int) yp, s = (int) xs, t = (int) ys;
+            int i = 0;
+            double sum = 0;
+            if (s == 1 && t == 1 && VectorKernels.AVAILABLE) {
+                double[] partial = new double[1];
+                i = VectorKernels.dotFloat64(a, p, b, q, n, partial);
+                sum = partial[0];
+                p += i;
+                q += i;
+            }
+            double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            for (int bound = i + ((n - i) & ~3); i < bound; i += 4, p += 4 * s, q += 4 * t) {
+                s0 += a[p] * b[q];
+                s1 += a[p + s] * b[q + t];
+                s2 += a[p + 2 * s] * b[q + 2 * t];
+                s3 += a[p + 3 * s] * b[q + 3 * t];
+            }
+            for (; i < n; i++, p += s, q += t) {
+                s0 += a[p] * b[q];
+            }
+            return sum + ((s0 + s1) + (s2 + s3));
+        }
+        if (x.hasArray() && y.hasArray() && x.dType() == DType.FLOAT32 && y.dType() == DType.FLOAT32) {
+            float[] a = (float[]) x.array(), b = (float[]) y.array();
+            int p = (int) xp, q = (int) yp, s = (int) xs, t = (int) ys;
+            double sum = 0;
+            for (int i = 0; i < n; i++, p += s, q += t) {
+                sum += (double) a[p] * b[q];
+            }
+            return sum;
+        }
+        double sum = 0;
+        for (int i = 0; i < n; i++, xp += xs, yp += ys) {
+            sum += x.getDouble(xp) * y.getDouble(yp);
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the dot product of two strided runs in long, wrapping around on overflow.
+     *
+     * @see #dot(Storage, long, long, Storage, long, long, int)
+     */
+    static long dotLong(Storage x, long xp, long xs, Storage y, long yp, long ys, int n) {
+        long sum = 0;
+        for (int i = 0; i < n; i++, xp += xs, yp += ys) {
+            sum += x.getLong(xp) * y.getLong(yp);
+        }
+        return sum;
+    }
+
+    /**
+     * Adds alpha times a strided run to another one, in double precision.
+     *
+     * @param alpha The factor of x.
+     * @param x     The storage of the run added.
+     * @param xp    The position of its first element.
+     * @param xs    Its stride.
+     * @param y     The storage of the run updated.
+     * @param yp    The position of its first element.
+     * @param ys    Its stride.
+     * @param n     The number of elements.
+     */
+    static void axpy(double alpha, Storage x, long xp, long xs, Storage y, long yp, long ys, int n) {
+        if (x.hasArray() && y.hasArray() && x.dType() == DType.FLOAT64 && y.dType() == DType.FLOAT64) {
+            double[] a = (double[]) x.array(), b = (double[]) y.array();
+            int p = (int) xp, q = (int) yp, s = (int) xs, t = (int) ys;
+            if (s == 1 && t == 1) {
+                for (int i = 0; i < n; i++) b[q + i] += alpha * a[p + i];
+                return;
+            }
+            for (int i = 0; i < n; i++, p += s, q += t) b[q] += alpha * a[p];
+            return;
+        }
+        if (x.hasArray() && y.hasArray() && x.dType() == DType.FLOAT32 && y.dType() == DType.FLOAT32) {
+            float[] a = (float[]) x.array(), b = (float[]) y.array();
+            int p = (int) xp, q = (int) yp, s = (int) xs, t = (int) ys;
+            for (int i = 0; i < n; i++, p += s, q += t) b[q] = (float) (b[q] + alpha * a[p]);
+            return;
+        }
+        for (int i = 0; i < n; i++, xp += xs, yp += ys) {
+            y.setDouble(yp, y.getDouble(yp) + alpha * x.getDouble(xp));
+        }
+    }
+
+    /**
+     * Adds alpha times a strided run to another one, in long.
+     *
+     * @see #axpy(double, Storage, long, long, Storage, long, long, int)
+     */
+    static void axpyLong(long alpha, Storage x, long xp, long xs, Storage y, long yp, long ys, int n) {
+        for (int i = 0; i < n; i++, xp += xs, yp += ys) {
+            y.setLong(yp, y.getLong(yp) + alpha * x.getLong(xp));
+        }
+    }
+
+    /**
+     * Multiplies a strided run by a factor in place; a zero factor clears the run.
+     *
+     * @param beta The factor.
+     * @param y    The storage of the run.
+     * @param yp   The position of its first element.
+     * @param ys   Its stride.
+     * @param n    The number of elements.
+     */
+    static void scale(double beta, Storage y, long yp, long ys, int n) {
+        if (y.hasArray() && y.dType() == DType.FLOAT64) {
+            double[] b = (double[]) y.array();
+            int q = (int) yp, t = (int) ys;
+            for (int i = 0; i < n; i++, q += t) b[q] = beta == 0 ? 0 : beta * b[q];
+            return;
+        }
+        for (int i = 0; i < n; i++, yp += ys) {
+            y.setDouble(yp, beta == 0 ? 0 : beta * y.getDouble(yp));
+        }
+    }
+
+    /**
+     * Multiplies a strided run by a factor in place, in long.
+     *
+     * @see #scale(double, Storage, long, long, int)
+     */
+    static void scaleLong(long beta, Storage y, long yp, long ys, int n) {
+        for (int i = 0; i < n; i++, yp += ys) {
+            y.setLong(yp, beta * y.getLong(yp));
+        }
+    }
+
+    private static double sumOfSquares(Storage x, long xp, long xs, int n, double scale) {
+        double sum = 0;
+        for (int i = 0; i < n; i++, xp += xs) {
+            double value = x.getDouble(xp) / scale;
+            sum += value * value;
+        }
+        return sum;
+    }
+
+    private static double maxAbs(Storage x, long xp, long xs, int n) {
+        double max = 0;
+        for (int i = 0; i < n; i++, xp += xs) {
+            max = Math.max(max, Math.abs(x.getDouble(xp)));
+        }
+        return max;
+    }
+
+    /**
+     * Reduces one strided run of an array to a double.
+     */
+    private interface RunReduction {
+        double apply(Storage storage, long position, long stride, int n);
+    }
+}
@@ -0,0 +1,408 @@
+package com.library.numj.operations;
+
+import com.library.numj.NDArray;
+import com.library.numj.exceptions.ShapeException;
+
+import java.util.Arrays;
+
+import static com.library.numj.ExceptionMessages.iterationRangeException;
+
+/**
+ * The {@code BroadcastIterator} walks several arrays in lock step over a common broadcast shape.
+ * <p>
+ * Each operand is described by its storage offset and element strides; dimensions an operand is
+ * broadcast along get a stride of 0, so the same element is revisited without any index arithmetic.
+ * The dimensions are walked in the order the operands are laid out in memory, so column-major operands
+ * are traversed with unit strides too; the elements are therefore not necessarily visited in row-major order.
+ * Dimensions of size one are dropped and adjacent dimensions that are contiguous for every operand
+ * are merged, so a fully contiguous operation collapses into a single inner run.
+ * <p>
+ * The iteration is organised as a sequence of inner runs. After each successful {@link #next()} call
+ * {@link #offset(int)} gives the storage position of the first element of the run for every operand,
+ * {@link #innerStride(int)} the distance between consecutive elements and {@link #innerSize()} the
+ * length of the run. Offsets are moved incrementally, so iterating allocates nothing:
+ * <pre>
+ * BroadcastIterator iterator = new BroadcastIterator(shape, out, a, b);
+ * while (iterator.next()) {
+ *     long o = iterator.offset(0), x = iterator.offset(1), y = iterator.offset(2);
+ *     for (int i = 0; i &lt; iterator.innerSize(); i++) { ... }
+ * }
+ * </pre>
+ * A contiguous range of the element order can be handed to another thread with {@link #range(long, long)};
+ * the first and last runs of such an iterator may be shorter than the collapsed inner dimension.
+ * Positions, strides and the collapsed dimensions are {@code long}s, so storages of more than
+ * {@code 2^31} elements can be walked; a collapsed inner dimension longer than {@link #MAX_RUN}
+ * is handed out as several runs.
+ */
+public final class BroadcastIterator {
+    /** Largest number of elements in one run. */
+    static final int MAX_RUN = 1 << 30;
+
+    /** Number of operands iterated together. */
+    private final int operandCount;
+    /** Number of dimensions left after collapsing; the last one is the inner run. */
+    private final int ndim;
+    /** Collapsed shape. */
+    private final long[] shape;
+    /** Element strides of the collapsed dimensions, indexed by [dimension][operand]. */
+    private final long[][] strides;
+    /** Storage positions of the first element of every operand. */
+    private final long[] startOffsets;
+    /** Storage positions of the current inner run of every operand. */
+    private final long[] offsets;
+    /** Position along each outer dimension. */
+    private final long[] counters;
+    /** Total number of elements of the broadcast shape. */
+    private final long size;
+    /** Position of the first element visited, in iteration order. */
+    private final long begin;
+    /** Position after the last element visited, in iteration order. */
+    private final long end;
+    /** Position of the first element of the current run, in iteration order. */
+    private long position;
+    /** Position of the current run inside the inner dimension. */
+    private long innerStart;
+    /** Number of elements in the current run. */
+    private int runLength;
+    /** Whether the first run has been handed out. */
+    private boolean started;
+
+    /**
+     * Creates an iterator visiting the given arrays broadcast to a common shape.
+     *
+     * @param shape    The broadcast shape to iterate over.
+     * @param operands The arrays to walk; each must be broadcastable to shape.
+     * @throws ShapeException If an operand cannot be broadcast to the shape.
+     */
+    public BroadcastIterator(int[] shape, NDArray<?>... operands) throws ShapeException {
+        this(shape, offsetsOf(operands), shapesOf(operands), stridesOf(operands));
+    }
+
+    /**
+     * Creates an iterator from raw operand layouts.
+     *
+     * @param shape          The broadcast shape to iterate over.
+     * @param operandOffsets The storage position of the first element of every operand.
+     * @param operandShapes  The shape of every operand.
+     * @param operandStrides The element strides of every operand.
+     * @throws ShapeException If an operand cannot be broadcast to the shape.
+     */
+    public BroadcastIterator(int[] shape, long[] operandOffsets, int[][] operandShapes, long[][] operandStrides)
+            throws ShapeException {
+        this.operandCount = operandOffsets.length;
+        int fullDims = shape.length;
+        long total = 1;
+        for (int dim : shape) {
+            total *= dim;
+        }
+        this.size = total;
+
+        long[][] fullStrides = new long[fullDims][operandCount];
+        for (int op = 0; op < operandCount; op++) {
+            int[] opShape = operandShapes[op];
+            int shift = fullDims - opShape.length;
+            if (shift < 0) {
+                throw new ShapeException(broadcastError(operandShapes[op], shape));
+            }
+            for (int d = 0; d < fullDims; d++) {
+                int od = d - shift;
+                if (od < 0 || opShape[od] == 1) {
+                    fullStrides[d][op] = 0;
+                } else if (opShape[od] == shape[d]) {
+                    fullStrides[d][op] = operandStrides[op][od];
+                } else {
+                    throw new ShapeException(broadcastError(operandShapes[op], shape));
+                }
+            }
+        }
+
+        // Walk the dimensions in the order the operands are laid out in memory, then drop unit
+        // dimensions and merge neighbours that are contiguous for every operand
+        int[] order = memoryOrder(fullStrides);
+        long[] collapsedShape = new long[Math.max(1, fullDims)];
+        long[][] collapsedStrides = new long[Math.max(1, fullDims)][];
+        int count = 0;
+        for (int d : order) {
+            if (shape[d] == 1 && total != 0) {
+                continue;
+            }
+            if (count > 0 && canMerge(collapsedStrides[count - 1], fullStrides[d], shape[d])) {
+                collapsedShape[count - 1] *= shape[d];
+                collapsedStrides[count - 1] = fullStrides[d];
+            } else {
+                collapsedShape[count] = shape[d];
+                collapsedStrides[count] = fullStrides[d];
+                count++;
+            }
+        }
+        if (count == 0) {
+            collapsedShape[0] = 1;
+            collapsedStrides[0] = new long[operandCount];
+            count = 1;
+        }
+        this.ndim = count;
+        this.shape = Arrays.copyOf(collapsedShape, count);
+        this.strides = Arrays.copyOf(collapsedStrides, count);
+        this.startOffsets = operandOffsets.clone();
+        this.offsets = operandOffsets.clone();
+        this.counters = new long[count];
+        this.begin = 0;
+        this.end = total;
+    }
+
+    /**
+     * Creates an iterator sharing the layout of another one but restricted to a range of elements.
+     */
+    private BroadcastIterator(BroadcastIterator source, long begin, long end) {
+        this.operandCount = source.operandCount;
+        this.ndim = source.ndim;
+        this.shape = source.shape;
+        this.strides = source.strides;
+        this.startOffsets = source.startOffsets;
+        this.offsets = source.startOffsets.clone();
+        this.counters = new long[ndim];
+        this.size = source.size;
+        this.begin = begin;
+        this.end = end;
+    }
+
+    /**
+     * Returns an independent iterator over the elements at positions start (inclusive) to end (exclusive)
+     * of the iteration order. Iterators over disjoint ranges can be driven from different threads.
+     *
+     * @param start The position of the first element to visit.
+     * @param end   The position after the last element to visit.
+     * @return A new iterator over the range.
+     * @throws IllegalArgumentException If the range is not within the iterated elements.
+     */
+    public BroadcastIterator range(long start, long end) {
+        if (start < 0 || start > end || end > size) {
+            throw new IllegalArgumentException(iterationRangeException(start, end, size));
+        }
+        return new BroadcastIterator(this, start, end);
+    }
+
+    /**
+     * Orders the dimensions from outermost to innermost so that the operands are walked in memory order.
+     * Row-major operands keep the order of the shape, column-major ones are walked first dimension innermost.
+     * Dimensions are only moved inward when every operand strided along both agrees, so broadcast operands
+     * never decide and conflicting layouts keep the row-major order.
+     *
+     * @param fullStrides The strides of every dimension, indexed by [dimension][operand].
+     * @return The dimensions in iteration order.
+     */
+    private int[] memoryOrder(long[][] fullStrides) {
+        int[] order = new int[fullStrides.length];
+        for (int d = 0; d < order.length; d++) {
+            order[d] = d;
+        }
+        for (int i = 1; i < order.length; i++) {
+            for (int j = i; j > 0 && shouldSwap(fullStrides[order[j - 1]], fullStrides[order[j]]); j--) {
+                int outer = order[j - 1];
+                order[j - 1] = order[j];
+                order[j] = outer;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Checks whether a dimension placed outside another one has the smaller strides and should be walked inside it.
+     *
+     * @param outer The strides of the outer dimension.
+     * @param inner The strides of the inner dimension.
+     * @return True if at least one operand is strided along both and all such operands step less along outer.
+     */
+    private boolean shouldSwap(long[] outer, long[] inner) {
+        boolean swap = false;
+        for (int op = 0; op < operandCount; op++) {
+            if (outer[op] != 0 && inner[op] != 0) {
+                if (Math.abs(inner[op]) <= Math.abs(outer[op])) {
+                    return false;
+                }
+                swap = true;
+            }
+        }
+        return swap;
+    }
+
+    /**
+     * Checks whether an outer dimension can be folded into the following one for every operand.
+     *
+     * @param outer     The strides of the outer dimension.
+     * @param inner     The strides of the inner dimension.
+     * @param innerSize The length of the inner dimension.
+     * @return True if stepping once along the outer dimension equals stepping innerSize times along the inner one.
+     */
+    private boolean canMerge(long[] outer, long[] inner, long innerSize) {
+        for (int op = 0; op < operandCount; op++) {
+            if (outer[op] != inner[op] * innerSize) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Advances to the next inner run.
+     * The first call positions the iterator on the first run.
+     *
+     * @return False once every element has been visited.
+     */
+    public boolean next() {
+        if (!started) {
+            started = true;
+            if (begin >= end) {
+                return false;
+            }
+            seek(begin);
+            return true;
+        }
+        position += runLength;
+        if (position >= end) {
+            return false;
+        }
+        long inner = shape[ndim - 1];
+        innerStart += runLength;
+        if (innerStart < inner) {
+            // The inner dimension is longer than a run, continue along it
+            runLength = runLength(inner - innerStart);
+            return true;
+        }
+        innerStart = 0;
+        runLength = runLength(inner);
+        for (int d = ndim - 2; d >= 0; d--) {
+            long[] dimStrides = strides[d];
+            if (++counters[d] < shape[d]) {
+                for (int op = 0; op < operandCount; op++) {
+                    offsets[op] += dimStrides[op];
+                }
+                return true;
+            }
+            counters[d] = 0;
+            long rewind = shape[d] - 1;
+            for (int op = 0; op < operandCount; op++) {
+                offsets[op] -= dimStrides[op] * rewind;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Positions the iterator on the run holding the element at the given position of the iteration order.
+     *
+     * @param index The position of the element.
+     */
+    private void seek(long index) {
+        long inner = shape[ndim - 1];
+        long outer = index / inner;
+        System.arraycopy(startOffsets, 0, offsets, 0, operandCount);
+        for (int d = ndim - 2; d >= 0; d--) {
+            counters[d] = outer % shape[d];
+            outer /= shape[d];
+            for (int op = 0; op < operandCount; op++) {
+                offsets[op] += counters[d] * strides[d][op];
+            }
+        }
+        position = index;
+        innerStart = index % inner;
+        runLength = runLength(inner - innerStart);
+    }
+
+    /**
+     * Computes the length of a run starting at the current position.
+     *
+     * @param available The number of elements left in the inner dimension.
+     * @return The run length, bounded by the end of the iteration and {@link #MAX_RUN}.
+     */
+    private int runLength(long available) {
+        return (int) Math.min(Math.min(available, end - position), MAX_RUN);
+    }
+
+    /**
+     * Rewinds the iterator to its first element.
+     */
+    public void reset() {
+        started = false;
+        innerStart = 0;
+        runLength = 0;
+        Arrays.fill(counters, 0);
+        System.arraycopy(startOffsets, 0, offsets, 0, operandCount);
+    }
+
+    /**
+     * Returns the storage position of the first element of the current run for an operand.
+     *
+     * @param operand The operand index.
+     * @return The storage offset.
+     */
+    public long offset(int operand) {
+        return offsets[operand] + innerStart * strides[ndim - 1][operand];
+    }
+
+    /**
+     * Returns the distance between consecutive elements of a run for an operand.
+     *
+     * @param operand The operand index.
+     * @return The inner element stride, 0 if the operand is broadcast along the run.
+     */
+    public long innerStride(int operand) {
+        return strides[ndim - 1][operand];
+    }
+
+    /**
+     * Returns the number of elements in the current run.
+     *
+     * @return The length of the run.
+     */
+    public int innerSize() {
+        return runLength;
+    }
+
+    /**
+     * Returns the total number of elements of the broadcast shape.
+     * Ranges created by {@link #range(long, long)} are positions within this count.
+     *
+     * @return The element count of the broadcast shape.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of dimensions left after collapsing.
+     *
+     * @return The collapsed dimension count.
+     */
+    public int ndim() {
+        return ndim;
+    }
+
+    private static String broadcastError(int[] operandShape, int[] shape) {
+        return "Shapes cannot be broadcast together: " + Arrays.toString(operandShape) + " and " + Arrays.toString(shape);
+    }
+
+    private static long[] offsetsOf(NDArray<?>[] operands) {
+        long[] offsets = new long[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+            offsets[i] = operands[i].offset();
+        }
+        return offsets;
+    }
+
+    private static int[][] shapesOf(NDArray<?>[] operands) {
+        int[][] shapes = new int[operands.length][];
+        for (int i = 0; i < operands.length; i++) {
+            shapes[i] = operands[i].shapeArray();
+        }
+        return shapes;
+    }
+
+    private static long[][] stridesOf(NDArray<?>[] operands) {
+        long[][] strides = new long[operands.length][];
+        for (int i = 0; i < operands.length; i++) {
+            strides[i] = operands[i].elementStrides();
+        }
+        return strides;
+    }
+}
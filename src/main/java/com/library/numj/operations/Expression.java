@@ -0,0 +1,351 @@
+package com.library.numj.operations;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.Utils;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.OperationType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.storage.Storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static com.library.numj.ExceptionMessages.castingException;
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * A node of a lazily evaluated element-wise expression.
+ * <p>
+ * Expressions are built from arrays with {@link NDArray#lazy()} and combined with the same operations
+ * {@link NumJ} offers eagerly; nothing is computed until {@link #evaluate()} or {@link #evaluateInto(NDArray)}
+ * is called. Shapes and result types are resolved while the graph is built, so broadcasting and type errors
+ * surface at the call that introduces them. An expression may be used several times in a graph and is then
+ * computed once per element.
+ * <p>
+ * On evaluation the whole graph is fused into a single pass over the output: every chunk of the output is
+ * processed in small blocks that stay in cache, so no intermediate array is ever materialized.
+ * Every node still rounds its result to its own data type, giving the same values as eager evaluation.
+ * <pre>
+ * NDArray&lt;?&gt; y = a.lazy().multiply(b).add(c).evaluate();
+ * </pre>
+ */
+@SuppressWarnings("unchecked")
+public final class Expression {
+    /** Utility instance used for broadcasting shapes. */
+    private static final Utils UTILS = new Utils();
+
+    /** The operation of the node, null for leaves. */
+    final OperationType operation;
+    /** The first operand, null for leaves. */
+    final Expression left;
+    /** The second operand, null for leaves and unary operations. */
+    final Expression right;
+    /** The array of a leaf, null for operations. */
+    final NDArray<?> array;
+    /** The shape of the result. */
+    private final int[] shape;
+    /** The data type of the result. */
+    private final DType dType;
+
+    private Expression(OperationType operation, Expression left, Expression right, NDArray<?> array, int[] shape, DType dType) {
+        this.operation = operation;
+        this.left = left;
+        this.right = right;
+        this.array = array;
+        this.shape = shape;
+        this.dType = dType;
+    }
+
+    /**
+     * Creates an expression reading the elements of an array.
+     * The array is read when the expression is evaluated, not when it is created.
+     *
+     * @param array The array.
+     * @return A leaf expression.
+     */
+    public static Expression of(NDArray<?> array) {
+        return new Expression(null, null, null, array, array.shapeArray(), array.type());
+    }
+
+    /**
+     * Adds another expression element-wise.
+     *
+     * @param other The second operand.
+     * @return The expression of the sum.
+     * @throws ShapeException If the shapes are not compatible for broadcasting.
+     */
+    public Expression add(Expression other) throws ShapeException {
+        return binary(OperationType.ADDITION, other);
+    }
+
+    /**
+     * Adds an array element-wise.
+     *
+     * @param other The second operand.
+     * @return The expression of the sum.
+     * @throws ShapeException If the shapes are not compatible for broadcasting.
+     */
+    public Expression add(NDArray<?> other) throws ShapeException {
+        return add(of(other));
+    }
+
+    /**
+     * Subtracts another expression element-wise.
+     *
+     * @param other The second operand.
+     * @return The expression of the difference.
+     * @throws ShapeException If the shapes are not compatible for broadcasting.
+     */
+    public Expression subtract(Expression other) throws ShapeException {
+        return binary(OperationType.SUBTRACTION, other);
+    }
+
+    /**
+     * Subtracts an array element-wise.
+     *
+     * @param other The second operand.
+     * @return The expression of the difference.
+     * @throws ShapeException If the shapes are not compatible for broadcasting.
+     */
+    public Expression subtract(NDArray<?> other) throws ShapeException {
+        return subtract(of(other));
+    }
+
+    /**
+     * Multiplies by another expression element-wise.
+     *
+     * @param other The second operand.
+     * @return The expression of the product.
+     * @throws ShapeException If the shapes are not compatible for broadcasting.
+     */
+    public Expression multiply(Expression other) throws ShapeException {
+        return binary(OperationType.MULTIPLICATION, other);
+    }
+
+    /**
+     * Multiplies by an array element-wise.
+     *
+     * @param other The second operand.
+     * @return The expression of the product.
+     * @throws ShapeException If the shapes are not compatible for broadcasting.
+     */
+    public Expression multiply(NDArray<?> other) throws ShapeException {
+        return multiply(of(other));
+    }
+
+    /**
+     * Divides by another expression element-wise.
+     *
+     * @param other The divisor.
+     * @return The expression of the quotient.
+     * @throws ShapeException If the shapes are not compatible for broadcasting.
+     */
+    public Expression divide(Expression other) throws ShapeException {
+        return binary(OperationType.DIVISION, other);
+    }
+
+    /**
+     * Divides by an array element-wise.
+     *
+     * @param other The divisor.
+     * @return The expression of the quotient.
+     * @throws ShapeException If the shapes are not compatible for broadcasting.
+     */
+    public Expression divide(NDArray<?> other) throws ShapeException {
+        return divide(of(other));
+    }
+
+    /**
+     * Combines with another expression by an element-wise Bitwise-And.
+     *
+     * @param other The second operand.
+     * @return The expression of the Bitwise-And.
+     * @throws ShapeException                If the shapes are not compatible for broadcasting.
+     * @throws UnsupportedOperationException If either operand is floating point.
+     */
+    public Expression bitwiseAnd(Expression other) throws ShapeException {
+        return binary(OperationType.BITWISE_AND, other);
+    }
+
+    /**
+     * Combines with another expression by an element-wise Bitwise-Or.
+     *
+     * @param other The second operand.
+     * @return The expression of the Bitwise-Or.
+     * @throws ShapeException                If the shapes are not compatible for broadcasting.
+     * @throws UnsupportedOperationException If either operand is floating point.
+     */
+    public Expression bitwiseOr(Expression other) throws ShapeException {
+        return binary(OperationType.BITWISE_OR, other);
+    }
+
+    /**
+     * Combines with another expression by an element-wise Bitwise-Xor.
+     *
+     * @param other The second operand.
+     * @return The expression of the Bitwise-Xor.
+     * @throws ShapeException                If the shapes are not compatible for broadcasting.
+     * @throws UnsupportedOperationException If either operand is floating point.
+     */
+    public Expression bitwiseXor(Expression other) throws ShapeException {
+        return binary(OperationType.BITWISE_XOR, other);
+    }
+
+    /**
+     * Inverts every bit of the elements (NOT).
+     *
+     * @return The expression of the inversion.
+     * @throws UnsupportedOperationException If the expression is floating point.
+     */
+    public Expression invert() {
+        if (dType.isFloatingPoint()) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        return new Expression(OperationType.INVERT, this, null, null, shape, dType);
+    }
+
+    /**
+     * Returns the shape of the result.
+     *
+     * @return A copy of the shape.
+     */
+    public int[] shape() {
+        return shape.clone();
+    }
+
+    /**
+     * Returns the data type of the result.
+     *
+     * @return The data type.
+     */
+    public DType type() {
+        return dType;
+    }
+
+    /**
+     * Checks whether this expression only reads an array.
+     *
+     * @return True for expressions created by {@link #of(NDArray)}.
+     */
+    public boolean isLeaf() {
+        return array != null;
+    }
+
+    /**
+     * Computes the expression into a new array, held off-heap if any array read by the expression is
+     * and laid out in column-major order if all of them are.
+     *
+     * @return A new NDArray holding the result.
+     * @throws ShapeException If an operand cannot be broadcast to the shape of the result.
+     */
+    public <R> NDArray<R> evaluate() throws ShapeException {
+        long length = 1;
+        for (int dim : shape) {
+            length *= dim;
+        }
+        NDArray<?>[] leaves = leaves();
+        Storage storage = Storage.allocate(dType, length, ArithmaticOperations.resultStorageType(dType, leaves));
+        NDArray<R> out = new NumJ().array(storage, shape, ArithmaticOperations.resultOrder(leaves));
+        return evaluateInto(out);
+    }
+
+    /**
+     * Computes the expression into an existing array.
+     * The result is broadcast to the shape of out and cast to its data type; out may be one of the arrays read by the expression.
+     *
+     * @param out The NDArray receiving the result.
+     * @return The output array.
+     * @throws ShapeException           If the result cannot be broadcast to the shape of out.
+     * @throws IllegalArgumentException If the result type cannot be cast to the data type of out.
+     */
+    public <R> NDArray<R> evaluateInto(NDArray<R> out) throws ShapeException {
+        if (!dType.canCastTo(out.type())) {
+            throw new IllegalArgumentException(castingException(dType, out.type()));
+        }
+        if (hasObjectNode(Collections.newSetFromMap(new IdentityHashMap<>()))) {
+            // Object elements have no primitive kernels, evaluate node by node instead
+            return evaluateUnfused(out);
+        }
+        new FusedEvaluator(this).evaluate(out);
+        return out;
+    }
+
+    private Expression binary(OperationType operation, Expression other) throws ShapeException {
+        int[] resultShape = UTILS.broadcastShapes(asList(shape), asList(other.shape));
+        DType resultType = dType.promote(other.dType);
+        boolean bitwise = operation == OperationType.BITWISE_AND || operation == OperationType.BITWISE_OR
+                || operation == OperationType.BITWISE_XOR;
+        if (bitwise && resultType.isFloatingPoint()) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        return new Expression(operation, this, other, null, resultShape, resultType);
+    }
+
+    /**
+     * Collects the arrays read by the expression.
+     */
+    private NDArray<?>[] leaves() {
+        List<NDArray<?>> arrays = new ArrayList<>();
+        collectLeaves(arrays, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return arrays.toArray(new NDArray<?>[0]);
+    }
+
+    private void collectLeaves(List<NDArray<?>> arrays, Set<Expression> visited) {
+        if (!visited.add(this)) {
+            return;
+        }
+        if (isLeaf()) {
+            arrays.add(array);
+            return;
+        }
+        left.collectLeaves(arrays, visited);
+        if (right != null) right.collectLeaves(arrays, visited);
+    }
+
+    /**
+     * Tells whether a node holds object elements, visiting shared sub-expressions once.
+     */
+    private boolean hasObjectNode(Set<Expression> visited) {
+        if (!visited.add(this)) {
+            return false;
+        }
+        return dType == DType.OBJECT || (left != null && left.hasObjectNode(visited))
+                || (right != null && right.hasObjectNode(visited));
+    }
+
+    private <R> NDArray<R> evaluateUnfused(NDArray<R> out) throws ShapeException {
+        if (isLeaf()) {
+            NDArray<?> source = ArithmaticOperations.separate(out, array);
+            BroadcastIterator iterator = new BroadcastIterator(out.shapeArray(), out, source);
+            Storage target = out.storage();
+            Storage values = source.storage();
+            while (iterator.next()) {
+                long outIndex = iterator.offset(0);
+                long index = iterator.offset(1);
+                for (int i = 0; i < iterator.innerSize(); i++, outIndex += iterator.innerStride(0), index += iterator.innerStride(1)) {
+                    target.set(outIndex, values.get(index));
+                }
+            }
+            return out;
+        }
+        ArithmaticOperations operations = new ArithmaticOperations();
+        NDArray<Object> first = left.evaluate();
+        if (right == null) {
+            return operations.operateInto(out, first, operation);
+        }
+        NDArray<Object> second = right.evaluate();
+        return operations.operateInto(out, first, second, operation);
+    }
+
+    private static List<Integer> asList(int[] values) {
+        List<Integer> list = new ArrayList<>(values.length);
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
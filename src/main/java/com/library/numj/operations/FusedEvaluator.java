@@ -0,0 +1,330 @@
+package com.library.numj.operations;
+
+import com.library.numj.NDArray;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.OperationType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * Evaluates an {@link Expression} graph in a single fused pass.
+ * <p>
+ * The graph is flattened into a list of nodes in evaluation order, shared sub-expressions and repeated
+ * arrays appearing once. The output and every distinct array are walked together by one
+ * {@link BroadcastIterator}; each run of the iteration is cut into blocks of {@link #BLOCK_SIZE} elements
+ * and every node computes its block into a small scratch buffer owned by the running thread, so the
+ * intermediate results never leave the cache. Floating point nodes compute in {@code double} and integer
+ * nodes in {@code long}, each result being rounded to the data type of its node.
+ * Storages backed by a single primitive array are read and written through it, off-heap and chunked ones
+ * through their bulk transfers when the run is contiguous and through the accessors otherwise.
+ */
+final class FusedEvaluator {
+    /** Number of elements computed by every node at a time. */
+    static final int BLOCK_SIZE = 512;
+
+    /** Nodes in evaluation order, the root last. */
+    private final List<Expression> nodes = new ArrayList<>();
+    /** Position of every node in the evaluation order. */
+    private final Map<Expression, Integer> nodeIndex = new IdentityHashMap<>();
+    /** Distinct arrays read by the graph. */
+    private final List<NDArray<?>> arrays = new ArrayList<>();
+    /** Position of every distinct array among the arrays. */
+    private final Map<NDArray<?>, Integer> arrayIndex = new IdentityHashMap<>();
+    /** Index of the first operand of every node. */
+    private final int[] leftIndex;
+    /** Index of the second operand of every node, -1 if there is none. */
+    private final int[] rightIndex;
+    /** Iterator operand read by every leaf, 0 for other nodes. */
+    private final int[] operand;
+    /** Whether the node computes in floating point. */
+    private final boolean[] floating;
+    /** Whether an integer node feeds a floating point node and needs a double copy of its block. */
+    private final boolean[] widened;
+
+    /**
+     * Flattens the graph rooted at the given expression.
+     *
+     * @param root The expression to evaluate.
+     */
+    FusedEvaluator(Expression root) {
+        visit(root);
+        int count = nodes.size();
+        leftIndex = new int[count];
+        rightIndex = new int[count];
+        operand = new int[count];
+        floating = new boolean[count];
+        widened = new boolean[count];
+        for (int k = 0; k < count; k++) {
+            Expression node = nodes.get(k);
+            floating[k] = node.type().isFloatingPoint();
+            if (node.isLeaf()) {
+                operand[k] = arrayIndex.get(node.array) + 1;
+                continue;
+            }
+            leftIndex[k] = nodeIndex.get(node.left);
+            rightIndex[k] = node.right == null ? -1 : nodeIndex.get(node.right);
+        }
+        for (int k = 0; k < count; k++) {
+            if (floating[k] && !nodes.get(k).isLeaf()) {
+                widened[leftIndex[k]] |= !floating[leftIndex[k]];
+                if (rightIndex[k] >= 0) widened[rightIndex[k]] |= !floating[rightIndex[k]];
+            }
+        }
+    }
+
+    /**
+     * Adds a node after its operands, unless it has already been visited.
+     */
+    private void visit(Expression node) {
+        if (nodeIndex.containsKey(node)) {
+            return;
+        }
+        if (node.isLeaf()) {
+            if (!arrayIndex.containsKey(node.array)) {
+                arrayIndex.put(node.array, arrays.size());
+                arrays.add(node.array);
+            }
+        } else {
+            visit(node.left);
+            if (node.right != null) visit(node.right);
+        }
+        nodeIndex.put(node, nodes.size());
+        nodes.add(node);
+    }
+
+    /**
+     * Computes the graph into the given output.
+     *
+     * @param out The array receiving the result.
+     * @throws ShapeException If an array cannot be broadcast to the shape of the output.
+     */
+    void evaluate(NDArray<?> out) throws ShapeException {
+        NDArray<?>[] operands = new NDArray<?>[arrays.size() + 1];
+        operands[0] = out;
+        for (int i = 0; i < arrays.size(); i++) {
+            operands[i + 1] = ArithmaticOperations.separate(out, arrays.get(i));
+        }
+        Storage[] storages = new Storage[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+            storages[i] = operands[i].storage();
+        }
+        BroadcastIterator iterator = new BroadcastIterator(out.shapeArray(), operands);
+        ExecutionEngine.forEachChunk(iterator.size(), (start, end) -> {
+            int count = nodes.size();
+            double[][] doubles = new double[count][];
+            long[][] longs = new long[count][];
+            for (int k = 0; k < count; k++) {
+                if (floating[k] || widened[k]) doubles[k] = new double[BLOCK_SIZE];
+                if (!floating[k]) longs[k] = new long[BLOCK_SIZE];
+            }
+            BroadcastIterator chunk = iterator.range(start, end);
+            while (chunk.next()) {
+                int length = chunk.innerSize();
+                for (int done = 0; done < length; done += BLOCK_SIZE) {
+                    int n = Math.min(BLOCK_SIZE, length - done);
+                    for (int k = 0; k < count; k++) {
+                        compute(k, chunk, storages, done, n, doubles, longs);
+                    }
+                    int root = count - 1;
+                    store(storages[0], chunk.offset(0) + done * chunk.innerStride(0), chunk.innerStride(0),
+                            floating[root], doubles[root], longs[root], n);
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes one block of one node.
+     */
+    private void compute(int k, BroadcastIterator chunk, Storage[] storages, int done, int n, double[][] doubles, long[][] longs) {
+        Expression node = nodes.get(k);
+        if (node.isLeaf()) {
+            int op = operand[k];
+            long stride = chunk.innerStride(op);
+            long position = chunk.offset(op) + done * stride;
+            if (floating[k]) {
+                loadDouble(storages[op], position, stride, doubles[k], n);
+            } else {
+                loadLong(storages[op], position, stride, longs[k], n);
+            }
+        } else if (floating[k]) {
+            double[] x = doubles[leftIndex[k]];
+            double[] y = rightIndex[k] < 0 ? null : doubles[rightIndex[k]];
+            computeDouble(node.operation, doubles[k], x, y, n);
+            if (node.type() == DType.FLOAT32) {
+                double[] z = doubles[k];
+                for (int i = 0; i < n; i++) z[i] = (float) z[i];
+            }
+        } else {
+            long[] x = longs[leftIndex[k]];
+            long[] y = rightIndex[k] < 0 ? null : longs[rightIndex[k]];
+            computeLong(node.operation, longs[k], x, y, n);
+            narrow(node.type(), longs[k], n);
+        }
+        if (widened[k]) {
+            long[] source = longs[k];
+            double[] target = doubles[k];
+            for (int i = 0; i < n; i++) target[i] = source[i];
+        }
+    }
+
+    private static void computeDouble(OperationType op, double[] z, double[] x, double[] y, int n) {
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < n; i++) z[i] = x[i] + y[i];
+                return;
+            case SUBTRACTION:
+                for (int i = 0; i < n; i++) z[i] = x[i] - y[i];
+                return;
+            case MULTIPLICATION:
+                for (int i = 0; i < n; i++) z[i] = x[i] * y[i];
+                return;
+            case DIVISION:
+                for (int i = 0; i < n; i++) z[i] = x[i] / y[i];
+                return;
+            case MODULO:
+                for (int i = 0; i < n; i++) z[i] = x[i] % y[i];
+                return;
+            default:
+                throw new UnsupportedOperationException(unsupportedOperation);
+        }
+    }
+
+    private static void computeLong(OperationType op, long[] z, long[] x, long[] y, int n) {
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < n; i++) z[i] = x[i] + y[i];
+                return;
+            case SUBTRACTION:
+                for (int i = 0; i < n; i++) z[i] = x[i] - y[i];
+                return;
+            case MULTIPLICATION:
+                for (int i = 0; i < n; i++) z[i] = x[i] * y[i];
+                return;
+            case DIVISION:
+                for (int i = 0; i < n; i++) z[i] = x[i] / y[i];
+                return;
+            case MODULO:
+                for (int i = 0; i < n; i++) z[i] = x[i] % y[i];
+                return;
+            case BITWISE_AND:
+                for (int i = 0; i < n; i++) z[i] = x[i] & y[i];
+                return;
+            case BITWISE_OR:
+                for (int i = 0; i < n; i++) z[i] = x[i] | y[i];
+                return;
+            case BITWISE_XOR:
+                for (int i = 0; i < n; i++) z[i] = x[i] ^ y[i];
+                return;
+            case INVERT:
+                for (int i = 0; i < n; i++) z[i] = ~x[i];
+                return;
+            default:
+                throw new UnsupportedOperationException(unsupportedOperation);
+        }
+    }
+
+    /**
+     * Wraps integer results around to the width of the node type, as the eager kernels do.
+     */
+    private static void narrow(DType type, long[] z, int n) {
+        switch (type) {
+            case INT32:
+                for (int i = 0; i < n; i++) z[i] = (int) z[i];
+                return;
+            case INT16:
+                for (int i = 0; i < n; i++) z[i] = (short) z[i];
+                return;
+            case INT8:
+                for (int i = 0; i < n; i++) z[i] = (byte) z[i];
+                return;
+            default:
+        }
+    }
+
+    /**
+     * Reads n strided elements of a storage into a block, widened to double. Also used by {@link Reductions}.
+     */
+    static void loadDouble(Storage storage, long position, long stride, double[] z, int n) {
+        switch (storage.hasArray() ? storage.dType() : DType.OBJECT) {
+            case FLOAT64: {
+                double[] x = (double[]) storage.array();
+                int p = (int) position, s = (int) stride;
+                for (int i = 0; i < n; i++, p += s) z[i] = x[p];
+                return;
+            }
+            case FLOAT32: {
+                float[] x = (float[]) storage.array();
+                int p = (int) position, s = (int) stride;
+                for (int i = 0; i < n; i++, p += s) z[i] = x[p];
+                return;
+            }
+            default:
+                if (stride == 1) storage.getDoubles(position, z, 0, n);
+                else for (int i = 0; i < n; i++, position += stride) z[i] = storage.getDouble(position);
+        }
+    }
+
+    /**
+     * Reads n strided elements of a storage into a block, widened to long. Also used by {@link Reductions}.
+     */
+    static void loadLong(Storage storage, long position, long stride, long[] z, int n) {
+        switch (storage.hasArray() ? storage.dType() : DType.OBJECT) {
+            case INT64: {
+                long[] x = (long[]) storage.array();
+                int p = (int) position, s = (int) stride;
+                for (int i = 0; i < n; i++, p += s) z[i] = x[p];
+                return;
+            }
+            case INT32: {
+                int[] x = (int[]) storage.array();
+                int p = (int) position, s = (int) stride;
+                for (int i = 0; i < n; i++, p += s) z[i] = x[p];
+                return;
+            }
+            default:
+                if (stride == 1) storage.getLongs(position, z, 0, n);
+                else for (int i = 0; i < n; i++, position += stride) z[i] = storage.getLong(position);
+        }
+    }
+
+    /**
+     * Writes n values of a block to strided positions of a storage, narrowed to its data type. Also used by {@link Scans}.
+     */
+    static void store(Storage storage, long position, long stride, boolean floating, double[] doubles, long[] longs, int n) {
+        switch (storage.hasArray() ? storage.dType() : DType.OBJECT) {
+            case FLOAT64: {
+                double[] z = (double[]) storage.array();
+                int p = (int) position, s = (int) stride;
+                if (floating) for (int i = 0; i < n; i++, p += s) z[p] = doubles[i];
+                else for (int i = 0; i < n; i++, p += s) z[p] = longs[i];
+                return;
+            }
+            case INT64: {
+                long[] z = (long[]) storage.array();
+                int p = (int) position, s = (int) stride;
+                for (int i = 0; i < n; i++, p += s) z[p] = longs[i];
+                return;
+            }
+            case INT32: {
+                int[] z = (int[]) storage.array();
+                int p = (int) position, s = (int) stride;
+                for (int i = 0; i < n; i++, p += s) z[p] = (int) longs[i];
+                return;
+            }
+            default:
+                if (stride == 1 && floating) storage.setDoubles(position, doubles, 0, n);
+                else if (stride == 1) storage.setLongs(position, longs, 0, n);
+                else if (floating) for (int i = 0; i < n; i++, position += stride) storage.setDouble(position, doubles[i]);
+                else for (int i = 0; i < n; i++, position += stride) storage.setLong(position, longs[i]);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.library.numj.operations;
+
+import com.library.numj.enums.DType;
+import com.library.numj.parallel.ChunkTask;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import java.util.Arrays;
+
+/**
+ * Blocked matrix multiplication kernels computing {@code C = A B} for a batch of matrices, each operand
+ * given by its storage, the storage position of every matrix of the batch and its row and column strides.
+ * <p>
+ * Floating point products follow the layout of optimised BLAS libraries. C is cut into blocks of {@link #MC}
+ * rows and {@link #NC} columns, every block being computed by one task, and the shared dimension is cut into
+ * slices of {@link #KC}. For every slice the task packs its rows of A into panels of {@link #MR} rows and its
+ * columns of B into panels of {@link #NR} columns, stored contiguously in the order the micro-kernel reads them,
+ * so any input layout, transposed views included, is read once with its strides and then streamed with unit
+ * strides. The micro-kernel keeps an {@code MR x NR} tile of C in local variables, which the JIT holds in
+ * registers, while the B panel in use stays in the L1 cache and the packed block of A in the L2 cache.
+ * Results of the first slice are stored, later slices are added to them, so C needs no clearing.
+ * <p>
+ * Integer products are accumulated in long, one row of C at a time.
+ * <p>
+ * Besides {@link #multiply} overwriting C, {@link #multiplyAdd} adds a multiple of the product to C, the form
+ * taken by the trailing updates of blocked factorizations; the factor is applied while packing A.
+ */
+public final class Gemm {
+    /** Rows of the register tile. */
+    static final int MR = 4;
+    /** Columns of the register tile. */
+    static final int NR = 4;
+    /** Length of the slices of the shared dimension packed at once. */
+    static final int KC = 256;
+    /** Rows of C computed by one task, a multiple of {@link #MR}. */
+    static final int MC = 128;
+    /** Columns of C computed by one task, a multiple of {@link #NR}. */
+    static final int NC = 512;
+    /** Number of multiply-adds below which a product stays on the calling thread. */
+    static final long PARALLEL_WORK = 1L << 20;
+
+    private Gemm() {
+    }
+
+    /**
+     * A batch of matrices held in one storage.
+     */
+    public static final class Operand {
+        /** The storage holding the matrices. */
+        final Storage storage;
+        /** The storage position of the first element of every matrix of the batch. */
+        final long[] offsets;
+        /** The distance between consecutive rows. */
+        final long rowStride;
+        /** The distance between consecutive columns. */
+        final long columnStride;
+
+        /**
+         * Describes a batch of matrices sharing their strides.
+         *
+         * @param storage      The storage holding the matrices.
+         * @param offsets      The storage position of the first element of every matrix of the batch.
+         * @param rowStride    The distance between consecutive rows.
+         * @param columnStride The distance between consecutive columns.
+         */
+        public Operand(Storage storage, long[] offsets, long rowStride, long columnStride) {
+            this.storage = storage;
+            this.offsets = offsets;
+            this.rowStride = rowStride;
+            this.columnStride = columnStride;
+        }
+    }
+
+    /**
+     * Computes {@code C = A B} for every matrix of the batch.
+     *
+     * @param type The data type the product is computed in, the data type of C.
+     * @param m    The number of rows of A and C.
+     * @param n    The number of columns of B and C.
+     * @param k    The number of columns of A and rows of B.
+     * @param a    The left matrices.
+     * @param b    The right matrices.
+     * @param c    The result matrices, with as many positions as the batch.
+     */
+    public static void multiply(DType type, int m, int n, int k, Operand a, Operand b, Operand c) {
+        multiply(type, m, n, k, 1, a, b, c, false);
+    }
+
+    /**
+     * Computes {@code C = C + alpha A B} for every matrix of the batch. C must not overlap A or B.
+     *
+     * @param type  The data type the product is computed in, the data type of C.
+     * @param m     The number of rows of A and C.
+     * @param n     The number of columns of B and C.
+     * @param k     The number of columns of A and rows of B.
+     * @param alpha The factor of the product, integral for integer types.
+     * @param a     The left matrices.
+     * @param b     The right matrices.
+     * @param c     The matrices updated, with as many positions as the batch.
+     */
+    public static void multiplyAdd(DType type, int m, int n, int k, double alpha, Operand a, Operand b, Operand c) {
+        multiply(type, m, n, k, alpha, a, b, c, true);
+    }
+
+    private static void multiply(DType type, int m, int n, int k, double alpha, Operand a, Operand b, Operand c, boolean accumulate) {
+        int batches = c.offsets.length;
+        if (m == 0 || n == 0 || batches == 0 || (accumulate && (k == 0 || alpha == 0))) {
+            return;
+        }
+        long work = (long) m * n * Math.max(1, k) * batches;
+        if (!type.isFloatingPoint()) {
+            long rows = (long) batches * m;
+            int rowsPerChunk = (int) Math.max(1, Math.min(rows, ExecutionEngine.getChunkSize() / Math.max(1L, (long) n * k)));
+            run(rows, rowsPerChunk, work, (start, end) -> multiplyLong(m, n, k, (long) alpha, a, b, c, accumulate, start, end));
+            return;
+        }
+        int rowBlocks = (m + MC - 1) / MC;
+        int columnBlocks = (n + NC - 1) / NC;
+        int blocks = rowBlocks * columnBlocks;
+        run((long) batches * blocks, 1, work, (start, end) -> {
+            Blocks task = type == DType.FLOAT32 ? new FloatBlocks(alpha) : new DoubleBlocks(alpha);
+            for (long t = start; t < end; t++) {
+                int batch = (int) (t / blocks);
+                int block = (int) (t % blocks);
+                int row = (block / columnBlocks) * MC;
+                int column = (block % columnBlocks) * NC;
+                task.compute(k, a.storage, a.offsets[batch] + row * a.rowStride, a.rowStride, a.columnStride,
+                        b.storage, b.offsets[batch] + column * b.columnStride, b.rowStride, b.columnStride,
+                        c.storage, c.offsets[batch] + row * c.rowStride + column * c.columnStride, c.rowStride, c.columnStride,
+                        Math.min(MC, m - row), Math.min(NC, n - column), accumulate);
+            }
+        });
+    }
+
+    /**
+     * Runs tasks on the calling thread for small products, otherwise on the shared execution context.
+     */
+    private static void run(long tasks, int tasksPerChunk, long work, ChunkTask task) {
+        if (work < PARALLEL_WORK) {
+            task.run(0, tasks);
+        } else {
+            ExecutionContext.getDefault().forEachChunk(tasks, tasksPerChunk, task);
+        }
+    }
+
+    /**
+     * Computes rows start to end of the integer products, numbered over the whole batch.
+     */
+    private static void multiplyLong(int m, int n, int k, long alpha, Operand a, Operand b, Operand c, boolean accumulate,
+                                     long start, long end) {
+        long[] row = new long[n];
+        long[] sums = new long[n];
+        for (long t = start; t < end; t++) {
+            int batch = (int) (t / m);
+            int i = (int) (t % m);
+            long cPosition = c.offsets[batch] + i * c.rowStride;
+            if (accumulate) {
+                FusedEvaluator.loadLong(c.storage, cPosition, c.columnStride, sums, n);
+            } else {
+                Arrays.fill(sums, 0);
+            }
+            long aPosition = a.offsets[batch] + i * a.rowStride;
+            long bPosition = b.offsets[batch];
+            for (int p = 0; p < k; p++, aPosition += a.columnStride, bPosition += b.rowStride) {
+                long value = alpha * a.storage.getLong(aPosition);
+                if (value == 0) {
+                    continue;
+                }
+                FusedEvaluator.loadLong(b.storage, bPosition, b.columnStride, row, n);
+                for (int j = 0; j < n; j++) {
+                    sums[j] += value * row[j];
+                }
+            }
+            FusedEvaluator.store(c.storage, cPosition, c.columnStride, false, null, sums, n);
+        }
+    }
+
+    /**
+     * Computes blocks of C with packing buffers owned by one thread.
+     */
+    private abstract static class Blocks {
+        /** The factor applied to A while it is packed. */
+        final double alpha;
+
+        Blocks(double alpha) {
+            this.alpha = alpha;
+        }
+
+        /**
+         * Computes one block of C over the whole shared dimension.
+         *
+         * @param k       The length of the shared dimension.
+         * @param a       The storage of A.
+         * @param aOrigin The position of the first element of the rows of A used by the block.
+         * @param aRow    The row stride of A.
+         * @param aColumn The column stride of A.
+         * @param b       The storage of B.
+         * @param bOrigin The position of the first element of the columns of B used by the block.
+         * @param bRow    The row stride of B.
+         * @param bColumn The column stride of B.
+         * @param c       The storage of C.
+         * @param cOrigin The position of the first element of the block.
+         * @param cRow    The row stride of C.
+         * @param cColumn The column stride of C.
+         * @param mc      The number of rows of the block.
+         * @param nc      The number of columns of the block.
+         * @param accumulate Whether the product is added to the previous content of C.
+         */
+        final void compute(int k, Storage a, long aOrigin, long aRow, long aColumn,
+                           Storage b, long bOrigin, long bRow, long bColumn,
+                           Storage c, long cOrigin, long cRow, long cColumn, int mc, int nc, boolean accumulate) {
+            if (k == 0) {
+                clear(c, cOrigin, cRow, cColumn, mc, nc);
+                return;
+            }
+            for (int p = 0; p < k; p += KC) {
+                int kc = Math.min(KC, k - p);
+                packB(b, bOrigin + p * bRow, bRow, bColumn, kc, nc);
+                packA(a, aOrigin + p * aColumn, aRow, aColumn, mc, kc);
+                for (int jr = 0; jr < nc; jr += NR) {
+                    for (int ir = 0; ir < mc; ir += MR) {
+                        tile(kc, ir * kc, jr * kc);
+                        store(c, cOrigin + ir * cRow + jr * cColumn, cRow, cColumn,
+                                Math.min(MR, mc - ir), Math.min(NR, nc - jr), accumulate || p > 0);
+                    }
+                }
+            }
+        }
+
+        /** Packs mc rows of a kc wide slice of A, scaled by alpha, into panels of MR rows, padded with zeros. */
+        abstract void packA(Storage a, long origin, long rowStride, long columnStride, int mc, int kc);
+
+        /** Packs nc columns of a kc high slice of B into panels of NR columns, padded with zeros. */
+        abstract void packB(Storage b, long origin, long rowStride, long columnStride, int kc, int nc);
+
+        /** Multiplies the packed A panel at aStart by the packed B panel at bStart into the tile. */
+        abstract void tile(int kc, int aStart, int bStart);
+
+        /** Writes or adds the valid part of the tile to C. */
+        abstract void store(Storage c, long origin, long rowStride, long columnStride, int rows, int columns, boolean accumulate);
+
+        /** Sets a block of C to zero when the shared dimension is empty. */
+        private void clear(Storage c, long origin, long rowStride, long columnStride, int rows, int columns) {
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    c.setDouble(origin + i * rowStride + j * columnStride, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Blocks computed in double precision.
+     */
+    private static final class DoubleBlocks extends Blocks {
+        private final double[] aPack = new double[MC * KC];
+        private final double[] bPack = new double[KC * NC];
+        private final double[] tile = new double[MR * NR];
+
+        DoubleBlocks(double alpha) {
+            super(alpha);
+        }
+
+        @Override
+        void packA(Storage a, long origin, long rowStride, long columnStride, int mc, int kc) {
+            double[] x = a.hasArray() && a.dType() == DType.FLOAT64 ? (double[]) a.array() : null;
+            int q = 0;
+            for (int ir = 0; ir < mc; ir += MR) {
+                int rows = Math.min(MR, mc - ir);
+                for (int p = 0; p < kc; p++) {
+                    long position = origin + ir * rowStride + p * columnStride;
+                    for (int r = 0; r < MR; r++, position += rowStride) {
+                        aPack[q++] = r >= rows ? 0 : alpha * (x != null ? x[(int) position] : a.getDouble(position));
+                    }
+                }
+            }
+        }
+
+        @Override
+        void packB(Storage b, long origin, long rowStride, long columnStride, int kc, int nc) {
+            double[] x = b.hasArray() && b.dType() == DType.FLOAT64 ? (double[]) b.array() : null;
+            int q = 0;
+            for (int jr = 0; jr < nc; jr += NR) {
+                int columns = Math.min(NR, nc - jr);
+                for (int p = 0; p < kc; p++) {
+                    long position = origin + p * rowStride + jr * columnStride;
+                    for (int j = 0; j < NR; j++, position += columnStride) {
+                        bPack[q++] = j >= columns ? 0 : x != null ? x[(int) position] : b.getDouble(position);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void tile(int kc, int ai, int bi) {
+            double[] a = aPack, b = bPack;
+            double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+            double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+            double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+            double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+            for (int p = 0; p < kc; p++, ai += MR, bi += NR) {
+                double a0 = a[ai], a1 = a[ai + 1], a2 = a[ai + 2], a3 = a[ai + 3];
+                double b0 = b[bi], b1 = b[bi + 1], b2 = b[bi + 2], b3 = b[bi + 3];
+                c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+                c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+                c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+                c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+            }
+            double[] t = tile;
+            t[0] = c00; t[1] = c01; t[2] = c02; t[3] = c03;
+            t[4] = c10; t[5] = c11; t[6] = c12; t[7] = c13;
+            t[8] = c20; t[9] = c21; t[10] = c22; t[11] = c23;
+            t[12] = c30; t[13] = c31; t[14] = c32; t[15] = c33;
+        }
+
+        @Override
+        void store(Storage c, long origin, long rowStride, long columnStride, int rows, int columns, boolean accumulate) {
+            double[] z = c.hasArray() && c.dType() == DType.FLOAT64 ? (double[]) c.array() : null;
+            for (int i = 0; i < rows; i++) {
+                long position = origin + i * rowStride;
+                for (int j = 0; j < columns; j++, position += columnStride) {
+                    double value = tile[i * NR + j];
+                    if (z != null) {
+                        z[(int) position] = accumulate ? z[(int) position] + value : value;
+                    } else {
+                        c.setDouble(position, accumulate ? c.getDouble(position) + value : value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Blocks computed in single precision, for products of FLOAT32 matrices.
+     */
+    private static final class FloatBlocks extends Blocks {
+        private final float[] aPack = new float[MC * KC];
+        private final float[] bPack = new float[KC * NC];
+        private final float[] tile = new float[MR * NR];
+
+        FloatBlocks(double alpha) {
+            super(alpha);
+        }
+
+        @Override
+        void packA(Storage a, long origin, long rowStride, long columnStride, int mc, int kc) {
+            float[] x = a.hasArray() && a.dType() == DType.FLOAT32 ? (float[]) a.array() : null;
+            int q = 0;
+            for (int ir = 0; ir < mc; ir += MR) {
+                int rows = Math.min(MR, mc - ir);
+                for (int p = 0; p < kc; p++) {
+                    long position = origin + ir * rowStride + p * columnStride;
+                    for (int r = 0; r < MR; r++, position += rowStride) {
+                        aPack[q++] = r >= rows ? 0 : (float) (alpha * (x != null ? x[(int) position] : a.getDouble(position)));
+                    }
+                }
+            }
+        }
+
+        @Override
+        void packB(Storage b, long origin, long rowStride, long columnStride, int kc, int nc) {
+            float[] x = b.hasArray() && b.dType() == DType.FLOAT32 ? (float[]) b.array() : null;
+            int q = 0;
+            for (int jr = 0; jr < nc; jr += NR) {
+                int columns = Math.min(NR, nc - jr);
+                for (int p = 0; p < kc; p++) {
+                    long position = origin + p * rowStride + jr * columnStride;
+                    for (int j = 0; j < NR; j++, position += columnStride) {
+                        bPack[q++] = j >= columns ? 0 : x != null ? x[(int) position] : (float) b.getDouble(position);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void tile(int kc, int ai, int bi) {
+            float[] a = aPack, b = bPack;
+            float c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+            float c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+            float c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+            float c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+            for (int p = 0; p < kc; p++, ai += MR, bi += NR) {
+                float a0 = a[ai], a1 = a[ai + 1], a2 = a[ai + 2], a3 = a[ai + 3];
+                float b0 = b[bi], b1 = b[bi + 1], b2 = b[bi + 2], b3 = b[bi + 3];
+                c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+                c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+                c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+                c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+            }
+            float[] t = tile;
+            t[0] = c00; t[1] = c01; t[2] = c02; t[3] = c03;
+            t[4] = c10; t[5] = c11; t[6] = c12; t[7] = c13;
+            t[8] = c20; t[9] = c21; t[10] = c22; t[11] = c23;
+            t[12] = c30; t[13] = c31; t[14] = c32; t[15] = c33;
+        }
+
+        @Override
+        void store(Storage c, long origin, long rowStride, long columnStride, int rows, int columns, boolean accumulate) {
+            float[] z = c.hasArray() && c.dType() == DType.FLOAT32 ? (float[]) c.array() : null;
+            for (int i = 0; i < rows; i++) {
+                long position = origin + i * rowStride;
+                for (int j = 0; j < columns; j++, position += columnStride) {
+                    float value = tile[i * NR + j];
+                    if (z != null) {
+                        z[(int) position] = accumulate ? z[(int) position] + value : value;
+                    } else {
+                        c.setDouble(position, accumulate ? (float) c.getDouble(position) + value : value);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.library.numj.operations;
+
+import com.library.numj.enums.DType;
+import com.library.numj.enums.OperationType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import static com.library.numj.ExceptionMessages.castingException;
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * Table of element-wise kernels keyed by ({@link OperationType}, {@link DType}, {@link DType}).
+ * <p>
+ * The result type of every entry follows {@link DType#promote(DType)}, so the kernel and the
+ * output type are decided once per call rather than once per element. Operands of the same type
+ * run a loop over their primitive arrays; mixed operands are widened through the storage
+ * accessors to double (floating point results) or long (integer results) and narrowed once on store,
+ * which is also how operands without a single backing array, such as off-heap or chunked storages, are processed.
+ * Bitwise operations and inversion are only defined for integer types. {@link DType#OBJECT}
+ * operands have no kernel and are left to the boxed path of {@link ArithmaticOperations}.
+ */
+public final class KernelTable {
+    /** Binary kernels indexed by operation, then by the ordinals of the left and right operand types. */
+    static final Map<OperationType, BinaryKernel[][]> binaryKernels = new EnumMap<>(OperationType.class);
+    /** Unary kernels indexed by operation, then by the ordinal of the operand type. */
+    static final Map<OperationType, UnaryKernel[]> unaryKernels = new EnumMap<>(OperationType.class);
+
+    static {
+        int types = DType.values().length;
+        for (OperationType op : OperationType.values()) {
+            if (op == OperationType.INVERT) {
+                unaryKernels.put(op, new UnaryKernel[]{
+                        null, null,
+                        withFallback((z, zo, zs, x, xo, xs, n) -> PrimitiveKernels.invertInt8((byte[]) z.array(), (int) zo, (int) zs, (byte[]) x.array(), (int) xo, (int) xs, n)),
+                        withFallback((z, zo, zs, x, xo, xs, n) -> PrimitiveKernels.invertInt16((short[]) z.array(), (int) zo, (int) zs, (short[]) x.array(), (int) xo, (int) xs, n)),
+                        withFallback((z, zo, zs, x, xo, xs, n) -> PrimitiveKernels.invertInt32((int[]) z.array(), (int) zo, (int) zs, (int[]) x.array(), (int) xo, (int) xs, n)),
+                        withFallback((z, zo, zs, x, xo, xs, n) -> PrimitiveKernels.invertInt64((long[]) z.array(), (int) zo, (int) zs, (long[]) x.array(), (int) xo, (int) xs, n)),
+                        null
+                });
+                continue;
+            }
+            BinaryKernel[][] table = new BinaryKernel[types][types];
+            for (DType left : DType.values()) {
+                for (DType right : DType.values()) {
+                    table[left.ordinal()][right.ordinal()] = createBinary(op, left, right);
+                }
+            }
+            binaryKernels.put(op, table);
+        }
+    }
+
+    private KernelTable() {
+    }
+
+    /**
+     * Looks up the kernel applying a binary operation to operands of the given types.
+     * The kernel writes into an output of type {@code left.promote(right)}.
+     *
+     * @param op    The operation.
+     * @param left  The data type of the first operand.
+     * @param right The data type of the second operand.
+     * @return The kernel, or null for {@link DType#OBJECT} operands.
+     * @throws UnsupportedOperationException If the operation is not defined for the promoted type.
+     */
+    public static BinaryKernel binary(OperationType op, DType left, DType right) {
+        if (left.promote(right) == DType.OBJECT) {
+            return null;
+        }
+        BinaryKernel[][] table = binaryKernels.get(op);
+        BinaryKernel kernel = table == null ? null : table[left.ordinal()][right.ordinal()];
+        if (kernel == null) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        return kernel;
+    }
+
+    /**
+     * Looks up the kernel applying a binary operation to operands of the given types and writing
+     * into an output of the given type. When the output type differs from the promoted type the
+     * result is computed in the promoted type and cast on store.
+     *
+     * @param op    The operation.
+     * @param left  The data type of the first operand.
+     * @param right The data type of the second operand.
+     * @param out   The data type of the output.
+     * @return The kernel, or null for {@link DType#OBJECT} operands.
+     * @throws UnsupportedOperationException If the operation is not defined for the promoted type.
+     * @throws IllegalArgumentException      If the promoted type cannot be cast to the output type.
+     */
+    public static BinaryKernel binary(OperationType op, DType left, DType right, DType out) {
+        DType result = left.promote(right);
+        if (!result.canCastTo(out)) {
+            throw new IllegalArgumentException(castingException(result, out));
+        }
+        BinaryKernel kernel = binary(op, left, right);
+        if (kernel == null || result == out) {
+            return kernel;
+        }
+        if (result.isFloatingPoint()) {
+            DoubleBinaryOperator f = doubleOperator(op);
+            return (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.mixedDouble(f, z, zo, zs, x, xo, xs, y, yo, ys, n);
+        }
+        LongBinaryOperator f = longOperator(op);
+        return (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.mixedLong(f, z, zo, zs, x, xo, xs, y, yo, ys, n);
+    }
+
+    /**
+     * Looks up the kernel applying a unary operation to an operand of the given type.
+     * The kernel writes into an output of the same type.
+     *
+     * @param op   The operation.
+     * @param type The data type of the operand.
+     * @return The kernel, or null for {@link DType#OBJECT} operands.
+     * @throws UnsupportedOperationException If the operation is not defined for the type.
+     */
+    public static UnaryKernel unary(OperationType op, DType type) {
+        if (type == DType.OBJECT) {
+            return null;
+        }
+        UnaryKernel[] table = unaryKernels.get(op);
+        UnaryKernel kernel = table == null ? null : table[type.ordinal()];
+        if (kernel == null) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        return kernel;
+    }
+
+    /**
+     * Looks up the kernel applying a unary operation to an operand of the given type and writing
+     * into an output of the given type.
+     *
+     * @param op   The operation.
+     * @param type The data type of the operand.
+     * @param out  The data type of the output.
+     * @return The kernel, or null for {@link DType#OBJECT} operands.
+     * @throws UnsupportedOperationException If the operation is not defined for the type.
+     * @throws IllegalArgumentException      If the operand type cannot be cast to the output type.
+     */
+    public static UnaryKernel unary(OperationType op, DType type, DType out) {
+        if (!type.canCastTo(out)) {
+            throw new IllegalArgumentException(castingException(type, out));
+        }
+        UnaryKernel kernel = unary(op, type);
+        if (kernel == null || type == out) {
+            return kernel;
+        }
+        return PrimitiveKernels::mixedInvert;
+    }
+
+    /**
+     * Builds the kernel for one (operation, left type, right type) entry.
+     *
+     * @return The kernel, or null if the combination is not supported.
+     */
+    private static BinaryKernel createBinary(OperationType op, DType left, DType right) {
+        DType result = left.promote(right);
+        if (result == DType.OBJECT) {
+            return null;
+        }
+        BinaryKernel accessor = createAccessor(op, result);
+        if (left != right || accessor == null) {
+            return accessor;
+        }
+        BinaryKernel typed = createTyped(op, result);
+        if (typed == null) {
+            return accessor;
+        }
+        // Typed loops need the backing arrays, off-heap and chunked operands go through the accessors
+        return (z, zo, zs, x, xo, xs, y, yo, ys, n) -> {
+            if (z.hasArray() && x.hasArray() && y.hasArray()) {
+                typed.apply(z, zo, zs, x, xo, xs, y, yo, ys, n);
+            } else {
+                accessor.apply(z, zo, zs, x, xo, xs, y, yo, ys, n);
+            }
+        };
+    }
+
+    /**
+     * Wraps a typed unary kernel so that operands without a backing array go through the accessors.
+     */
+    private static UnaryKernel withFallback(UnaryKernel typed) {
+        return (z, zo, zs, x, xo, xs, n) -> {
+            if (z.hasArray() && x.hasArray()) {
+                typed.apply(z, zo, zs, x, xo, xs, n);
+            } else {
+                PrimitiveKernels.mixedInvert(z, zo, zs, x, xo, xs, n);
+            }
+        };
+    }
+
+    /**
+     * Builds the loop over the primitive arrays of operands of the same type.
+     *
+     * @return The kernel, or null if the type has no typed loop.
+     */
+    private static BinaryKernel createTyped(OperationType op, DType result) {
+        switch (result) {
+            case FLOAT64:
+                return isArithmetic(op) ? (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.float64(op,
+                        (double[]) z.array(), (int) zo, (int) zs, (double[]) x.array(), (int) xo, (int) xs, (double[]) y.array(), (int) yo, (int) ys, n) : null;
+            case FLOAT32:
+                return isArithmetic(op) ? (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.float32(op,
+                        (float[]) z.array(), (int) zo, (int) zs, (float[]) x.array(), (int) xo, (int) xs, (float[]) y.array(), (int) yo, (int) ys, n) : null;
+            case INT64:
+                return (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.int64(op,
+                        (long[]) z.array(), (int) zo, (int) zs, (long[]) x.array(), (int) xo, (int) xs, (long[]) y.array(), (int) yo, (int) ys, n);
+            case INT32:
+                return (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.int32(op,
+                        (int[]) z.array(), (int) zo, (int) zs, (int[]) x.array(), (int) xo, (int) xs, (int[]) y.array(), (int) yo, (int) ys, n);
+            case INT16:
+                return (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.int16(op,
+                        (short[]) z.array(), (int) zo, (int) zs, (short[]) x.array(), (int) xo, (int) xs, (short[]) y.array(), (int) yo, (int) ys, n);
+            case INT8:
+                return (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.int8(op,
+                        (byte[]) z.array(), (int) zo, (int) zs, (byte[]) x.array(), (int) xo, (int) xs, (byte[]) y.array(), (int) yo, (int) ys, n);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Builds the loop going through the storage accessors, widening operands to double or long.
+     *
+     * @return The kernel, or null if the operation is not defined for the result type.
+     */
+    private static BinaryKernel createAccessor(OperationType op, DType result) {
+        if (result.isFloatingPoint()) {
+            DoubleBinaryOperator f = doubleOperator(op);
+            return f == null ? null : (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.mixedDouble(f, z, zo, zs, x, xo, xs, y, yo, ys, n);
+        }
+        LongBinaryOperator f = longOperator(op);
+        return (z, zo, zs, x, xo, xs, y, yo, ys, n) -> PrimitiveKernels.mixedLong(f, z, zo, zs, x, xo, xs, y, yo, ys, n);
+    }
+
+    /**
+     * Checks whether the operation is defined for floating point types.
+     */
+    private static boolean isArithmetic(OperationType op) {
+        return doubleOperator(op) != null;
+    }
+
+    private static DoubleBinaryOperator doubleOperator(OperationType op) {
+        switch (op) {
+            case ADDITION: return (a, b) -> a + b;
+            case SUBTRACTION: return (a, b) -> a - b;
+            case MULTIPLICATION: return (a, b) -> a * b;
+            case DIVISION: return (a, b) -> a / b;
+            case MODULO: return (a, b) -> a % b;
+            default: return null;
+        }
+    }
+
+    private static LongBinaryOperator longOperator(OperationType op) {
+        switch (op) {
+            case ADDITION: return (a, b) -> a + b;
+            case SUBTRACTION: return (a, b) -> a - b;
+            case MULTIPLICATION: return (a, b) -> a * b;
+            case DIVISION: return (a, b) -> a / b;
+            case MODULO: return (a, b) -> a % b;
+            case BITWISE_AND: return (a, b) -> a & b;
+            case BITWISE_OR: return (a, b) -> a | b;
+            case BITWISE_XOR: return (a, b) -> a ^ b;
+            default: return null;
+        }
+    }
+}
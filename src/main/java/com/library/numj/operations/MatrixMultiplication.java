@@ -0,0 +1,182 @@
+package com.library.numj.operations;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.Utils;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.OperationType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.storage.Storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.library.numj.ExceptionMessages.matmulShapeException;
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * The {@code MatrixMultiplication} class provides the matrix products of {@link NDArray} objects,
+ * {@code matmul} and {@code dot}, with the semantics of NumPy.
+ * <p>
+ * Operands are handed to the blocked kernels of {@link Gemm} as they are laid out in memory: transposed
+ * and sliced views are packed by the kernels, so no contiguous copy of the operands is made. Stacks of
+ * matrices are multiplied pairwise after broadcasting their leading dimensions, every matrix of the stack
+ * being addressed by its storage position. Products involving a vector are handed to the level 1 and 2
+ * kernels of {@link Blas} instead. The result type follows {@link DType#promote(DType)}.
+ */
+@SuppressWarnings("unchecked")
+public class MatrixMultiplication {
+    /** Utility instance for broadcasting the leading dimensions of stacks of matrices. */
+    Utils utils;
+
+    /**
+     * Constructs an instance of {@code MatrixMultiplication} and initializes utilities.
+     */
+    public MatrixMultiplication() {
+        utils = new Utils();
+    }
+
+    /**
+     * Computes the matrix product of two NDArrays. Arrays with more than two dimensions are stacks of matrices
+     * held in the last two dimensions, whose leading dimensions are broadcast together. A one-dimensional left
+     * operand is a single row and a one-dimensional right operand a single column, the added dimension being
+     * removed from the result.
+     *
+     * @param a The left operand.
+     * @param b The right operand.
+     * @return A new NDArray holding the product.
+     * @throws ShapeException                If an operand is zero-dimensional, the inner dimensions differ or the
+     *                                       leading dimensions cannot be broadcast together.
+     * @throws UnsupportedOperationException If an operand holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> matmul(NDArray<T> a, NDArray<T> b) throws ShapeException {
+        int[] aShape = a.shapeArray();
+        int[] bShape = b.shapeArray();
+        if (aShape.length == 0 || bShape.length == 0) {
+            throw new ShapeException(matmulShapeException(aShape, bShape));
+        }
+        DType type = a.type().promote(b.type());
+        if (type == DType.OBJECT) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+
+        // Vectors take part as a single row or column with a zero stride along the added dimension
+        boolean rowVector = aShape.length == 1;
+        boolean columnVector = bShape.length == 1;
+        int[] aMatrix = rowVector ? new int[]{1, aShape[0]} : aShape;
+        long[] aStrides = rowVector ? new long[]{0, a.elementStrides()[0]} : a.elementStrides();
+        int[] bMatrix = columnVector ? new int[]{bShape[0], 1} : bShape;
+        long[] bStrides = columnVector ? new long[]{b.elementStrides()[0], 0} : b.elementStrides();
+        int m = aMatrix[aMatrix.length - 2];
+        int k = aMatrix[aMatrix.length - 1];
+        int n = bMatrix[bMatrix.length - 1];
+        if (bMatrix[bMatrix.length - 2] != k) {
+            throw new ShapeException(matmulShapeException(aShape, bShape));
+        }
+        int[] aBatch = Arrays.copyOf(aMatrix, aMatrix.length - 2);
+        int[] bBatch = Arrays.copyOf(bMatrix, bMatrix.length - 2);
+        int[] batchShape = utils.broadcastShapes(asList(aBatch), asList(bBatch));
+
+        int[] fullShape = Arrays.copyOf(batchShape, batchShape.length + 2);
+        fullShape[batchShape.length] = m;
+        fullShape[batchShape.length + 1] = n;
+        if (rowVector && columnVector) {
+            return Blas.dot(a, b);
+        }
+        Storage output = Storage.allocate(type, utils.getSize(fullShape), ArithmaticOperations.resultStorageType(type, a, b));
+        if (batchShape.length == 0 && (rowVector || columnVector)) {
+            // Matrix-vector products skip packing and run the level 2 kernel
+            NDArray<R> y = new NumJ().array(output, new int[]{rowVector ? n : m});
+            if (rowVector) Blas.multiplyVector(1, b.transpose(), a, 0, y);
+            else Blas.multiplyVector(1, a, b, 0, y);
+            return y;
+        }
+        long[] cStrides = new long[batchShape.length];
+        long stride = (long) m * n;
+        for (int d = batchShape.length - 1; d >= 0; d--) {
+            cStrides[d] = stride;
+            stride *= batchShape[d];
+        }
+
+        // Locate every matrix of the broadcast stack in the three storages
+        BroadcastIterator batches = new BroadcastIterator(batchShape, new long[]{a.offset(), b.offset(), 0},
+                new int[][]{aBatch, bBatch, batchShape},
+                new long[][]{Arrays.copyOf(aStrides, aBatch.length), Arrays.copyOf(bStrides, bBatch.length), cStrides});
+        int count = (int) batches.size();
+        long[] aOffsets = new long[count];
+        long[] bOffsets = new long[count];
+        long[] cOffsets = new long[count];
+        int q = 0;
+        while (batches.next()) {
+            for (int i = 0; i < batches.innerSize(); i++, q++) {
+                aOffsets[q] = batches.offset(0) + i * batches.innerStride(0);
+                bOffsets[q] = batches.offset(1) + i * batches.innerStride(1);
+                cOffsets[q] = batches.offset(2) + i * batches.innerStride(2);
+            }
+        }
+        Gemm.multiply(type, m, n, k,
+                new Gemm.Operand(a.storage(), aOffsets, aStrides[aStrides.length - 2], aStrides[aStrides.length - 1]),
+                new Gemm.Operand(b.storage(), bOffsets, bStrides[bStrides.length - 2], bStrides[bStrides.length - 1]),
+                new Gemm.Operand(output, cOffsets, n, 1));
+
+        List<Integer> shape = asList(batchShape);
+        if (!rowVector) shape.add(m);
+        if (!columnVector) shape.add(n);
+        return new NumJ().array(output, shape.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Computes the dot product of two NDArrays. Zero-dimensional operands are multiplied element-wise and
+     * operands of at most two dimensions follow {@link #matmul(NDArray, NDArray)}. Otherwise the product sums
+     * over the last axis of the left operand and the second to last axis of the right operand, the result
+     * having the remaining dimensions of the left operand followed by those of the right operand.
+     *
+     * @param a The left operand.
+     * @param b The right operand.
+     * @return A new NDArray holding the product.
+     * @throws ShapeException                If the summed dimensions differ.
+     * @throws UnsupportedOperationException If an operand holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> dot(NDArray<T> a, NDArray<T> b) throws ShapeException {
+        if (a.ndim() == 0 || b.ndim() == 0) {
+            return new ArithmaticOperations().operate(a, b, OperationType.MULTIPLICATION);
+        }
+        if (b.ndim() <= 2) {
+            return matmul(a, b);
+        }
+        int[] aShape = a.shapeArray();
+        int[] bShape = b.shapeArray();
+        int nb = bShape.length;
+        int k = aShape[aShape.length - 1];
+        if (bShape[nb - 2] != k) {
+            throw new ShapeException(matmulShapeException(aShape, bShape));
+        }
+        // Move the summed axis of b first, then both operands become plain matrices
+        int[] axes = new int[nb];
+        axes[0] = nb - 2;
+        for (int d = 0; d < nb - 2; d++) {
+            axes[d + 1] = d;
+        }
+        axes[nb - 1] = nb - 1;
+        int rows = (int) utils.getSize(Arrays.copyOf(aShape, aShape.length - 1));
+        int columns = (int) (utils.getSize(Arrays.copyOf(bShape, nb - 2)) * bShape[nb - 1]);
+        NDArray<T> left = a.reshape(rows, k);
+        NDArray<T> right = b.transpose(axes).reshape(k, columns);
+        NDArray<R> product = matmul(left, right);
+
+        int[] shape = new int[aShape.length - 1 + nb - 1];
+        System.arraycopy(aShape, 0, shape, 0, aShape.length - 1);
+        System.arraycopy(bShape, 0, shape, aShape.length - 1, nb - 2);
+        shape[shape.length - 1] = bShape[nb - 1];
+        return product.reshape(shape);
+    }
+
+    private static List<Integer> asList(int[] shape) {
+        List<Integer> list = new ArrayList<>(shape.length + 2);
+        for (int dim : shape) {
+            list.add(dim);
+        }
+        return list;
+    }
+}
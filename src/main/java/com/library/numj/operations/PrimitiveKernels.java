@@ -0,0 +1,491 @@
+package com.library.numj.operations;
+
+import com.library.numj.enums.OperationType;
+import com.library.numj.storage.Storage;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * Primitive element-wise loops used by {@link KernelTable}.
+ * <p>
+ * There is one method per data type working directly on the backing arrays of the storages.
+ * The operation is selected once per inner run, never per element, and a unit-stride variant
+ * of every loop is kept so the JIT can unroll and vectorize the common contiguous case. On Java 17
+ * and later the contiguous FLOAT64, FLOAT32, INT64 and INT32 loops first hand whole vectors to
+ * {@link VectorKernels}, the scalar loop only finishing the tail.
+ * Byte and short results wrap around on overflow, integer division truncates towards zero
+ * and throws {@link ArithmeticException} on a zero divisor. The typed loops take {@code int} positions,
+ * since a single backing array is at most {@link Storage#MAX_ARRAY_LENGTH} long; the accessor loops
+ * take {@code long} positions and work on storages of any length.
+ */
+final class PrimitiveKernels {
+    /** Blocks the mixed-type loops widen their operands into, owned by the running thread. */
+    private static final ThreadLocal<Blocks> BLOCKS = ThreadLocal.withInitial(Blocks::new);
+
+    private PrimitiveKernels() {
+    }
+
+    /**
+     * Scratch blocks of {@link FusedEvaluator#BLOCK_SIZE} elements for both operands of the mixed-type loops.
+     */
+    private static final class Blocks {
+        final double[] doubleX = new double[FusedEvaluator.BLOCK_SIZE];
+        final double[] doubleY = new double[FusedEvaluator.BLOCK_SIZE];
+        final long[] longX = new long[FusedEvaluator.BLOCK_SIZE];
+        final long[] longY = new long[FusedEvaluator.BLOCK_SIZE];
+    }
+
+    /**
+     * Applies a binary operation to FLOAT64 operands producing FLOAT64 results.
+     */
+    static void float64(OperationType op, double[] z, int zo, int zs, double[] x, int xo, int xs, double[] y, int yo, int ys, int n) {
+        if (zs == 1 && xs == 1 && ys == 1) {
+            int done = VectorKernels.float64(op, z, zo, x, xo, y, yo, n);
+            zo += done;
+            xo += done;
+            yo += done;
+            n -= done;
+            switch (op) {
+                case ADDITION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] + y[yo + i];
+                    return;
+                case SUBTRACTION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] - y[yo + i];
+                    return;
+                case MULTIPLICATION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] * y[yo + i];
+                    return;
+                case DIVISION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] / y[yo + i];
+                    return;
+                case MODULO:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] % y[yo + i];
+                    return;
+                default:
+                    throw new UnsupportedOperationException(unsupportedOperation);
+            }
+        }
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] + y[yo];
+                return;
+            case SUBTRACTION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] - y[yo];
+                return;
+            case MULTIPLICATION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] * y[yo];
+                return;
+            case DIVISION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] / y[yo];
+                return;
+            case MODULO:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] % y[yo];
+                return;
+            default:
+                throw new UnsupportedOperationException(unsupportedOperation);
+        }
+    }
+
+    /**
+     * Applies a binary operation to FLOAT32 operands producing FLOAT32 results.
+     */
+    static void float32(OperationType op, float[] z, int zo, int zs, float[] x, int xo, int xs, float[] y, int yo, int ys, int n) {
+        if (zs == 1 && xs == 1 && ys == 1) {
+            int done = VectorKernels.float32(op, z, zo, x, xo, y, yo, n);
+            zo += done;
+            xo += done;
+            yo += done;
+            n -= done;
+            switch (op) {
+                case ADDITION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] + y[yo + i];
+                    return;
+                case SUBTRACTION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] - y[yo + i];
+                    return;
+                case MULTIPLICATION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] * y[yo + i];
+                    return;
+                case DIVISION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] / y[yo + i];
+                    return;
+                case MODULO:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] % y[yo + i];
+                    return;
+                default:
+                    throw new UnsupportedOperationException(unsupportedOperation);
+            }
+        }
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] + y[yo];
+                return;
+            case SUBTRACTION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] - y[yo];
+                return;
+            case MULTIPLICATION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] * y[yo];
+                return;
+            case DIVISION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] / y[yo];
+                return;
+            case MODULO:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] % y[yo];
+                return;
+            default:
+                throw new UnsupportedOperationException(unsupportedOperation);
+        }
+    }
+
+    /**
+     * Applies a binary operation to INT64 operands producing INT64 results.
+     */
+    static void int64(OperationType op, long[] z, int zo, int zs, long[] x, int xo, int xs, long[] y, int yo, int ys, int n) {
+        if (zs == 1 && xs == 1 && ys == 1) {
+            int done = VectorKernels.int64(op, z, zo, x, xo, y, yo, n);
+            zo += done;
+            xo += done;
+            yo += done;
+            n -= done;
+            switch (op) {
+                case ADDITION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] + y[yo + i];
+                    return;
+                case SUBTRACTION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] - y[yo + i];
+                    return;
+                case MULTIPLICATION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] * y[yo + i];
+                    return;
+                case DIVISION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] / y[yo + i];
+                    return;
+                case MODULO:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] % y[yo + i];
+                    return;
+                case BITWISE_AND:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] & y[yo + i];
+                    return;
+                case BITWISE_OR:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] | y[yo + i];
+                    return;
+                case BITWISE_XOR:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] ^ y[yo + i];
+                    return;
+                default:
+                    throw new UnsupportedOperationException(unsupportedOperation);
+            }
+        }
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] + y[yo];
+                return;
+            case SUBTRACTION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] - y[yo];
+                return;
+            case MULTIPLICATION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] * y[yo];
+                return;
+            case DIVISION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] / y[yo];
+                return;
+            case MODULO:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] % y[yo];
+                return;
+            case BITWISE_AND:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] & y[yo];
+                return;
+            case BITWISE_OR:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] | y[yo];
+                return;
+            case BITWISE_XOR:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] ^ y[yo];
+                return;
+            default:
+                throw new UnsupportedOperationException(unsupportedOperation);
+        }
+    }
+
+    /**
+     * Applies a binary operation to INT32 operands producing INT32 results.
+     */
+    static void int32(OperationType op, int[] z, int zo, int zs, int[] x, int xo, int xs, int[] y, int yo, int ys, int n) {
+        if (zs == 1 && xs == 1 && ys == 1) {
+            int done = VectorKernels.int32(op, z, zo, x, xo, y, yo, n);
+            zo += done;
+            xo += done;
+            yo += done;
+            n -= done;
+            switch (op) {
+                case ADDITION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] + y[yo + i];
+                    return;
+                case SUBTRACTION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] - y[yo + i];
+                    return;
+                case MULTIPLICATION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] * y[yo + i];
+                    return;
+                case DIVISION:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] / y[yo + i];
+                    return;
+                case MODULO:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] % y[yo + i];
+                    return;
+                case BITWISE_AND:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] & y[yo + i];
+                    return;
+                case BITWISE_OR:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] | y[yo + i];
+                    return;
+                case BITWISE_XOR:
+                    for (int i = 0; i < n; i++) z[zo + i] = x[xo + i] ^ y[yo + i];
+                    return;
+                default:
+                    throw new UnsupportedOperationException(unsupportedOperation);
+            }
+        }
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] + y[yo];
+                return;
+            case SUBTRACTION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] - y[yo];
+                return;
+            case MULTIPLICATION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] * y[yo];
+                return;
+            case DIVISION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] / y[yo];
+                return;
+            case MODULO:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] % y[yo];
+                return;
+            case BITWISE_AND:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] & y[yo];
+                return;
+            case BITWISE_OR:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] | y[yo];
+                return;
+            case BITWISE_XOR:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = x[xo] ^ y[yo];
+                return;
+            default:
+                throw new UnsupportedOperationException(unsupportedOperation);
+        }
+    }
+
+    /**
+     * Applies a binary operation to INT16 operands producing INT16 results.
+     */
+    static void int16(OperationType op, short[] z, int zo, int zs, short[] x, int xo, int xs, short[] y, int yo, int ys, int n) {
+        if (zs == 1 && xs == 1 && ys == 1) {
+            switch (op) {
+                case ADDITION:
+                    for (int i = 0; i < n; i++) z[zo + i] = (short) (x[xo + i] + y[yo + i]);
+                    return;
+                case SUBTRACTION:
+                    for (int i = 0; i < n; i++) z[zo + i] = (short) (x[xo + i] - y[yo + i]);
+                    return;
+                case MULTIPLICATION:
+                    for (int i = 0; i < n; i++) z[zo + i] = (short) (x[xo + i] * y[yo + i]);
+                    return;
+                case DIVISION:
+                    for (int i = 0; i < n; i++) z[zo + i] = (short) (x[xo + i] / y[yo + i]);
+                    return;
+                case MODULO:
+                    for (int i = 0; i < n; i++) z[zo + i] = (short) (x[xo + i] % y[yo + i]);
+                    return;
+                case BITWISE_AND:
+                    for (int i = 0; i < n; i++) z[zo + i] = (short) (x[xo + i] & y[yo + i]);
+                    return;
+                case BITWISE_OR:
+                    for (int i = 0; i < n; i++) z[zo + i] = (short) (x[xo + i] | y[yo + i]);
+                    return;
+                case BITWISE_XOR:
+                    for (int i = 0; i < n; i++) z[zo + i] = (short) (x[xo + i] ^ y[yo + i]);
+                    return;
+                default:
+                    throw new UnsupportedOperationException(unsupportedOperation);
+            }
+        }
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (short) (x[xo] + y[yo]);
+                return;
+            case SUBTRACTION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (short) (x[xo] - y[yo]);
+                return;
+            case MULTIPLICATION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (short) (x[xo] * y[yo]);
+                return;
+            case DIVISION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (short) (x[xo] / y[yo]);
+                return;
+            case MODULO:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (short) (x[xo] % y[yo]);
+                return;
+            case BITWISE_AND:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (short) (x[xo] & y[yo]);
+                return;
+            case BITWISE_OR:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (short) (x[xo] | y[yo]);
+                return;
+            case BITWISE_XOR:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (short) (x[xo] ^ y[yo]);
+                return;
+            default:
+                throw new UnsupportedOperationException(unsupportedOperation);
+        }
+    }
+
+    /**
+     * Applies a binary operation to INT8 operands producing INT8 results.
+     */
+    static void int8(OperationType op, byte[] z, int zo, int zs, byte[] x, int xo, int xs, byte[] y, int yo, int ys, int n) {
+        if (zs == 1 && xs == 1 && ys == 1) {
+            switch (op) {
+                case ADDITION:
+                    for (int i = 0; i < n; i++) z[zo + i] = (byte) (x[xo + i] + y[yo + i]);
+                    return;
+                case SUBTRACTION:
+                    for (int i = 0; i < n; i++) z[zo + i] = (byte) (x[xo + i] - y[yo + i]);
+                    return;
+                case MULTIPLICATION:
+                    for (int i = 0; i < n; i++) z[zo + i] = (byte) (x[xo + i] * y[yo + i]);
+                    return;
+                case DIVISION:
+                    for (int i = 0; i < n; i++) z[zo + i] = (byte) (x[xo + i] / y[yo + i]);
+                    return;
+                case MODULO:
+                    for (int i = 0; i < n; i++) z[zo + i] = (byte) (x[xo + i] % y[yo + i]);
+                    return;
+                case BITWISE_AND:
+                    for (int i = 0; i < n; i++) z[zo + i] = (byte) (x[xo + i] & y[yo + i]);
+                    return;
+                case BITWISE_OR:
+                    for (int i = 0; i < n; i++) z[zo + i] = (byte) (x[xo + i] | y[yo + i]);
+                    return;
+                case BITWISE_XOR:
+                    for (int i = 0; i < n; i++) z[zo + i] = (byte) (x[xo + i] ^ y[yo + i]);
+                    return;
+                default:
+                    throw new UnsupportedOperationException(unsupportedOperation);
+            }
+        }
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (byte) (x[xo] + y[yo]);
+                return;
+            case SUBTRACTION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (byte) (x[xo] - y[yo]);
+                return;
+            case MULTIPLICATION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (byte) (x[xo] * y[yo]);
+                return;
+            case DIVISION:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (byte) (x[xo] / y[yo]);
+                return;
+            case MODULO:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (byte) (x[xo] % y[yo]);
+                return;
+            case BITWISE_AND:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (byte) (x[xo] & y[yo]);
+                return;
+            case BITWISE_OR:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (byte) (x[xo] | y[yo]);
+                return;
+            case BITWISE_XOR:
+                for (int i = 0; i < n; i++, zo += zs, xo += xs, yo += ys) z[zo] = (byte) (x[xo] ^ y[yo]);
+                return;
+            default:
+                throw new UnsupportedOperationException(unsupportedOperation);
+        }
+    }
+
+    /**
+     * Applies a bitwise inversion to INT64 elements.
+     */
+    static void invertInt64(long[] z, int zo, int zs, long[] x, int xo, int xs, int n) {
+        if (zs == 1 && xs == 1) {
+            int done = VectorKernels.invertInt64(z, zo, x, xo, n);
+            zo += done;
+            xo += done;
+            n -= done;
+        }
+        for (int i = 0; i < n; i++, zo += zs, xo += xs) z[zo] = ~x[xo];
+    }
+
+    /**
+     * Applies a bitwise inversion to INT32 elements.
+     */
+    static void invertInt32(int[] z, int zo, int zs, int[] x, int xo, int xs, int n) {
+        if (zs == 1 && xs == 1) {
+            int done = VectorKernels.invertInt32(z, zo, x, xo, n);
+            zo += done;
+            xo += done;
+            n -= done;
+        }
+        for (int i = 0; i < n; i++, zo += zs, xo += xs) z[zo] = ~x[xo];
+    }
+
+    /**
+     * Applies a bitwise inversion to INT16 elements.
+     */
+    static void invertInt16(short[] z, int zo, int zs, short[] x, int xo, int xs, int n) {
+        for (int i = 0; i < n; i++, zo += zs, xo += xs) z[zo] = (short) ~x[xo];
+    }
+
+    /**
+     * Applies a bitwise inversion to INT8 elements.
+     */
+    static void invertInt8(byte[] z, int zo, int zs, byte[] x, int xo, int xs, int n) {
+        for (int i = 0; i < n; i++, zo += zs, xo += xs) z[zo] = (byte) ~x[xo];
+    }
+
+    /**
+     * Applies a binary operation to operands of differing types whose result is a floating point type.
+     * Operands are widened to double a block at a time into the blocks of the running thread, so contiguous
+     * off-heap and mapped operands are streamed through their bulk transfers rather than read element by element.
+     */
+    static void mixedDouble(DoubleBinaryOperator f, Storage z, long zo, long zs, Storage x, long xo, long xs, Storage y, long yo, long ys, int n) {
+        Blocks blocks = BLOCKS.get();
+        double[] a = blocks.doubleX;
+        double[] b = blocks.doubleY;
+        for (int done = 0; done < n; done += a.length) {
+            int m = Math.min(a.length, n - done);
+            FusedEvaluator.loadDouble(x, xo + done * xs, xs, a, m);
+            FusedEvaluator.loadDouble(y, yo + done * ys, ys, b, m);
+            for (int i = 0; i < m; i++) a[i] = f.applyAsDouble(a[i], b[i]);
+            if (z.dType().isFloatingPoint()) FusedEvaluator.store(z, zo + done * zs, zs, true, a, null, m);
+            else for (int i = 0; i < m; i++) z.setDouble(zo + (done + i) * zs, a[i]);
+        }
+    }
+
+    /**
+     * Applies a binary operation to operands of differing types whose result is an integer type.
+     * Operands are widened to long a block at a time, so 64-bit values keep their full precision.
+     */
+    static void mixedLong(LongBinaryOperator f, Storage z, long zo, long zs, Storage x, long xo, long xs, Storage y, long yo, long ys, int n) {
+        Blocks blocks = BLOCKS.get();
+        long[] a = blocks.longX;
+        long[] b = blocks.longY;
+        for (int done = 0; done < n; done += a.length) {
+            int m = Math.min(a.length, n - done);
+            FusedEvaluator.loadLong(x, xo + done * xs, xs, a, m);
+            FusedEvaluator.loadLong(y, yo + done * ys, ys, b, m);
+            for (int i = 0; i < m; i++) a[i] = f.applyAsLong(a[i], b[i]);
+            FusedEvaluator.store(z, zo + done * zs, zs, false, null, a, m);
+        }
+    }
+
+    /**
+     * Applies a bitwise inversion to integer elements written into an output of a different type.
+     */
+    static void mixedInvert(Storage z, long zo, long zs, Storage x, long xo, long xs, int n) {
+        for (int i = 0; i < n; i++, zo += zs, xo += xs) z.setLong(zo, ~x.getLong(xo));
+    }
+}
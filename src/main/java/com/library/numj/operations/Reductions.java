@@ -0,0 +1,487 @@
+package com.library.numj.operations;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.ReductionType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import java.util.Arrays;
+
+import static com.library.numj.ExceptionMessages.duplicateAxisException;
+import static com.library.numj.ExceptionMessages.emptyReductionException;
+import static com.library.numj.ExceptionMessages.invalidAxisException;
+import static com.library.numj.ExceptionMessages.reductionTooLargeException;
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * The {@code Reductions} class reduces {@link NDArray} objects along one or more axes: sum, product,
+ * minimum, maximum and mean, with the reduced dimensions either dropped or kept with length one.
+ * <p>
+ * The input is walked with the {@link BroadcastIterator} used by {@link ArithmaticOperations}: the result,
+ * of length one along the reduced axes, is broadcast against the input, so the input is visited in its memory
+ * order and is never transposed or copied. Runs along a reduced axis are folded into one result element,
+ * runs along kept axes are accumulated element-wise into the results.
+ * <p>
+ * Large inputs are split into a few ranges of the iteration order, each reduced on its own thread into private
+ * partial results. The partial results are combined once at the end, always in the same order, so the result
+ * does not depend on thread timing. The number of ranges is bounded by the number of elements folded into each
+ * result, so the partial results never hold more elements than the input.
+ * <p>
+ * Floating point sums add blocks of a run with pairwise summation and accumulate the block sums with
+ * Neumaier's variant of Kahan summation, in double precision. Integer sums and products are accumulated in
+ * 64 bits and wrap around on overflow, like NumPy. Minimum and maximum propagate NaN.
+ */
+@SuppressWarnings("unchecked")
+public class Reductions {
+    /** Number of elements below which pairwise summation adds the elements in eight interleaved sums. */
+    private static final int PAIRWISE_BLOCK = 128;
+
+    /**
+     * Reduces an NDArray along the given axes.
+     *
+     * @param array    The NDArray to reduce.
+     * @param type     The reduction to perform.
+     * @param axes     The axes to reduce, negative values counting from the last one; null reduces every axis.
+     * @param keepdims Whether the reduced axes are kept with length one, so that the result broadcasts against the input.
+     * @return A new NDArray holding the result; zero-dimensional when every axis is reduced and not kept.
+     * @throws IllegalArgumentException      If an axis is out of bounds or repeated, or if a minimum or maximum
+     *                                       is taken over no element.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> reduce(NDArray<T> array, ReductionType type, int[] axes, boolean keepdims) {
+        if (array.type() == DType.OBJECT) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        int[] shape = array.shapeArray();
+        boolean[] reduced = reducedAxes(axes, shape.length);
+        int[] keptShape = shape.clone();
+        int[] droppedShape = new int[shape.length];
+        int kept = 0;
+        long outputCount = 1;
+        long reducedCount = 1;
+        for (int d = 0; d < shape.length; d++) {
+            if (reduced[d]) {
+                reducedCount *= shape[d];
+                keptShape[d] = 1;
+            } else {
+                outputCount *= shape[d];
+                droppedShape[kept++] = shape[d];
+            }
+        }
+        if (outputCount > Storage.MAX_ARRAY_LENGTH) {
+            throw new UnsupportedOperationException(reductionTooLargeException(outputCount));
+        }
+        if (reducedCount == 0 && outputCount > 0 && (type == ReductionType.MIN || type == ReductionType.MAX)) {
+            throw new IllegalArgumentException(emptyReductionException(type.name().toLowerCase()));
+        }
+
+        // The result follows the memory order of the input so that both are walked the same way
+        DType resultType = resultType(type, array.type());
+        Order order = ArithmaticOperations.resultOrder(array);
+        Storage output = Storage.allocate(resultType, outputCount, ArithmaticOperations.resultStorageType(resultType, array));
+        NDArray<R> result = new NumJ().array(output, keptShape, order);
+
+        Accumulator total = accumulate(array, type, result, (int) outputCount, reducedCount);
+        long count = reducedCount;
+        ExecutionEngine.forEachChunk(outputCount, (start, end) -> total.store(output, count, (int) start, (int) end));
+        return keepdims ? result : new NumJ().array(output, Arrays.copyOf(droppedShape, kept), order);
+    }
+
+    /**
+     * Returns the data type of the result of a reduction: sums and products of integers are
+     * computed in {@link DType#INT64} and means of integers in {@link DType#FLOAT64}; otherwise
+     * the input type is kept.
+     *
+     * @param type  The reduction.
+     * @param input The data type of the input.
+     * @return The data type of the result.
+     */
+    public static DType resultType(ReductionType type, DType input) {
+        switch (type) {
+            case SUM:
+            case PROD:
+                return input.isFloatingPoint() ? input : DType.INT64;
+            case MEAN:
+                return input.isFloatingPoint() ? input : DType.FLOAT64;
+            default:
+                return input;
+        }
+    }
+
+    /**
+     * Marks the axes to reduce.
+     *
+     * @param axes The requested axes, or null for every axis.
+     * @param ndim The number of dimensions of the array.
+     * @return For every dimension, whether it is reduced.
+     * @throws IllegalArgumentException If an axis is out of bounds or repeated.
+     */
+    private boolean[] reducedAxes(int[] axes, int ndim) {
+        boolean[] reduced = new boolean[ndim];
+        if (axes == null) {
+            Arrays.fill(reduced, true);
+            return reduced;
+        }
+        for (int axis : axes) {
+            int normalized = axis < 0 ? axis + ndim : axis;
+            if (normalized < 0 || normalized >= ndim) {
+                throw new IllegalArgumentException(invalidAxisException(axis, ndim));
+            }
+            if (reduced[normalized]) {
+                throw new IllegalArgumentException(duplicateAxisException(axis));
+            }
+            reduced[normalized] = true;
+        }
+        return reduced;
+    }
+
+    /**
+     * Reduces the input into per-range partial results and combines them.
+     *
+     * @param array        The input.
+     * @param type         The reduction.
+     * @param result       The result, with length one along the reduced axes.
+     * @param outputCount  The number of result elements.
+     * @param reducedCount The number of input elements folded into every result element.
+     * @return The combined accumulator.
+     */
+    private Accumulator accumulate(NDArray<?> array, ReductionType type, NDArray<?> result, int outputCount, long reducedCount) {
+        boolean floating = array.type().isFloatingPoint() || type == ReductionType.MEAN;
+        BroadcastIterator iterator;
+        try {
+            iterator = new BroadcastIterator(array.shapeArray(), result, array);
+        } catch (ShapeException e) {
+            // The result is shaped after the input, so it always broadcasts
+            throw new IllegalStateException(e);
+        }
+        long size = iterator.size();
+        int parts = partCount(size, reducedCount);
+        Accumulator[] partials = new Accumulator[parts];
+        Storage input = array.storage();
+        ExecutionContext.getDefault().forEachChunk(parts, 1, (first, last) -> {
+            for (int p = (int) first; p < last; p++) {
+                Accumulator partial = new Accumulator(type, floating, outputCount);
+                partial.add(input, iterator.range(size * p / parts, size * (p + 1) / parts));
+                partials[p] = partial;
+            }
+        });
+        if (parts > 1) {
+            ExecutionEngine.forEachChunk(outputCount, (start, end) -> {
+                for (int p = 1; p < parts; p++) {
+                    partials[0].combine(partials[p], (int) start, (int) end);
+                }
+            });
+        }
+        return partials[0];
+    }
+
+    /**
+     * Decides how many ranges the iteration is split into: one per thread for large inputs, but never
+     * more than the number of elements folded into each result.
+     *
+     * @param size         The number of input elements.
+     * @param reducedCount The number of input elements folded into every result element.
+     * @return The number of ranges.
+     */
+    private static int partCount(long size, long reducedCount) {
+        if (size < ExecutionEngine.getThreshold()) {
+            return 1;
+        }
+        long chunks = (size + ExecutionEngine.getChunkSize() - 1) / ExecutionEngine.getChunkSize();
+        long parts = Math.min(ExecutionContext.getDefault().parallelism(), Math.min(chunks, reducedCount));
+        return (int) Math.max(1, parts);
+    }
+
+    /**
+     * Sums a block of values by recursive halving, which keeps the rounding error growing with the
+     * logarithm of the number of values. Short blocks are added in eight interleaved sums.
+     *
+     * @param x    The values.
+     * @param from The position of the first value.
+     * @param n    The number of values.
+     * @return The sum.
+     */
+    static double pairwiseSum(double[] x, int from, int n) {
+        if (n < 8) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += x[from + i];
+            }
+            return sum;
+        }
+        if (n <= PAIRWISE_BLOCK) {
+            double r0 = x[from], r1 = x[from + 1], r2 = x[from + 2], r3 = x[from + 3];
+            double r4 = x[from + 4], r5 = x[from + 5], r6 = x[from + 6], r7 = x[from + 7];
+            int i = 8;
+            for (int blocked = n - n % 8; i < blocked; i += 8) {
+                r0 += x[from + i];
+                r1 += x[from + i + 1];
+                r2 += x[from + i + 2];
+                r3 += x[from + i + 3];
+                r4 += x[from + i + 4];
+                r5 += x[from + i + 5];
+                r6 += x[from + i + 6];
+                r7 += x[from + i + 7];
+            }
+            double sum = ((r0 + r1) + (r2 + r3)) + ((r4 + r5) + (r6 + r7));
+            for (; i < n; i++) {
+                sum += x[from + i];
+            }
+            return sum;
+        }
+        int half = n / 2;
+        half -= half % 8;
+        return pairwiseSum(x, from, half) + pairwiseSum(x, from + half, n - half);
+    }
+
+    /**
+     * Partial results of a reduction over a range of the input, one per result element.
+     * Floating point reductions accumulate in double, with a compensation term for sums;
+     * integer reductions accumulate in long.
+     */
+    private static final class Accumulator {
+        /** The reduction. */
+        private final ReductionType type;
+        /** Whether the values are accumulated in double. */
+        private final boolean floating;
+        /** Floating point partial results. */
+        private final double[] values;
+        /** Running compensation of floating point sums. */
+        private final double[] compensation;
+        /** Integer partial results. */
+        private final long[] longs;
+        /** Block the input is read into when accumulating in double. */
+        private final double[] doubleBlock;
+        /** Block the input is read into when accumulating in long. */
+        private final long[] longBlock;
+
+        /**
+         * Creates partial results set to the identity of the reduction.
+         *
+         * @param type     The reduction.
+         * @param floating Whether to accumulate in double.
+         * @param count    The number of result elements.
+         */
+        Accumulator(ReductionType type, boolean floating, int count) {
+            this.type = type;
+            this.floating = floating;
+            boolean sum = type == ReductionType.SUM || type == ReductionType.MEAN;
+            if (floating) {
+                values = new double[count];
+                compensation = sum ? new double[count] : null;
+                longs = null;
+                doubleBlock = new double[FusedEvaluator.BLOCK_SIZE];
+                longBlock = null;
+                Arrays.fill(values, type == ReductionType.PROD ? 1.0 : type == ReductionType.MIN
+                        ? Double.POSITIVE_INFINITY : type == ReductionType.MAX ? Double.NEGATIVE_INFINITY : 0.0);
+            } else {
+                values = null;
+                compensation = null;
+                longs = new long[count];
+                doubleBlock = null;
+                longBlock = new long[FusedEvaluator.BLOCK_SIZE];
+                Arrays.fill(longs, type == ReductionType.PROD ? 1L : type == ReductionType.MIN
+                        ? Long.MAX_VALUE : type == ReductionType.MAX ? Long.MIN_VALUE : 0L);
+            }
+        }
+
+        /**
+         * Folds the elements visited by an iterator into the partial results. The first operand of the
+         * iterator is the result, giving the position of the partial result, the second one the input.
+         *
+         * @param input    The storage of the input.
+         * @param iterator The iterator over the range to reduce.
+         */
+        void add(Storage input, BroadcastIterator iterator) {
+            int blockSize = FusedEvaluator.BLOCK_SIZE;
+            while (iterator.next()) {
+                int target = (int) iterator.offset(0);
+                int targetStride = (int) iterator.innerStride(0);
+                long position = iterator.offset(1);
+                long stride = iterator.innerStride(1);
+                int n = iterator.innerSize();
+                for (int done = 0; done < n; done += blockSize) {
+                    int m = Math.min(blockSize, n - done);
+                    long from = position + done * stride;
+                    if (floating) {
+                        FusedEvaluator.loadDouble(input, from, stride, doubleBlock, m);
+                        if (targetStride == 0) {
+                            addDouble(target, reduceDoubles(doubleBlock, m));
+                        } else {
+                            addDoubles(target + done * targetStride, targetStride, doubleBlock, m);
+                        }
+                    } else {
+                        FusedEvaluator.loadLong(input, from, stride, longBlock, m);
+                        if (targetStride == 0) {
+                            addLong(target, reduceLongs(longBlock, m));
+                        } else {
+                            addLongs(target + done * targetStride, targetStride, longBlock, m);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Folds the partial results of another range into these, for the result elements start to end.
+         *
+         * @param other The partial results of the other range.
+         * @param start The first result element.
+         * @param end   The result element after the last one.
+         */
+        void combine(Accumulator other, int start, int end) {
+            for (int j = start; j < end; j++) {
+                if (!floating) {
+                    addLong(j, other.longs[j]);
+                } else if (compensation != null) {
+                    addCompensated(j, other.values[j]);
+                    compensation[j] += other.compensation[j];
+                } else {
+                    addDouble(j, other.values[j]);
+                }
+            }
+        }
+
+        /**
+         * Writes the final results of the result elements start to end.
+         *
+         * @param output       The storage of the result.
+         * @param reducedCount The number of input elements folded into every result element, the divisor of means.
+         * @param start        The first result element.
+         * @param end          The result element after the last one.
+         */
+        void store(Storage output, long reducedCount, int start, int end) {
+            for (int j = start; j < end; j++) {
+                if (!floating) {
+                    output.setLong(j, longs[j]);
+                    continue;
+                }
+                double value = values[j];
+                // The compensation is meaningless once an infinity has been added
+                if (compensation != null && Double.isFinite(value)) {
+                    value += compensation[j];
+                }
+                output.setDouble(j, type == ReductionType.MEAN ? value / reducedCount : value);
+            }
+        }
+
+        private double reduceDoubles(double[] x, int n) {
+            switch (type) {
+                case PROD: {
+                    double product = 1;
+                    for (int i = 0; i < n; i++) product *= x[i];
+                    return product;
+                }
+                case MIN: {
+                    double min = x[0];
+                    for (int i = 1; i < n; i++) min = Math.min(min, x[i]);
+                    return min;
+                }
+                case MAX: {
+                    double max = x[0];
+                    for (int i = 1; i < n; i++) max = Math.max(max, x[i]);
+                    return max;
+                }
+                default:
+                    return pairwiseSum(x, 0, n);
+            }
+        }
+
+        private void addDouble(int target, double value) {
+            switch (type) {
+                case PROD:
+                    values[target] *= value;
+                    return;
+                case MIN:
+                    values[target] = Math.min(values[target], value);
+                    return;
+                case MAX:
+                    values[target] = Math.max(values[target], value);
+                    return;
+                default:
+                    addCompensated(target, value);
+            }
+        }
+
+        private void addDoubles(int target, int stride, double[] x, int n) {
+            switch (type) {
+                case PROD:
+                    for (int i = 0; i < n; i++, target += stride) values[target] *= x[i];
+                    return;
+                case MIN:
+                    for (int i = 0; i < n; i++, target += stride) values[target] = Math.min(values[target], x[i]);
+                    return;
+                case MAX:
+                    for (int i = 0; i < n; i++, target += stride) values[target] = Math.max(values[target], x[i]);
+                    return;
+                default:
+                    for (int i = 0; i < n; i++, target += stride) addCompensated(target, x[i]);
+            }
+        }
+
+        /**
+         * Adds a value to a partial sum, keeping the rounding error of the addition in the compensation.
+         */
+        private void addCompensated(int target, double value) {
+            double sum = values[target];
+            double next = sum + value;
+            compensation[target] += Math.abs(sum) >= Math.abs(value) ? (sum - next) + value : (value - next) + sum;
+            values[target] = next;
+        }
+
+        private long reduceLongs(long[] x, int n) {
+            long result = x[0];
+            switch (type) {
+                case PROD:
+                    for (int i = 1; i < n; i++) result *= x[i];
+                    return result;
+                case MIN:
+                    for (int i = 1; i < n; i++) result = Math.min(result, x[i]);
+                    return result;
+                case MAX:
+                    for (int i = 1; i < n; i++) result = Math.max(result, x[i]);
+                    return result;
+                default:
+                    for (int i = 1; i < n; i++) result += x[i];
+                    return result;
+            }
+        }
+
+        private void addLong(int target, long value) {
+            switch (type) {
+                case PROD:
+                    longs[target] *= value;
+                    return;
+                case MIN:
+                    longs[target] = Math.min(longs[target], value);
+                    return;
+                case MAX:
+                    longs[target] = Math.max(longs[target], value);
+                    return;
+                default:
+                    longs[target] += value;
+            }
+        }
+
+        private void addLongs(int target, int stride, long[] x, int n) {
+            switch (type) {
+                case PROD:
+                    for (int i = 0; i < n; i++, target += stride) longs[target] *= x[i];
+                    return;
+                case MIN:
+                    for (int i = 0; i < n; i++, target += stride) longs[target] = Math.min(longs[target], x[i]);
+                    return;
+                case MAX:
+                    for (int i = 0; i < n; i++, target += stride) longs[target] = Math.max(longs[target], x[i]);
+                    return;
+                default:
+                    for (int i = 0; i < n; i++, target += stride) longs[target] += x[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.library.numj.operations;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.ReductionType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.exceptions.ShapeMismatchException;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import java.util.Arrays;
+
+import static com.library.numj.ExceptionMessages.castingException;
+import static com.library.numj.ExceptionMessages.invalidAxisException;
+import static com.library.numj.ExceptionMessages.outputShapeException;
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * The {@code Scans} class computes cumulative sums and products of {@link NDArray} objects along an axis.
+ * <p>
+ * The array is seen as a set of lines along the scanned axis, whose first elements are walked with a
+ * {@link BroadcastIterator}. When the lines are closer to each other in memory than the elements of a line,
+ * as for a scan along the first axis of a row-major array, a block of neighbouring lines is scanned together
+ * so that memory is read with short strides; otherwise every line is scanned on its own. Many lines are spread
+ * over the threads of the shared {@link ExecutionContext}.
+ * <p>
+ * A few long lines, such as a large one-dimensional array, are scanned with a two pass blocked prefix scan
+ * instead: the line is cut into one block per thread, the totals of the blocks are computed in parallel and
+ * turned into the value carried into each block, then the blocks are scanned in parallel starting from their carry.
+ * <p>
+ * Results are written through the primitive block buffers of {@link FusedEvaluator} straight into the output,
+ * which may be supplied by the caller. Floating point sums are compensated, so long running sums keep their
+ * accuracy; integer scans are accumulated in 64 bits.
+ */
+@SuppressWarnings("unchecked")
+public class Scans {
+    /**
+     * Computes the cumulative sum or product of an NDArray along an axis into a new array.
+     * Sums and products of integers are computed in {@link DType#INT64}.
+     *
+     * @param array The NDArray to scan.
+     * @param type  {@link ReductionType#SUM} or {@link ReductionType#PROD}.
+     * @param axis  The axis to scan along, negative values counting from the last one.
+     * @return A new NDArray of the shape of the input holding the running results.
+     * @throws IllegalArgumentException      If the axis is out of bounds.
+     * @throws UnsupportedOperationException If the reduction has no scan or the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> scan(NDArray<T> array, ReductionType type, int axis) {
+        DType resultType = Reductions.resultType(type, array.type());
+        Storage output = Storage.allocate(resultType, array.size(), ArithmaticOperations.resultStorageType(resultType, array));
+        NDArray<R> result = new NumJ().array(output, array.shapeArray(), ArithmaticOperations.resultOrder(array));
+        return scanInto(result, array, type, axis);
+    }
+
+    /**
+     * Computes the cumulative sum or product of an NDArray along an axis into an existing array.
+     * The output may be the input itself.
+     *
+     * @param out   The array receiving the running results; it must have the shape of the input.
+     * @param array The NDArray to scan.
+     * @param type  {@link ReductionType#SUM} or {@link ReductionType#PROD}.
+     * @param axis  The axis to scan along, negative values counting from the last one.
+     * @return The output array.
+     * @throws IllegalArgumentException      If the axis is out of bounds or the results cannot be cast to the output type.
+     * @throws ShapeMismatchException        If the output does not have the shape of the input.
+     * @throws UnsupportedOperationException If the reduction has no scan or the array holds {@link DType#OBJECT} elements.
+     */
+    public <T, R> NDArray<R> scanInto(NDArray<R> out, NDArray<T> array, ReductionType type, int axis) {
+        if ((type != ReductionType.SUM && type != ReductionType.PROD) || array.type() == DType.OBJECT || out.type() == DType.OBJECT) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        int[] shape = array.shapeArray();
+        int normalized = axis < 0 ? axis + shape.length : axis;
+        if (normalized < 0 || normalized >= shape.length) {
+            throw new IllegalArgumentException(invalidAxisException(axis, shape.length));
+        }
+        if (!Arrays.equals(out.shapeArray(), shape)) {
+            throw new ShapeMismatchException(outputShapeException(shape, out.shapeArray()));
+        }
+        DType resultType = Reductions.resultType(type, array.type());
+        if (!resultType.canCastTo(out.type())) {
+            throw new IllegalArgumentException(castingException(resultType, out.type()));
+        }
+        apply(out, ArithmaticOperations.separate(out, array), type, normalized);
+        return out;
+    }
+
+    /**
+     * Scans every line of the input along the axis into the output.
+     *
+     * @param out   The output, of the shape of the input.
+     * @param array The input.
+     * @param type  The scan.
+     * @param axis  The normalized axis.
+     */
+    private void apply(NDArray<?> out, NDArray<?> array, ReductionType type, int axis) {
+        int[] lineShape = array.shapeArray();
+        int length = lineShape[axis];
+        lineShape[axis] = 1;
+        BroadcastIterator starts;
+        try {
+            starts = new BroadcastIterator(lineShape, new long[]{out.offset(), array.offset()},
+                    new int[][]{lineShape, lineShape}, new long[][]{out.elementStrides(), array.elementStrides()});
+        } catch (ShapeException e) {
+            // Both operands have the iterated shape
+            throw new IllegalStateException(e);
+        }
+        long lines = starts.size();
+        if (length == 0 || lines == 0) {
+            return;
+        }
+        Line line = new Line(type, array.type().isFloatingPoint(), out.storage(), out.elementStrides()[axis],
+                array.storage(), array.elementStrides()[axis], length);
+        ExecutionContext context = ExecutionContext.getDefault();
+        if (length >= ExecutionEngine.getThreshold() && lines < context.parallelism()) {
+            // A few long lines: scan each of them with the two pass parallel scan
+            while (starts.next()) {
+                for (int i = 0; i < starts.innerSize(); i++) {
+                    line.scanBlocked(context, starts.offset(0) + i * starts.innerStride(0), starts.offset(1) + i * starts.innerStride(1));
+                }
+            }
+            return;
+        }
+        if (lines * length < ExecutionEngine.getThreshold()) {
+            line.scanLines(starts);
+            return;
+        }
+        int linesPerChunk = Math.max(1, ExecutionEngine.getChunkSize() / length);
+        context.forEachChunk(lines, linesPerChunk, (start, end) -> line.copy().scanLines(starts.range(start, end)));
+    }
+
+    /**
+     * Scans lines of a fixed length and layout, holding the block buffers of one thread.
+     */
+    private static final class Line {
+        /** The scan. */
+        private final ReductionType type;
+        /** Whether values are accumulated in double rather than long. */
+        private final boolean floating;
+        /** The storage of the output. */
+        private final Storage output;
+        /** The distance between consecutive output elements of a line. */
+        private final long outputStride;
+        /** The storage of the input. */
+        private final Storage input;
+        /** The distance between consecutive input elements of a line. */
+        private final long inputStride;
+        /** The number of elements of a line. */
+        private final int length;
+        /** Block of values accumulated in double. */
+        private final double[] doubles = new double[FusedEvaluator.BLOCK_SIZE];
+        /** Block of values accumulated in long. */
+        private final long[] longs = new long[FusedEvaluator.BLOCK_SIZE];
+        /** Running results of neighbouring lines scanned together, in double. */
+        private final double[] doubleTotals = new double[FusedEvaluator.BLOCK_SIZE];
+        /** Running compensations of neighbouring lines scanned together. */
+        private final double[] compensations = new double[FusedEvaluator.BLOCK_SIZE];
+        /** Running results of neighbouring lines scanned together, in long. */
+        private final long[] longTotals = new long[FusedEvaluator.BLOCK_SIZE];
+
+        Line(ReductionType type, boolean floating, Storage output, long outputStride, Storage input, long inputStride, int length) {
+            this.type = type;
+            this.floating = floating;
+            this.output = output;
+            this.outputStride = outputStride;
+            this.input = input;
+            this.inputStride = inputStride;
+            this.length = length;
+        }
+
+        /**
+         * Returns a scanner of the same lines with its own buffers, for another thread.
+         */
+        Line copy() {
+            return new Line(type, floating, output, outputStride, input, inputStride, length);
+        }
+
+        /**
+         * Scans the lines whose first elements are visited by an iterator; the first operand of the
+         * iterator is the output, the second one the input.
+         *
+         * @param starts The iterator over the first elements of the lines.
+         */
+        void scanLines(BroadcastIterator starts) {
+            while (starts.next()) {
+                int n = starts.innerSize();
+                long outputStart = starts.offset(0), outputStep = starts.innerStride(0);
+                long inputStart = starts.offset(1), inputStep = starts.innerStride(1);
+                if (n > 1 && Math.abs(inputStride) > Math.abs(inputStep)) {
+                    for (int done = 0; done < n; done += FusedEvaluator.BLOCK_SIZE) {
+                        scanAcross(outputStart + done * outputStep, outputStep, inputStart + done * inputStep, inputStep,
+                                Math.min(FusedEvaluator.BLOCK_SIZE, n - done));
+                    }
+                    continue;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (floating) {
+                        scanDoubles(output, outputStart + i * outputStep, inputStart + i * inputStep, length, identity());
+                    } else {
+                        scanLongs(output, outputStart + i * outputStep, inputStart + i * inputStep, length, (long) identity());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Scans one long line with a two pass blocked prefix scan: block totals first, then every block
+         * starting from the combined totals of the blocks before it.
+         *
+         * @param context     The context running the blocks.
+         * @param outputStart The storage position of the first output element of the line.
+         * @param inputStart  The storage position of the first input element of the line.
+         */
+        void scanBlocked(ExecutionContext context, long outputStart, long inputStart) {
+            long chunks = (length + ExecutionEngine.getChunkSize() - 1) / ExecutionEngine.getChunkSize();
+            int parts = (int) Math.min(context.parallelism(), chunks);
+            double[] doubleCarries = new double[parts];
+            long[] longCarries = new long[parts];
+            context.forEachChunk(parts, 1, (first, last) -> {
+                Line line = copy();
+                for (int p = (int) first; p < last; p++) {
+                    long from = blockStart(p, parts);
+                    long count = blockStart(p + 1, parts) - from;
+                    if (floating) {
+                        doubleCarries[p] = line.scanDoubles(null, 0, inputStart + from * inputStride, count, identity());
+                    } else {
+                        longCarries[p] = line.scanLongs(null, 0, inputStart + from * inputStride, count, (long) identity());
+                    }
+                }
+            });
+            // Turn the block totals into the value carried into every block
+            double doubleCarry = identity();
+            long longCarry = (long) identity();
+            for (int p = 0; p < parts; p++) {
+                double doubleTotal = doubleCarries[p];
+                long longTotal = longCarries[p];
+                doubleCarries[p] = doubleCarry;
+                longCarries[p] = longCarry;
+                doubleCarry = type == ReductionType.SUM ? doubleCarry + doubleTotal : doubleCarry * doubleTotal;
+                longCarry = type == ReductionType.SUM ? longCarry + longTotal : longCarry * longTotal;
+            }
+            context.forEachChunk(parts, 1, (first, last) -> {
+                Line line = copy();
+                for (int p = (int) first; p < last; p++) {
+                    long from = blockStart(p, parts);
+                    long count = blockStart(p + 1, parts) - from;
+                    if (floating) {
+                        line.scanDoubles(output, outputStart + from * outputStride, inputStart + from * inputStride, count, doubleCarries[p]);
+                    } else {
+                        line.scanLongs(output, outputStart + from * outputStride, inputStart + from * inputStride, count, longCarries[p]);
+                    }
+                }
+            });
+        }
+
+        private long blockStart(int part, int parts) {
+            return (long) length * part / parts;
+        }
+
+        private double identity() {
+            return type == ReductionType.SUM ? 0 : 1;
+        }
+
+        /**
+         * Scans count elements of a line in double, starting from a carried value.
+         *
+         * @param target      The storage receiving the running results, or null to only compute the total.
+         * @param outputStart The storage position of the first output element.
+         * @param inputStart  The storage position of the first input element.
+         * @param count       The number of elements.
+         * @param carry       The running result before the first element.
+         * @return The running result after the last element.
+         */
+        double scanDoubles(Storage target, long outputStart, long inputStart, long count, double carry) {
+            double total = carry, compensation = 0;
+            for (long done = 0; done < count; done += FusedEvaluator.BLOCK_SIZE) {
+                int n = (int) Math.min(FusedEvaluator.BLOCK_SIZE, count - done);
+                FusedEvaluator.loadDouble(input, inputStart + done * inputStride, inputStride, doubles, n);
+                if (type == ReductionType.SUM) {
+                    for (int i = 0; i < n; i++) {
+                        double value = doubles[i], next = total + value;
+                        compensation += Math.abs(total) >= Math.abs(value) ? (total - next) + value : (value - next) + total;
+                        total = next;
+                        doubles[i] = Double.isFinite(total) ? total + compensation : total;
+                    }
+                } else {
+                    for (int i = 0; i < n; i++) {
+                        total *= doubles[i];
+                        doubles[i] = total;
+                    }
+                }
+                if (target != null) {
+                    FusedEvaluator.store(target, outputStart + done * outputStride, outputStride, true, doubles, null, n);
+                }
+            }
+            return Double.isFinite(total) ? total + compensation : total;
+        }
+
+        /**
+         * Scans count elements of a line in long, starting from a carried value.
+         *
+         * @param target      The storage receiving the running results, or null to only compute the total.
+         * @param outputStart The storage position of the first output element.
+         * @param inputStart  The storage position of the first input element.
+         * @param count       The number of elements.
+         * @param carry       The running result before the first element.
+         * @return The running result after the last element.
+         */
+        long scanLongs(Storage target, long outputStart, long inputStart, long count, long carry) {
+            long total = carry;
+            for (long done = 0; done < count; done += FusedEvaluator.BLOCK_SIZE) {
+                int n = (int) Math.min(FusedEvaluator.BLOCK_SIZE, count - done);
+                FusedEvaluator.loadLong(input, inputStart + done * inputStride, inputStride, longs, n);
+                if (type == ReductionType.SUM) {
+                    for (int i = 0; i < n; i++) longs[i] = total += longs[i];
+                } else {
+                    for (int i = 0; i < n; i++) longs[i] = total *= longs[i];
+                }
+                if (target != null) {
+                    FusedEvaluator.store(target, outputStart + done * outputStride, outputStride, false, null, longs, n);
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Scans n neighbouring lines together, moving along the axis one step at a time for all of them.
+         *
+         * @param outputStart The storage position of the first output element of the first line.
+         * @param outputStep  The distance between the first output elements of consecutive lines.
+         * @param inputStart  The storage position of the first input element of the first line.
+         * @param inputStep   The distance between the first input elements of consecutive lines.
+         * @param n           The number of lines, at most the block size.
+         */
+        private void scanAcross(long outputStart, long outputStep, long inputStart, long inputStep, int n) {
+            if (floating) {
+                Arrays.fill(doubleTotals, 0, n, identity());
+                Arrays.fill(compensations, 0, n, 0);
+            } else {
+                Arrays.fill(longTotals, 0, n, (long) identity());
+            }
+            for (int k = 0; k < length; k++) {
+                long inputPosition = inputStart + k * inputStride;
+                long outputPosition = outputStart + k * outputStride;
+                if (floating) {
+                    FusedEvaluator.loadDouble(input, inputPosition, inputStep, doubles, n);
+                    for (int i = 0; i < n; i++) {
+                        double total = doubleTotals[i], value = doubles[i];
+                        if (type == ReductionType.SUM) {
+                            double next = total + value;
+                            compensations[i] += Math.abs(total) >= Math.abs(value) ? (total - next) + value : (value - next) + total;
+                            doubleTotals[i] = next;
+                            doubles[i] = Double.isFinite(next) ? next + compensations[i] : next;
+                        } else {
+                            doubleTotals[i] = doubles[i] = total * value;
+                        }
+                    }
+                    FusedEvaluator.store(output, outputPosition, outputStep, true, doubles, null, n);
+                } else {
+                    FusedEvaluator.loadLong(input, inputPosition, inputStep, longs, n);
+                    if (type == ReductionType.SUM) {
+                        for (int i = 0; i < n; i++) longs[i] = longTotals[i] += longs[i];
+                    } else {
+                        for (int i = 0; i < n; i++) longs[i] = longTotals[i] *= longs[i];
+                    }
+                    FusedEvaluator.store(output, outputPosition, outputStep, false, null, longs, n);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.numj.operations;
+
+import com.library.numj.storage.Storage;
+
+/**
+ * A tight element-wise loop transforming one inner run of an operand into an output run.
+ * Offsets and strides are element positions in the respective storages, as handed out by
+ * {@link BroadcastIterator}.
+ */
+@FunctionalInterface
+public interface UnaryKernel {
+    /**
+     * Applies the operation to {@code length} elements.
+     *
+     * @param out       The output storage.
+     * @param outOffset The position of the first output element.
+     * @param outStride The distance between output elements.
+     * @param a         The storage of the operand.
+     * @param aOffset   The position of the first element of the operand.
+     * @param aStride   The distance between elements of the operand.
+     * @param length    The number of elements to process.
+     */
+    void apply(Storage out, long outOffset, long outStride, Storage a, long aOffset, long aStride, int length);
+}
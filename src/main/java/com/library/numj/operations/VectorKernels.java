@@ -0,0 +1,87 @@
+package com.library.numj.operations;
+
+import com.library.numj.enums.OperationType;
+
+/**
+ * Entry point of the SIMD loops used by {@link PrimitiveKernels} for contiguous operands.
+ * <p>
+ * This is the Java 8 variant, which has no SIMD support: every method reports that no element was
+ * processed, leaving all the work to the scalar loops. When the library runs from its multi-release
+ * JAR on Java 17 or later, a variant built on the {@code jdk.incubator.vector} API replaces this class;
+ * it processes as many leading elements as fill whole vectors and leaves the tail to the scalar loops.
+ * The SIMD variant is only used when the JVM was started with {@code --add-modules jdk.incubator.vector}
+ * and can be turned off with {@code -Dnumj.simd=false}.
+ */
+final class VectorKernels {
+    /**
+     * Whether SIMD loops are used. Not a compile-time constant, so that classes compiled against this variant
+     * read the value of the variant loaded at run time instead of inlining false.
+     */
+    static final boolean AVAILABLE = Boolean.FALSE.booleanValue();
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Applies a binary operation to contiguous FLOAT64 operands.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int float64(OperationType op, double[] z, int zo, double[] x, int xo, double[] y, int yo, int n) {
+        return 0;
+    }
+
+    /**
+     * Applies a binary operation to contiguous FLOAT32 operands.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int float32(OperationType op, float[] z, int zo, float[] x, int xo, float[] y, int yo, int n) {
+        return 0;
+    }
+
+    /**
+     * Applies a binary operation to contiguous INT64 operands.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int int64(OperationType op, long[] z, int zo, long[] x, int xo, long[] y, int yo, int n) {
+        return 0;
+    }
+
+    /**
+     * Applies a binary operation to contiguous INT32 operands.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int int32(OperationType op, int[] z, int zo, int[] x, int xo, int[] y, int yo, int n) {
+        return 0;
+    }
+
+    /**
+     * Applies a bitwise inversion to contiguous INT64 elements.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int invertInt64(long[] z, int zo, long[] x, int xo, int n) {
+        return 0;
+    }
+
+    /**
+     * Applies a bitwise inversion to contiguous INT32 elements.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int invertInt32(int[] z, int zo, int[] x, int xo, int n) {
+        return 0;
+    }
+
+    /**
+     * Adds the products of the leading elements of two contiguous FLOAT64 operands to sum[0].
+     *
+     * @return The number of leading elements processed.
+     */
+    static int dotFloat64(double[] x, int xo, double[] y, int yo, int n, double[] sum) {
+        return 0;
+    }
+}
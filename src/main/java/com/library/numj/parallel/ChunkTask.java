@@ -0,0 +1,17 @@
+package com.library.numj.parallel;
+
+/**
+ * A piece of element-wise work over a contiguous range of element positions.
+ * Implementations must only touch the elements of their range, so that disjoint
+ * ranges can run concurrently without synchronization.
+ */
+@FunctionalInterface
+public interface ChunkTask {
+    /**
+     * Processes the elements at positions start (inclusive) to end (exclusive).
+     *
+     * @param start The position of the first element.
+     * @param end   The position after the last element.
+     */
+    void run(long start, long end);
+}
@@ -0,0 +1,365 @@
+package com.library.numj.parallel;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.library.numj.ExceptionMessages.contextClosedException;
+import static com.library.numj.ExceptionMessages.nullArgumentException;
+import static com.library.numj.ExceptionMessages.parallelInterruptedException;
+import static com.library.numj.ExceptionMessages.parallelismException;
+import static com.library.numj.ExceptionMessages.virtualThreadsException;
+
+/**
+ * The threads NumJ runs its parallel work on.
+ * <p>
+ * A single context is shared by the whole library, see {@link #getDefault()} and {@link #setDefault(ExecutionContext)}.
+ * Until another one is installed the default context runs on {@link ForkJoinPool#commonPool()}, so creating
+ * {@code NumJ} instances or computing results never starts threads of its own. Contexts created by the
+ * factory methods of this class own their threads and release them on {@link #close()}; contexts wrapping
+ * an executor supplied by the caller leave its lifecycle to the caller.
+ * <pre>
+ * try (ExecutionContext context = ExecutionContext.create(8)) {
+ *     ExecutionContext.setDefault(context);
+ *     ...
+ * }
+ * </pre>
+ */
+public final class ExecutionContext implements AutoCloseable {
+    /** Context running on the common pool, used when no other context is installed. */
+    private static final ExecutionContext COMMON = new ExecutionContext(ForkJoinPool.commonPool(),
+            ForkJoinPool.getCommonPoolParallelism(), false);
+    /** Context used by the library. */
+    private static volatile ExecutionContext defaultContext = COMMON;
+
+    /** Executor running the tasks. */
+    private final ExecutorService executor;
+    /** Number of tasks work is spread over. */
+    private final int parallelism;
+    /** Whether closing this context shuts the executor down. */
+    private final boolean ownsExecutor;
+    /** Whether the current thread is running a task of this context, used to run nested work inline. */
+    private final ThreadLocal<Boolean> insideTask = new ThreadLocal<>();
+    /** Set once the context has been closed. */
+    private volatile boolean closed;
+
+    private ExecutionContext(ExecutorService executor, int parallelism, boolean ownsExecutor) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Creates a context backed by its own fork/join pool.
+     *
+     * @param parallelism The number of worker threads.
+     * @return A new context, to be closed when no longer needed.
+     * @throws IllegalArgumentException If parallelism is not positive.
+     */
+    public static ExecutionContext create(int parallelism) {
+        checkParallelism(parallelism);
+        return new ExecutionContext(new ForkJoinPool(parallelism), parallelism, true);
+    }
+
+    /**
+     * Creates a context backed by a fixed number of threads built by the given factory,
+     * for instance to control thread names, priorities or daemon status.
+     *
+     * @param parallelism   The number of worker threads.
+     * @param threadFactory The factory creating the worker threads.
+     * @return A new context, to be closed when no longer needed.
+     * @throws IllegalArgumentException If parallelism is not positive or threadFactory is null.
+     */
+    public static ExecutionContext create(int parallelism, ThreadFactory threadFactory) {
+        checkParallelism(parallelism);
+        if (threadFactory == null) {
+            throw new IllegalArgumentException(nullArgumentException("Thread factory"));
+        }
+        return new ExecutionContext(Executors.newFixedThreadPool(parallelism, threadFactory), parallelism, true);
+    }
+
+    /**
+     * Creates a context running on an executor owned by the caller. Closing the context does not shut the executor down.
+     *
+     * @param executor    The executor running the tasks.
+     * @param parallelism The number of tasks work is spread over.
+     * @return A context wrapping the executor.
+     * @throws IllegalArgumentException If executor is null or parallelism is not positive.
+     */
+    public static ExecutionContext of(ExecutorService executor, int parallelism) {
+        checkParallelism(parallelism);
+        if (executor == null) {
+            throw new IllegalArgumentException(nullArgumentException("Executor"));
+        }
+        return new ExecutionContext(executor, parallelism, false);
+    }
+
+    /**
+     * Creates a context starting one virtual thread per task. Requires a Java runtime with virtual threads (21 or later).
+     *
+     * @param parallelism The number of tasks work is spread over.
+     * @return A new context, to be closed when no longer needed.
+     * @throws IllegalArgumentException      If parallelism is not positive.
+     * @throws UnsupportedOperationException If the runtime has no virtual threads.
+     */
+    public static ExecutionContext virtualThreads(int parallelism) {
+        checkParallelism(parallelism);
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return new ExecutionContext((ExecutorService) factory.invoke(null), parallelism, true);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException(virtualThreadsException(System.getProperty("java.version")), e);
+        }
+    }
+
+    /**
+     * Returns the context used by the library.
+     *
+     * @return The default context.
+     */
+    public static ExecutionContext getDefault() {
+        return defaultContext;
+    }
+
+    /**
+     * Installs the context used by the library. Passing null restores the common pool context.
+     *
+     * @param context The context to use.
+     * @throws IllegalStateException If the context is already closed.
+     */
+    public static void setDefault(ExecutionContext context) {
+        if (context != null && context.closed) {
+            throw new IllegalStateException(contextClosedException());
+        }
+        defaultContext = context == null ? COMMON : context;
+    }
+
+    /**
+     * Returns the number of tasks work is spread over.
+     *
+     * @return The parallelism.
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Checks whether the context has been closed.
+     *
+     * @return True once {@link #close()} has been called.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Runs a task over the element positions 0 (inclusive) to size (exclusive), split into chunks of at most
+     * chunkSize elements processed by the threads of this context. The calling thread takes part in the work.
+     * Returns once every chunk is done; an exception thrown by any chunk is rethrown to the caller.
+     *
+     * @param size      The number of elements.
+     * @param chunkSize The maximum number of elements per chunk.
+     * @param task      The work to perform on every chunk.
+     * @throws IllegalStateException If the context is closed.
+     */
+    public void forEachChunk(long size, int chunkSize, ChunkTask task) {
+        if (closed) {
+            throw new IllegalStateException(contextClosedException());
+        }
+        if (parallelism <= 1 || size <= chunkSize || insideTask.get() != null) {
+            task.run(0, size);
+            return;
+        }
+        if (executor instanceof ForkJoinPool) {
+            ChunkAction action = new ChunkAction(task, 0, size, chunkSize);
+            if (ForkJoinTask.getPool() == executor) {
+                action.invoke();
+            } else {
+                ((ForkJoinPool) executor).invoke(action);
+            }
+            return;
+        }
+        runOnExecutor(size, chunkSize, task);
+    }
+
+    /**
+     * Spreads the chunks over parallelism tasks submitted to a plain executor. Tasks claim chunks from a
+     * shared counter, so faster threads take over the work of slower ones. The calling thread works too and,
+     * once every chunk is claimed, waits only for the helpers that started: helpers still queued are cancelled,
+     * so a call made from a thread of a saturated executor cannot wait on tasks that would never run.
+     */
+    private void runOnExecutor(long size, int chunkSize, ChunkTask task) {
+        long chunks = (size + chunkSize - 1) / chunkSize;
+        int workers = (int) Math.min(parallelism, chunks);
+        AtomicLong nextChunk = new AtomicLong();
+        Helpers helpers = new Helpers();
+        Runnable worker = () -> {
+            insideTask.set(Boolean.TRUE);
+            try {
+                long chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                    long start = chunk * chunkSize;
+                    task.run(start, Math.min(size, start + chunkSize));
+                }
+            } catch (RuntimeException | Error e) {
+                nextChunk.set(chunks);
+                throw e;
+            } finally {
+                insideTask.remove();
+            }
+        };
+        List<Future<?>> futures = new ArrayList<>(workers - 1);
+        for (int i = 1; i < workers; i++) {
+            futures.add(executor.submit(() -> {
+                if (helpers.start()) {
+                    try {
+                        worker.run();
+                    } catch (RuntimeException | Error e) {
+                        helpers.fail(e);
+                    } finally {
+                        helpers.finish();
+                    }
+                }
+            }));
+        }
+        Throwable failure = null;
+        try {
+            worker.run();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+        for (Future<?> future : futures) {
+            future.cancel(false);
+        }
+        try {
+            helpers.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            nextChunk.set(chunks);
+            if (failure == null) {
+                failure = new IllegalStateException(parallelInterruptedException(), e);
+            }
+        }
+        if (failure == null) {
+            failure = helpers.failure;
+        }
+        if (failure != null) {
+            throw unwrap(failure);
+        }
+    }
+
+    /**
+     * The helper tasks of one call to {@link #runOnExecutor}: how many are running and the first failure
+     * among them. Helpers starting after the caller stopped waiting return without running.
+     */
+    private static final class Helpers {
+        private int running;
+        private boolean closed;
+        private Throwable failure;
+
+        synchronized boolean start() {
+            if (closed) {
+                return false;
+            }
+            running++;
+            return true;
+        }
+
+        synchronized void fail(Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+
+        synchronized void finish() {
+            running--;
+            notifyAll();
+        }
+
+        /**
+         * Lets no more helpers start and waits for the running ones to finish.
+         */
+        synchronized void await() throws InterruptedException {
+            closed = true;
+            while (running > 0) {
+                wait();
+            }
+        }
+    }
+
+    /**
+     * Releases the threads of this context. Contexts wrapping a caller supplied executor or the common pool leave it running.
+     * If this context is the default one, the common pool context becomes the default again.
+     */
+    @Override
+    public void close() {
+        if (this == COMMON) {
+            return;
+        }
+        closed = true;
+        if (defaultContext == this) {
+            defaultContext = COMMON;
+        }
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private static void checkParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(parallelismException(parallelism));
+        }
+    }
+
+    /**
+     * Splits a range in halves until it fits in one chunk, then runs the task on it.
+     */
+    private static final class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkTask task;
+        private final long start;
+        private final long end;
+        private final int chunkSize;
+
+        ChunkAction(ChunkTask task, long start, long end, int chunkSize) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            long length = end - start;
+            if (length <= chunkSize) {
+                task.run(start, end);
+                return;
+            }
+            // Split on a chunk boundary so every task but the last gets whole chunks
+            long middle = start + (length / chunkSize / 2) * chunkSize;
+            if (middle == start) {
+                middle = start + chunkSize;
+            }
+            invokeAll(new ChunkAction(task, start, middle, chunkSize), new ChunkAction(task, middle, end, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.library.numj.parallel;
+
+import static com.library.numj.ExceptionMessages.chunkSizeException;
+import static com.library.numj.ExceptionMessages.thresholdException;
+
+/**
+ * Runs element-wise work across several cores.
+ * <p>
+ * Work over {@code size} elements is split into contiguous chunks of {@link #getChunkSize()} elements,
+ * small enough to stay in the private caches of a core, which are then processed by the threads of the
+ * library-wide {@link ExecutionContext}. Below {@link #getThreshold()} elements the work runs on the
+ * calling thread, since forking would cost more than it saves.
+ */
+public final class ExecutionEngine {
+    /** Default number of elements below which work stays on the calling thread. */
+    public static final int DEFAULT_THRESHOLD = 1 << 15;
+    /** Default number of elements processed by one task, 64 KiB of doubles. */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 13;
+
+    /** Number of elements below which work is not split. */
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+    /** Number of elements processed by one task. */
+    private static volatile int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private ExecutionEngine() {
+    }
+
+    /**
+     * Runs a task over the element positions 0 (inclusive) to size (exclusive), split into chunks
+     * processed in parallel when the work is large enough. Returns once every chunk is done;
+     * an exception thrown by any chunk is rethrown to the caller.
+     *
+     * @param size The number of elements.
+     * @param task The work to perform on every chunk.
+     */
+    public static void forEachChunk(long size, ChunkTask task) {
+        if (size <= 0) {
+            return;
+        }
+        if (size < threshold) {
+            task.run(0, size);
+            return;
+        }
+        ExecutionContext.getDefault().forEachChunk(size, chunkSize, task);
+    }
+
+    /**
+     * Returns the number of elements below which work stays on the calling thread.
+     *
+     * @return The threshold.
+     */
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets the number of elements below which work stays on the calling thread.
+     *
+     * @param threshold The threshold, at least 0.
+     * @throws IllegalArgumentException If threshold is negative.
+     */
+    public static void setThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException(thresholdException(threshold));
+        }
+        ExecutionEngine.threshold = threshold;
+    }
+
+    /**
+     * Returns the number of elements processed by one task.
+     *
+     * @return The chunk size.
+     */
+    public static int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the number of elements processed by one task.
+     *
+     * @param chunkSize The chunk size, at least 1.
+     * @throws IllegalArgumentException If chunkSize is not positive.
+     */
+    public static void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(chunkSizeException(chunkSize));
+        }
+        ExecutionEngine.chunkSize = chunkSize;
+    }
+}
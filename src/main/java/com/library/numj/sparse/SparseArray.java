@@ -0,0 +1,592 @@
+package com.library.numj.sparse;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.Utils;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.SparseFormat;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.parallel.ChunkTask;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import java.util.Arrays;
+
+import static com.library.numj.ExceptionMessages.negativeSizeException;
+import static com.library.numj.ExceptionMessages.nonZeroCountException;
+import static com.library.numj.ExceptionMessages.sparseDimensionException;
+import static com.library.numj.ExceptionMessages.sparseStructureException;
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * A two-dimensional matrix of which only the non-zero elements are stored, in one of the {@link SparseFormat}
+ * layouts of SciPy's sparse matrices.
+ * <p>
+ * The values are held in a {@link Storage} of any numeric {@link DType} and their positions in {@code int}
+ * arrays: CSR keeps in {@code indptr} where the elements of every row start and in {@code indices} their
+ * column indices, CSC does the same for the columns, and COO keeps a row and a column index per element.
+ * Compressed matrices always have the indices of every row (or column) sorted and free of duplicates, while a
+ * COO matrix may list a position several times, its values being summed by conversions.
+ * <p>
+ * Sparse matrices are immutable and share their arrays with the matrices derived from them. The transpose of
+ * a CSR matrix is the CSC matrix over the same arrays, so transposing copies nothing, while switching the
+ * layout of a matrix sorts its elements by a counting sort in linear time. Conversions from and to
+ * {@link NDArray} split the rows over the threads of the shared {@link ExecutionContext}.
+ * Arithmetic on sparse matrices is provided by {@link SparseOperations}.
+ */
+public final class SparseArray {
+    /** The layout of the stored elements. */
+    private final SparseFormat format;
+    /** The number of rows. */
+    private final int rows;
+    /** The number of columns. */
+    private final int columns;
+    /** For CSR and CSC, the position of the first element of every row or column, followed by the element count. */
+    private final int[] indptr;
+    /** The column index of every element for CSR and COO, its row index for CSC. */
+    private final int[] indices;
+    /** For COO, the row index of every element. */
+    private final int[] rowIndices;
+    /** The values of the stored elements. */
+    private final Storage data;
+
+    /**
+     * Constructs a sparse matrix over existing arrays without checking them.
+     *
+     * @param format     The layout of the arrays.
+     * @param rows       The number of rows.
+     * @param columns    The number of columns.
+     * @param indptr     The element ranges of the rows or columns, null for COO.
+     * @param indices    The column indices, or the row indices for CSC.
+     * @param rowIndices The row indices for COO, null otherwise.
+     * @param data       The values.
+     */
+    SparseArray(SparseFormat format, int rows, int columns, int[] indptr, int[] indices, int[] rowIndices, Storage data) {
+        this.format = format;
+        this.rows = rows;
+        this.columns = columns;
+        this.indptr = indptr;
+        this.indices = indices;
+        this.rowIndices = rowIndices;
+        this.data = data;
+    }
+
+    /**
+     * Creates a CSR matrix over the given arrays, which are used as they are when the column indices of every
+     * row are sorted and distinct, and sorted into new arrays with duplicates summed otherwise.
+     *
+     * @param rows    The number of rows.
+     * @param columns The number of columns.
+     * @param indptr  The position of the first element of every row, followed by the element count.
+     * @param indices The column index of every element.
+     * @param data    The value of every element.
+     * @return A new CSR matrix.
+     * @throws IllegalArgumentException      If the arrays do not describe a matrix of the given shape.
+     * @throws UnsupportedOperationException If the values are {@link DType#OBJECT} elements.
+     */
+    public static SparseArray csr(int rows, int columns, int[] indptr, int[] indices, Storage data) {
+        checkShape(rows, columns, data);
+        if (indptr.length != rows + 1 || indptr[0] != 0 || indptr[rows] != indices.length || data.length() != indices.length) {
+            throw new IllegalArgumentException(sparseStructureException("indptr must run from 0 to the number of indices and values"));
+        }
+        for (int i = 0; i < rows; i++) {
+            if (indptr[i + 1] < indptr[i]) {
+                throw new IllegalArgumentException(sparseStructureException("indptr must not decrease"));
+            }
+        }
+        boolean sorted = true;
+        for (int i = 0; i < rows; i++) {
+            for (int p = indptr[i]; p < indptr[i + 1]; p++) {
+                checkIndex(indices[p], columns);
+                sorted &= p == indptr[i] || indices[p] > indices[p - 1];
+            }
+        }
+        SparseArray matrix = new SparseArray(SparseFormat.CSR, rows, columns, indptr, indices, null, data);
+        return sorted ? matrix : matrix.toCoo().toCsr();
+    }
+
+    /**
+     * Creates a CSC matrix over the given arrays, which are used as they are when the row indices of every
+     * column are sorted and distinct, and sorted into new arrays with duplicates summed otherwise.
+     *
+     * @param rows    The number of rows.
+     * @param columns The number of columns.
+     * @param indptr  The position of the first element of every column, followed by the element count.
+     * @param indices The row index of every element.
+     * @param data    The value of every element.
+     * @return A new CSC matrix.
+     * @throws IllegalArgumentException      If the arrays do not describe a matrix of the given shape.
+     * @throws UnsupportedOperationException If the values are {@link DType#OBJECT} elements.
+     */
+    public static SparseArray csc(int rows, int columns, int[] indptr, int[] indices, Storage data) {
+        return csr(columns, rows, indptr, indices, data).transpose();
+    }
+
+    /**
+     * Creates a COO matrix over the given arrays. A position may be listed several times.
+     *
+     * @param rows          The number of rows.
+     * @param columns       The number of columns.
+     * @param rowIndices    The row index of every element.
+     * @param columnIndices The column index of every element.
+     * @param data          The value of every element.
+     * @return A new COO matrix.
+     * @throws IllegalArgumentException      If the arrays do not describe a matrix of the given shape.
+     * @throws UnsupportedOperationException If the values are {@link DType#OBJECT} elements.
+     */
+    public static SparseArray coo(int rows, int columns, int[] rowIndices, int[] columnIndices, Storage data) {
+        checkShape(rows, columns, data);
+        if (rowIndices.length != columnIndices.length || data.length() != columnIndices.length) {
+            throw new IllegalArgumentException(sparseStructureException("there must be as many row indices, column indices and values"));
+        }
+        for (int p = 0; p < rowIndices.length; p++) {
+            checkIndex(rowIndices[p], rows);
+            checkIndex(columnIndices[p], columns);
+        }
+        return new SparseArray(SparseFormat.COO, rows, columns, null, columnIndices, rowIndices, data);
+    }
+
+    /**
+     * Creates a sparse matrix holding the non-zero elements of a dense array, of the same data type.
+     * A one-dimensional array becomes a matrix of a single row.
+     *
+     * @param array  The dense array, of one or two dimensions.
+     * @param format The layout of the sparse matrix.
+     * @return A new sparse matrix.
+     * @throws ShapeException                If the array has more than two dimensions.
+     * @throws IllegalArgumentException      If the array has more non-zero elements than a sparse matrix can hold.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public static SparseArray fromDense(NDArray<?> array, SparseFormat format) throws ShapeException {
+        int[] shape = array.shapeArray();
+        long[] strides = array.elementStrides();
+        if (shape.length == 0 || shape.length > 2) {
+            throw new ShapeException(sparseDimensionException(shape));
+        }
+        if (array.type() == DType.OBJECT) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        int rows = shape.length == 1 ? 1 : shape[0];
+        int columns = shape[shape.length - 1];
+        long rowStride = shape.length == 1 ? 0 : strides[0];
+        long columnStride = strides[shape.length - 1];
+        if (format == SparseFormat.CSC) {
+            // The CSC layout of a matrix is the CSR layout of its transpose
+            return compress(array.storage(), array.offset(), columns, rows, columnStride, rowStride).transpose();
+        }
+        SparseArray matrix = compress(array.storage(), array.offset(), rows, columns, rowStride, columnStride);
+        return format == SparseFormat.COO ? matrix.toCoo() : matrix;
+    }
+
+    /**
+     * Returns the layout of the stored elements.
+     *
+     * @return The sparse format.
+     */
+    public SparseFormat format() {
+        return format;
+    }
+
+    /**
+     * Returns the shape of the matrix.
+     *
+     * @return A new array holding the number of rows and columns.
+     */
+    public int[] shapeArray() {
+        return new int[]{rows, columns};
+    }
+
+    /**
+     * Returns the number of stored elements, duplicates of a COO matrix included.
+     *
+     * @return The number of stored elements.
+     */
+    public int nnz() {
+        return indices.length;
+    }
+
+    /**
+     * Returns the data type of the stored values.
+     *
+     * @return The data type.
+     */
+    public DType type() {
+        return data.dType();
+    }
+
+    /**
+     * Returns the storage holding the stored values, shared with the matrix.
+     *
+     * @return The values.
+     */
+    public Storage data() {
+        return data;
+    }
+
+    /**
+     * Returns the position of the first element of every row for CSR, of every column for CSC, followed by the
+     * number of elements. The array is shared with the matrix and must not be modified.
+     *
+     * @return The element ranges, or null for a COO matrix.
+     */
+    public int[] indptr() {
+        return indptr;
+    }
+
+    /**
+     * Returns the column index of every element for CSR and COO, its row index for CSC. The array is shared
+     * with the matrix and must not be modified.
+     *
+     * @return The indices.
+     */
+    public int[] indices() {
+        return indices;
+    }
+
+    /**
+     * Returns the row index of every element of a COO matrix. The array is shared with the matrix and must not
+     * be modified.
+     *
+     * @return The row indices, or null for a compressed matrix.
+     */
+    public int[] rowIndices() {
+        return rowIndices;
+    }
+
+    /**
+     * Returns the number of bytes of the values and index arrays of the matrix.
+     *
+     * @return The memory held by the matrix.
+     */
+    public long nbytes() {
+        long indexCount = indices.length + (indptr != null ? indptr.length : rowIndices.length);
+        return data.length() * new Utils().getElementSize(type().is()) + indexCount * Integer.BYTES;
+    }
+
+    /**
+     * Returns the transpose of the matrix, over the same arrays: CSR matrices become CSC matrices and the other
+     * way round, COO matrices swap their index arrays.
+     *
+     * @return The transposed matrix.
+     */
+    public SparseArray transpose() {
+        switch (format) {
+            case CSR: return new SparseArray(SparseFormat.CSC, columns, rows, indptr, indices, null, data);
+            case CSC: return new SparseArray(SparseFormat.CSR, columns, rows, indptr, indices, null, data);
+            default: return new SparseArray(SparseFormat.COO, columns, rows, null, rowIndices, indices, data);
+        }
+    }
+
+    /**
+     * Returns the matrix in the given layout.
+     *
+     * @param format The layout.
+     * @return This matrix if it already has the layout, a new matrix otherwise.
+     */
+    public SparseArray asFormat(SparseFormat format) {
+        switch (format) {
+            case CSR: return toCsr();
+            case CSC: return toCsc();
+            default: return toCoo();
+        }
+    }
+
+    /**
+     * Returns the matrix in the CSR layout, summing the duplicates of a COO matrix.
+     *
+     * @return This matrix if it is a CSR matrix, a new matrix otherwise.
+     */
+    public SparseArray toCsr() {
+        switch (format) {
+            case CSR: return this;
+            case CSC: return transpose().toCsc().transpose();
+            default: return compressCoordinates(rows, columns, rowIndices, indices, data);
+        }
+    }
+
+    /**
+     * Returns the matrix in the CSC layout, summing the duplicates of a COO matrix.
+     *
+     * @return This matrix if it is a CSC matrix, a new matrix otherwise.
+     */
+    public SparseArray toCsc() {
+        switch (format) {
+            case CSC: return this;
+            case CSR: return switchMajor();
+            default: return transpose().toCsr().transpose();
+        }
+    }
+
+    /**
+     * Returns the matrix in the COO layout, ordered by rows for CSR and by columns for CSC. The column indices
+     * and values of a CSR matrix are shared with the new matrix.
+     *
+     * @return This matrix if it is a COO matrix, a new matrix otherwise.
+     */
+    public SparseArray toCoo() {
+        switch (format) {
+            case COO: return this;
+            case CSC: return transpose().toCoo().transpose();
+            default:
+                int[] expanded = new int[indices.length];
+                forEachRow(rows, indices.length + rows, (first, last) -> {
+                    for (int i = (int) first; i < last; i++) {
+                        Arrays.fill(expanded, indptr[i], indptr[i + 1], i);
+                    }
+                });
+                return new SparseArray(SparseFormat.COO, rows, columns, null, indices, expanded, data);
+        }
+    }
+
+    /**
+     * Returns a dense array holding the elements of the matrix, row-major for CSR and COO matrices and
+     * column-major for CSC matrices, so every layout is expanded along its contiguous dimension.
+     *
+     * @param <R> The type of the elements of the array.
+     * @return A new NDArray of the shape and data type of the matrix.
+     */
+    public <R> NDArray<R> toDense() {
+        int[] shape = shapeArray();
+        switch (format) {
+            case CSC:
+                // The column-major layout of a matrix is the row-major layout of its transpose
+                return new NumJ().array(transpose().expand(), shape, Order.F);
+            case COO:
+                Storage dense = Storage.allocate(type(), (long) rows * columns);
+                boolean floating = type().isFloatingPoint();
+                for (int p = 0; p < indices.length; p++) {
+                    long position = (long) rowIndices[p] * columns + indices[p];
+                    if (floating) {
+                        dense.setDouble(position, dense.getDouble(position) + data.getDouble(p));
+                    } else {
+                        dense.setLong(position, dense.getLong(position) + data.getLong(p));
+                    }
+                }
+                return new NumJ().array(dense, shape);
+            default:
+                return new NumJ().array(expand(), shape);
+        }
+    }
+
+    /**
+     * Writes the elements of a CSR matrix into a new row-major storage, one range of rows per task.
+     */
+    private Storage expand() {
+        Storage dense = Storage.allocate(type(), (long) rows * columns);
+        boolean floating = type().isFloatingPoint();
+        forEachRow(rows, indices.length + rows, (first, last) -> {
+            for (int i = (int) first; i < last; i++) {
+                long row = (long) i * columns;
+                for (int p = indptr[i]; p < indptr[i + 1]; p++) {
+                    if (floating) {
+                        dense.setDouble(row + indices[p], data.getDouble(p));
+                    } else {
+                        dense.setLong(row + indices[p], data.getLong(p));
+                    }
+                }
+            }
+        });
+        return dense;
+    }
+
+    /**
+     * Builds the CSR matrix of the non-zero elements of a strided dense matrix in two passes over its rows, the
+     * first counting the non-zero elements of every row and the second copying them to their final position.
+     */
+    private static SparseArray compress(Storage source, long offset, int rows, int columns, long rowStride, long columnStride) {
+        DType type = source.dType();
+        boolean floating = type.isFloatingPoint();
+        int[] indptr = new int[rows + 1];
+        long work = (long) rows * columns;
+        forEachRow(rows, work, (first, last) -> {
+            for (int i = (int) first; i < last; i++) {
+                long position = offset + i * rowStride;
+                int count = 0;
+                for (int j = 0; j < columns; j++, position += columnStride) {
+                    if (floating ? source.getDouble(position) != 0 : source.getLong(position) != 0) {
+                        count++;
+                    }
+                }
+                indptr[i + 1] = count;
+            }
+        });
+        int total = accumulate(indptr);
+        int[] indices = new int[total];
+        Storage data = Storage.allocate(type, total);
+        forEachRow(rows, work, (first, last) -> {
+            for (int i = (int) first; i < last; i++) {
+                long position = offset + i * rowStride;
+                int k = indptr[i];
+                for (int j = 0; j < columns; j++, position += columnStride) {
+                    if (floating) {
+                        double value = source.getDouble(position);
+                        if (value != 0) {
+                            indices[k] = j;
+                            data.setDouble(k++, value);
+                        }
+                    } else {
+                        long value = source.getLong(position);
+                        if (value != 0) {
+                            indices[k] = j;
+                            data.setLong(k++, value);
+                        }
+                    }
+                }
+            }
+        });
+        return new SparseArray(SparseFormat.CSR, rows, columns, indptr, indices, null, data);
+    }
+
+    /**
+     * Converts a CSR matrix to the CSC layout with a counting sort of its elements by column. Rows are visited
+     * in order, so the row indices of every column come out sorted.
+     */
+    private SparseArray switchMajor() {
+        int[] pointers = new int[columns + 1];
+        for (int index : indices) {
+            pointers[index + 1]++;
+        }
+        for (int j = 0; j < columns; j++) {
+            pointers[j + 1] += pointers[j];
+        }
+        int[] next = Arrays.copyOf(pointers, columns);
+        int[] minor = new int[indices.length];
+        Storage values = Storage.allocate(type(), indices.length);
+        boolean floating = type().isFloatingPoint();
+        for (int i = 0; i < rows; i++) {
+            for (int p = indptr[i]; p < indptr[i + 1]; p++) {
+                int q = next[indices[p]]++;
+                minor[q] = i;
+                move(data, p, values, q, floating);
+            }
+        }
+        return new SparseArray(SparseFormat.CSC, rows, columns, pointers, minor, null, values);
+    }
+
+    /**
+     * Converts coordinates to the CSR layout. Two stable counting sorts, by column and then by row, order the
+     * elements by row and column, so duplicates end up next to each other and are summed.
+     */
+    private static SparseArray compressCoordinates(int rows, int columns, int[] rowIndices, int[] columnIndices, Storage values) {
+        int count = columnIndices.length;
+        int[] starts = new int[rows + 1];
+        int[] order = sortByKey(rowIndices, rows, sortByKey(columnIndices, columns, null, null), starts);
+        int[] indptr = new int[rows + 1];
+        int[] indices = new int[count];
+        Storage data = Storage.allocate(values.dType(), count);
+        boolean floating = values.dType().isFloatingPoint();
+        int k = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int q = starts[i]; q < starts[i + 1]; q++) {
+                int p = order[q];
+                if (k > indptr[i] && indices[k - 1] == columnIndices[p]) {
+                    if (floating) {
+                        data.setDouble(k - 1, data.getDouble(k - 1) + values.getDouble(p));
+                    } else {
+                        data.setLong(k - 1, data.getLong(k - 1) + values.getLong(p));
+                    }
+                } else {
+                    indices[k] = columnIndices[p];
+                    move(values, p, data, k++, floating);
+                }
+            }
+            indptr[i + 1] = k;
+        }
+        if (k < count) {
+            Storage trimmed = Storage.allocate(data.dType(), k);
+            data.copyTo(0, trimmed, 0, k);
+            return new SparseArray(SparseFormat.CSR, rows, columns, indptr, Arrays.copyOf(indices, k), null, trimmed);
+        }
+        return new SparseArray(SparseFormat.CSR, rows, columns, indptr, indices, null, data);
+    }
+
+    /**
+     * Orders positions by key with a stable counting sort.
+     *
+     * @param keys      The key of every position, between 0 (inclusive) and range (exclusive).
+     * @param range     The number of distinct keys.
+     * @param positions The positions in their current order, null for the natural order.
+     * @param starts    Receives the first sorted position of every key followed by the position count, or null.
+     * @return The positions sorted by key.
+     */
+    private static int[] sortByKey(int[] keys, int range, int[] positions, int[] starts) {
+        int[] next = new int[range + 1];
+        for (int key : keys) {
+            next[key + 1]++;
+        }
+        for (int i = 0; i < range; i++) {
+            next[i + 1] += next[i];
+        }
+        if (starts != null) {
+            System.arraycopy(next, 0, starts, 0, range + 1);
+        }
+        int[] sorted = new int[keys.length];
+        for (int q = 0; q < keys.length; q++) {
+            int p = positions == null ? q : positions[q];
+            sorted[next[keys[p]]++] = p;
+        }
+        return sorted;
+    }
+
+    /**
+     * Copies one value between storages of the same data type.
+     */
+    static void move(Storage from, long position, Storage to, long target, boolean floating) {
+        if (floating) {
+            to.setDouble(target, from.getDouble(position));
+        } else {
+            to.setLong(target, from.getLong(position));
+        }
+    }
+
+    /**
+     * Runs a task over ranges of rows, in parallel on the shared execution context when the work is large
+     * enough, each range holding about one chunk of work.
+     *
+     * @param count The number of rows.
+     * @param work  The number of elements touched by all the rows.
+     * @param task  The work to perform on every range of rows.
+     */
+    static void forEachRow(int count, long work, ChunkTask task) {
+        if (work < ExecutionEngine.getThreshold() || count <= 1) {
+            task.run(0, count);
+            return;
+        }
+        int chunk = (int) Math.max(1, Math.min(count, (long) ExecutionEngine.getChunkSize() * count / work));
+        ExecutionContext.getDefault().forEachChunk(count, chunk, task);
+    }
+
+    /**
+     * Turns the element counts of the rows, stored from position 1, into the positions of their first elements.
+     *
+     * @return The total number of elements.
+     */
+    static int accumulate(int[] indptr) {
+        long total = 0;
+        for (int i = 1; i < indptr.length; i++) {
+            total += indptr[i];
+            if (total > Storage.MAX_ARRAY_LENGTH) {
+                throw new IllegalArgumentException(nonZeroCountException(total));
+            }
+            indptr[i] = (int) total;
+        }
+        return (int) total;
+    }
+
+    private static void checkShape(int rows, int columns, Storage data) {
+        if (rows < 0 || columns < 0) {
+            throw new IllegalArgumentException(negativeSizeException(Math.min(rows, columns)));
+        }
+        if (data.dType() == DType.OBJECT) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+    }
+
+    private static void checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IllegalArgumentException(sparseStructureException("index " + index + " is out of bounds for a dimension of length " + length));
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.library.numj.sparse;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.SparseFormat;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.parallel.ChunkTask;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
+import com.library.numj.storage.Storage;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import static com.library.numj.ExceptionMessages.elementwiseShapeException;
+import static com.library.numj.ExceptionMessages.matmulShapeException;
+import static com.library.numj.ExceptionMessages.unsupportedOperation;
+
+/**
+ * The {@code SparseOperations} class provides arithmetic on {@link SparseArray} objects: element-wise
+ * operations that keep the result sparse and products of sparse matrices with dense {@link NDArray} objects.
+ * <p>
+ * Element-wise operations visit the stored elements of both operands row by row, merging their sorted
+ * indices, in two passes: the first counts the elements of every row of the result and the second writes
+ * them at their final position, so the result is built without intermediate buffers. Elements that come out
+ * as zero are not stored. Both passes split the rows over the threads of the shared {@link ExecutionContext}.
+ * <p>
+ * Products are computed on the CSR layout, every row of the result being the combination of the rows of the
+ * dense operand selected by the stored elements of one row of the sparse matrix. The rows are split into
+ * ranges holding about the same number of stored elements, so a few dense rows do not leave the other
+ * threads idle. A dense matrix times a sparse matrix is computed as the transposed product, whose row-major
+ * result is the column-major layout of the product; the transpose of a CSC matrix being a CSR matrix, this
+ * needs no conversion for CSC operands.
+ * <p>
+ * Floating point values are processed in double precision, integer values in long, through the storage
+ * accessors except for the double precision products, which run over the primitive arrays.
+ */
+public class SparseOperations {
+    /**
+     * Adds two sparse matrices element-wise.
+     *
+     * @param a The first matrix.
+     * @param b The second matrix, of the shape of a.
+     * @return A new sparse matrix, CSC if a is a CSC matrix and CSR otherwise.
+     * @throws ShapeException If the matrices have different shapes.
+     */
+    public SparseArray add(SparseArray a, SparseArray b) throws ShapeException {
+        return combine(a, b, true, Double::sum, Long::sum);
+    }
+
+    /**
+     * Subtracts a sparse matrix from another element-wise.
+     *
+     * @param a The first matrix.
+     * @param b The matrix subtracted, of the shape of a.
+     * @return A new sparse matrix, CSC if a is a CSC matrix and CSR otherwise.
+     * @throws ShapeException If the matrices have different shapes.
+     */
+    public SparseArray subtract(SparseArray a, SparseArray b) throws ShapeException {
+        return combine(a, b, true, (x, y) -> x - y, (x, y) -> x - y);
+    }
+
+    /**
+     * Multiplies two sparse matrices element-wise. Only the positions stored by both matrices are visited.
+     *
+     * @param a The first matrix.
+     * @param b The second matrix, of the shape of a.
+     * @return A new sparse matrix, CSC if a is a CSC matrix and CSR otherwise.
+     * @throws ShapeException If the matrices have different shapes.
+     */
+    public SparseArray multiply(SparseArray a, SparseArray b) throws ShapeException {
+        return combine(a, b, false, (x, y) -> x * y, (x, y) -> x * y);
+    }
+
+    /**
+     * Multiplies a sparse matrix element-wise by a dense array broadcast to its shape. The result only holds
+     * positions stored by the sparse matrix.
+     *
+     * @param a The sparse matrix, of shape (m, n).
+     * @param b The dense array, of shape (m, n), (1, n), (m, 1), (n) or (1), or zero-dimensional.
+     * @return A new sparse matrix, CSC if a is a CSC matrix and CSR otherwise.
+     * @throws ShapeException                If the array cannot be broadcast to the shape of the matrix.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public SparseArray multiply(SparseArray a, NDArray<?> b) throws ShapeException {
+        int[] shape = a.shapeArray();
+        int[] bShape = b.shapeArray();
+        long[] strides = b.elementStrides();
+        if (bShape.length > 2) {
+            throw new ShapeException(elementwiseShapeException(shape, bShape));
+        }
+        long[] broadcast = new long[2];
+        for (int d = 0; d < bShape.length; d++) {
+            int axis = 2 - bShape.length + d;
+            if (bShape[d] != 1 && bShape[d] != shape[axis]) {
+                throw new ShapeException(elementwiseShapeException(shape, bShape));
+            }
+            broadcast[axis] = bShape[d] == 1 ? 0 : strides[d];
+        }
+        return scale(a, resultType(a.type(), b.type()), b.storage(), b.offset(), broadcast[0], broadcast[1]);
+    }
+
+    /**
+     * Multiplies every element of a sparse matrix by a scalar. Integer matrices stay integer for integral
+     * factors and become {@link DType#FLOAT64} matrices otherwise.
+     *
+     * @param a     The sparse matrix.
+     * @param value The factor.
+     * @return A new sparse matrix, CSC if a is a CSC matrix and CSR otherwise.
+     */
+    public SparseArray multiply(SparseArray a, double value) {
+        DType type = a.type().isFloatingPoint() || value == Math.rint(value) ? a.type() : DType.FLOAT64;
+        return scale(a, type, Storage.wrap(new double[]{value}), 0, 0, 0);
+    }
+
+    /**
+     * Computes the product of a sparse matrix with a dense vector or matrix.
+     *
+     * @param a   The sparse matrix, of shape (m, n).
+     * @param b   The dense vector of length n or matrix of shape (n, k).
+     * @param <R> The type of the result elements.
+     * @return A new row-major NDArray, a vector of length m or a matrix of shape (m, k).
+     * @throws ShapeException                If the operands do not fit together.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <R> NDArray<R> matmul(SparseArray a, NDArray<?> b) throws ShapeException {
+        int[] aShape = a.shapeArray();
+        int[] bShape = b.shapeArray();
+        if (bShape.length == 0 || bShape.length > 2 || bShape[0] != aShape[1]) {
+            throw new ShapeException(matmulShapeException(aShape, bShape));
+        }
+        DType type = resultType(a.type(), b.type());
+        long[] strides = b.elementStrides();
+        boolean vector = bShape.length == 1;
+        int k = vector ? 1 : bShape[1];
+        Storage c = multiplyRows(a.toCsr(), type, b.storage(), b.offset(), strides[0], vector ? 0 : strides[1], k);
+        return new NumJ().array(c, vector ? new int[]{aShape[0]} : new int[]{aShape[0], k});
+    }
+
+    /**
+     * Computes the product of a dense vector or matrix with a sparse matrix.
+     *
+     * @param a   The dense vector of length n or matrix of shape (m, n).
+     * @param b   The sparse matrix, of shape (n, k).
+     * @param <R> The type of the result elements.
+     * @return A new NDArray, a vector of length k or a column-major matrix of shape (m, k).
+     * @throws ShapeException                If the operands do not fit together.
+     * @throws UnsupportedOperationException If the array holds {@link DType#OBJECT} elements.
+     */
+    public <R> NDArray<R> matmul(NDArray<?> a, SparseArray b) throws ShapeException {
+        int[] aShape = a.shapeArray();
+        int[] bShape = b.shapeArray();
+        if (aShape.length == 0 || aShape.length > 2 || aShape[aShape.length - 1] != bShape[0]) {
+            throw new ShapeException(matmulShapeException(aShape, bShape));
+        }
+        DType type = resultType(a.type(), b.type());
+        long[] strides = a.elementStrides();
+        boolean vector = aShape.length == 1;
+        int m = vector ? 1 : aShape[0];
+        // (a b)^T = b^T a^T, whose row-major layout is the column-major layout of a b
+        Storage c = multiplyRows(b.transpose().toCsr(), type, a.storage(), a.offset(), strides[aShape.length - 1],
+                vector ? 0 : strides[0], m);
+        return vector ? new NumJ().array(c, new int[]{bShape[1]}) : new NumJ().array(c, new int[]{m, bShape[1]}, Order.F);
+    }
+
+    /**
+     * Merges the sorted elements of two matrices of the same shape in the compressed layout of the first one.
+     */
+    private static SparseArray combine(SparseArray a, SparseArray b, boolean union, DoubleBinaryOperator real,
+                                       LongBinaryOperator integer) throws ShapeException {
+        int[] shape = a.shapeArray();
+        if (!Arrays.equals(shape, b.shapeArray())) {
+            throw new ShapeException(elementwiseShapeException(shape, b.shapeArray()));
+        }
+        DType type = resultType(a.type(), b.type());
+        boolean csc = a.format() == SparseFormat.CSC;
+        // The CSC layout of a matrix is the CSR layout of its transpose
+        Merge merge = new Merge(csc ? a.transpose() : a.toCsr(), csc ? b.toCsc().transpose() : b.toCsr(),
+                union, type.isFloatingPoint(), real, integer);
+        int major = merge.left.indptr().length - 1;
+        long work = (long) a.nnz() + b.nnz() + major;
+        int[] indptr = new int[major + 1];
+        SparseArray.forEachRow(major, work, (first, last) -> {
+            for (int i = (int) first; i < last; i++) {
+                indptr[i + 1] = merge.row(i, null, null, 0);
+            }
+        });
+        int count = SparseArray.accumulate(indptr);
+        int[] indices = new int[count];
+        Storage data = Storage.allocate(type, count);
+        SparseArray.forEachRow(major, work, (first, last) -> {
+            for (int i = (int) first; i < last; i++) {
+                merge.row(i, indices, data, indptr[i]);
+            }
+        });
+        SparseArray result = new SparseArray(SparseFormat.CSR, merge.left.shapeArray()[0], merge.left.shapeArray()[1],
+                indptr, indices, null, data);
+        return csc ? result.transpose() : result;
+    }
+
+    /**
+     * Two CSR matrices whose rows are merged by an element-wise operation.
+     */
+    private static final class Merge {
+        final SparseArray left;
+        final SparseArray right;
+        final boolean union;
+        final boolean floating;
+        final DoubleBinaryOperator real;
+        final LongBinaryOperator integer;
+
+        Merge(SparseArray left, SparseArray right, boolean union, boolean floating, DoubleBinaryOperator real,
+              LongBinaryOperator integer) {
+            this.left = left;
+            this.right = right;
+            this.union = union;
+            this.floating = floating;
+            this.real = real;
+            this.integer = integer;
+        }
+
+        /**
+         * Computes the non-zero elements of a row of the result, writing them from position k when indices is
+         * not null.
+         *
+         * @return The number of non-zero elements of the row.
+         */
+        int row(int i, int[] indices, Storage data, int k) {
+            int[] li = left.indices();
+            int[] ri = right.indices();
+            Storage lv = left.data();
+            Storage rv = right.data();
+            int p = left.indptr()[i];
+            int pEnd = left.indptr()[i + 1];
+            int q = right.indptr()[i];
+            int qEnd = right.indptr()[i + 1];
+            int count = 0;
+            while (p < pEnd || q < qEnd) {
+                int lc = p < pEnd ? li[p] : Integer.MAX_VALUE;
+                int rc = q < qEnd ? ri[q] : Integer.MAX_VALUE;
+                if (!union && lc != rc) {
+                    if (lc < rc) p++;
+                    else q++;
+                    continue;
+                }
+                int column = Math.min(lc, rc);
+                boolean stored;
+                if (floating) {
+                    double value = real.applyAsDouble(lc == column ? lv.getDouble(p++) : 0, rc == column ? rv.getDouble(q++) : 0);
+                    stored = value != 0;
+                    if (stored && indices != null) data.setDouble(k + count, value);
+                } else {
+                    long value = integer.applyAsLong(lc == column ? lv.getLong(p++) : 0, rc == column ? rv.getLong(q++) : 0);
+                    stored = value != 0;
+                    if (stored && indices != null) data.setLong(k + count, value);
+                }
+                if (stored) {
+                    if (indices != null) indices[k + count] = column;
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Multiplies the stored elements of a matrix by the elements of a strided dense matrix at the same position,
+     * keeping the non-zero products.
+     */
+    private static SparseArray scale(SparseArray a, DType type, Storage b, long offset, long rowStride, long columnStride) {
+        if (a.format() == SparseFormat.CSC) {
+            return scale(a.transpose(), type, b, offset, columnStride, rowStride).transpose();
+        }
+        SparseArray csr = a.toCsr();
+        int rows = csr.shapeArray()[0];
+        boolean floating = type.isFloatingPoint();
+        long work = (long) csr.nnz() + rows;
+        int[] indptr = new int[rows + 1];
+        SparseArray.forEachRow(rows, work, (first, last) -> {
+            for (int i = (int) first; i < last; i++) {
+                indptr[i + 1] = scaleRow(csr, i, floating, b, offset + i * rowStride, columnStride, null, null, 0);
+            }
+        });
+        int count = SparseArray.accumulate(indptr);
+        int[] indices = new int[count];
+        Storage data = Storage.allocate(type, count);
+        SparseArray.forEachRow(rows, work, (first, last) -> {
+            for (int i = (int) first; i < last; i++) {
+                scaleRow(csr, i, floating, b, offset + i * rowStride, columnStride, indices, data, indptr[i]);
+            }
+        });
+        return new SparseArray(SparseFormat.CSR, rows, csr.shapeArray()[1], indptr, indices, null, data);
+    }
+
+    /**
+     * Computes the non-zero products of a row of a CSR matrix with a row of a dense matrix, writing them from
+     * position k when indices is not null.
+     *
+     * @return The number of non-zero products.
+     */
+    private static int scaleRow(SparseArray a, int i, boolean floating, Storage b, long row, long columnStride,
+                                int[] indices, Storage data, int k) {
+        int[] columns = a.indices();
+        Storage values = a.data();
+        int count = 0;
+        for (int p = a.indptr()[i]; p < a.indptr()[i + 1]; p++) {
+            long position = row + columns[p] * columnStride;
+            if (floating) {
+                double value = values.getDouble(p) * b.getDouble(position);
+                if (value == 0) continue;
+                if (indices != null) data.setDouble(k + count, value);
+            } else {
+                long value = values.getLong(p) * b.getLong(position);
+                if (value == 0) continue;
+                if (indices != null) data.setLong(k + count, value);
+            }
+            if (indices != null) indices[k + count] = columns[p];
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Computes the row-major product of a CSR matrix with a strided dense matrix of k columns.
+     */
+    private static Storage multiplyRows(SparseArray a, DType type, Storage b, long offset, long rowStride, long columnStride, int k) {
+        int m = a.shapeArray()[0];
+        int[] indptr = a.indptr();
+        int[] indices = a.indices();
+        Storage values = a.data();
+        Storage c = Storage.allocate(type, (long) m * k);
+        boolean floating = type.isFloatingPoint();
+        boolean arrays = type == DType.FLOAT64 && values.dType() == DType.FLOAT64 && b.dType() == DType.FLOAT64
+                && values.hasArray() && b.hasArray() && c.hasArray();
+        forEachBalancedRows(indptr, m, k, (first, last) -> {
+            if (arrays) {
+                multiplyRows((double[]) values.array(), indptr, indices, (double[]) b.array(), offset, rowStride,
+                        columnStride, k, (double[]) c.array(), (int) first, (int) last);
+                return;
+            }
+            double[] realRow = floating ? new double[k] : null;
+            long[] integerRow = floating ? null : new long[k];
+            for (int i = (int) first; i < last; i++) {
+                if (floating) Arrays.fill(realRow, 0);
+                else Arrays.fill(integerRow, 0);
+                for (int p = indptr[i]; p < indptr[i + 1]; p++) {
+                    long position = offset + indices[p] * rowStride;
+                    if (floating) {
+                        double value = values.getDouble(p);
+                        for (int j = 0; j < k; j++, position += columnStride) realRow[j] += value * b.getDouble(position);
+                    } else {
+                        long value = values.getLong(p);
+                        for (int j = 0; j < k; j++, position += columnStride) integerRow[j] += value * b.getLong(position);
+                    }
+                }
+                long row = (long) i * k;
+                for (int j = 0; j < k; j++) {
+                    if (floating) c.setDouble(row + j, realRow[j]);
+                    else c.setLong(row + j, integerRow[j]);
+                }
+            }
+        });
+        return c;
+    }
+
+    /**
+     * Computes rows first to last of the product of a CSR matrix with a dense matrix over primitive arrays,
+     * taking dot products for a single column and combining rows of the dense matrix into the result otherwise.
+     */
+    private static void multiplyRows(double[] values, int[] indptr, int[] indices, double[] b, long offset, long rowStride,
+                                     long columnStride, int k, double[] c, int first, int last) {
+        if (k == 1) {
+            for (int i = first; i < last; i++) {
+                double sum = 0;
+                for (int p = indptr[i]; p < indptr[i + 1]; p++) {
+                    sum += values[p] * b[(int) (offset + indices[p] * rowStride)];
+                }
+                c[i] = sum;
+            }
+            return;
+        }
+        for (int i = first; i < last; i++) {
+            int row = i * k;
+            for (int p = indptr[i]; p < indptr[i + 1]; p++) {
+                double value = values[p];
+                int position = (int) (offset + indices[p] * rowStride);
+                if (columnStride == 1) {
+                    for (int j = 0; j < k; j++) c[row + j] += value * b[position + j];
+                } else {
+                    for (int j = 0; j < k; j++) c[row + j] += value * b[(int) (position + j * columnStride)];
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a task over ranges of rows of a CSR matrix holding about the same number of stored elements, each
+     * element costing k operations and every row one more.
+     */
+    private static void forEachBalancedRows(int[] indptr, int rows, int k, ChunkTask task) {
+        long total = (long) indptr[rows] * k + rows;
+        if (total < ExecutionEngine.getThreshold() || rows <= 1) {
+            task.run(0, rows);
+            return;
+        }
+        int parts = (int) Math.min(rows, Math.max(1, total / ExecutionEngine.getChunkSize()));
+        ExecutionContext.getDefault().forEachChunk(parts, 1, (first, last) -> {
+            for (long part = first; part < last; part++) {
+                int start = boundary(indptr, rows, k, (long) (total * ((double) part / parts)));
+                int end = part + 1 == parts ? rows : boundary(indptr, rows, k, (long) (total * ((double) (part + 1) / parts)));
+                if (start < end) {
+                    task.run(start, end);
+                }
+            }
+        });
+    }
+
+    /**
+     * Finds the first row whose cost, the work of the rows before it, reaches a target by binary search.
+     */
+    private static int boundary(int[] indptr, int rows, int k, long target) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if ((long) indptr[middle] * k + middle < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static DType resultType(DType a, DType b) {
+        if (a == DType.OBJECT || b == DType.OBJECT) {
+            throw new UnsupportedOperationException(unsupportedOperation);
+        }
+        return a.promote(b);
+    }
+}
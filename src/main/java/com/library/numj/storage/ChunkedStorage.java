@@ -0,0 +1,163 @@
+package com.library.numj.storage;
+
+import com.library.numj.ExceptionMessages;
+import com.library.numj.enums.DType;
+
+/**
+ * Heap storage for more elements than a single Java array can hold.
+ * <p>
+ * The elements are spread over consecutive array storages of {@code 2^chunkShift} elements each, the last
+ * one holding the remainder, so that the chunk and the position inside it are found with a shift and a mask.
+ * There is no single backing array, so kernels go through the accessors, which delegate to the chunk.
+ */
+public final class ChunkedStorage extends Storage {
+    /** Base two logarithm of the number of elements per chunk used by {@link Storage#allocate(DType, long)}. */
+    static final int DEFAULT_CHUNK_SHIFT = 30;
+
+    /** Number of elements. */
+    private final long length;
+    /** Base two logarithm of the number of elements per chunk. */
+    private final int chunkShift;
+    /** Mask selecting the position inside a chunk. */
+    private final long chunkMask;
+    /** The array storages holding the elements. */
+    private final Storage[] chunks;
+
+    /**
+     * Allocates a zero-initialised chunked storage with the default chunk size.
+     *
+     * @param dType  The data type of the elements.
+     * @param length The number of elements.
+     */
+    ChunkedStorage(DType dType, long length) {
+        this(dType, length, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * Allocates a zero-initialised chunked storage.
+     *
+     * @param dType      The data type of the elements.
+     * @param length     The number of elements.
+     * @param chunkShift Base two logarithm of the number of elements per chunk, at most 30.
+     */
+    ChunkedStorage(DType dType, long length, int chunkShift) {
+        super(dType);
+        this.length = length;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        int count = (int) ((length + chunkMask) >>> chunkShift);
+        this.chunks = new Storage[count];
+        for (int i = 0; i < count; i++) {
+            long remaining = length - ((long) i << chunkShift);
+            chunks[i] = allocateArray(dType, (int) Math.min(remaining, 1L << chunkShift));
+        }
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    /**
+     * Returns the number of elements per chunk, every chunk but the last one being full.
+     *
+     * @return The chunk length.
+     */
+    public int chunkLength() {
+        return 1 << chunkShift;
+    }
+
+    /**
+     * Returns the array storage holding one chunk of the elements.
+     *
+     * @param chunk The index of the chunk.
+     * @return The storage of the chunk, sharing its elements with this storage.
+     */
+    public Storage chunk(int chunk) {
+        return chunks[chunk];
+    }
+
+    /**
+     * Returns the number of chunks.
+     *
+     * @return The chunk count.
+     */
+    public int chunkCount() {
+        return chunks.length;
+    }
+
+    @Override
+    public double getDouble(long index) {
+        return chunks[(int) (index >>> chunkShift)].getDouble(index & chunkMask);
+    }
+
+    @Override
+    public long getLong(long index) {
+        return chunks[(int) (index >>> chunkShift)].getLong(index & chunkMask);
+    }
+
+    @Override
+    public void setDouble(long index, double value) {
+        chunks[(int) (index >>> chunkShift)].setDouble(index & chunkMask, value);
+    }
+
+    @Override
+    public void setLong(long index, long value) {
+        chunks[(int) (index >>> chunkShift)].setLong(index & chunkMask, value);
+    }
+
+    @Override
+    public Object get(long index) {
+        return chunks[(int) (index >>> chunkShift)].get(index & chunkMask);
+    }
+
+    @Override
+    public void set(long index, Object value) {
+        chunks[(int) (index >>> chunkShift)].set(index & chunkMask, value);
+    }
+
+    /**
+     * Chunked storages have no single backing Java array.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public Object array() {
+        throw new UnsupportedOperationException(ExceptionMessages.chunkedArrayException());
+    }
+
+    /**
+     * Stores the same value at every position of a range, one chunk at a time.
+     */
+    @Override
+    public void fill(long from, long to, Object value) {
+        while (from < to) {
+            int chunk = (int) (from >>> chunkShift);
+            long position = from & chunkMask;
+            long count = Math.min(to - from, chunks[chunk].length() - position);
+            chunks[chunk].fill(position, position + count, value);
+            from += count;
+        }
+    }
+
+    /**
+     * Copies a range of elements into another storage of the same data type, one chunk at a time.
+     */
+    @Override
+    public void copyTo(long from, Storage target, long targetFrom, long length) {
+        while (length > 0) {
+            Storage chunk = chunks[(int) (from >>> chunkShift)];
+            long position = from & chunkMask;
+            long count = Math.min(length, chunk.length() - position);
+            chunk.copyTo(position, target, targetFrom, count);
+            from += count;
+            targetFrom += count;
+            length -= count;
+        }
+    }
+}
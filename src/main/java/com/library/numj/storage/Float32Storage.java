@@ -0,0 +1,69 @@
+package com.library.numj.storage;
+
+import com.library.numj.enums.DType;
+
+import java.util.Arrays;
+
+/**
+ * Storage for {@link DType#FLOAT32} elements backed by a single {@code float[]}.
+ */
+public final class Float32Storage extends Storage {
+    /** The 32-bit floating point elements. */
+    final float[] data;
+
+    /**
+     * Wraps the given array without copying it.
+     *
+     * @param data The backing array.
+     */
+    Float32Storage(float[] data) {
+        super(DType.FLOAT32);
+        this.data = data;
+    }
+
+    @Override
+    public long length() {
+        return data.length;
+    }
+
+    @Override
+    public double getDouble(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public long getLong(long index) {
+        return (long) data[(int) index];
+    }
+
+    @Override
+    public void setDouble(long index, double value) {
+        data[(int) index] = (float) value;
+    }
+
+    @Override
+    public void setLong(long index, long value) {
+        data[(int) index] = value;
+    }
+
+    @Override
+    public Object get(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void set(long index, Object value) {
+        Number number = toNumber(value);
+        data[(int) index] = number.floatValue();
+    }
+
+    @Override
+    public void fill(long from, long to, Object value) {
+        Arrays.fill(data, (int) from, (int) to, toNumber(value).floatValue());
+    }
+
+    @Override
+    public float[] array() {
+        return data;
+    }
+}
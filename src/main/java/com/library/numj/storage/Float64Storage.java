@@ -0,0 +1,79 @@
+package com.library.numj.storage;
+
+import com.library.numj.enums.DType;
+
+import java.util.Arrays;
+
+/**
+ * Storage for {@link DType#FLOAT64} elements backed by a single {@code double[]}.
+ */
+public final class Float64Storage extends Storage {
+    /** The 64-bit floating point elements. */
+    final double[] data;
+
+    /**
+     * Wraps the given array without copying it.
+     *
+     * @param data The backing array.
+     */
+    Float64Storage(double[] data) {
+        super(DType.FLOAT64);
+        this.data = data;
+    }
+
+    @Override
+    public long length() {
+        return data.length;
+    }
+
+    @Override
+    public double getDouble(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public long getLong(long index) {
+        return (long) data[(int) index];
+    }
+
+    @Override
+    public void setDouble(long index, double value) {
+        data[(int) index] = value;
+    }
+
+    @Override
+    public void setLong(long index, long value) {
+        data[(int) index] = value;
+    }
+
+    @Override
+    public Object get(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void set(long index, Object value) {
+        Number number = toNumber(value);
+        data[(int) index] = number.doubleValue();
+    }
+
+    @Override
+    public void fill(long from, long to, Object value) {
+        Arrays.fill(data, (int) from, (int) to, toNumber(value).doubleValue());
+    }
+
+    @Override
+    public void getDoubles(long from, double[] target, int offset, int count) {
+        System.arraycopy(data, (int) from, target, offset, count);
+    }
+
+    @Override
+    public void setDoubles(long from, double[] source, int offset, int count) {
+        System.arraycopy(source, offset, data, (int) from, count);
+    }
+
+    @Override
+    public double[] array() {
+        return data;
+    }
+}
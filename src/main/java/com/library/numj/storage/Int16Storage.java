@@ -0,0 +1,69 @@
+package com.library.numj.storage;
+
+import com.library.numj.enums.DType;
+
+import java.util.Arrays;
+
+/**
+ * Storage for {@link DType#INT16} elements backed by a single {@code short[]}.
+ */
+public final class Int16Storage extends Storage {
+    /** The 16-bit integer elements. */
+    final short[] data;
+
+    /**
+     * Wraps the given array without copying it.
+     *
+     * @param data The backing array.
+     */
+    Int16Storage(short[] data) {
+        super(DType.INT16);
+        this.data = data;
+    }
+
+    @Override
+    public long length() {
+        return data.length;
+    }
+
+    @Override
+    public double getDouble(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public long getLong(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void setDouble(long index, double value) {
+        data[(int) index] = (short) value;
+    }
+
+    @Override
+    public void setLong(long index, long value) {
+        data[(int) index] = (short) value;
+    }
+
+    @Override
+    public Object get(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void set(long index, Object value) {
+        Number number = toNumber(value);
+        data[(int) index] = number.shortValue();
+    }
+
+    @Override
+    public void fill(long from, long to, Object value) {
+        Arrays.fill(data, (int) from, (int) to, toNumber(value).shortValue());
+    }
+
+    @Override
+    public short[] array() {
+        return data;
+    }
+}
@@ -0,0 +1,69 @@
+package com.library.numj.storage;
+
+import com.library.numj.enums.DType;
+
+import java.util.Arrays;
+
+/**
+ * Storage for {@link DType#INT32} elements backed by a single {@code int[]}.
+ */
+public final class Int32Storage extends Storage {
+    /** The 32-bit integer elements. */
+    final int[] data;
+
+    /**
+     * Wraps the given array without copying it.
+     *
+     * @param data The backing array.
+     */
+    Int32Storage(int[] data) {
+        super(DType.INT32);
+        this.data = data;
+    }
+
+    @Override
+    public long length() {
+        return data.length;
+    }
+
+    @Override
+    public double getDouble(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public long getLong(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void setDouble(long index, double value) {
+        data[(int) index] = (int) value;
+    }
+
+    @Override
+    public void setLong(long index, long value) {
+        data[(int) index] = (int) value;
+    }
+
+    @Override
+    public Object get(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void set(long index, Object value) {
+        Number number = toNumber(value);
+        data[(int) index] = number.intValue();
+    }
+
+    @Override
+    public void fill(long from, long to, Object value) {
+        Arrays.fill(data, (int) from, (int) to, toNumber(value).intValue());
+    }
+
+    @Override
+    public int[] array() {
+        return data;
+    }
+}
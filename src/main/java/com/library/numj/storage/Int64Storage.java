@@ -0,0 +1,79 @@
+package com.library.numj.storage;
+
+import com.library.numj.enums.DType;
+
+import java.util.Arrays;
+
+/**
+ * Storage for {@link DType#INT64} elements backed by a single {@code long[]}.
+ */
+public final class Int64Storage extends Storage {
+    /** The 64-bit integer elements. */
+    final long[] data;
+
+    /**
+     * Wraps the given array without copying it.
+     *
+     * @param data The backing array.
+     */
+    Int64Storage(long[] data) {
+        super(DType.INT64);
+        this.data = data;
+    }
+
+    @Override
+    public long length() {
+        return data.length;
+    }
+
+    @Override
+    public double getDouble(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public long getLong(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void setDouble(long index, double value) {
+        data[(int) index] = (long) value;
+    }
+
+    @Override
+    public void setLong(long index, long value) {
+        data[(int) index] = value;
+    }
+
+    @Override
+    public Object get(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void set(long index, Object value) {
+        Number number = toNumber(value);
+        data[(int) index] = number.longValue();
+    }
+
+    @Override
+    public void fill(long from, long to, Object value) {
+        Arrays.fill(data, (int) from, (int) to, toNumber(value).longValue());
+    }
+
+    @Override
+    public void getLongs(long from, long[] target, int offset, int count) {
+        System.arraycopy(data, (int) from, target, offset, count);
+    }
+
+    @Override
+    public void setLongs(long from, long[] source, int offset, int count) {
+        System.arraycopy(source, offset, data, (int) from, count);
+    }
+
+    @Override
+    public long[] array() {
+        return data;
+    }
+}
@@ -0,0 +1,69 @@
+package com.library.numj.storage;
+
+import com.library.numj.enums.DType;
+
+import java.util.Arrays;
+
+/**
+ * Storage for {@link DType#INT8} elements backed by a single {@code byte[]}.
+ */
+public final class Int8Storage extends Storage {
+    /** The 8-bit integer elements. */
+    final byte[] data;
+
+    /**
+     * Wraps the given array without copying it.
+     *
+     * @param data The backing array.
+     */
+    Int8Storage(byte[] data) {
+        super(DType.INT8);
+        this.data = data;
+    }
+
+    @Override
+    public long length() {
+        return data.length;
+    }
+
+    @Override
+    public double getDouble(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public long getLong(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void setDouble(long index, double value) {
+        data[(int) index] = (byte) value;
+    }
+
+    @Override
+    public void setLong(long index, long value) {
+        data[(int) index] = (byte) value;
+    }
+
+    @Override
+    public Object get(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void set(long index, Object value) {
+        Number number = toNumber(value);
+        data[(int) index] = number.byteValue();
+    }
+
+    @Override
+    public void fill(long from, long to, Object value) {
+        Arrays.fill(data, (int) from, (int) to, toNumber(value).byteValue());
+    }
+
+    @Override
+    public byte[] array() {
+        return data;
+    }
+}
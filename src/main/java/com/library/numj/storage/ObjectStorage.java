@@ -0,0 +1,68 @@
+package com.library.numj.storage;
+
+import com.library.numj.enums.DType;
+
+import java.util.Arrays;
+
+/**
+ * Storage for {@link DType#OBJECT} elements such as strings or mixed values, backed by an {@code Object[]}.
+ */
+public final class ObjectStorage extends Storage {
+    /** The stored references. */
+    final Object[] data;
+
+    /**
+     * Wraps the given array without copying it.
+     *
+     * @param data The backing array.
+     */
+    ObjectStorage(Object[] data) {
+        super(DType.OBJECT);
+        this.data = data;
+    }
+
+    @Override
+    public long length() {
+        return data.length;
+    }
+
+    @Override
+    public double getDouble(long index) {
+        return toNumber(data[(int) index]).doubleValue();
+    }
+
+    @Override
+    public long getLong(long index) {
+        return toNumber(data[(int) index]).longValue();
+    }
+
+    @Override
+    public void setDouble(long index, double value) {
+        data[(int) index] = value;
+    }
+
+    @Override
+    public void setLong(long index, long value) {
+        data[(int) index] = value;
+    }
+
+    @Override
+    public Object get(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void set(long index, Object value) {
+        data[(int) index] = value;
+    }
+
+    @Override
+    public void fill(long from, long to, Object value) {
+        Arrays.fill(data, (int) from, (int) to, value);
+    }
+
+    @Override
+    public Object[] array() {
+        return data;
+    }
+}
@@ -0,0 +1,492 @@
+package com.library.numj.storage;
+
+import com.library.numj.ExceptionMessages;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.StorageType;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Storage for numeric elements held in native memory outside the Java heap.
+ * <p>
+ * The elements live in direct {@link ByteBuffer}s of at most 1 GiB each, in native byte order, so a
+ * storage may exceed the 2 GiB limit of a single buffer. Such storages put no pressure on the garbage
+ * collector, however large they are. {@link #close()} releases the native memory immediately; a storage
+ * that is never closed is released by the cleaner the JDK attaches to every direct buffer once it
+ * becomes unreachable. Accessing a storage after {@code close()} has returned throws
+ * {@link IllegalStateException}. Closing is not synchronized with accesses, though: closing a storage while
+ * another thread is still reading or writing it, or still holds an array viewing it, is undefined and may crash
+ * the JVM, since the memory is freed under the running operation. Close a storage only once every operation on it
+ * has completed.
+ * <p>
+ * A storage may also be mapped onto a region of a file with {@link #map}, its segments being memory-mapped
+ * buffers in the byte order of the file; elements are then paged in by the operating system on first access
+ * and nothing is read up front. {@link #flush()} writes the modified pages of a read-write mapping back to the file.
+ * <p>
+ * The bulk transfers ({@link #getDoubles}, {@link #setDoubles} and their long variants) go through typed views
+ * of the segments, so block-wise kernels and reductions stream over the storage page by page.
+ */
+public final class OffHeapStorage extends Storage {
+    /** Base two logarithm of the size of a segment in bytes. */
+    static final int SEGMENT_SHIFT = 30;
+    /** Mask selecting the position inside a segment. */
+    static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /** Number of elements. */
+    private final long length;
+    /** Base two logarithm of the element size in bytes. */
+    private final int elementShift;
+    /** Whether the storage allocated or mapped its segments and releases them when closed. */
+    private final boolean owned;
+    /** The native memory segments, null once the storage is closed. */
+    private volatile ByteBuffer[] segments;
+
+    /**
+     * Allocates a zero-initialised off-heap storage.
+     *
+     * @param dType  The data type of the elements.
+     * @param length The number of elements.
+     * @throws UnsupportedDataTypeException If the type is {@link DType#OBJECT}.
+     */
+    OffHeapStorage(DType dType, long length) {
+        super(dType);
+        this.length = length;
+        this.elementShift = elementShift(dType);
+        long bytes = length << elementShift;
+        int count = (int) ((bytes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long remaining = bytes - ((long) i << SEGMENT_SHIFT);
+            buffers[i] = ByteBuffer.allocateDirect((int) Math.min(remaining, 1L << SEGMENT_SHIFT)).order(ByteOrder.nativeOrder());
+        }
+        this.owned = true;
+        this.segments = buffers;
+    }
+
+    /**
+     * Constructs a storage over existing segments of 1 GiB, the last one possibly shorter.
+     */
+    private OffHeapStorage(DType dType, long length, ByteBuffer[] segments, boolean owned) {
+        super(dType);
+        this.length = length;
+        this.elementShift = elementShift(dType);
+        this.owned = owned;
+        this.segments = segments;
+    }
+
+    /**
+     * Creates a storage over the remaining bytes of an existing buffer, in the byte order of the buffer, without
+     * copying them. Writing the storage writes the buffer. The buffer is not released when the storage is closed,
+     * only made inaccessible through it, so that buffers shared with other code stay valid.
+     *
+     * @param buffer The buffer holding the elements from its position to its limit.
+     * @param dType  The data type of the elements.
+     * @return A new storage over the buffer.
+     * @throws IllegalArgumentException     If the remaining bytes are not a whole number of elements.
+     * @throws UnsupportedDataTypeException If the type is {@link DType#OBJECT}.
+     */
+    public static OffHeapStorage wrap(ByteBuffer buffer, DType dType) {
+        int shift = elementShift(dType);
+        int bytes = buffer.remaining();
+        if ((bytes & ((1 << shift) - 1)) != 0) {
+            throw new IllegalArgumentException(ExceptionMessages.bufferElementsException(bytes, dType));
+        }
+        int count = (int) ((bytes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            ByteBuffer segment = buffer.duplicate();
+            int start = buffer.position() + (i << SEGMENT_SHIFT);
+            ((Buffer) segment).limit((int) Math.min(buffer.limit(), start + (1L << SEGMENT_SHIFT)));
+            ((Buffer) segment).position(start);
+            buffers[i] = segment.slice().order(buffer.order());
+        }
+        return new OffHeapStorage(dType, bytes >> shift, buffers, false);
+    }
+
+    /**
+     * Maps a region of a file holding elements as a storage, without reading it.
+     * The mapping stays valid once the channel is closed, until the storage is closed.
+     *
+     * @param channel  The file channel, opened for reading, and for writing unless the mode is read-only.
+     * @param position The position of the first element in the file, in bytes.
+     * @param dType    The data type of the elements.
+     * @param length   The number of elements.
+     * @param order    The byte order of the elements in the file.
+     * @param mode     How the mapping may be modified.
+     * @return A new storage over the mapped region.
+     * @throws IOException                  If the region cannot be mapped.
+     * @throws UnsupportedDataTypeException If the type is {@link DType#OBJECT}.
+     */
+    public static OffHeapStorage map(FileChannel channel, long position, DType dType, long length, ByteOrder order,
+                                     FileChannel.MapMode mode) throws IOException {
+        long bytes = length << elementShift(dType);
+        int count = (int) ((bytes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            buffers[i] = channel.map(mode, position + start, Math.min(bytes - start, 1L << SEGMENT_SHIFT)).order(order);
+        }
+        return new OffHeapStorage(dType, length, buffers, true);
+    }
+
+    private static int elementShift(DType dType) {
+        switch (dType) {
+            case FLOAT64:
+            case INT64: return 3;
+            case FLOAT32:
+            case INT32: return 2;
+            case INT16: return 1;
+            case INT8: return 0;
+            default: throw new UnsupportedDataTypeException(ExceptionMessages.illegalDataType(dType));
+        }
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public StorageType storageType() {
+        return StorageType.OFF_HEAP;
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    /**
+     * Returns the segment holding an element.
+     */
+    private ByteBuffer segment(long byteIndex) {
+        ByteBuffer[] buffers = segments;
+        if (buffers == null) {
+            throw new IllegalStateException(ExceptionMessages.offHeapClosedException());
+        }
+        return buffers[(int) (byteIndex >>> SEGMENT_SHIFT)];
+    }
+
+    @Override
+    public double getDouble(long index) {
+        long byteIndex = index << elementShift;
+        ByteBuffer buffer = segment(byteIndex);
+        int position = (int) (byteIndex & SEGMENT_MASK);
+        switch (dType) {
+            case FLOAT64: return buffer.getDouble(position);
+            case FLOAT32: return buffer.getFloat(position);
+            case INT64: return buffer.getLong(position);
+            case INT32: return buffer.getInt(position);
+            case INT16: return buffer.getShort(position);
+            default: return buffer.get(position);
+        }
+    }
+
+    @Override
+    public long getLong(long index) {
+        long byteIndex = index << elementShift;
+        ByteBuffer buffer = segment(byteIndex);
+        int position = (int) (byteIndex & SEGMENT_MASK);
+        switch (dType) {
+            case FLOAT64: return (long) buffer.getDouble(position);
+            case FLOAT32: return (long) buffer.getFloat(position);
+            case INT64: return buffer.getLong(position);
+            case INT32: return buffer.getInt(position);
+            case INT16: return buffer.getShort(position);
+            default: return buffer.get(position);
+        }
+    }
+
+    @Override
+    public void setDouble(long index, double value) {
+        long byteIndex = index << elementShift;
+        ByteBuffer buffer = segment(byteIndex);
+        int position = (int) (byteIndex & SEGMENT_MASK);
+        switch (dType) {
+            case FLOAT64: buffer.putDouble(position, value); break;
+            case FLOAT32: buffer.putFloat(position, (float) value); break;
+            case INT64: buffer.putLong(position, (long) value); break;
+            case INT32: buffer.putInt(position, (int) value); break;
+            case INT16: buffer.putShort(position, (short) value); break;
+            default: buffer.put(position, (byte) value);
+        }
+    }
+
+    @Override
+    public void setLong(long index, long value) {
+        long byteIndex = index << elementShift;
+        ByteBuffer buffer = segment(byteIndex);
+        int position = (int) (byteIndex & SEGMENT_MASK);
+        switch (dType) {
+            case FLOAT64: buffer.putDouble(position, value); break;
+            case FLOAT32: buffer.putFloat(position, value); break;
+            case INT64: buffer.putLong(position, value); break;
+            case INT32: buffer.putInt(position, (int) value); break;
+            case INT16: buffer.putShort(position, (short) value); break;
+            default: buffer.put(position, (byte) value);
+        }
+    }
+
+    @Override
+    public void getDoubles(long from, double[] target, int offset, int count) {
+        while (count > 0) {
+            ByteBuffer view = view(from);
+            int n = Math.min(count, view.remaining() >> elementShift);
+            switch (dType) {
+                case FLOAT64: view.asDoubleBuffer().get(target, offset, n); break;
+                case FLOAT32: {
+                    FloatBuffer x = view.asFloatBuffer();
+                    for (int i = 0; i < n; i++) target[offset + i] = x.get(i);
+                    break;
+                }
+                case INT64: {
+                    LongBuffer x = view.asLongBuffer();
+                    for (int i = 0; i < n; i++) target[offset + i] = x.get(i);
+                    break;
+                }
+                case INT32: {
+                    IntBuffer x = view.asIntBuffer();
+                    for (int i = 0; i < n; i++) target[offset + i] = x.get(i);
+                    break;
+                }
+                case INT16: {
+                    ShortBuffer x = view.asShortBuffer();
+                    for (int i = 0; i < n; i++) target[offset + i] = x.get(i);
+                    break;
+                }
+                default:
+                    for (int i = 0; i < n; i++) target[offset + i] = view.get(i);
+            }
+            from += n;
+            offset += n;
+            count -= n;
+        }
+    }
+
+    @Override
+    public void getLongs(long from, long[] target, int offset, int count) {
+        while (count > 0) {
+            ByteBuffer view = view(from);
+            int n = Math.min(count, view.remaining() >> elementShift);
+            switch (dType) {
+                case FLOAT64: {
+                    DoubleBuffer x = view.asDoubleBuffer();
+                    for (int i = 0; i < n; i++) target[offset + i] = (long) x.get(i);
+                    break;
+                }
+                case FLOAT32: {
+                    FloatBuffer x = view.asFloatBuffer();
+                    for (int i = 0; i < n; i++) target[offset + i] = (long) x.get(i);
+                    break;
+                }
+                case INT64: view.asLongBuffer().get(target, offset, n); break;
+                case INT32: {
+                    IntBuffer x = view.asIntBuffer();
+                    for (int i = 0; i < n; i++) target[offset + i] = x.get(i);
+                    break;
+                }
+                case INT16: {
+                    ShortBuffer x = view.asShortBuffer();
+                    for (int i = 0; i < n; i++) target[offset + i] = x.get(i);
+                    break;
+                }
+                default:
+                    for (int i = 0; i < n; i++) target[offset + i] = view.get(i);
+            }
+            from += n;
+            offset += n;
+            count -= n;
+        }
+    }
+
+    @Override
+    public void setDoubles(long from, double[] source, int offset, int count) {
+        while (count > 0) {
+            ByteBuffer view = view(from);
+            int n = Math.min(count, view.remaining() >> elementShift);
+            switch (dType) {
+                case FLOAT64: view.asDoubleBuffer().put(source, offset, n); break;
+                case FLOAT32: {
+                    FloatBuffer z = view.asFloatBuffer();
+                    for (int i = 0; i < n; i++) z.put(i, (float) source[offset + i]);
+                    break;
+                }
+                case INT64: {
+                    LongBuffer z = view.asLongBuffer();
+                    for (int i = 0; i < n; i++) z.put(i, (long) source[offset + i]);
+                    break;
+                }
+                case INT32: {
+                    IntBuffer z = view.asIntBuffer();
+                    for (int i = 0; i < n; i++) z.put(i, (int) source[offset + i]);
+                    break;
+                }
+                case INT16: {
+                    ShortBuffer z = view.asShortBuffer();
+                    for (int i = 0; i < n; i++) z.put(i, (short) source[offset + i]);
+                    break;
+                }
+                default:
+                    for (int i = 0; i < n; i++) view.put(i, (byte) source[offset + i]);
+            }
+            from += n;
+            offset += n;
+            count -= n;
+        }
+    }
+
+    @Override
+    public void setLongs(long from, long[] source, int offset, int count) {
+        while (count > 0) {
+            ByteBuffer view = view(from);
+            int n = Math.min(count, view.remaining() >> elementShift);
+            switch (dType) {
+                case FLOAT64: {
+                    DoubleBuffer z = view.asDoubleBuffer();
+                    for (int i = 0; i < n; i++) z.put(i, source[offset + i]);
+                    break;
+                }
+                case FLOAT32: {
+                    FloatBuffer z = view.asFloatBuffer();
+                    for (int i = 0; i < n; i++) z.put(i, source[offset + i]);
+                    break;
+                }
+                case INT64: view.asLongBuffer().put(source, offset, n); break;
+                case INT32: {
+                    IntBuffer z = view.asIntBuffer();
+                    for (int i = 0; i < n; i++) z.put(i, (int) source[offset + i]);
+                    break;
+                }
+                case INT16: {
+                    ShortBuffer z = view.asShortBuffer();
+                    for (int i = 0; i < n; i++) z.put(i, (short) source[offset + i]);
+                    break;
+                }
+                default:
+                    for (int i = 0; i < n; i++) view.put(i, (byte) source[offset + i]);
+            }
+            from += n;
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Returns a view of the segment holding an element, starting at the element and ending with the segment.
+     */
+    private ByteBuffer view(long index) {
+        long byteIndex = index << elementShift;
+        ByteBuffer buffer = segment(byteIndex);
+        ByteBuffer view = buffer.duplicate().order(buffer.order());
+        ((Buffer) view).position((int) (byteIndex & SEGMENT_MASK));
+        return view.slice().order(buffer.order());
+    }
+
+    @Override
+    public Object get(long index) {
+        switch (dType) {
+            case FLOAT64: return getDouble(index);
+            case FLOAT32: return (float) getDouble(index);
+            case INT64: return getLong(index);
+            case INT32: return (int) getLong(index);
+            case INT16: return (short) getLong(index);
+            default: return (byte) getLong(index);
+        }
+    }
+
+    @Override
+    public void set(long index, Object value) {
+        Number number = toNumber(value);
+        if (dType.isFloatingPoint()) {
+            setDouble(index, number.doubleValue());
+        } else {
+            setLong(index, number.longValue());
+        }
+    }
+
+    /**
+     * Off-heap storages have no backing Java array.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public Object array() {
+        throw new UnsupportedOperationException(ExceptionMessages.offHeapArrayException());
+    }
+
+    /**
+     * Forces the segments of a mapped storage out to the file. Allocated storages and read-only or
+     * copy-on-write mappings have nothing to write back.
+     *
+     * @throws IllegalStateException If the storage has been closed.
+     */
+    @Override
+    public void flush() {
+        ByteBuffer[] buffers = segments;
+        if (buffers == null) {
+            throw new IllegalStateException(ExceptionMessages.offHeapClosedException());
+        }
+        for (ByteBuffer buffer : buffers) {
+            if (buffer instanceof MappedByteBuffer && !buffer.isReadOnly()) {
+                ((MappedByteBuffer) buffer).force();
+            }
+        }
+    }
+
+    /**
+     * Releases the native memory right away, unmapping mapped storages; storages wrapping a buffer only stop
+     * accessing it. Closing an already closed storage has no effect. The caller must ensure no operation on the
+     * storage is in flight: one running concurrently may access freed memory, which is undefined behaviour.
+     */
+    @Override
+    public void close() {
+        ByteBuffer[] buffers = segments;
+        segments = null;
+        if (buffers != null && owned) {
+            for (ByteBuffer buffer : buffers) {
+                free(buffer);
+            }
+        }
+    }
+
+    /**
+     * Frees a direct buffer through the JDK internals available on the running version: {@code Unsafe.invokeCleaner}
+     * on Java 9 and later, the buffer's own cleaner on Java 8. If neither can be reached the memory is left
+     * to the garbage collector.
+     */
+    private static void free(ByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // Not Java 9 or later, try the Java 8 internals
+        }
+        try {
+            Method cleaner = buffer.getClass().getMethod("cleaner");
+            cleaner.setAccessible(true);
+            Object instance = cleaner.invoke(buffer);
+            if (instance != null) {
+                instance.getClass().getMethod("clean").invoke(instance);
+            }
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // Left to the garbage collector
+        }
+    }
+}
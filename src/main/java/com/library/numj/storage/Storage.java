@@ -0,0 +1,320 @@
+package com.library.numj.storage;
+
+import com.library.numj.ExceptionMessages;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.StorageType;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+
+/**
+ * A flat, contiguous buffer of elements backing an {@link com.library.numj.NDArray}.
+ * On the heap every {@link DType} maps to one concrete storage holding a single primitive array,
+ * so element access never goes through boxed wrappers or reflective {@code Array} calls;
+ * {@link OffHeapStorage} keeps numeric elements in native memory instead.
+ * Positions are {@code long}s: heap storages longer than a Java array can hold are split into
+ * several arrays by {@link ChunkedStorage}.
+ * The N-dimensional layout (shape, strides and offset) is kept by the owning NDArray.
+ */
+public abstract class Storage implements AutoCloseable {
+    /** Largest number of elements held in a single Java array, some virtual machines reserving a few header words. */
+    public static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /** Number of elements staged at a time by copies between storages without a backing array. */
+    private static final int TRANSFER_BLOCK = 1 << 12;
+    /** Data type of the stored elements. */
+    final DType dType;
+
+    /**
+     * Constructs a storage for the given data type.
+     *
+     * @param dType The data type of the stored elements.
+     */
+    Storage(DType dType) {
+        this.dType = dType;
+    }
+
+    /**
+     * Allocates a zero-initialised storage for the given data type.
+     *
+     * @param dType  The data type of the elements.
+     * @param length The number of elements.
+     * @return A new storage of the requested type and length.
+     */
+    public static Storage allocate(DType dType, long length) {
+        if (length > MAX_ARRAY_LENGTH) {
+            return new ChunkedStorage(dType, length);
+        }
+        return allocateArray(dType, (int) length);
+    }
+
+    /**
+     * Allocates a zero-initialised storage backed by a single Java array.
+     *
+     * @param dType  The data type of the elements.
+     * @param length The number of elements.
+     * @return A new storage of the requested type and length.
+     */
+    static Storage allocateArray(DType dType, int length) {
+        switch (dType) {
+            case FLOAT64: return new Float64Storage(new double[length]);
+            case FLOAT32: return new Float32Storage(new float[length]);
+            case INT64: return new Int64Storage(new long[length]);
+            case INT32: return new Int32Storage(new int[length]);
+            case INT16: return new Int16Storage(new short[length]);
+            case INT8: return new Int8Storage(new byte[length]);
+            case OBJECT: return new ObjectStorage(new Object[length]);
+            default: throw new UnsupportedDataTypeException(ExceptionMessages.illegalDataType(dType));
+        }
+    }
+
+    /**
+     * Allocates a zero-initialised storage for the given data type in the given kind of memory.
+     *
+     * @param dType       The data type of the elements.
+     * @param length      The number of elements.
+     * @param storageType Where the elements are held.
+     * @return A new storage of the requested type and length.
+     * @throws UnsupportedDataTypeException If OBJECT elements are requested off-heap.
+     */
+    public static Storage allocate(DType dType, long length, StorageType storageType) {
+        return storageType == StorageType.OFF_HEAP ? new OffHeapStorage(dType, length) : allocate(dType, length);
+    }
+
+    /**
+     * Wraps an existing one-dimensional primitive array without copying it.
+     *
+     * @param array A {@code double[]}, {@code float[]}, {@code long[]}, {@code int[]},
+     *              {@code short[]}, {@code byte[]} or {@code Object[]}.
+     * @return A storage sharing the given array.
+     * @throws UnsupportedDataTypeException If the array type has no matching storage.
+     */
+    public static Storage wrap(Object array) {
+        if (array instanceof double[]) return new Float64Storage((double[]) array);
+        if (array instanceof float[]) return new Float32Storage((float[]) array);
+        if (array instanceof long[]) return new Int64Storage((long[]) array);
+        if (array instanceof int[]) return new Int32Storage((int[]) array);
+        if (array instanceof short[]) return new Int16Storage((short[]) array);
+        if (array instanceof byte[]) return new Int8Storage((byte[]) array);
+        if (array instanceof Object[]) return new ObjectStorage((Object[]) array);
+        throw new UnsupportedDataTypeException("Unsupported data type: " + array.getClass().getSimpleName());
+    }
+
+    /**
+     * Returns the data type of the stored elements.
+     *
+     * @return The data type.
+     */
+    public DType dType() {
+        return dType;
+    }
+
+    /**
+     * Returns the kind of memory holding the elements.
+     *
+     * @return {@link StorageType#HEAP} unless overridden.
+     */
+    public StorageType storageType() {
+        return StorageType.HEAP;
+    }
+
+    /**
+     * Checks whether the elements are held in a single Java array returned by {@link #array()}.
+     * Kernels working directly on primitive arrays must fall back to the accessors otherwise.
+     *
+     * @return True for heap storages no longer than {@link #MAX_ARRAY_LENGTH}.
+     */
+    public boolean hasArray() {
+        return true;
+    }
+
+    /**
+     * Returns the number of elements held by this storage.
+     *
+     * @return The element count.
+     */
+    public abstract long length();
+
+    /**
+     * Returns the element at the given position widened to a {@code double}.
+     *
+     * @param index The position in the storage.
+     * @return The element value.
+     */
+    public abstract double getDouble(long index);
+
+    /**
+     * Returns the element at the given position converted to a {@code long}.
+     *
+     * @param index The position in the storage.
+     * @return The element value.
+     */
+    public abstract long getLong(long index);
+
+    /**
+     * Stores a {@code double} value, narrowing it to the storage type.
+     *
+     * @param index The position in the storage.
+     * @param value The value to store.
+     */
+    public abstract void setDouble(long index, double value);
+
+    /**
+     * Stores a {@code long} value, narrowing it to the storage type.
+     *
+     * @param index The position in the storage.
+     * @param value The value to store.
+     */
+    public abstract void setLong(long index, long value);
+
+    /**
+     * Returns the element at the given position boxed into its wrapper class.
+     *
+     * @param index The position in the storage.
+     * @return The boxed element.
+     */
+    public abstract Object get(long index);
+
+    /**
+     * Stores a boxed value, converting it to the storage type.
+     *
+     * @param index The position in the storage.
+     * @param value The value to store.
+     * @throws UnsupportedDataTypeException If the value cannot be stored in this type.
+     */
+    public abstract void set(long index, Object value);
+
+    /**
+     * Returns the backing Java array of this storage.
+     *
+     * @return The primitive (or {@code Object[]}) array holding the elements.
+     * @throws UnsupportedOperationException If {@link #hasArray()} is false.
+     */
+    public abstract Object array();
+
+    /**
+     * Copies a range of elements into another storage of the same data type.
+     *
+     * @param from       The position of the first element to copy.
+     * @param target     The storage receiving the elements.
+     * @param targetFrom The position of the first element in the target.
+     * @param length     The number of elements to copy.
+     */
+    public void copyTo(long from, Storage target, long targetFrom, long length) {
+        if (hasArray() && target.hasArray()) {
+            System.arraycopy(array(), (int) from, target.array(), (int) targetFrom, (int) length);
+        } else if (dType == DType.OBJECT) {
+            for (long i = 0; i < length; i++) target.set(targetFrom + i, get(from + i));
+        } else if (dType.isFloatingPoint()) {
+            double[] block = new double[(int) Math.min(length, TRANSFER_BLOCK)];
+            for (long i = 0; i < length; i += block.length) {
+                int count = (int) Math.min(block.length, length - i);
+                getDoubles(from + i, block, 0, count);
+                target.setDoubles(targetFrom + i, block, 0, count);
+            }
+        } else {
+            long[] block = new long[(int) Math.min(length, TRANSFER_BLOCK)];
+            for (long i = 0; i < length; i += block.length) {
+                int count = (int) Math.min(block.length, length - i);
+                getLongs(from + i, block, 0, count);
+                target.setLongs(targetFrom + i, block, 0, count);
+            }
+        }
+    }
+
+    /**
+     * Reads consecutive elements into a double array. Storages without a backing array override this
+     * with a bulk transfer, so block-wise loops stream over them instead of paying an accessor call per element.
+     *
+     * @param from   The position of the first element.
+     * @param target The array receiving the elements.
+     * @param offset The position of the first element in the array.
+     * @param count  The number of elements.
+     */
+    public void getDoubles(long from, double[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) target[offset + i] = getDouble(from + i);
+    }
+
+    /**
+     * Reads consecutive elements into a long array.
+     *
+     * @param from   The position of the first element.
+     * @param target The array receiving the elements.
+     * @param offset The position of the first element in the array.
+     * @param count  The number of elements.
+     * @see #getDoubles(long, double[], int, int)
+     */
+    public void getLongs(long from, long[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) target[offset + i] = getLong(from + i);
+    }
+
+    /**
+     * Writes consecutive elements from a double array, narrowing them to the storage type.
+     *
+     * @param from   The position of the first element.
+     * @param source The array holding the elements.
+     * @param offset The position of the first element in the array.
+     * @param count  The number of elements.
+     * @see #getDoubles(long, double[], int, int)
+     */
+    public void setDoubles(long from, double[] source, int offset, int count) {
+        for (int i = 0; i < count; i++) setDouble(from + i, source[offset + i]);
+    }
+
+    /**
+     * Writes consecutive elements from a long array, narrowing them to the storage type.
+     *
+     * @param from   The position of the first element.
+     * @param source The array holding the elements.
+     * @param offset The position of the first element in the array.
+     * @param count  The number of elements.
+     * @see #getDoubles(long, double[], int, int)
+     */
+    public void setLongs(long from, long[] source, int offset, int count) {
+        for (int i = 0; i < count; i++) setLong(from + i, source[offset + i]);
+    }
+
+    /**
+     * Stores the same value at every position of a range, converting it to the storage type once.
+     *
+     * @param from  The first position to fill.
+     * @param to    The position after the last one to fill.
+     * @param value The value to store.
+     * @throws UnsupportedDataTypeException If the value cannot be stored in this type.
+     */
+    public void fill(long from, long to, Object value) {
+        if (dType == DType.OBJECT) {
+            for (long i = from; i < to; i++) set(i, value);
+        } else if (dType.isFloatingPoint()) {
+            double number = toNumber(value).doubleValue();
+            for (long i = from; i < to; i++) setDouble(i, number);
+        } else {
+            long number = toNumber(value).longValue();
+            for (long i = from; i < to; i++) setLong(i, number);
+        }
+    }
+
+    /**
+     * Releases the memory of the storage. Heap storages are left to the garbage collector, so this does nothing.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Writes the modified elements back to the file the storage is mapped onto. Storages that are not
+     * mapped, or mapped read-only or copy-on-write, have nothing to write back, so this does nothing.
+     */
+    public void flush() {
+    }
+
+    /**
+     * Converts a boxed value into a {@link Number} for numeric storages.
+     *
+     * @param value The value to convert.
+     * @return The value as a number.
+     * @throws UnsupportedDataTypeException If the value is not numeric.
+     */
+    Number toNumber(Object value) {
+        if (value instanceof Number) return (Number) value;
+        throw new UnsupportedDataTypeException(ExceptionMessages.illegalDataType(dType) + " <- " + value);
+    }
+}
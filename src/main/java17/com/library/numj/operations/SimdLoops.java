@@ -0,0 +1,145 @@
+package com.library.numj.operations;
+
+import com.library.numj.enums.OperationType;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD loops over contiguous operands built on the {@code jdk.incubator.vector} API.
+ * <p>
+ * Every loop processes the leading elements that fill whole vectors of the preferred species of the
+ * platform and returns their count; the tail is left to the scalar loops of {@link PrimitiveKernels}.
+ * Integer division and modulo are not vectorized since they must raise {@link ArithmeticException}
+ * on a zero divisor, and neither is the floating point modulo.
+ * Only referenced from {@link VectorKernels} once the module has been found.
+ */
+final class SimdLoops {
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> L = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> I = IntVector.SPECIES_PREFERRED;
+
+    private SimdLoops() {
+    }
+
+    static int float64(OperationType op, double[] z, int zo, double[] x, int xo, double[] y, int yo, int n) {
+        int bound = D.loopBound(n);
+        int step = D.length();
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < bound; i += step) DoubleVector.fromArray(D, x, xo + i).add(DoubleVector.fromArray(D, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case SUBTRACTION:
+                for (int i = 0; i < bound; i += step) DoubleVector.fromArray(D, x, xo + i).sub(DoubleVector.fromArray(D, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case MULTIPLICATION:
+                for (int i = 0; i < bound; i += step) DoubleVector.fromArray(D, x, xo + i).mul(DoubleVector.fromArray(D, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case DIVISION:
+                for (int i = 0; i < bound; i += step) DoubleVector.fromArray(D, x, xo + i).div(DoubleVector.fromArray(D, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            default:
+                return 0;
+        }
+    }
+
+    static int float32(OperationType op, float[] z, int zo, float[] x, int xo, float[] y, int yo, int n) {
+        int bound = F.loopBound(n);
+        int step = F.length();
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < bound; i += step) FloatVector.fromArray(F, x, xo + i).add(FloatVector.fromArray(F, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case SUBTRACTION:
+                for (int i = 0; i < bound; i += step) FloatVector.fromArray(F, x, xo + i).sub(FloatVector.fromArray(F, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case MULTIPLICATION:
+                for (int i = 0; i < bound; i += step) FloatVector.fromArray(F, x, xo + i).mul(FloatVector.fromArray(F, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case DIVISION:
+                for (int i = 0; i < bound; i += step) FloatVector.fromArray(F, x, xo + i).div(FloatVector.fromArray(F, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            default:
+                return 0;
+        }
+    }
+
+    static int int64(OperationType op, long[] z, int zo, long[] x, int xo, long[] y, int yo, int n) {
+        int bound = L.loopBound(n);
+        int step = L.length();
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < bound; i += step) LongVector.fromArray(L, x, xo + i).add(LongVector.fromArray(L, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case SUBTRACTION:
+                for (int i = 0; i < bound; i += step) LongVector.fromArray(L, x, xo + i).sub(LongVector.fromArray(L, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case MULTIPLICATION:
+                for (int i = 0; i < bound; i += step) LongVector.fromArray(L, x, xo + i).mul(LongVector.fromArray(L, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case BITWISE_AND:
+                for (int i = 0; i < bound; i += step) LongVector.fromArray(L, x, xo + i).and(LongVector.fromArray(L, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case BITWISE_OR:
+                for (int i = 0; i < bound; i += step) LongVector.fromArray(L, x, xo + i).or(LongVector.fromArray(L, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case BITWISE_XOR:
+                for (int i = 0; i < bound; i += step) LongVector.fromArray(L, x, xo + i).lanewise(VectorOperators.XOR, LongVector.fromArray(L, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            default:
+                return 0;
+        }
+    }
+
+    static int int32(OperationType op, int[] z, int zo, int[] x, int xo, int[] y, int yo, int n) {
+        int bound = I.loopBound(n);
+        int step = I.length();
+        switch (op) {
+            case ADDITION:
+                for (int i = 0; i < bound; i += step) IntVector.fromArray(I, x, xo + i).add(IntVector.fromArray(I, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case SUBTRACTION:
+                for (int i = 0; i < bound; i += step) IntVector.fromArray(I, x, xo + i).sub(IntVector.fromArray(I, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case MULTIPLICATION:
+                for (int i = 0; i < bound; i += step) IntVector.fromArray(I, x, xo + i).mul(IntVector.fromArray(I, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case BITWISE_AND:
+                for (int i = 0; i < bound; i += step) IntVector.fromArray(I, x, xo + i).and(IntVector.fromArray(I, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case BITWISE_OR:
+                for (int i = 0; i < bound; i += step) IntVector.fromArray(I, x, xo + i).or(IntVector.fromArray(I, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            case BITWISE_XOR:
+                for (int i = 0; i < bound; i += step) IntVector.fromArray(I, x, xo + i).lanewise(VectorOperators.XOR, IntVector.fromArray(I, y, yo + i)).intoArray(z, zo + i);
+                return bound;
+            default:
+                return 0;
+        }
+    }
+
+    static int invertInt64(long[] z, int zo, long[] x, int xo, int n) {
+        int bound = L.loopBound(n);
+        for (int i = 0; i < bound; i += L.length()) LongVector.fromArray(L, x, xo + i).not().intoArray(z, zo + i);
+        return bound;
+    }
+
+    static int invertInt32(int[] z, int zo, int[] x, int xo, int n) {
+        int bound = I.loopBound(n);
+        for (int i = 0; i < bound; i += I.length()) IntVector.fromArray(I, x, xo + i).not().intoArray(z, zo + i);
+        return bound;
+    }
+
+    static int dotFloat64(double[] x, int xo, double[] y, int yo, int n, double[] sum) {
+        int bound = D.loopBound(n);
+        int step = D.length();
+        DoubleVector acc = DoubleVector.zero(D);
+        for (int i = 0; i < bound; i += step) acc = acc.add(DoubleVector.fromArray(D, x, xo + i).mul(DoubleVector.fromArray(D, y, yo + i)));
+        sum[0] += acc.reduceLanes(VectorOperators.ADD);
+        return bound;
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.numj.operations;
+
+import com.library.numj.enums.OperationType;
+
+/**
+ * Entry point of the SIMD loops used by {@link PrimitiveKernels} for contiguous operands.
+ * <p>
+ * This is the Java 17 variant of the class, packaged in the versioned section of the multi-release JAR.
+ * It hands contiguous runs to {@link SimdLoops} when the {@code jdk.incubator.vector} module is part of
+ * the boot layer (the JVM was started with {@code --add-modules jdk.incubator.vector}) and SIMD has not
+ * been turned off with {@code -Dnumj.simd=false}. Otherwise every method reports that no element was
+ * processed and the scalar loops do all the work.
+ */
+final class VectorKernels {
+    /** Whether SIMD loops are used. */
+    static final boolean AVAILABLE = Boolean.parseBoolean(System.getProperty("numj.simd", "true"))
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Applies a binary operation to contiguous FLOAT64 operands.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int float64(OperationType op, double[] z, int zo, double[] x, int xo, double[] y, int yo, int n) {
+        return AVAILABLE ? SimdLoops.float64(op, z, zo, x, xo, y, yo, n) : 0;
+    }
+
+    /**
+     * Applies a binary operation to contiguous FLOAT32 operands.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int float32(OperationType op, float[] z, int zo, float[] x, int xo, float[] y, int yo, int n) {
+        return AVAILABLE ? SimdLoops.float32(op, z, zo, x, xo, y, yo, n) : 0;
+    }
+
+    /**
+     * Applies a binary operation to contiguous INT64 operands.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int int64(OperationType op, long[] z, int zo, long[] x, int xo, long[] y, int yo, int n) {
+        return AVAILABLE ? SimdLoops.int64(op, z, zo, x, xo, y, yo, n) : 0;
+    }
+
+    /**
+     * Applies a binary operation to contiguous INT32 operands.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int int32(OperationType op, int[] z, int zo, int[] x, int xo, int[] y, int yo, int n) {
+        return AVAILABLE ? SimdLoops.int32(op, z, zo, x, xo, y, yo, n) : 0;
+    }
+
+    /**
+     * Applies a bitwise inversion to contiguous INT64 elements.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int invertInt64(long[] z, int zo, long[] x, int xo, int n) {
+        return AVAILABLE ? SimdLoops.invertInt64(z, zo, x, xo, n) : 0;
+    }
+
+    /**
+     * Applies a bitwise inversion to contiguous INT32 elements.
+     *
+     * @return The number of leading elements processed.
+     */
+    static int invertInt32(int[] z, int zo, int[] x, int xo, int n) {
+        return AVAILABLE ? SimdLoops.invertInt32(z, zo, x, xo, n) : 0;
+    }
+
+    /**
+     * Adds the products of the leading elements of two contiguous FLOAT64 operands to sum[0].
+     *
+     * @return The number of leading elements processed.
+     */
+    static int dotFloat64(double[] x, int xo, double[] y, int yo, int n, double[] sum) {
+        return AVAILABLE ? SimdLoops.dotFloat64(x, xo, y, yo, n, sum) : 0;
+    }
+}
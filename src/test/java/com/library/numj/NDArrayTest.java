@@ -3,6 +3,9 @@ package com.library.numj;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.StorageType;
 import com.library.numj.exceptions.ShapeException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -438,6 +441,160 @@ class NDArrayTest {
     }
 
 
+    /**
+     * Tests that array data is kept in a single flat primitive buffer of the array data type.
+     */
+    @Test
+    public void testPrimitiveStorageBacking() {
+        assertEquals(DType.FLOAT64, doubleArray.type());
+        assertArrayEquals(new double[]{1.1, 2.2, 3.3, 4.4, 5.5, 6.6, 7.7, 8.8}, (double[]) doubleArray.storage().array());
+        assertEquals(DType.INT32, primitiveIntArray.type());
+        assertArrayEquals(new int[]{300, 200, 3000, 4000, 50000, 60000, 70000, 80000}, (int[]) primitiveIntArray.storage().array());
+        assertEquals(DType.INT8, byteArray.type());
+        assertEquals(8, byteArray.storage().length());
+        assertArrayEquals(new long[]{4, 2, 1}, array.elementStrides());
+        assertEquals(0, array.offset());
+    }
+
+    /**
+     * Tests that reshaping and transposing return views sharing the storage of the original array.
+     *
+     * @throws ShapeException if the shape of the array is invalid.
+     */
+    @Test
+    public void testReshapeAndTransposeReturnViews() throws ShapeException {
+        NDArray<Integer[][]> reshaped = array.reshape(4, 2);
+        assertSame(array.storage(), reshaped.storage());
+
+        NDArray<Integer[][][]> transposed = array.transpose();
+        assertSame(array.storage(), transposed.storage());
+        assertFalse(transposed.isContiguous());
+        assertArrayEquals(new long[]{1, 2, 4}, transposed.elementStrides());
+        Integer[][][] expected = {{{400, 500}, {300, 700}}, {{200, 600}, {400, 800}}};
+        assertArrayEquals(expected, (Integer[][][]) transposed.getArray());
+
+        NDArray<Integer[][][]> swapped = array.swapAxes(0, 2);
+        assertArrayEquals(expected, (Integer[][][]) swapped.getArray());
+    }
+
+    /**
+     * Tests that reshaping a non-contiguous view materializes a contiguous copy.
+     *
+     * @throws ShapeException if the shape of the array is invalid.
+     */
+    @Test
+    public void testReshapeOfNonContiguousViewCopies() throws ShapeException {
+        NDArray<Integer[][]> matrix = array.reshape(2, 4).transpose();
+        NDArray<Integer[]> flat = matrix.reshape(8);
+        assertNotSame(array.storage(), flat.storage());
+        assertTrue(flat.isContiguous());
+        assertArrayEquals(new Integer[]{400, 500, 200, 600, 300, 700, 400, 800}, flat.getArray());
+    }
+
+    /**
+     * Tests basic start:stop:step slicing, including negative steps and positions.
+     */
+    @Test
+    public void testSliceViews() {
+        NDArray<Integer[][][]> firstRows = array.slice(Slice.all(), Slice.of(0, 1));
+        assertSame(array.storage(), firstRows.storage());
+        assertEquals(Arrays.asList(2, 1, 2), firstRows.shape());
+        assertArrayEquals(new Integer[][][]{{{400, 200}}, {{500, 600}}}, (Integer[][][]) firstRows.getArray());
+
+        NDArray<Integer[][][]> reversed = array.slice(Slice.step(-1), Slice.all(), Slice.from(-1));
+        assertArrayEquals(new Integer[][][]{{{600}, {800}}, {{200}, {400}}}, (Integer[][][]) reversed.getArray());
+
+        NDArray<Integer[][][]> empty = array.slice(Slice.of(2, 5));
+        assertEquals(0L, empty.size());
+        assertThrows(IllegalArgumentException.class, () -> Slice.of(0, 1, 0));
+    }
+
+    /**
+     * Tests in-place operations, including overlapping views of the same storage.
+     */
+    @Test
+    public void testInPlaceOperations() throws ShapeException {
+        NumJ numJ = new NumJ();
+        NDArray<int[]> values = numJ.array(new int[]{1, 2, 3, 4});
+        Object buffer = values.storage().array();
+        values.addi(values).muli(numJ.array(new int[]{10}));
+        assertSame(buffer, values.storage().array());
+        assertArrayEquals(new int[]{20, 40, 60, 80}, (int[]) buffer);
+
+        // Shifting by one through two overlapping views must read the original values
+        NDArray<int[]> head = values.slice(Slice.to(3));
+        NDArray<int[]> tail = values.slice(Slice.from(1));
+        assertTrue(head.mayShareMemory(tail));
+        tail.addi(head);
+        assertArrayEquals(new int[]{20, 60, 100, 140}, (int[]) buffer);
+
+        NDArray<int[]> fractions = numJ.array(new double[]{0.5});
+        assertThrows(IllegalArgumentException.class, () -> values.addi(fractions));
+        assertFalse(values.mayShareMemory(values.copy()));
+    }
+
+    /**
+     * Tests column-major arrays: strides, contiguity flags, copies and element-wise operations keeping the layout.
+     */
+    @Test
+    public void testFortranOrder() throws ShapeException {
+        NumJ numJ = new NumJ();
+        NDArray<double[][]> fortran = numJ.ones(new int[]{2, 3}, DType.FLOAT64, Order.F);
+        assertArrayEquals(new long[]{1, 2}, fortran.elementStrides());
+        assertTrue(fortran.isFContiguous());
+        assertFalse(fortran.isCContiguous());
+        assertEquals(Order.F, fortran.order());
+
+        NDArray<int[][]> matrix = numJ.array(new int[][]{{1, 2, 3}, {4, 5, 6}});
+        NDArray<int[][]> columns = matrix.copy(Order.F);
+        assertArrayEquals(new int[]{1, 4, 2, 5, 3, 6}, (int[]) columns.storage().array());
+        assertArrayEquals(matrix.getArray(), columns.getArray());
+        assertSame(columns, numJ.asfortranarray(columns));
+        assertTrue(numJ.asfortranarray(matrix).isFContiguous());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, (int[]) numJ.ascontiguousarray(columns).storage().array());
+
+        NDArray<int[][]> sum = numJ.add(columns, numJ.array(new int[]{10, 20, 30}));
+        assertEquals(Order.F, sum.order());
+        assertArrayEquals(new int[]{11, 14, 22, 25, 33, 36}, (int[]) sum.storage().array());
+        NDArray<int[][]> product = columns.lazy().multiply(columns).evaluate();
+        assertEquals(Order.F, product.order());
+        assertArrayEquals(new int[]{1, 16, 4, 25, 9, 36}, (int[]) product.storage().array());
+        assertEquals(Order.C, numJ.add(matrix, columns).order());
+        assertEquals(Order.F, numJ.zerosLike(columns).order());
+    }
+
+    /**
+     * Tests arrays held in native memory: operations match the heap results and closing releases the storage.
+     */
+    @Test
+    public void testOffHeapArrays() throws ShapeException {
+        NumJ numJ = new NumJ();
+        NDArray<double[][]> heap = numJ.array(new double[][]{{1.5, 2.5}, {3.5, 4.5}});
+        NDArray<double[][]> offHeap = heap.copy(StorageType.OFF_HEAP);
+        assertEquals(StorageType.OFF_HEAP, offHeap.storageType());
+        assertFalse(offHeap.storage().hasArray());
+        assertArrayEquals(heap.getArray(), offHeap.getArray());
+
+        NDArray<double[][]> sum = numJ.add(offHeap, numJ.array(new double[]{1, 2}));
+        assertEquals(StorageType.OFF_HEAP, sum.storageType());
+        assertArrayEquals(new Double[][]{{2.5, 4.5}, {4.5, 6.5}}, (Object[]) sum.getArray());
+        NDArray<double[][]> product = offHeap.lazy().multiply(heap).evaluate();
+        assertEquals(StorageType.OFF_HEAP, product.storageType());
+        assertArrayEquals(numJ.multiply(heap, heap).getArray(), product.getArray());
+
+        try (NDArray<int[]> ones = numJ.ones(new int[]{5}, DType.INT16, StorageType.OFF_HEAP)) {
+            ones.addi(ones);
+            assertArrayEquals(new short[]{2, 2, 2, 2, 2}, (short[]) ones.copy(StorageType.HEAP).storage().array());
+        }
+        try (NDArray<long[][]> empty = numJ.empty(new int[]{3, 4}, DType.INT64, StorageType.OFF_HEAP)) {
+            assertEquals(StorageType.OFF_HEAP, empty.storageType());
+            assertEquals(DType.INT64, empty.type());
+            assertArrayEquals(new int[]{3, 4}, empty.shapeArray());
+        }
+        offHeap.close();
+        assertThrows(IllegalStateException.class, () -> offHeap.storage().get(0));
+    }
+
    /* @Test
     void testStrideCalculation() {
         int[] strides = array.strides(new int[]{2, 2, 2});
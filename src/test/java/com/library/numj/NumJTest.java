@@ -1,8 +1,16 @@
 package com.library.numj;
 
 import com.library.numj.enums.DType;
+import com.library.numj.enums.NormType;
+import com.library.numj.enums.QRMode;
+import com.library.numj.enums.StorageType;
 import com.library.numj.exceptions.InvalidShapeException;
+import com.library.numj.exceptions.LinAlgException;
 import com.library.numj.exceptions.ShapeException;
+import com.library.numj.exceptions.ShapeMismatchException;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.parallel.ExecutionEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -378,6 +386,563 @@ class NumJTest {
 
 
 
+    /**
+     * Tests that a flat primitive array of the requested type is adopted as storage without copying.
+     */
+    @Test
+    public void testArrayAdoptsPrimitiveBuffer() {
+        double[] data = {1.0, 2.0, 3.0, 4.0, 5.0, 6.0};
+        NDArray<Double[][]> result = numJ.array(data, new int[]{2, 3}, 2, DType.FLOAT64);
+        assertSame(data, result.storage().array());
+        assertArrayEquals(new Double[][]{{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}}, result.getArray());
+    }
+
+    /**
+     * Tests that creation routines honour the requested data type.
+     */
+    @Test
+    public void testCreationWithFloatingPointType() throws ShapeException {
+        NDArray<Double[]> range = numJ.arange(0, 4, DType.FLOAT64);
+        assertArrayEquals(new Double[]{0.0, 1.0, 2.0, 3.0}, range.getArray());
+        NDArray<Float[][]> identity = numJ.eye(2, DType.FLOAT32);
+        assertArrayEquals(new Float[][]{{1f, 0f}, {0f, 1f}}, identity.getArray());
+    }
+
+    /**
+     * Tests element-wise operations on strided views.
+     */
+    @Test
+    public void testAdditionOnViews() throws ShapeException {
+        NDArray<Integer[][]> matrix = numJ.arange(0, 6, new int[]{2, 3});
+        NDArray<Integer[][]> transposed = numJ.transpose(matrix);
+        NDArray<Integer[][]> result = numJ.add(transposed, transposed);
+        assertArrayEquals(new Integer[][]{{0, 6}, {2, 8}, {4, 10}}, result.getArray());
+        NDArray<Integer[][]> contiguous = numJ.ascontiguousarray(transposed);
+        assertTrue(contiguous.isContiguous());
+        assertSame(matrix, numJ.ascontiguousarray(matrix));
+    }
+
+    /**
+     * Tests element-wise operations between arrays of different but broadcastable shapes.
+     */
+    @Test
+    public void testBroadcastingOperations() throws ShapeException {
+        NDArray column = numJ.arange(0, 3, new int[]{3, 1});
+        NDArray row = numJ.arange(0, 4);
+        NDArray table = numJ.multiply(column, row);
+        assertEquals(Arrays.asList(3, 4), table.shape());
+        assertArrayEquals(new Integer[][]{{0, 0, 0, 0}, {0, 1, 2, 3}, {0, 2, 4, 6}}, (Integer[][]) table.getArray());
+
+        NDArray shifted = numJ.subtract(table, numJ.array(new Integer[]{1}));
+        assertArrayEquals(new Integer[]{-1, -1, -1, -1}, ((Integer[][]) shifted.getArray())[0]);
+    }
+
+    /**
+     * Tests that out-parameter variants write into the given array with broadcasting and casting.
+     */
+    @Test
+    public void testOutParameterOperations() throws ShapeException {
+        NDArray out = numJ.zeros(new int[]{2, 3}, DType.FLOAT64);
+        Object buffer = out.storage().array();
+        NDArray matrix = numJ.arange(0, 6, new int[]{2, 3});
+        NDArray row = numJ.array(new double[]{0.5, 1.5, 2.5});
+        assertSame(out, numJ.addInto(out, matrix, row));
+        assertArrayEquals(new double[]{0.5, 2.5, 4.5, 3.5, 5.5, 7.5}, (double[]) buffer);
+
+        numJ.multiplyInto(out.transpose(), matrix.transpose(), numJ.array(new int[]{2}));
+        assertArrayEquals(new double[]{0, 2, 4, 6, 8, 10}, (double[]) buffer);
+
+        NDArray ints = numJ.zeros(new int[]{2, 3}, DType.INT32);
+        assertThrows(IllegalArgumentException.class, () -> numJ.addInto(ints, matrix, row));
+        assertThrows(ShapeException.class, () -> numJ.addInto(numJ.zeros(new int[]{3}, DType.FLOAT64), matrix, row));
+        numJ.invertInto(ints, matrix);
+        assertArrayEquals(new int[]{-1, -2, -3, -4, -5, -6}, (int[]) ints.storage().array());
+    }
+
+    /**
+     * Tests that mixed-type operations follow the promotion rules and that 64-bit integers stay exact.
+     */
+    @Test
+    public void testTypePromotion() throws ShapeException {
+        NDArray ints = numJ.array(new int[]{1, 2, 3});
+        NDArray floats = numJ.array(new float[]{0.5f, 0.5f, 0.5f});
+        NDArray mixed = numJ.add(ints, floats);
+        assertEquals(DType.FLOAT64, mixed.type());
+        assertArrayEquals(new double[]{1.5, 2.5, 3.5}, (double[]) mixed.storage().array());
+
+        NDArray bytes = numJ.array(new byte[]{1, 2, 3});
+        assertEquals(DType.INT32, numJ.multiply(bytes, ints).type());
+
+        long big = (1L << 53) + 1;
+        NDArray longs = numJ.add(numJ.array(new long[]{big}), numJ.array(new long[]{1}));
+        assertEquals(DType.INT64, longs.type());
+        assertEquals(big + 1, ((long[]) longs.storage().array())[0]);
+    }
+
+    /**
+     * Tests filled creation and the creation routines copying the layout of another array.
+     */
+    @Test
+    public void testFullAndLikeCreation() throws ShapeException {
+        NDArray sevens = numJ.full(new int[]{2, 3}, 7);
+        assertEquals(DType.INT32, sevens.type());
+        assertArrayEquals(new int[]{7, 7, 7, 7, 7, 7}, (int[]) sevens.storage().array());
+        NDArray halves = numJ.full(new int[]{4}, 0.5, DType.FLOAT32);
+        assertArrayEquals(new float[]{0.5f, 0.5f, 0.5f, 0.5f}, (float[]) halves.storage().array());
+        NDArray words = numJ.full(new int[]{2}, "numj");
+        assertEquals(DType.OBJECT, words.type());
+        assertArrayEquals(new Object[]{"numj", "numj"}, (Object[]) words.storage().array());
+        assertThrows(UnsupportedDataTypeException.class, () -> numJ.full(new int[]{2}, "numj", DType.INT32));
+
+        NDArray source = numJ.arange(0, 6, DType.FLOAT64, new int[]{2, 3}).transpose();
+        NDArray zeros = numJ.zerosLike(source);
+        assertEquals(Arrays.asList(3, 2), zeros.shape());
+        assertEquals(DType.FLOAT64, zeros.type());
+        assertArrayEquals(new double[6], (double[]) zeros.storage().array());
+        NDArray ones = numJ.onesLike(source, DType.INT8);
+        assertArrayEquals(new byte[]{1, 1, 1, 1, 1, 1}, (byte[]) ones.storage().array());
+        NDArray filled = numJ.fullLike(source, 2.5);
+        assertArrayEquals(new double[]{2.5, 2.5, 2.5, 2.5, 2.5, 2.5}, (double[]) filled.storage().array());
+
+        try (NDArray offHeap = numJ.full(new int[]{3}, 9L, DType.INT64, StorageType.OFF_HEAP);
+             NDArray like = numJ.onesLike(offHeap)) {
+            assertEquals(StorageType.OFF_HEAP, like.storageType());
+            assertEquals(9L, offHeap.storage().getLong(2));
+            assertEquals(1L, like.storage().getLong(2));
+        }
+    }
+
+    /**
+     * Tests reductions along axes and axis tuples, with and without keeping the reduced dimensions.
+     */
+    @Test
+    public void testReductions() throws ShapeException {
+        NDArray cube = numJ.arange(0, 24, new int[]{2, 3, 4});
+        NDArray total = numJ.sum(cube);
+        assertEquals(0, total.ndim());
+        assertEquals(DType.INT64, total.type());
+        assertEquals(276L, total.getArray());
+
+        NDArray rows = numJ.sum(cube, 0);
+        assertEquals(Arrays.asList(3, 4), rows.shape());
+        assertArrayEquals(new long[]{12, 14, 16, 18, 20, 22, 24, 26, 28, 30, 32, 34}, (long[]) rows.storage().array());
+        NDArray kept = numJ.max(cube, new int[]{0, -1}, true);
+        assertEquals(Arrays.asList(1, 3, 1), kept.shape());
+        assertEquals(DType.INT32, kept.type());
+        assertArrayEquals(new int[]{15, 19, 23}, (int[]) kept.storage().array());
+        assertArrayEquals(new int[]{0, 4, 8}, (int[]) numJ.min(cube, 0, 2).storage().array());
+        NDArray means = numJ.mean(cube, 1, 2);
+        assertEquals(DType.FLOAT64, means.type());
+        assertArrayEquals(new double[]{5.5, 17.5}, (double[]) means.storage().array());
+        assertArrayEquals(new long[]{0, 840}, (long[]) numJ.prod(numJ.arange(0, 8, new int[]{2, 4}), 1).storage().array());
+
+        // Views and column-major arrays are reduced in place, the result following the input order
+        NDArray matrix = numJ.asfortranarray(numJ.arange(1, 7, DType.FLOAT64, new int[]{2, 3}));
+        NDArray columns = numJ.sum(matrix, new int[]{0}, true);
+        assertArrayEquals(new double[]{5, 7, 9}, (double[]) columns.storage().array());
+        assertArrayEquals(new double[]{6, 15}, (double[]) numJ.sum(matrix, 1).storage().array());
+        assertArrayEquals(new double[]{3, 6}, (double[]) numJ.max(matrix.transpose(), 0).storage().array());
+
+        NDArray nan = numJ.array(new double[]{1, Double.NaN, 3});
+        assertTrue(Double.isNaN((Double) numJ.min(nan).getArray()));
+        NDArray empty = numJ.zeros(new int[]{0, 3}, DType.FLOAT64);
+        assertArrayEquals(new double[]{0, 0, 0}, (double[]) numJ.sum(empty, 0).storage().array());
+        assertArrayEquals(new double[]{1, 1, 1}, (double[]) numJ.prod(empty, 0).storage().array());
+        assertThrows(IllegalArgumentException.class, () -> numJ.max(empty, 0));
+        assertThrows(IllegalArgumentException.class, () -> numJ.sum(cube, 3));
+        assertThrows(IllegalArgumentException.class, () -> numJ.sum(cube, 1, -2));
+    }
+
+    /**
+     * Tests that large floating point sums are split over threads and stay accurate.
+     */
+    @Test
+    public void testParallelCompensatedSum() {
+        int threshold = ExecutionEngine.getThreshold();
+        int chunkSize = ExecutionEngine.getChunkSize();
+        ExecutionEngine.setThreshold(64);
+        ExecutionEngine.setChunkSize(64);
+        try (ExecutionContext context = ExecutionContext.create(4)) {
+            ExecutionContext.setDefault(context);
+            NDArray tenths = numJ.full(new int[]{1000, 1000}, 0.1, DType.FLOAT64);
+            assertEquals(100000.0, (Double) numJ.sum(tenths).getArray(), 1e-9);
+            assertEquals(0.1, (Double) numJ.mean(tenths).getArray(), 1e-15);
+            NDArray columns = numJ.sum(tenths, 0);
+            for (double column : (double[]) columns.storage().array()) {
+                assertEquals(100.0, column, 1e-12);
+            }
+            NDArray counts = numJ.sum(numJ.ones(new int[]{3, 70000}, DType.INT8), 1);
+            assertArrayEquals(new long[]{70000, 70000, 70000}, (long[]) counts.storage().array());
+        } finally {
+            ExecutionEngine.setThreshold(threshold);
+            ExecutionEngine.setChunkSize(chunkSize);
+        }
+    }
+
+    /**
+     * Tests cumulative sums and products along an axis, flattened and into an existing array.
+     */
+    @Test
+    public void testCumulativeOperations() throws ShapeException {
+        NDArray matrix = numJ.arange(1, 7, new int[]{2, 3});
+        NDArray flat = numJ.cumsum(matrix);
+        assertEquals(Arrays.asList(6), flat.shape());
+        assertArrayEquals(new long[]{1, 3, 6, 10, 15, 21}, (long[]) flat.storage().array());
+        assertArrayEquals(new long[]{1, 2, 3, 5, 7, 9}, (long[]) numJ.cumsum(matrix, 0).storage().array());
+        assertArrayEquals(new long[]{1, 2, 6, 4, 20, 120}, (long[]) numJ.cumprod(matrix, -1).storage().array());
+        NDArray columns = numJ.cumsum(matrix.transpose(), 1);
+        assertEquals(Arrays.asList(3, 2), columns.shape());
+        assertArrayEquals(new Long[][]{{1L, 5L}, {2L, 7L}, {3L, 9L}}, (Object[]) columns.getArray());
+
+        NDArray values = numJ.array(new double[][]{{0.5, 1.5}, {2.0, -1.0}});
+        numJ.cumsumInto(values, values, 0);
+        assertArrayEquals(new double[]{0.5, 1.5, 2.5, 0.5}, (double[]) values.storage().array());
+        NDArray narrow = numJ.zeros(new int[]{2, 2}, DType.INT32);
+        assertThrows(IllegalArgumentException.class, () -> numJ.cumsumInto(narrow, values, 0));
+        assertThrows(ShapeMismatchException.class, () -> numJ.cumsumInto(numJ.zeros(new int[]{3}, DType.INT64), matrix, 0));
+        assertThrows(IllegalArgumentException.class, () -> numJ.cumsum(matrix, 2));
+    }
+
+    /**
+     * Tests that long one-dimensional scans split into blocks match the sequential scan.
+     */
+    @Test
+    public void testParallelBlockedScan() throws ShapeException {
+        int threshold = ExecutionEngine.getThreshold();
+        int chunkSize = ExecutionEngine.getChunkSize();
+        ExecutionEngine.setThreshold(1000);
+        ExecutionEngine.setChunkSize(100);
+        try (ExecutionContext context = ExecutionContext.create(4)) {
+            ExecutionContext.setDefault(context);
+            NDArray events = numJ.arange(0, 5000, DType.INT64, new int[]{5000});
+            long[] balances = (long[]) numJ.cumsum(events, 0).storage().array();
+            for (int i = 0; i < balances.length; i++) {
+                assertEquals((long) i * (i + 1) / 2, balances[i]);
+            }
+            NDArray tenths = numJ.full(new int[]{2, 5000}, 0.1, DType.FLOAT64);
+            NDArray running = numJ.cumsum(tenths, 1);
+            assertEquals(500.0, running.storage().getDouble(4999), 1e-12);
+            assertEquals(500.0, running.storage().getDouble(9999), 1e-12);
+            NDArray halves = numJ.full(new int[]{4000}, 0.5, DType.FLOAT64);
+            assertEquals(Math.pow(0.5, 4000), numJ.cumprod(halves, 0).storage().getDouble(3999));
+        } finally {
+            ExecutionEngine.setThreshold(threshold);
+            ExecutionEngine.setChunkSize(chunkSize);
+        }
+    }
+
+    /**
+     * Tests matrix products of matrices, vectors, views and broadcast stacks of matrices.
+     */
+    @Test
+    public void testMatmul() throws ShapeException {
+        NDArray a = numJ.arange(1, 7, DType.FLOAT64, new int[]{2, 3});
+        NDArray b = numJ.arange(1, 7, DType.FLOAT64, new int[]{3, 2});
+        assertArrayEquals(new Double[][]{{22.0, 28.0}, {49.0, 64.0}}, (Object[]) numJ.matmul(a, b).getArray());
+        assertArrayEquals(new Double[][]{{17.0, 22.0, 27.0}, {22.0, 29.0, 36.0}, {27.0, 36.0, 45.0}},
+                (Object[]) numJ.matmul(a.transpose(), a).getArray());
+
+        NDArray v = numJ.array(new double[]{1, 0, -1});
+        assertArrayEquals(new double[]{-2, -2}, (double[]) numJ.matmul(a, v).storage().array());
+        assertArrayEquals(new double[]{-4, -4}, (double[]) numJ.matmul(v, b).storage().array());
+        NDArray inner = numJ.dot(v, v);
+        assertEquals(0, inner.ndim());
+        assertEquals(2.0, inner.getArray());
+
+        NDArray stack = numJ.arange(0, 12, new int[]{2, 1, 2, 3});
+        NDArray right = numJ.arange(0, 9, new int[]{3, 3, 1});
+        NDArray batched = numJ.matmul(stack, right);
+        assertEquals(Arrays.asList(2, 3, 2, 1), batched.shape());
+        assertEquals(DType.INT32, batched.type());
+        assertArrayEquals(new int[]{5, 14, 14, 50, 23, 86, 23, 32, 86, 122, 149, 212}, (int[]) batched.storage().array());
+        NDArray tensor = numJ.dot(numJ.arange(0, 4, new int[]{2, 2}), numJ.arange(0, 8, new int[]{2, 2, 2}));
+        assertEquals(Arrays.asList(2, 2, 2), tensor.shape());
+        assertArrayEquals(new int[]{2, 3, 6, 7, 6, 11, 26, 31}, (int[]) tensor.storage().array());
+
+        assertThrows(ShapeException.class, () -> numJ.matmul(a, a));
+        assertThrows(ShapeException.class, () -> numJ.matmul(numJ.zeros(new int[]{2, 2, 3}), numJ.zeros(new int[]{3, 3, 2})));
+    }
+
+    /**
+     * Tests that products spanning several packed blocks and threads match a plain triple loop.
+     */
+    @Test
+    public void testBlockedMatmul() throws ShapeException {
+        int m = 131, k = 300, n = 517;
+        double[][] left = new double[m][k];
+        double[][] right = new double[k][n];
+        java.util.Random random = new java.util.Random(7);
+        for (double[] row : left) for (int j = 0; j < k; j++) row[j] = random.nextDouble() - 0.5;
+        for (double[] row : right) for (int j = 0; j < n; j++) row[j] = random.nextDouble() - 0.5;
+        try (ExecutionContext context = ExecutionContext.create(4)) {
+            ExecutionContext.setDefault(context);
+            NDArray a = numJ.array(left);
+            NDArray b = numJ.array(right);
+            NDArray product = numJ.matmul(a, b);
+            for (int i = 0; i < m; i += 13) {
+                for (int j = 0; j < n; j += 11) {
+                    double expected = 0;
+                    for (int p = 0; p < k; p++) expected += left[i][p] * right[p][j];
+                    assertEquals(expected, product.storage().getDouble((long) i * n + j), 1e-12);
+                }
+            }
+            NDArray transposed = numJ.matmul(b.transpose(), a.transpose());
+            assertEquals(product.storage().getDouble(5L * n + 400), transposed.storage().getDouble(400L * m + 5), 1e-12);
+            NDArray narrow = numJ.matmul(numJ.ones(new int[]{m, k}, DType.FLOAT32), numJ.ones(new int[]{k, n}, DType.FLOAT32));
+            assertEquals(DType.FLOAT32, narrow.type());
+            assertEquals(300f, narrow.storage().getDouble(n * m - 1L), 0f);
+        }
+    }
+
+    /**
+     * Tests the level 1 and 2 kernels: gemv, axpy, scal, nrm2 and outer, on contiguous and strided operands.
+     */
+    @Test
+    public void testBlasKernels() throws ShapeException {
+        NDArray a = numJ.arange(1, 7, DType.FLOAT64, new int[]{2, 3});
+        NDArray x = numJ.array(new double[]{1, 0, -1});
+        NDArray y = numJ.array(new double[]{1, 1});
+        assertSame(y, numJ.gemv(2, a, x, 3, y));
+        assertArrayEquals(new double[]{-1, -1}, (double[]) y.storage().array());
+        NDArray z = numJ.array(new double[]{0, 0, 0});
+        numJ.gemv(1, a.transpose(), numJ.array(new double[]{1, 2}), 0, z);
+        assertArrayEquals(new double[]{9, 12, 15}, (double[]) z.storage().array());
+
+        NDArray counts = numJ.arange(0, 3, new int[]{3});
+        numJ.axpy(2, numJ.arange(0, 3, new int[]{3}), counts);
+        assertArrayEquals(new int[]{0, 3, 6}, (int[]) counts.storage().array());
+        numJ.scal(-1, counts);
+        assertArrayEquals(new int[]{0, -3, -6}, (int[]) counts.storage().array());
+        assertThrows(IllegalArgumentException.class, () -> numJ.scal(0.5, counts));
+        NDArray matrix = numJ.arange(0, 6, DType.FLOAT64, new int[]{2, 3});
+        NDArray strided = numJ.axpy(1, matrix.transpose(), numJ.zeros(new int[]{3, 2}, DType.FLOAT64));
+        assertArrayEquals(new double[]{0, 3, 1, 4, 2, 5}, (double[]) strided.storage().array());
+        numJ.axpy(10, matrix, matrix);
+        assertArrayEquals(new double[]{0, 11, 22, 33, 44, 55}, (double[]) matrix.storage().array());
+
+        assertEquals(5.0, numJ.nrm2(numJ.array(new double[]{3, 4})), 0);
+        assertEquals(5e-200, numJ.nrm2(numJ.array(new double[]{3e-200, 4e-200})), 1e-214);
+        assertEquals(5e200, numJ.nrm2(numJ.array(new double[]{3e200, 4e200})), 1e186);
+
+        NDArray outer = numJ.outer(numJ.array(new double[]{1, 2}), numJ.array(new double[]{1, 10, 100}));
+        assertEquals(Arrays.asList(2, 3), outer.shape());
+        assertArrayEquals(new double[]{1, 10, 100, 2, 20, 200}, (double[]) outer.storage().array());
+
+        assertThrows(ShapeException.class, () -> numJ.gemv(1, a, numJ.array(new double[]{1, 2}), 0, y));
+        assertThrows(ShapeMismatchException.class, () -> numJ.gemv(1, a, x, 0, z));
+    }
+
+    /**
+     * Tests that matrix-vector products and vector dot products split over threads match plain loops.
+     */
+    @Test
+    public void testParallelGemv() throws ShapeException {
+        int m = 1200, n = 301;
+        double[][] values = new double[m][n];
+        double[] vector = new double[n];
+        java.util.Random random = new java.util.Random(11);
+        for (double[] row : values) for (int j = 0; j < n; j++) row[j] = random.nextDouble() - 0.5;
+        for (int j = 0; j < n; j++) vector[j] = random.nextDouble() - 0.5;
+        try (ExecutionContext context = ExecutionContext.create(4)) {
+            ExecutionContext.setDefault(context);
+            NDArray a = numJ.array(values);
+            NDArray x = numJ.array(vector);
+            NDArray rows = numJ.matmul(a, x);
+            NDArray columns = numJ.matmul(x, a.transpose());
+            for (int i = 0; i < m; i++) {
+                double expected = 0;
+                for (int j = 0; j < n; j++) expected += values[i][j] * vector[j];
+                assertEquals(expected, rows.storage().getDouble(i), 1e-12);
+                assertEquals(expected, columns.storage().getDouble(i), 1e-12);
+            }
+            NDArray column = numJ.array(new double[m]);
+            NDArray flat = a.reshape(m * n);
+            double expected = 0;
+            for (double[] row : values) for (double value : row) expected += value * value;
+            assertEquals(expected, (double) numJ.dot(flat, flat).getArray(), 1e-9);
+            assertEquals(Math.sqrt(expected), numJ.nrm2(a), 1e-12);
+            numJ.gemv(1, a, x, 0, column);
+            assertArrayEquals((double[]) rows.storage().array(), (double[]) column.storage().array(), 0);
+        }
+    }
+
+    /**
+     * Tests solve, inv, det, cholesky, qr and lstsq on small matrices, stacks of matrices and singular input.
+     */
+    @Test
+    public void testLinearAlgebra() throws ShapeException {
+        NDArray a = numJ.array(new double[][]{{2, 1}, {1, 3}});
+        NDArray x = numJ.solve(a, numJ.array(new double[]{3, 5}));
+        assertArrayEquals(new double[]{0.8, 1.4}, (double[]) x.storage().array(), 1e-12);
+        assertArrayEquals(new double[]{0.6, -0.2, -0.2, 0.4}, (double[]) numJ.inv(a).storage().array(), 1e-12);
+        assertEquals(5.0, (double) numJ.det(a).getArray(), 1e-12);
+        NDArray l = numJ.cholesky(a);
+        assertArrayEquals(new double[]{Math.sqrt(2), 0, Math.sqrt(0.5), Math.sqrt(2.5)}, (double[]) l.storage().array(), 1e-12);
+
+        NDArray stack = numJ.array(new int[][][]{{{0, 1}, {1, 0}}, {{4, 0}, {0, 2}}, {{1, 2}, {3, 4}}});
+        NDArray dets = numJ.det(stack);
+        assertEquals(DType.FLOAT64, dets.type());
+        assertArrayEquals(new double[]{-1, 8, -2}, (double[]) dets.storage().array(), 1e-12);
+        NDArray solutions = numJ.solve(stack, numJ.array(new double[][]{{1}, {2}}));
+        assertEquals(Arrays.asList(3, 2, 1), solutions.shape());
+        assertArrayEquals(new double[]{2, 1, 0.25, 1, 0, 0.5}, (double[]) solutions.storage().array(), 1e-12);
+
+        NDArray tall = numJ.array(new float[][]{{1, 2}, {3, 4}, {5, 6}});
+        NDArray[] qr = numJ.qr(tall);
+        assertEquals(DType.FLOAT32, qr[0].type());
+        assertEquals(Arrays.asList(3, 2), qr[0].shape());
+        assertEquals(Arrays.asList(2, 2), qr[1].shape());
+        assertEquals(0f, qr[1].storage().getDouble(2), 0f);
+        NDArray product = numJ.matmul(qr[0], qr[1]);
+        assertArrayEquals(new float[]{1, 2, 3, 4, 5, 6}, (float[]) product.storage().array(), 1e-5f);
+        NDArray[] complete = numJ.qr(tall, QRMode.COMPLETE);
+        assertEquals(Arrays.asList(3, 3), complete[0].shape());
+        NDArray identity = numJ.matmul(complete[0].transpose(), complete[0]);
+        assertArrayEquals(new float[]{1, 0, 0, 0, 1, 0, 0, 0, 1}, (float[]) identity.storage().array(), 1e-5f);
+
+        NDArray line = numJ.lstsq(numJ.array(new double[][]{{1, 0}, {1, 1}, {1, 2}}), numJ.array(new double[]{1, 2, 4}));
+        assertArrayEquals(new double[]{5.0 / 6, 1.5}, (double[]) line.storage().array(), 1e-12);
+        NDArray leastNorm = numJ.lstsq(numJ.array(new double[][]{{1, 1}}), numJ.array(new double[]{2}));
+        assertArrayEquals(new double[]{1, 1}, (double[]) leastNorm.storage().array(), 1e-12);
+
+        NDArray singular = numJ.array(new double[][]{{1, 2}, {2, 4}});
+        assertEquals(0.0, (double) numJ.det(singular).getArray(), 0);
+        assertThrows(LinAlgException.class, () -> numJ.inv(singular));
+        assertThrows(LinAlgException.class, () -> numJ.cholesky(numJ.array(new double[][]{{1, 2}, {2, 1}})));
+        assertThrows(LinAlgException.class, () -> numJ.lstsq(singular, numJ.array(new double[]{1, 2})));
+        assertThrows(ShapeException.class, () -> numJ.inv(numJ.zeros(new int[]{2, 3})));
+        assertThrows(ShapeException.class, () -> numJ.solve(a, numJ.array(new double[]{1, 2, 3})));
+    }
+
+    /**
+     * Tests that factorizations spanning several panels, with threaded trailing updates, reproduce the matrix.
+     */
+    @Test
+    public void testBlockedFactorizations() throws ShapeException {
+        int n = 150;
+        double[][] values = new double[n][n];
+        java.util.Random random = new java.util.Random(5);
+        for (double[] row : values) for (int j = 0; j < n; j++) row[j] = random.nextDouble() - 0.5;
+        try (ExecutionContext context = ExecutionContext.create(4)) {
+            ExecutionContext.setDefault(context);
+            NDArray a = numJ.array(values);
+            NDArray inverse = numJ.inv(a);
+            assertIdentity(numJ.matmul(a, inverse), n, 1e-9);
+            NDArray[] qr = numJ.qr(a.transpose());
+            assertIdentity(numJ.matmul(qr[0].transpose(), qr[0]), n, 1e-12);
+            NDArray rebuilt = numJ.matmul(qr[0], qr[1]);
+            for (int i = 0; i < n; i += 7) {
+                for (int j = 0; j < n; j += 5) {
+                    assertEquals(values[j][i], rebuilt.storage().getDouble((long) i * n + j), 1e-12);
+                }
+            }
+            NDArray spd = numJ.matmul(a, a.transpose());
+            NDArray l = numJ.cholesky(spd);
+            NDArray square = numJ.matmul(l, l.transpose());
+            assertArrayEquals((double[]) spd.storage().array(), (double[]) square.storage().array(), 1e-12);
+            NDArray b = numJ.arange(0, 2 * n, DType.FLOAT64, new int[]{n, 2});
+            NDArray x = numJ.solve(a, b);
+            assertArrayEquals((double[]) b.storage().array(), (double[]) numJ.matmul(a, x).storage().array(), 1e-9);
+            NDArray fitted = numJ.lstsq(a, b);
+            assertArrayEquals((double[]) x.storage().array(), (double[]) fitted.storage().array(), 1e-7);
+        }
+    }
+
+    @Test
+    public void testEigenAndSingularValues() throws ShapeException {
+        NDArray symmetric = numJ.array(new double[][]{{2, 1}, {1, 2}});
+        NDArray[] eigh = numJ.eigh(symmetric);
+        assertArrayEquals(new double[]{1, 3}, (double[]) eigh[0].storage().array(), 1e-12);
+        NDArray av = numJ.matmul(symmetric, eigh[1]);
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 2; j++) {
+                assertEquals(eigh[0].storage().getDouble(j) * eigh[1].storage().getDouble(i * 2 + j), av.storage().getDouble(i * 2 + j), 1e-12);
+            }
+        }
+        NDArray[] rotation = numJ.eig(numJ.array(new double[][]{{0, -1}, {1, 0}}));
+        assertArrayEquals(new double[]{0, 0}, (double[]) rotation[0].storage().array(), 1e-12);
+        assertArrayEquals(new double[]{1, -1}, (double[]) rotation[1].storage().array(), 1e-12);
+        NDArray[] triangular = numJ.eig(numJ.array(new double[][]{{1, 2}, {0, 3}}));
+        double[] eigenvalues = ((double[]) triangular[0].storage().array()).clone();
+        Arrays.sort(eigenvalues);
+        assertArrayEquals(new double[]{1, 3}, eigenvalues, 1e-12);
+
+        double[][] values = {{1, 2}, {3, 4}, {5, 6}};
+        NDArray a = numJ.array(values);
+        NDArray[] full = numJ.svd(a);
+        assertArrayEquals(new int[]{3, 3}, full[0].shapeArray());
+        assertArrayEquals(new int[]{2, 2}, full[2].shapeArray());
+        assertIdentity(numJ.matmul(full[0].transpose(), full[0]), 3, 1e-12);
+        NDArray[] reduced = numJ.svd(a, false);
+        assertArrayEquals(new int[]{3, 2}, reduced[0].shapeArray());
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 2; j++) {
+                double sum = 0;
+                for (int l = 0; l < 2; l++) {
+                    sum += reduced[0].storage().getDouble(i * 2 + l) * reduced[1].storage().getDouble(l) * reduced[2].storage().getDouble(l * 2 + j);
+                }
+                assertEquals(values[i][j], sum, 1e-12);
+            }
+        }
+        double[] singular = (double[]) numJ.svdvals(a).storage().array();
+        assertArrayEquals((double[]) reduced[1].storage().array(), singular, 1e-12);
+        assertArrayEquals(singular, (double[]) numJ.svdvals(a.transpose()).storage().array(), 1e-12);
+        assertEquals(Math.sqrt(91), numJ.norm(a), 1e-12);
+        assertEquals(Math.sqrt(91), numJ.norm(a, NormType.FROBENIUS).storage().getDouble(0), 1e-12);
+        assertEquals(singular[0], numJ.norm(a, NormType.SPECTRAL).storage().getDouble(0), 1e-12);
+        assertEquals(singular[0] + singular[1], numJ.norm(a, NormType.NUCLEAR).storage().getDouble(0), 1e-12);
+    }
+
+    @Test
+    public void testLargeDecompositions() throws ShapeException {
+        java.util.Random random = new java.util.Random(11);
+        int n = 100;
+        double[][] values = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) values[i][j] = values[j][i] = random.nextDouble() - 0.5;
+        }
+        int m = 2000, columns = 60, rank = 5;
+        double[][] left = new double[m][rank], right = new double[rank][columns];
+        for (double[] row : left) for (int j = 0; j < rank; j++) row[j] = random.nextGaussian();
+        for (int i = 0; i < rank; i++) for (int j = 0; j < columns; j++) right[i][j] = random.nextGaussian() * (rank - i);
+        try (ExecutionContext context = ExecutionContext.create(4)) {
+            ExecutionContext.setDefault(context);
+            NDArray symmetric = numJ.array(values);
+            NDArray[] eigh = numJ.eigh(symmetric);
+            assertIdentity(numJ.matmul(eigh[1].transpose(), eigh[1]), n, 1e-12);
+            NDArray av = numJ.matmul(symmetric, eigh[1]);
+            for (int i = 0; i < n; i += 3) {
+                for (int j = 0; j < n; j += 7) {
+                    assertEquals(eigh[0].storage().getDouble(j) * eigh[1].storage().getDouble((long) i * n + j), av.storage().getDouble((long) i * n + j), 1e-12);
+                }
+            }
+            NDArray[] eig = numJ.eig(symmetric);
+            double[] real = ((double[]) eig[0].storage().array()).clone();
+            Arrays.sort(real);
+            assertArrayEquals((double[]) eigh[0].storage().array(), real, 1e-10);
+            assertArrayEquals(new double[n], (double[]) eig[1].storage().array(), 1e-10);
+
+            NDArray lowRank = numJ.matmul(numJ.array(left), numJ.array(right));
+            NDArray[] svd = numJ.svd(lowRank, false);
+            assertIdentity(numJ.matmul(svd[2], svd[2].transpose()), columns, 1e-12);
+            double[] singular = (double[]) numJ.svdvals(lowRank).storage().array();
+            assertArrayEquals(singular, (double[]) svd[1].storage().array(), 1e-9);
+            NDArray[] approximation = numJ.randomizedSvd(lowRank, rank);
+            assertArrayEquals(new int[]{m, rank}, approximation[0].shapeArray());
+            assertArrayEquals(new int[]{rank, columns}, approximation[2].shapeArray());
+            assertArrayEquals(Arrays.copyOf(singular, rank), (double[]) approximation[1].storage().array(), 1e-8 * singular[0]);
+            assertIdentity(numJ.matmul(approximation[0].transpose(), approximation[0]), rank, 1e-12);
+        }
+    }
+
+    private static void assertIdentity(NDArray matrix, int n, double delta) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(i == j ? 1 : 0, matrix.storage().getDouble((long) i * n + j), delta);
+            }
+        }
+    }
+
     /**
      * Provides data for zeros array creation tests.
      *
@@ -0,0 +1,174 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.Slice;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.StorageType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.exceptions.UnsupportedDataTypeException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the ArrowFormat and ArrowTable classes.
+ */
+class ArrowFormatTest {
+    private final NumJ numJ = new NumJ();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests a file round trip of columns of every type, read as views of the mapped file and stacked.
+     */
+    @Test
+    void testFileRoundTrip() throws IOException, ShapeException {
+        Map<String, NDArray<?>> columns = new LinkedHashMap<>();
+        columns.put("x", numJ.array(new double[]{0.5, 1.5, 2.5, 3.5, 4.5}));
+        columns.put("y", numJ.arange(10, 15, DType.FLOAT64, new int[]{5}));
+        columns.put("id", numJ.array(new int[]{7, 8, 9, 10, 11}));
+        columns.put("flag", numJ.array(new byte[]{1, 0, 1, 0, -1}));
+        columns.put("step", numJ.arange(0, 10, DType.INT64, new int[]{10}).slice(Slice.of(0, 10, 2)));
+        columns.put("weight", numJ.array(new float[]{1f, 2f, 3f, 4f, 5f}));
+        Path path = directory.resolve("table.arrow");
+        numJ.writeArrow(path.toString(), columns);
+
+        try (ArrowTable table = numJ.readArrow(path.toString())) {
+            assertEquals(Arrays.asList("x", "y", "id", "flag", "step", "weight"), table.columnNames());
+            assertEquals(5, table.rowCount());
+            assertEquals(1, table.batchCount());
+            for (Map.Entry<String, NDArray<?>> entry : columns.entrySet()) {
+                NDArray column = table.column(entry.getKey());
+                assertEquals(entry.getValue().type(), table.type(entry.getKey()));
+                assertEquals(StorageType.OFF_HEAP, column.storageType());
+                assertArrayEquals(new int[]{5}, column.shapeArray());
+                for (long i = 0; i < 5; i++) {
+                    assertEquals(entry.getValue().copy().storage().getDouble(i), column.storage().getDouble(i));
+                }
+            }
+
+            // Adjacent columns of one type are viewed, others copied with promotion
+            NDArray stacked = table.stack("x", "y");
+            assertEquals(StorageType.OFF_HEAP, stacked.storageType());
+            assertEquals(Order.F, stacked.order());
+            assertArrayEquals(new double[]{0.5, 10, 1.5, 11, 2.5, 12, 3.5, 13, 4.5, 14},
+                    (double[]) stacked.copy(StorageType.HEAP).storage().array());
+            NDArray mixed = table.stack("id", "weight");
+            assertEquals(DType.FLOAT64, mixed.type());
+            assertEquals(StorageType.HEAP, mixed.storageType());
+            assertArrayEquals(new double[]{7, 1, 8, 2, 9, 3, 10, 4, 11, 5}, (double[]) mixed.copy().storage().array());
+
+            assertThrows(IllegalArgumentException.class, () -> table.column("z"));
+        }
+    }
+
+    /**
+     * Tests the layout of a written file against the format: magic strings, an 8-byte aligned message prefix
+     * and little-endian data buffers following each other.
+     */
+    @Test
+    void testLayout() throws IOException, ShapeException {
+        NDArray matrix = numJ.arange(0, 8, DType.FLOAT64, new int[]{4, 2});
+        Path path = directory.resolve("matrix.arrow");
+        numJ.writeArrow(path.toString(), matrix);
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals("ARROW1\0\0", new String(file.array(), 0, 8, StandardCharsets.US_ASCII));
+        assertEquals("ARROW1", new String(file.array(), file.capacity() - 6, 6, StandardCharsets.US_ASCII));
+        assertEquals(-1, file.getInt(8));
+        int schemaLength = file.getInt(12);
+        assertEquals(0, schemaLength % 8);
+        int batch = 16 + schemaLength;
+        assertEquals(-1, file.getInt(batch));
+        int body = batch + 8 + file.getInt(batch + 4);
+        for (int i = 0; i < 8; i++) {
+            // Column f0 holds 0, 2, 4, 6 and column f1 follows it
+            assertEquals(i < 4 ? 2 * i : 2 * (i - 4) + 1, file.getDouble(body + 8 * i));
+        }
+
+        try (ArrowTable table = ArrowFormat.read(path)) {
+            assertEquals(Arrays.asList("f0", "f1"), table.columnNames());
+            NDArray stacked = table.stack("f0", "f1");
+            assertEquals(StorageType.OFF_HEAP, stacked.storageType());
+            assertArrayEquals((double[]) matrix.storage().array(), (double[]) stacked.copy(StorageType.HEAP).storage().array());
+        }
+        assertThrows(IllegalArgumentException.class, () -> numJ.writeArrow(path.toString(), matrix, "only"));
+    }
+
+    /**
+     * Tests streams, read into memory that the columns wrap, and a stream of two record batches.
+     */
+    @Test
+    void testStreams() throws IOException, ShapeException {
+        NDArray first = numJ.arange(0, 6, DType.INT16, new int[]{3, 2});
+        NDArray second = numJ.arange(6, 10, DType.INT16, new int[]{2, 2});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArrowFormat.writeStream(Channels.newChannel(out), first, "a", "b");
+        byte[] one = out.toByteArray();
+        try (ArrowTable table = ArrowFormat.readStream(Channels.newChannel(new ByteArrayInputStream(one)))) {
+            NDArray column = table.column("b");
+            assertEquals(StorageType.OFF_HEAP, column.storageType());
+            assertArrayEquals(new short[]{1, 3, 5}, (short[]) column.copy(StorageType.HEAP).storage().array());
+        }
+
+        // The record batch of a second stream appended to the first, before its end-of-stream marker
+        out.reset();
+        ArrowFormat.writeStream(Channels.newChannel(out), second, "a", "b");
+        byte[] two = out.toByteArray();
+        int schema = 8 + ByteBuffer.wrap(two).order(ByteOrder.LITTLE_ENDIAN).getInt(4);
+        ByteArrayOutputStream both = new ByteArrayOutputStream();
+        both.write(one, 0, one.length - 8);
+        both.write(two, schema, two.length - schema);
+        try (ArrowTable table = ArrowFormat.readStream(Channels.newChannel(new ByteArrayInputStream(both.toByteArray())))) {
+            assertEquals(2, table.batchCount());
+            assertEquals(5, table.rowCount());
+            assertArrayEquals(new short[]{0, 2, 4, 6, 8}, (short[]) table.column("a").storage().array());
+            assertArrayEquals(new short[]{6, 8}, (short[]) table.column("a", 1).copy(StorageType.HEAP).storage().array());
+            NDArray stacked = table.stack("a", "b");
+            assertEquals(StorageType.HEAP, stacked.storageType());
+            assertArrayEquals(new short[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, (short[]) stacked.copy().storage().array());
+        }
+    }
+
+    /**
+     * Tests that invalid data and arrays that cannot be columns are refused.
+     */
+    @Test
+    void testErrors() throws IOException, ShapeException {
+        Path path = directory.resolve("invalid.arrow");
+        Files.write(path, "ARROW1 but nothing else".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> ArrowFormat.read(path));
+        Files.write(path, new byte[0]);
+        assertThrows(IOException.class, () -> ArrowFormat.read(path));
+
+        Map<String, NDArray<?>> columns = new LinkedHashMap<>();
+        columns.put("a", numJ.array(new double[]{1, 2}));
+        columns.put("b", numJ.array(new double[]{1, 2, 3}));
+        assertThrows(IllegalArgumentException.class, () -> ArrowFormat.write(path, columns));
+        columns.put("b", numJ.arange(0, 4, DType.FLOAT64, new int[]{2, 2}));
+        assertThrows(IllegalArgumentException.class, () -> ArrowFormat.write(path, columns));
+
+        columns.remove("b");
+        ArrowFormat.write(path, columns);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 20));
+        assertThrows(IOException.class, () -> ArrowFormat.read(path));
+        assertThrows(UnsupportedDataTypeException.class, () -> ArrowFormat.write(path, numJ.array(new Object[][]{{"x"}})));
+    }
+}
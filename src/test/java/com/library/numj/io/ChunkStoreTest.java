@@ -0,0 +1,150 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.Slice;
+import com.library.numj.enums.Compression;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.exceptions.ShapeException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the ChunkStore class and the LZ4 codec.
+ */
+class ChunkStoreTest {
+    private final NumJ numJ = new NumJ();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests reading and writing regions across chunk boundaries with every compression and chunk order.
+     */
+    @Test
+    void testRegions() throws IOException, ShapeException {
+        int[] shape = {50, 37, 6};
+        NDArray array = numJ.arange(0, 50 * 37 * 6, DType.FLOAT64, shape);
+        NDArray window = array.slice(Slice.of(3, 40, 1), Slice.of(9, 11, 1), Slice.of(1, 5, 1)).copy();
+        for (Compression compression : Compression.values()) {
+            for (Order order : Order.values()) {
+                Path path = directory.resolve(compression + "-" + order);
+                ChunkStore store = ChunkStore.create(path, shape, new int[]{16, 10, 4}, DType.FLOAT64, order, compression);
+                store.write(array);
+                assertArrayEquals((double[]) array.storage().array(), (double[]) store.read().storage().array());
+                NDArray read = store.read(new int[]{3, 9, 1}, new int[]{40, 11, 5});
+                assertArrayEquals(new int[]{37, 2, 4}, read.shapeArray());
+                assertArrayEquals((double[]) window.storage().array(), (double[]) read.storage().array());
+
+                // A strided, transposed source written over a region covering chunks partially
+                NDArray patch = numJ.arange(0, 12, DType.INT32, new int[]{2, 3, 2}).transpose();
+                store.write(new int[]{14, 8, 3}, patch);
+                ChunkStore reopened = ChunkStore.open(path);
+                assertEquals(compression, reopened.compression());
+                assertEquals(order, reopened.order());
+                assertEquals(DType.FLOAT64, reopened.type());
+                NDArray region = reopened.read(new int[]{13, 8, 3}, new int[]{16, 12, 5});
+                for (int i = 0; i < 3; i++) {
+                    for (int j = 0; j < 4; j++) {
+                        for (int k = 0; k < 2; k++) {
+                            double expected = i >= 1 && j < 3 ? k * 6 + j * 2 + (i - 1) : ((13 + i) * 37 + 8 + j) * 6 + 3 + k;
+                            assertEquals(expected, region.storage().getDouble(i * 8 + j * 2 + k));
+                        }
+                    }
+                }
+            }
+        }
+        String header = new String(Files.readAllBytes(directory.resolve("LZ4-F").resolve(ChunkStore.HEADER)), StandardCharsets.UTF_8);
+        assertTrue(header.contains("\"compressor\": {\"id\": \"lz4\""));
+        assertTrue(header.contains("\"order\": \"F\""));
+        assertTrue(header.contains("\"dtype\": \"<f8\""));
+    }
+
+    /**
+     * Tests that missing chunks read as the fill value and that only intersected chunks are written.
+     */
+    @Test
+    void testSparseWrites() throws IOException, ShapeException {
+        Path path = directory.resolve("sparse");
+        ChunkStore store = ChunkStore.create(path, new int[]{1000, 1000}, new int[]{100, 100}, DType.INT16, Order.C,
+                Compression.DEFLATE);
+        store.write(new int[]{150, 250}, numJ.array(new short[][]{{1, 2}, {3, 4}}));
+        try (Stream<Path> files = Files.list(path)) {
+            assertArrayEquals(new Object[]{".zarray", "1.2"}, files.map(file -> file.getFileName().toString()).sorted().toArray());
+        }
+        assertArrayEquals(new short[]{0, 0, 0, 0, 1, 2, 0, 3, 4}, (short[]) store.read(new int[]{149, 249}, new int[]{152, 252}).storage().array());
+        assertTrue(Files.size(path.resolve("1.2")) < 200);
+
+        String zarr = "{\"zarr_format\": 2, \"shape\": [3], \"chunks\": [2], \"dtype\": \">i4\", \"compressor\": null,"
+                + " \"fill_value\": -1, \"order\": \"C\", \"filters\": null, \"dimension_separator\": \"/\"}";
+        Path foreign = directory.resolve("foreign");
+        Files.createDirectories(foreign);
+        Files.write(foreign.resolve(".zarray"), zarr.getBytes(StandardCharsets.UTF_8));
+        Files.write(foreign.resolve("0"), new byte[]{0, 0, 0, 7, 0, 0, 1, 0});
+        assertArrayEquals(new int[]{7, 256, -1}, (int[]) ChunkStore.open(foreign).read().storage().array());
+
+        assertThrows(IllegalArgumentException.class, () -> store.read(new int[]{0, 0}, new int[]{1001, 1}));
+        assertThrows(IllegalArgumentException.class, () -> store.write(new int[]{999, 0}, numJ.array(new short[][]{{1}, {2}})));
+        assertThrows(IllegalArgumentException.class,
+                () -> ChunkStore.create(path, new int[]{10}, new int[]{0}, DType.INT8, Order.C, Compression.NONE));
+        assertThrows(IOException.class, () -> ChunkStore.open(directory.resolve("missing")));
+        Files.write(path.resolve("1.2"), new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> ChunkStore.open(path).read());
+    }
+
+    /**
+     * Tests that the cache keeps at most its capacity of decoded chunks.
+     */
+    @Test
+    void testCache() throws IOException, ShapeException {
+        ChunkStore store = ChunkStore.create(directory.resolve("cache"), new int[]{64, 64}, new int[]{8, 8}, DType.FLOAT32,
+                Order.C, Compression.LZ4);
+        store.write(numJ.arange(0, 64 * 64, DType.FLOAT32, new int[]{64, 64}));
+        store.setCacheCapacity(4);
+        assertEquals(4, store.cachedChunks());
+        store.read(new int[]{0, 0}, new int[]{16, 16});
+        assertEquals(4, store.cachedChunks());
+        assertEquals(8 * 64 + 8, store.read(new int[]{8, 8}, new int[]{9, 9}).storage().getDouble(0));
+        store.setCacheCapacity(0);
+        store.read();
+        assertEquals(0, store.cachedChunks());
+    }
+
+    /**
+     * Tests LZ4 round trips on incompressible, repetitive and tiny inputs, and the detection of corrupt blocks.
+     */
+    @Test
+    void testLz4() throws IOException {
+        Random random = new Random(5);
+        byte[] noise = new byte[100000];
+        random.nextBytes(noise);
+        byte[] text = new byte[200000];
+        for (int i = 0; i < text.length; i++) text[i] = (byte) "the quick brown fox jumps over the lazy dog "
+                .charAt((i * 7 + i / 1000) % 44);
+        byte[] runs = new byte[70000];
+        Arrays.fill(runs, 30000, 70000, (byte) 9);
+        for (byte[] input : new byte[][]{noise, text, runs, new byte[0], {1}, Arrays.copyOf(text, 13), Arrays.copyOf(runs, 40)}) {
+            byte[] block = new byte[Lz4.maxCompressedLength(input.length)];
+            int length = Lz4.compress(input, 0, input.length, block, 0);
+            byte[] output = new byte[input.length];
+            Lz4.decompress(block, 0, length, output, 0, output.length);
+            assertArrayEquals(input, output);
+            if (input == runs || input == text) assertTrue(length < input.length / 10);
+        }
+        byte[] block = new byte[Lz4.maxCompressedLength(runs.length)];
+        int length = Lz4.compress(runs, 0, runs.length, block, 0);
+        assertThrows(IOException.class, () -> Lz4.decompress(block, 0, length - 3, new byte[runs.length], 0, runs.length));
+        assertThrows(IOException.class, () -> Lz4.decompress(block, 0, length, new byte[runs.length - 1], 0, runs.length - 1));
+    }
+}
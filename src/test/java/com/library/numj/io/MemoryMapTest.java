@@ -0,0 +1,135 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.MapMode;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.StorageType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.storage.Storage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the MemoryMap class.
+ */
+class MemoryMapTest {
+    private final NumJ numJ = new NumJ();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that writes reach the file in read-write modes and never in read-only and copy-on-write modes.
+     */
+    @Test
+    void testModes() throws IOException {
+        String path = directory.resolve("matrix.dat").toString();
+        NDArray created = numJ.memmap(path, DType.FLOAT64, new int[]{3, 4}, MapMode.WRITE);
+        assertEquals(StorageType.OFF_HEAP, created.storageType());
+        assertEquals(96, Files.size(directory.resolve("matrix.dat")));
+        double[] values = new double[12];
+        for (int i = 0; i < values.length; i++) values[i] = i * 0.5;
+        created.storage().setDoubles(0, values, 0, values.length);
+        created.flush();
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("matrix.dat"))).order(ByteOrder.nativeOrder());
+        assertEquals(5.5, file.getDouble(11 * 8));
+        created.close();
+
+        NDArray readOnly = numJ.memmap(path, DType.FLOAT64, new int[]{3, 4}, MapMode.READ_ONLY);
+        assertEquals(33.0, ((Number) numJ.sum(readOnly).storage().get(0)).doubleValue());
+        assertThrows(ReadOnlyBufferException.class, () -> readOnly.storage().setDouble(0, 1));
+        readOnly.flush();
+        readOnly.close();
+
+        NDArray copy = numJ.memmap(path, DType.FLOAT64, null, MapMode.COPY_ON_WRITE);
+        assertArrayEquals(new int[]{12}, copy.shapeArray());
+        copy.storage().setDouble(0, 100);
+        copy.flush();
+        assertEquals(100, copy.storage().getDouble(0));
+        copy.close();
+        assertEquals(0, numJ.memmap(path, DType.FLOAT64, null, MapMode.READ_ONLY).storage().getDouble(0));
+
+        NDArray transposed = numJ.memmap(path, DType.FLOAT64, new int[]{4, 2}, MapMode.READ_WRITE, 32, Order.F);
+        assertEquals(2.5, transposed.storage().getDouble(1));
+        transposed.storage().setDouble(0, -1);
+        transposed.flush();
+        transposed.close();
+        file = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("matrix.dat"))).order(ByteOrder.nativeOrder());
+        assertEquals(-1, file.getDouble(32));
+
+        assertThrows(IOException.class, () -> numJ.memmap(path, DType.FLOAT64, new int[]{4, 4}, MapMode.READ_ONLY));
+        assertThrows(IllegalArgumentException.class, () -> numJ.memmap(path, DType.FLOAT64, null, MapMode.WRITE));
+    }
+
+    /**
+     * Tests element-wise operations and reductions streaming over mapped arrays, and mapped .npy files.
+     */
+    @Test
+    void testStreaming() throws IOException, ShapeException {
+        int rows = 300;
+        int columns = 500;
+        NDArray heap = numJ.arange(0, rows * columns, DType.INT32, new int[]{rows, columns});
+        String path = directory.resolve("heap.npy").toString();
+        numJ.save(path, heap);
+        NDArray mapped = numJ.load(path, MapMode.READ_WRITE);
+        NDArray other = numJ.arange(0, rows * columns, DType.FLOAT64, new int[]{rows, columns});
+        assertArrayEquals((double[]) numJ.add(heap, other).storage().array(),
+                (double[]) numJ.add(mapped, other).copy(StorageType.HEAP).storage().array());
+        assertEquals(((Number) numJ.sum(heap).storage().get(0)).longValue(),
+                ((Number) numJ.sum(mapped).storage().get(0)).longValue());
+        assertArrayEquals((long[]) numJ.sum(heap, 0).storage().array(), (long[]) numJ.sum(mapped, 0).copy(StorageType.HEAP).storage().array());
+
+        String raw = directory.resolve("sum.dat").toString();
+        NDArray target = numJ.memmap(raw, DType.FLOAT64, new int[]{rows, columns}, MapMode.WRITE);
+        numJ.add(mapped, other).storage().copyTo(0, target.storage(), 0, target.size());
+        target.flush();
+        target.close();
+        NDArray sum = numJ.memmap(raw, DType.FLOAT64, new int[]{rows, columns}, MapMode.READ_ONLY);
+        assertArrayEquals((double[]) numJ.add(heap, other).storage().array(), (double[]) sum.copy(StorageType.HEAP).storage().array());
+        sum.close();
+
+        mapped.storage().setLong(1, 7);
+        mapped.flush();
+        mapped.close();
+        assertEquals(7, numJ.load(path).storage().getLong(1));
+        assertThrows(IllegalArgumentException.class, () -> numJ.load(path, MapMode.WRITE));
+    }
+
+    /**
+     * Tests a file past the 2 GiB limit of a single mapping. The file is sparse, only a few pages are written.
+     */
+    @Test
+    void testLargeFile() throws IOException {
+        String path = directory.resolve("large.dat").toString();
+        int[] shape = {3, 1 << 30};
+        NDArray large = numJ.memmap(path, DType.INT16, shape, MapMode.WRITE);
+        Storage storage = large.storage();
+        long boundary = 1L << 29;
+        storage.setLongs(boundary - 2, new long[]{1, 2, 3, 4}, 0, 4);
+        storage.setLong(large.size() - 1, -5);
+        large.flush();
+        large.close();
+        assertEquals(6L << 30, Files.size(directory.resolve("large.dat")));
+
+        NDArray reopened = numJ.memmap(path, DType.INT16, shape, MapMode.READ_ONLY);
+        long[] values = new long[6];
+        reopened.storage().getLongs(boundary - 3, values, 0, 6);
+        assertArrayEquals(new long[]{0, 1, 2, 3, 4, 0}, values);
+        double[] tail = new double[2];
+        reopened.storage().getDoubles(reopened.size() - 2, tail, 0, 2);
+        assertArrayEquals(new double[]{0, -5}, tail);
+        reopened.close();
+        Files.delete(directory.resolve("large.dat"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.Slice;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.StorageType;
+import com.library.numj.exceptions.ShapeException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the NpyFormat class.
+ */
+class NpyFormatTest {
+    private final NumJ numJ = new NumJ();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that arrays of every layout survive a round trip, read into the heap and mapped.
+     */
+    @Test
+    void testRoundTrip() throws IOException, ShapeException {
+        NDArray matrix = numJ.arange(0, 6, DType.FLOAT64, new int[]{2, 3});
+        NDArray fortran = numJ.asfortranarray(numJ.arange(0, 12, DType.INT32, new int[]{3, 4}));
+        NDArray view = numJ.arange(0, 20, DType.INT64, new int[]{4, 5}).slice(Slice.of(0, 4, 2), Slice.of(1, 5, 2));
+        NDArray[] arrays = {matrix, fortran, view, numJ.array(new float[]{1.5f, -2}), numJ.array(new byte[]{-1, 7}),
+                numJ.array(new short[][]{{3}}), numJ.array(4.0)};
+        for (NDArray array : arrays) {
+            String path = directory.resolve("array.npy").toString();
+            numJ.save(path, array);
+            assertEquals(0, (Files.size(Paths.get(path)) - array.size() * NpyFormat.elementSize(array.type())) % 64);
+            for (boolean memoryMap : new boolean[]{false, true}) {
+                NDArray loaded = numJ.load(path, memoryMap);
+                assertEquals(array.type(), loaded.type());
+                assertArrayEquals(array.shapeArray(), loaded.shapeArray());
+                assertEquals(memoryMap ? StorageType.OFF_HEAP : StorageType.HEAP, loaded.storageType());
+                assertEquals(array.order(), loaded.order());
+                for (long i = 0; i < array.size(); i++) {
+                    assertEquals(array.copy().storage().getDouble(i), loaded.copy().storage().getDouble(i));
+                }
+                loaded.close();
+            }
+        }
+    }
+
+    /**
+     * Tests loading a big-endian, column-major file written the way NumPy writes it.
+     */
+    @Test
+    void testForeignFile() throws IOException {
+        String dictionary = "{'descr': '>i4', 'fortran_order': True, 'shape': (2, 2), }";
+        ByteBuffer file = ByteBuffer.allocate(128 + 16).order(ByteOrder.LITTLE_ENDIAN);
+        file.put(new byte[]{(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0}).putShort((short) 118);
+        file.put(dictionary.getBytes(StandardCharsets.US_ASCII));
+        while (file.position() < 127) file.put((byte) ' ');
+        file.put((byte) '\n');
+        file.order(ByteOrder.BIG_ENDIAN).putInt(1).putInt(2).putInt(3).putInt(4);
+        Path path = directory.resolve("foreign.npy");
+        Files.write(path, file.array());
+        for (boolean memoryMap : new boolean[]{false, true}) {
+            NDArray loaded = numJ.load(path.toString(), memoryMap);
+            assertEquals(DType.INT32, loaded.type());
+            assertEquals(Order.F, loaded.order());
+            assertArrayEquals(new int[]{1, 3, 2, 4}, (int[]) loaded.copy(StorageType.HEAP).storage().array());
+        }
+
+        Files.write(path, "not an array".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> numJ.load(path.toString()));
+    }
+
+    /**
+     * Tests stored and deflated archives.
+     */
+    @Test
+    void testArchives() throws IOException, ShapeException {
+        Map<String, NDArray<?>> arrays = new LinkedHashMap<>();
+        arrays.put("weights", numJ.arange(0, 12, DType.FLOAT32, new int[]{3, 4}).transpose());
+        arrays.put("labels", numJ.array(new long[]{3, 1, 2}));
+        String stored = directory.resolve("stored.npz").toString();
+        String deflated = directory.resolve("deflated.npz").toString();
+        numJ.savez(stored, arrays);
+        numJ.savezCompressed(deflated, arrays);
+        try (ZipFile zip = new ZipFile(stored)) {
+            assertEquals(ZipEntry.STORED, zip.getEntry("weights.npy").getMethod());
+        }
+        for (String path : new String[]{stored, deflated}) {
+            Map<String, NDArray<?>> loaded = numJ.loadz(path);
+            assertArrayEquals(new Object[]{"weights", "labels"}, loaded.keySet().toArray());
+            assertArrayEquals((float[]) arrays.get("weights").copy().storage().array(),
+                    (float[]) loaded.get("weights").copy().storage().array());
+            assertArrayEquals(new long[]{3, 1, 2}, (long[]) loaded.get("labels").storage().array());
+        }
+        String positional = directory.resolve("positional.npz").toString();
+        numJ.savez(positional, numJ.array(new int[]{1}), numJ.array(new int[]{2}));
+        assertArrayEquals(new Object[]{"arr_0", "arr_1"}, numJ.loadz(positional).keySet().toArray());
+    }
+}
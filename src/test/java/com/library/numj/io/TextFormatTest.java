@@ -0,0 +1,117 @@
+package com.library.numj.io;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.parallel.ExecutionContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the TextFormat class.
+ */
+class TextFormatTest {
+    private final NumJ numJ = new NumJ();
+
+    @TempDir
+    Path directory;
+
+    private String write(String name, String text) throws IOException {
+        Path path = directory.resolve(name);
+        Files.write(path, text.getBytes(StandardCharsets.US_ASCII));
+        return path.toString();
+    }
+
+    /**
+     * Tests delimiters, whitespace around fields, skipped rows, comments, column selection, row limits and malformed text.
+     */
+    @Test
+    void testLoad() throws IOException {
+        String csv = write("data.csv", "a,b,c,d\r\n# comment\r\n1, 2.5,-3e2,4\r\n\r\n5,0.1,nan,-inf # trailing\r\n"
+                + "7,1e-5,0.12345678901234567890,8");
+        NDArray all = numJ.loadtxt(csv, DType.FLOAT64, ',', 1, null, -1);
+        assertArrayEquals(new int[]{3, 4}, all.shapeArray());
+        assertArrayEquals(new double[]{1, 2.5, -300, 4, 5, 0.1, Double.NaN, Double.NEGATIVE_INFINITY,
+                7, 1e-5, Double.parseDouble("0.12345678901234567890"), 8}, (double[]) all.storage().array());
+        NDArray selected = numJ.loadtxt(csv, DType.FLOAT32, ',', 1, new int[]{-1, 0}, 2);
+        assertArrayEquals(new int[]{2, 2}, selected.shapeArray());
+        assertArrayEquals(new float[]{4, 1, Float.NEGATIVE_INFINITY, 5}, (float[]) selected.storage().array());
+
+        String table = write("table.txt", "  10\t-20   30\n\n40 50 60\n");
+        NDArray integers = numJ.loadtxt(table, DType.INT32);
+        assertArrayEquals(new int[]{10, -20, 30, 40, 50, 60}, (int[]) integers.storage().array());
+        assertArrayEquals(new long[]{Long.MIN_VALUE, Long.MAX_VALUE}, (long[]) numJ.loadtxt(
+                write("extremes.txt", "-9223372036854775808 9223372036854775807"), DType.INT64).storage().array());
+
+        String tabs = write("tabs.csv", "1,\t2\t, 3\n\t4 ,5,6\n");
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5, 6}, (long[]) numJ.loadtxt(tabs, DType.INT64, ',', 0, null, -1).storage().array());
+        assertArrayEquals(new double[]{1, 2, 3, 4, 5, 6}, (double[]) numJ.loadtxt(tabs, DType.FLOAT64, ',', 0, null, -1).storage().array());
+
+        assertThrows(IOException.class, () -> numJ.loadtxt(write("bad.txt", "1 2\n3 x\n"), DType.FLOAT64));
+        assertThrows(IOException.class, () -> numJ.loadtxt(write("float.txt", "1 2.5\n"), DType.INT64));
+        assertThrows(IOException.class, () -> numJ.loadtxt(write("overflow.txt", "9223372036854775808\n"), DType.INT64));
+        assertThrows(IOException.class, () -> numJ.loadtxt(write("ragged.txt", "1 2\n3\n"), DType.FLOAT64));
+        assertThrows(IllegalArgumentException.class, () -> numJ.loadtxt(csv, DType.FLOAT64, ',', 1, new int[]{4}, -1));
+        assertArrayEquals(new int[]{0, 0}, numJ.loadtxt(write("empty.txt", "# nothing\n"), DType.FLOAT64).shapeArray());
+    }
+
+    /**
+     * Tests that missing and malformed fields are filled.
+     */
+    @Test
+    void testGenfromtxt() throws IOException {
+        String csv = write("missing.csv", "1,,3\n4,x,6\n7\n");
+        assertArrayEquals(new double[]{1, Double.NaN, 3, 4, Double.NaN, 6, 7, Double.NaN, Double.NaN},
+                (double[]) numJ.genfromtxt(csv, DType.FLOAT64, ',').storage().array());
+        assertArrayEquals(new long[]{3, -1, 6, -1}, (long[]) numJ.genfromtxt(csv, DType.INT64, ',', 0, new int[]{2, 1}, 2, -1)
+                .storage().array());
+        assertThrows(IOException.class, () -> numJ.genfromtxt(write("long.csv", "1,2\n3,4,5\n"), DType.FLOAT64, ','));
+    }
+
+    /**
+     * Tests that arrays written as text read back exactly, on a file large enough to be split into several parts.
+     */
+    @Test
+    void testRoundTrip() throws IOException, ShapeException {
+        int rows = 150000;
+        int columns = 8;
+        Random random = new Random(11);
+        double[] values = new double[rows * columns];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 3 == 0 ? random.nextInt(1000) : random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+        }
+        try (ExecutionContext context = ExecutionContext.create(4)) {
+            ExecutionContext.setDefault(context);
+            NDArray matrix = numJ.array(values).reshape(rows, columns);
+            String path = directory.resolve("matrix.csv").toString();
+            numJ.savetxt(path, matrix, ',');
+            assertTrue(Files.size(directory.resolve("matrix.csv")) > 16 << 20);
+            assertArrayEquals(values, (double[]) numJ.loadtxt(path, DType.FLOAT64, ',', 0, null, -1).storage().array());
+
+            NDArray head = numJ.loadtxt(path, DType.FLOAT64, ',', 10, new int[]{7}, 100001);
+            assertArrayEquals(new int[]{100001, 1}, head.shapeArray());
+            for (int i = 0; i < 100001; i++) {
+                assertEquals(values[(i + 10) * columns + 7], head.storage().getDouble(i));
+            }
+
+            NDArray floats = numJ.array(new float[]{0.1f, -3, Float.NaN, 1e-30f});
+            numJ.savetxt(path, floats);
+            assertEquals("0.1\n-3\nnan\n1.0E-30\n", new String(Files.readAllBytes(directory.resolve("matrix.csv")),
+                    StandardCharsets.US_ASCII));
+            assertArrayEquals(new float[]{0.1f, -3, Float.NaN, 1e-30f}, (float[]) numJ.loadtxt(path, DType.FLOAT32).storage().array());
+            NDArray longs = numJ.array(new long[][]{{Long.MIN_VALUE, 0}, {-7, 12}}).transpose();
+            numJ.savetxt(path, longs, '\t');
+            assertArrayEquals((long[]) longs.copy().storage().array(), (long[]) numJ.loadtxt(path, DType.INT64).storage().array());
+            assertThrows(ShapeException.class, () -> numJ.savetxt(path, numJ.zeros(new int[]{2, 2, 2})));
+        }
+    }
+}
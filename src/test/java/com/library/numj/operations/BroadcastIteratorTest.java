@@ -0,0 +1,141 @@
+package com.library.numj.operations;
+
+import com.library.numj.exceptions.ShapeException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the BroadcastIterator class.
+ * It covers dimension collapsing, broadcast strides and incremental offsets.
+ */
+class BroadcastIteratorTest {
+
+    /**
+     * Tests that contiguous operands collapse into a single inner run.
+     */
+    @Test
+    void testContiguousOperandsCollapseToOneRun() throws ShapeException {
+        int[] shape = {2, 3, 4};
+        long[] strides = {12, 4, 1};
+        BroadcastIterator iterator = new BroadcastIterator(shape, new long[]{0, 5},
+                new int[][]{shape, shape}, new long[][]{strides, strides});
+        assertEquals(1, iterator.ndim());
+        assertTrue(iterator.next());
+        assertEquals(24, iterator.innerSize());
+        assertEquals(5, iterator.offset(1));
+        assertEquals(1, iterator.innerStride(1));
+        assertFalse(iterator.next());
+    }
+
+    /**
+     * Tests that broadcast dimensions get a stride of 0 and offsets advance per run.
+     */
+    @Test
+    void testBroadcastDimensionHasZeroStride() throws ShapeException {
+        int[] shape = {3, 4};
+        BroadcastIterator iterator = new BroadcastIterator(shape, new long[]{0, 0},
+                new int[][]{shape, {4}}, new long[][]{{4, 1}, {1}});
+        int runs = 0;
+        while (iterator.next()) {
+            assertEquals(4, iterator.innerSize());
+            assertEquals(runs * 4, iterator.offset(0));
+            assertEquals(0, iterator.offset(1));
+            assertEquals(1, iterator.innerStride(1));
+            runs++;
+        }
+        assertEquals(3, runs);
+
+        BroadcastIterator column = new BroadcastIterator(shape, new long[]{0, 0},
+                new int[][]{shape, {3, 1}}, new long[][]{{4, 1}, {1, 1}});
+        assertTrue(column.next());
+        assertEquals(0, column.innerStride(1));
+        assertTrue(column.next());
+        assertEquals(1, column.offset(1));
+    }
+
+    /**
+     * Tests that incompatible shapes are rejected.
+     */
+    @Test
+    void testIncompatibleShapes() {
+        assertThrows(ShapeException.class, () -> new BroadcastIterator(new int[]{2, 3}, new long[]{0},
+                new int[][]{{2, 4}}, new long[][]{{4, 1}}));
+    }
+
+    /**
+     * Tests that a range starts and ends in the middle of runs and skips the elements outside it.
+     */
+    @Test
+    void testRangeStartsInsideRun() throws ShapeException {
+        int[] shape = {3, 4};
+        BroadcastIterator iterator = new BroadcastIterator(shape, new long[]{0, 0},
+                new int[][]{shape, {3, 1}}, new long[][]{{4, 1}, {1, 1}});
+        BroadcastIterator range = iterator.range(2, 9);
+        assertTrue(range.next());
+        assertEquals(2, range.innerSize());
+        assertEquals(2, range.offset(0));
+        assertEquals(0, range.offset(1));
+        assertTrue(range.next());
+        assertEquals(4, range.innerSize());
+        assertEquals(4, range.offset(0));
+        assertEquals(1, range.offset(1));
+        assertTrue(range.next());
+        assertEquals(1, range.innerSize());
+        assertEquals(8, range.offset(0));
+        assertFalse(range.next());
+        assertThrows(IllegalArgumentException.class, () -> iterator.range(5, 13));
+    }
+
+    /**
+     * Tests that positions beyond the range of an int are walked and long inner dimensions are split into runs.
+     */
+    @Test
+    void testLongPositionsAndRuns() throws ShapeException {
+        int[] shape = {3, BroadcastIterator.MAX_RUN + 10};
+        long rowStride = 1L << 32;
+        BroadcastIterator iterator = new BroadcastIterator(shape, new long[]{rowStride, 0},
+                new int[][]{shape, {shape[1]}}, new long[][]{{rowStride, 1}, {1}});
+        assertTrue(iterator.next());
+        assertEquals(BroadcastIterator.MAX_RUN, iterator.innerSize());
+        assertEquals(rowStride, iterator.offset(0));
+        assertTrue(iterator.next());
+        assertEquals(10, iterator.innerSize());
+        assertEquals(rowStride + BroadcastIterator.MAX_RUN, iterator.offset(0));
+        assertEquals(BroadcastIterator.MAX_RUN, iterator.offset(1));
+        assertTrue(iterator.next());
+        assertEquals(2 * rowStride, iterator.offset(0));
+        assertEquals(0, iterator.offset(1));
+
+        BroadcastIterator range = iterator.range(2L * shape[1] + 5, 3L * shape[1]);
+        assertTrue(range.next());
+        assertEquals(3 * rowStride + 5, range.offset(0));
+        assertEquals(BroadcastIterator.MAX_RUN, range.innerSize());
+        assertTrue(range.next());
+        assertEquals(5, range.innerSize());
+        assertFalse(range.next());
+    }
+
+    /**
+     * Tests that column-major operands are walked in memory order and collapse like row-major ones.
+     */
+    @Test
+    void testColumnMajorOperandsWalkedInMemoryOrder() throws ShapeException {
+        int[] shape = {2, 3, 4};
+        long[] fortran = {1, 2, 6};
+        BroadcastIterator iterator = new BroadcastIterator(shape, new long[]{0, 0},
+                new int[][]{shape, shape}, new long[][]{fortran, fortran});
+        assertEquals(1, iterator.ndim());
+        assertTrue(iterator.next());
+        assertEquals(24, iterator.innerSize());
+        assertEquals(1, iterator.innerStride(0));
+
+        // Conflicting layouts keep the row-major order of the shape
+        BroadcastIterator mixed = new BroadcastIterator(shape, new long[]{0, 0},
+                new int[][]{shape, shape}, new long[][]{{12, 4, 1}, fortran});
+        assertTrue(mixed.next());
+        assertEquals(4, mixed.innerSize());
+        assertEquals(1, mixed.innerStride(0));
+        assertEquals(6, mixed.innerStride(1));
+    }
+}
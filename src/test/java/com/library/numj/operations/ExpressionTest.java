@@ -0,0 +1,86 @@
+package com.library.numj.operations;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.exceptions.ShapeException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the Expression class.
+ * It covers fused evaluation against eager results, shared sub-expressions and output handling.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+class ExpressionTest {
+    private final NumJ numJ = new NumJ();
+
+    /**
+     * Tests that a fused expression gives the same values and type as the eager operations.
+     */
+    @Test
+    void testFusedMatchesEager() throws ShapeException {
+        NDArray a = numJ.arange(0, 12, new int[]{3, 4});
+        NDArray b = numJ.array(new double[]{0.5, 1.5, 2.5, 3.5});
+        NDArray c = numJ.arange(1, 4, new int[]{3, 1});
+
+        NDArray eager = numJ.divide(numJ.add(numJ.multiply(a, b), c), c);
+        NDArray fused = a.lazy().multiply(b).add(c).divide(c).evaluate();
+        assertEquals(eager.type(), fused.type());
+        assertEquals(eager.shape(), fused.shape());
+        assertArrayEquals((double[]) eager.storage().array(), (double[]) fused.storage().array());
+    }
+
+    /**
+     * Tests that integer nodes wrap around to their own width like eager operations.
+     */
+    @Test
+    void testIntegerNodesKeepTheirWidth() throws ShapeException {
+        NDArray bytes = numJ.array(new byte[]{100, 120});
+        Expression doubled = bytes.lazy().add(bytes);
+        assertEquals(DType.INT8, doubled.type());
+        NDArray eager = numJ.add(numJ.add(bytes, bytes), numJ.array(new long[]{1}));
+        NDArray fused = doubled.add(numJ.array(new long[]{1})).evaluate();
+        assertArrayEquals((long[]) eager.storage().array(), (long[]) fused.storage().array());
+
+        NDArray inverted = doubled.invert().evaluate();
+        assertArrayEquals(new byte[]{(byte) ~(byte) 200, (byte) ~(byte) 240}, (byte[]) inverted.storage().array());
+    }
+
+    /**
+     * Tests that a shared sub-expression and an aliased output are handled.
+     */
+    @Test
+    void testSharedNodesAndOutput() throws ShapeException {
+        NDArray x = numJ.array(new double[]{1, 2, 3, 4});
+        Expression square = x.lazy().multiply(x);
+        Expression sum = square.add(square);
+        assertArrayEquals(new double[]{2, 8, 18, 32}, (double[]) sum.evaluate().storage().array());
+
+        // Write the reversed sum back into x while it is being read
+        NDArray reversed = x.slice(com.library.numj.Slice.step(-1));
+        sum.evaluateInto(reversed);
+        assertArrayEquals(new double[]{32, 18, 8, 2}, (double[]) x.storage().array());
+
+        assertThrows(IllegalArgumentException.class, () -> sum.evaluateInto(numJ.zeros(new int[]{4}, DType.INT32)));
+        assertThrows(ShapeException.class, () -> x.lazy().add(numJ.array(new double[]{1, 2})));
+        assertThrows(UnsupportedOperationException.class, () -> x.lazy().invert());
+    }
+
+    /**
+     * Tests that a deep graph whose every node is shared is evaluated in time linear in its depth.
+     */
+    @Test
+    @Timeout(10)
+    void testDeepSharedGraph() throws ShapeException {
+        NDArray x = numJ.array(new double[]{1, 2, 3});
+        Expression e = x.lazy();
+        for (int i = 0; i < 40; i++) {
+            e = e.add(e);
+        }
+        double scale = Math.pow(2, 40);
+        assertArrayEquals(new double[]{scale, 2 * scale, 3 * scale}, (double[]) e.evaluate().storage().array());
+    }
+}
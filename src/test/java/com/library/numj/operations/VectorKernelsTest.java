@@ -0,0 +1,165 @@
+package com.library.numj.operations;
+
+import com.library.numj.enums.OperationType;
+import com.library.numj.storage.Storage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the contiguous loops of PrimitiveKernels, which hand whole vectors to
+ * VectorKernels. Run from target/classes they test the scalar loops; the simd profile runs them again with
+ * failsafe against the multi-release JAR and the vector module, where the SIMD loops do the leading elements.
+ */
+class VectorKernelsTest {
+    /** Lengths below, at and around multiples of every vector length up to 512 bits. */
+    private static final int[] LENGTHS = {0, 1, 3, 4, 7, 8, 9, 15, 16, 17, 31, 33, 64, 100, 1023};
+    private static final OperationType[] ARITHMETIC = {OperationType.ADDITION, OperationType.SUBTRACTION,
+            OperationType.MULTIPLICATION, OperationType.DIVISION, OperationType.MODULO};
+    private static final OperationType[] INTEGER = {OperationType.ADDITION, OperationType.SUBTRACTION,
+            OperationType.MULTIPLICATION, OperationType.DIVISION, OperationType.MODULO, OperationType.BITWISE_AND,
+            OperationType.BITWISE_OR, OperationType.BITWISE_XOR};
+
+    private final Random random = new Random(42);
+
+    /**
+     * Tests that SIMD loops are used exactly when the run asks for them, the simd profile setting numj.test.simd.
+     */
+    @Test
+    void testAvailability() {
+        assertEquals(Boolean.getBoolean("numj.test.simd"), VectorKernels.AVAILABLE);
+    }
+
+    /**
+     * Tests FLOAT64 and FLOAT32 loops against scalar arithmetic at every length and a misaligned offset.
+     */
+    @Test
+    void testFloatingPoint() {
+        for (int n : LENGTHS) {
+            for (int offset = 0; offset < 2; offset++) {
+                double[] x = new double[n + offset], y = new double[n + offset];
+                float[] fx = new float[n + offset], fy = new float[n + offset];
+                for (int i = 0; i < n + offset; i++) {
+                    x[i] = random.nextGaussian() * 100;
+                    y[i] = random.nextGaussian() * 100;
+                    fx[i] = (float) x[i];
+                    fy[i] = (float) y[i];
+                }
+                for (OperationType op : ARITHMETIC) {
+                    double[] z = new double[n + offset];
+                    float[] fz = new float[n + offset];
+                    PrimitiveKernels.float64(op, z, offset, 1, x, offset, 1, y, offset, 1, n);
+                    PrimitiveKernels.float32(op, fz, offset, 1, fx, offset, 1, fy, offset, 1, n);
+                    for (int i = offset; i < n + offset; i++) {
+                        assertEquals(apply(op, x[i], y[i]), z[i], op + " at " + i + " of " + n);
+                        assertEquals((float) apply(op, fx[i], fy[i]), fz[i], op + " at " + i + " of " + n);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests INT64 and INT32 loops and inversions against scalar arithmetic, overflow included.
+     */
+    @Test
+    void testIntegers() {
+        for (int n : LENGTHS) {
+            for (int offset = 0; offset < 2; offset++) {
+                long[] x = new long[n + offset], y = new long[n + offset];
+                int[] ix = new int[n + offset], iy = new int[n + offset];
+                for (int i = 0; i < n + offset; i++) {
+                    x[i] = random.nextLong();
+                    y[i] = random.nextInt(2000) - 1000 | 1;
+                    ix[i] = random.nextInt();
+                    iy[i] = (int) y[i];
+                }
+                for (OperationType op : INTEGER) {
+                    long[] z = new long[n + offset];
+                    int[] iz = new int[n + offset];
+                    PrimitiveKernels.int64(op, z, offset, 1, x, offset, 1, y, offset, 1, n);
+                    PrimitiveKernels.int32(op, iz, offset, 1, ix, offset, 1, iy, offset, 1, n);
+                    for (int i = offset; i < n + offset; i++) {
+                        assertEquals(apply(op, x[i], y[i]), z[i], op + " at " + i + " of " + n);
+                        assertEquals((int) apply(op, ix[i], iy[i]), iz[i], op + " at " + i + " of " + n);
+                    }
+                }
+                long[] z = new long[n + offset];
+                int[] iz = new int[n + offset];
+                PrimitiveKernels.invertInt64(z, offset, 1, x, offset, 1, n);
+                PrimitiveKernels.invertInt32(iz, offset, 1, ix, offset, 1, n);
+                for (int i = offset; i < n + offset; i++) {
+                    assertEquals(~x[i], z[i]);
+                    assertEquals(~ix[i], iz[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a zero divisor raises ArithmeticException whether it falls in the vectorizable part or the tail.
+     */
+    @Test
+    void testIntegerDivisionByZero() {
+        int n = 37;
+        for (int zero : new int[]{2, n - 1}) {
+            long[] y = new long[n];
+            int[] iy = new int[n];
+            Arrays.fill(y, 3);
+            Arrays.fill(iy, 3);
+            y[zero] = 0;
+            iy[zero] = 0;
+            for (OperationType op : new OperationType[]{OperationType.DIVISION, OperationType.MODULO}) {
+                assertThrows(ArithmeticException.class,
+                        () -> PrimitiveKernels.int64(op, new long[n], 0, 1, new long[n], 0, 1, y, 0, 1, n));
+                assertThrows(ArithmeticException.class,
+                        () -> PrimitiveKernels.int32(op, new int[n], 0, 1, new int[n], 0, 1, iy, 0, 1, n));
+            }
+        }
+    }
+
+    /**
+     * Tests the FLOAT64 dot product against a scalar sum, up to rounding from the different summation order.
+     */
+    @Test
+    void testDot() {
+        for (int n : LENGTHS) {
+            double[] x = new double[n], y = new double[n];
+            double expected = 0, magnitude = 0;
+            for (int i = 0; i < n; i++) {
+                x[i] = random.nextGaussian();
+                y[i] = random.nextGaussian();
+                expected += x[i] * y[i];
+                magnitude += Math.abs(x[i] * y[i]);
+            }
+            double dot = Blas.dot(Storage.wrap(x), 0, 1, Storage.wrap(y), 0, 1, n);
+            assertEquals(expected, dot, 1e-12 * (1 + magnitude), "dot of " + n);
+        }
+    }
+
+    private static double apply(OperationType op, double x, double y) {
+        switch (op) {
+            case ADDITION: return x + y;
+            case SUBTRACTION: return x - y;
+            case MULTIPLICATION: return x * y;
+            case DIVISION: return x / y;
+            default: return x % y;
+        }
+    }
+
+    private static long apply(OperationType op, long x, long y) {
+        switch (op) {
+            case ADDITION: return x + y;
+            case SUBTRACTION: return x - y;
+            case MULTIPLICATION: return x * y;
+            case DIVISION: return x / y;
+            case MODULO: return x % y;
+            case BITWISE_AND: return x & y;
+            case BITWISE_OR: return x | y;
+            default: return x ^ y;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.library.numj.parallel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the ExecutionContext class.
+ * It covers the shared default context, custom thread factories and executors, and the context lifecycle.
+ */
+class ExecutionContextTest {
+
+    @AfterEach
+    void restoreDefault() {
+        ExecutionContext.setDefault(null);
+    }
+
+    /**
+     * Tests that the library shares one context and that closing it restores the common one.
+     */
+    @Test
+    void testCloseRestoresCommonContext() {
+        ExecutionContext common = ExecutionContext.getDefault();
+        assertSame(common, ExecutionContext.getDefault());
+
+        ExecutionContext context = ExecutionContext.create(2);
+        ExecutionContext.setDefault(context);
+        assertSame(context, ExecutionContext.getDefault());
+        context.close();
+        assertTrue(context.isClosed());
+        assertSame(common, ExecutionContext.getDefault());
+        assertThrows(IllegalStateException.class, () -> context.forEachChunk(100, 10, (start, end) -> { }));
+        assertThrows(IllegalStateException.class, () -> ExecutionContext.setDefault(context));
+    }
+
+    /**
+     * Tests that a context built from a thread factory runs chunks on its threads and covers the whole range.
+     */
+    @Test
+    void testThreadFactoryContext() {
+        Set<String> threadNames = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        AtomicLong sum = new AtomicLong();
+        try (ExecutionContext context = ExecutionContext.create(3, runnable -> {
+            Thread thread = new Thread(runnable, "numj-test-worker");
+            thread.setDaemon(true);
+            return thread;
+        })) {
+            context.forEachChunk(10_000, 100, (start, end) -> {
+                threadNames.add(Thread.currentThread().getName());
+                for (long i = start; i < end; i++) {
+                    sum.addAndGet(i);
+                }
+            });
+        }
+        assertEquals(10_000L * 9_999 / 2, sum.get());
+        assertTrue(threadNames.stream().allMatch(name -> name.equals("numj-test-worker")
+                || name.equals(Thread.currentThread().getName())));
+    }
+
+    /**
+     * Tests that a caller supplied executor propagates failures and is left running on close.
+     */
+    @Test
+    void testCallerExecutorIsNotShutDown() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ExecutionContext context = ExecutionContext.of(executor, 2);
+            assertThrows(ArithmeticException.class, () -> context.forEachChunk(1000, 10, (start, end) -> {
+                if (start == 500) {
+                    throw new ArithmeticException("/ by zero");
+                }
+            }));
+            context.close();
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that work submitted from every thread of a caller supplied executor completes instead of waiting
+     * on helper tasks that cannot start while the pool is saturated.
+     */
+    @Test
+    @Timeout(10)
+    void testCallsFromSaturatedExecutor() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ExecutionContext context = ExecutionContext.of(executor, 2);
+            ExecutionContext.setDefault(context);
+            CountDownLatch started = new CountDownLatch(2);
+            AtomicLong sum = new AtomicLong();
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                calls.add(executor.submit(() -> {
+                    // Both pool threads are busy before either splits its work
+                    started.countDown();
+                    started.await();
+                    ExecutionContext.getDefault().forEachChunk(1 << 20, 1 << 10, (start, end) -> {
+                        for (long k = start; k < end; k++) {
+                            sum.addAndGet(k);
+                        }
+                    });
+                    return null;
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+            assertEquals(2 * ((1L << 20) * ((1L << 20) - 1) / 2), sum.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.library.numj.parallel;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.exceptions.ShapeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the ExecutionEngine class.
+ * It covers chunk coverage, exception propagation and parallel element-wise operations.
+ */
+class ExecutionEngineTest {
+
+    private final ExecutionContext context = ExecutionContext.create(4);
+
+    @BeforeEach
+    void useContext() {
+        ExecutionContext.setDefault(context);
+    }
+
+    @AfterEach
+    void restoreDefaults() {
+        context.close();
+        ExecutionEngine.setThreshold(ExecutionEngine.DEFAULT_THRESHOLD);
+        ExecutionEngine.setChunkSize(ExecutionEngine.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Tests that every position is visited exactly once when the work is split.
+     */
+    @Test
+    void testChunksCoverEveryElementOnce() {
+        ExecutionEngine.setThreshold(0);
+        ExecutionEngine.setChunkSize(7);
+        AtomicIntegerArray visits = new AtomicIntegerArray(1000);
+        ExecutionEngine.forEachChunk(visits.length(), (start, end) -> {
+            assertTrue(end - start <= 7);
+            for (long i = start; i < end; i++) {
+                visits.incrementAndGet((int) i);
+            }
+        });
+        for (int i = 0; i < visits.length(); i++) {
+            assertEquals(1, visits.get(i));
+        }
+    }
+
+    /**
+     * Tests that an exception thrown by a chunk reaches the caller.
+     */
+    @Test
+    void testChunkExceptionIsRethrown() {
+        ExecutionEngine.setThreshold(0);
+        ExecutionEngine.setChunkSize(16);
+        assertThrows(ArithmeticException.class, () -> ExecutionEngine.forEachChunk(1000, (start, end) -> {
+            if (start <= 500 && 500 < end) {
+                throw new ArithmeticException("/ by zero");
+            }
+        }));
+    }
+
+    /**
+     * Tests that chunked broadcasting operations produce the same result as a sequential run.
+     */
+    @Test
+    void testParallelBroadcastingMatchesSequential() throws ShapeException {
+        NumJ numJ = new NumJ();
+        NDArray column = numJ.arange(0, 37, new int[]{37, 1});
+        NDArray row = numJ.arange(0, 53);
+        int[] expected = (int[]) numJ.add(numJ.transpose(numJ.multiply(column, row)), row.reshape(53, 1)).storage().array();
+
+        ExecutionEngine.setThreshold(0);
+        ExecutionEngine.setChunkSize(10);
+        int[] actual = (int[]) numJ.add(numJ.transpose(numJ.multiply(column, row)), row.reshape(53, 1)).storage().array();
+        assertArrayEquals(expected, actual);
+    }
+}
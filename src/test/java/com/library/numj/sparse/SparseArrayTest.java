@@ -0,0 +1,157 @@
+package com.library.numj.sparse;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.enums.DType;
+import com.library.numj.enums.Order;
+import com.library.numj.enums.SparseFormat;
+import com.library.numj.exceptions.ShapeException;
+import com.library.numj.parallel.ExecutionContext;
+import com.library.numj.storage.Storage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the SparseArray class and the sparse operations.
+ */
+class SparseArrayTest {
+    private final NumJ numJ = new NumJ();
+    private final double[][] values = {{0, 2, 0, 1}, {0, 0, 0, 0}, {3, 0, 4, 0}};
+
+    /**
+     * Tests the conversions between the sparse layouts and dense arrays.
+     */
+    @Test
+    void testConversions() throws ShapeException {
+        NDArray dense = numJ.array(values);
+        SparseArray csr = numJ.sparse(dense);
+        assertEquals(SparseFormat.CSR, csr.format());
+        assertArrayEquals(new int[]{0, 2, 2, 4}, csr.indptr());
+        assertArrayEquals(new int[]{1, 3, 0, 2}, csr.indices());
+        assertArrayEquals(new double[]{2, 1, 3, 4}, (double[]) csr.data().array());
+        assertEquals(4 * 8 + 8 * 4, csr.nbytes());
+
+        SparseArray csc = numJ.sparse(dense, SparseFormat.CSC);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, csc.indptr());
+        assertArrayEquals(new int[]{2, 0, 2, 0}, csc.indices());
+        assertArrayEquals(csc.indices(), csr.toCsc().indices());
+        assertArrayEquals(csr.indices(), csc.toCsr().indices());
+        assertSame(csr.indices(), csr.transpose().indices());
+        assertEquals(Order.F, csc.toDense().order());
+
+        SparseArray coo = numJ.sparse(dense.transpose(), SparseFormat.COO);
+        assertArrayEquals(new int[]{4, 3}, coo.shapeArray());
+        assertArrayEquals(new int[]{0, 1, 2, 3}, coo.rowIndices());
+        for (SparseArray matrix : new SparseArray[]{csr, csc, coo.transpose(), csr.toCoo(), coo.transpose().toCsr(), coo.toCsc().transpose()}) {
+            assertArrayEquals((double[]) dense.storage().array(), (double[]) matrix.toDense().copy().storage().array());
+        }
+
+        SparseArray duplicates = SparseArray.coo(2, 3, new int[]{1, 0, 1, 1}, new int[]{2, 1, 0, 2},
+                Storage.wrap(new int[]{5, 6, 7, 8}));
+        assertArrayEquals(new int[]{0, 6, 0, 7, 0, 13}, (int[]) duplicates.toDense().storage().array());
+        SparseArray summed = duplicates.toCsr();
+        assertArrayEquals(new int[]{0, 1, 3}, summed.indptr());
+        assertArrayEquals(new int[]{1, 0, 2}, summed.indices());
+        assertArrayEquals(new int[]{6, 7, 13}, (int[]) summed.data().array());
+        SparseArray unsorted = SparseArray.csr(1, 3, new int[]{0, 3}, new int[]{2, 0, 2}, Storage.wrap(new long[]{1, 2, 3}));
+        assertArrayEquals(new int[]{0, 2}, unsorted.indices());
+        assertArrayEquals(new long[]{2, 4}, (long[]) unsorted.data().array());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> SparseArray.csr(2, 2, new int[]{0, 2, 1}, new int[]{0, 1}, Storage.wrap(new double[2])));
+        assertThrows(IllegalArgumentException.class,
+                () -> SparseArray.coo(2, 2, new int[]{0}, new int[]{2}, Storage.wrap(new double[1])));
+        assertThrows(ShapeException.class, () -> numJ.sparse(numJ.zeros(new int[]{2, 2, 2}, DType.FLOAT64)));
+    }
+
+    /**
+     * Tests that element-wise operations match the dense results and store no zeros.
+     */
+    @Test
+    void testElementwiseOperations() throws ShapeException {
+        NDArray dense = numJ.array(values);
+        NDArray other = numJ.array(new double[][]{{1, -2, 0, 0}, {0, 5, 0, 0}, {0, 0, 1, 0}});
+        SparseArray a = numJ.sparse(dense);
+        SparseArray b = numJ.sparse(other, SparseFormat.COO);
+
+        SparseArray sum = numJ.add(a, b);
+        assertArrayEquals(new double[]{1, 0, 0, 1, 0, 5, 0, 0, 3, 0, 5, 0}, (double[]) sum.toDense().storage().array());
+        assertEquals(5, sum.nnz());
+        SparseArray difference = numJ.subtract(numJ.sparse(dense, SparseFormat.CSC), b);
+        assertEquals(SparseFormat.CSC, difference.format());
+        assertArrayEquals((double[]) numJ.subtract(dense, other).storage().array(),
+                (double[]) difference.toDense().copy().storage().array());
+        SparseArray product = numJ.multiply(a, b);
+        assertArrayEquals(new int[]{0, 1, 1, 2}, product.indptr());
+        assertArrayEquals(new double[]{-4, 4}, (double[]) product.data().array());
+
+        NDArray row = numJ.array(new double[]{1, 0, 2, 3});
+        SparseArray scaled = numJ.multiply(a, row);
+        assertArrayEquals((double[]) numJ.multiply(dense, row).storage().array(), (double[]) scaled.toDense().storage().array());
+        assertEquals(3, scaled.nnz());
+        SparseArray columns = numJ.multiply(numJ.sparse(dense, SparseFormat.CSC), numJ.array(new double[][]{{2}, {1}, {-1}}));
+        assertArrayEquals(new double[]{0, 4, 0, 2, 0, 0, 0, 0, -3, 0, -4, 0}, (double[]) columns.toDense().copy().storage().array());
+
+        SparseArray integers = numJ.sparse(numJ.array(new int[][]{{0, 3}, {-2, 0}}));
+        assertEquals(DType.INT32, numJ.multiply(integers, 2).type());
+        assertArrayEquals(new int[]{0, 6, -4, 0}, (int[]) numJ.multiply(integers, 2).toDense().storage().array());
+        assertArrayEquals(new double[]{0, 1.5, -1, 0}, (double[]) numJ.multiply(integers, 0.5).toDense().storage().array());
+        assertEquals(0, numJ.multiply(integers, 0).nnz());
+        assertThrows(ShapeException.class, () -> numJ.add(a, integers));
+        assertThrows(ShapeException.class, () -> numJ.multiply(a, numJ.array(new double[]{1, 2})));
+    }
+
+    /**
+     * Tests sparse-dense products in every layout against dense products, in parallel on a large matrix.
+     */
+    @Test
+    void testProducts() throws ShapeException {
+        NDArray dense = numJ.array(values);
+        NDArray vector = numJ.array(new double[]{1, 2, 3, 4});
+        NDArray matrix = numJ.arange(0, 8, DType.FLOAT64, new int[]{4, 2});
+        NDArray left = numJ.arange(0, 6, DType.FLOAT64, new int[]{2, 3});
+        for (SparseFormat format : SparseFormat.values()) {
+            SparseArray a = numJ.sparse(dense, format);
+            assertArrayEquals(new double[]{8, 0, 15}, (double[]) numJ.matmul(a, vector).storage().array());
+            assertArrayEquals((double[]) numJ.matmul(dense, matrix).storage().array(),
+                    (double[]) numJ.matmul(a, matrix).storage().array());
+            assertArrayEquals((double[]) numJ.matmul(dense, matrix.transpose().copy().transpose()).storage().array(),
+                    (double[]) numJ.matmul(a, matrix.transpose().copy().transpose()).storage().array());
+            assertArrayEquals((double[]) numJ.matmul(left, dense).storage().array(),
+                    (double[]) numJ.matmul(left, a).copy().storage().array());
+            assertArrayEquals(new double[]{9, 2, 12, 1}, (double[]) numJ.matmul(numJ.array(new double[]{1, 5, 3}), a).storage().array());
+        }
+        assertArrayEquals(new long[]{8, 0, 15}, (long[]) numJ.matmul(numJ.sparse(numJ.array(new long[][]{{0, 2, 0, 1}, {0, 0, 0, 0}, {3, 0, 4, 0}})),
+                numJ.array(new long[]{1, 2, 3, 4})).storage().array());
+        assertThrows(ShapeException.class, () -> numJ.matmul(numJ.sparse(dense), numJ.array(new double[]{1, 2, 3})));
+
+        int rows = 3000;
+        int columns = 2000;
+        Random random = new Random(3);
+        double[][] sparse = new double[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            // A few dense rows make an even split of the rows unbalanced
+            double density = i % 500 == 0 ? 0.9 : 0.01;
+            for (int j = 0; j < columns; j++) {
+                if (random.nextDouble() < density) sparse[i][j] = random.nextGaussian();
+            }
+        }
+        double[] x = new double[columns];
+        for (int j = 0; j < columns; j++) x[j] = random.nextDouble();
+        try (ExecutionContext context = ExecutionContext.create(4)) {
+            ExecutionContext.setDefault(context);
+            NDArray a = numJ.array(sparse);
+            NDArray v = numJ.array(x);
+            SparseArray csr = numJ.sparse(a);
+            assertTrue(csr.nbytes() * 10 < a.storage().length() * 8);
+            assertArrayEquals((double[]) numJ.matmul(a, v).storage().array(), (double[]) numJ.matmul(csr, v).storage().array(), 1e-10);
+            assertArrayEquals((double[]) a.storage().array(), (double[]) csr.toDense().storage().array());
+            NDArray block = numJ.arange(0, columns * 3, DType.FLOAT64, new int[]{columns, 3});
+            assertArrayEquals((double[]) numJ.matmul(a, block).storage().array(),
+                    (double[]) numJ.matmul(numJ.sparse(a, SparseFormat.CSC), block).storage().array(), 1e-8);
+        }
+    }
+}
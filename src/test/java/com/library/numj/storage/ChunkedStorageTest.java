@@ -0,0 +1,67 @@
+package com.library.numj.storage;
+
+import com.library.numj.NDArray;
+import com.library.numj.NumJ;
+import com.library.numj.Slice;
+import com.library.numj.enums.DType;
+import com.library.numj.exceptions.ShapeException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the ChunkedStorage class.
+ * Small chunks stand in for the 2^30 element chunks of arrays larger than a Java array.
+ */
+class ChunkedStorageTest {
+
+    /**
+     * Tests element access and copies across chunk boundaries.
+     */
+    @Test
+    void testAccessAcrossChunks() {
+        ChunkedStorage storage = new ChunkedStorage(DType.INT64, 37, 4);
+        assertEquals(3, storage.chunkCount());
+        assertEquals(16, storage.chunkLength());
+        assertEquals(5, storage.chunk(2).length());
+        assertFalse(storage.hasArray());
+        assertThrows(UnsupportedOperationException.class, storage::array);
+        for (long i = 0; i < storage.length(); i++) {
+            storage.setLong(i, i * 3);
+        }
+        assertEquals(45L, storage.get(15));
+        assertEquals(48.0, storage.getDouble(16));
+
+        Storage copy = Storage.allocate(DType.INT64, 20);
+        storage.copyTo(10, copy, 0, 20);
+        for (int i = 0; i < 20; i++) {
+            assertEquals((10 + i) * 3L, copy.getLong(i));
+        }
+        ChunkedStorage target = new ChunkedStorage(DType.INT64, 37, 3);
+        storage.copyTo(0, target, 0, 37);
+        assertEquals(108L, target.getLong(36));
+    }
+
+    /**
+     * Tests that element-wise operations on chunked arrays match the heap results.
+     */
+    @Test
+    void testOperationsOnChunkedArrays() throws ShapeException {
+        NumJ numJ = new NumJ();
+        ChunkedStorage storage = new ChunkedStorage(DType.FLOAT64, 24, 3);
+        for (long i = 0; i < storage.length(); i++) {
+            storage.setDouble(i, i + 0.5);
+        }
+        NDArray chunked = numJ.array(storage, new int[]{4, 6});
+        NDArray heap = chunked.copy();
+        assertTrue(heap.storage().hasArray());
+
+        NDArray row = numJ.array(new double[]{1, 2, 3, 4, 5, 6});
+        assertArrayEquals((Object[]) numJ.add(heap, row).getArray(), (Object[]) numJ.add(chunked, row).getArray());
+        assertArrayEquals((Object[]) numJ.multiply(heap.transpose(), heap.transpose()).getArray(),
+                (Object[]) chunked.transpose().lazy().multiply(chunked.transpose()).evaluate().getArray());
+        chunked.slice(Slice.of(1, 3)).addi(chunked.slice(Slice.of(1, 3)));
+        assertEquals(2 * 6.5, storage.getDouble(6));
+        assertEquals(18.5, storage.getDouble(18));
+    }
+}